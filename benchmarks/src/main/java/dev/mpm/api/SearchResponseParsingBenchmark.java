@@ -0,0 +1,53 @@
+package dev.mpm.api;
+
+import dev.mpm.bench.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of search.maven.org responses (default and gav cores) at increasing sizes.
+ * Lives in dev.mpm.api to reach the package-private parse methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchResponseParsingBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int docs;
+
+    private final MavenCentralClient client = new MavenCentralClient();
+    private String searchResponse;
+    private String versionsResponse;
+
+    @Setup
+    public void setup() {
+        searchResponse = Fixtures.scaledResponse("search-response.json", docs);
+        versionsResponse = Fixtures.scaledResponse("versions-response.json", docs);
+    }
+
+    @Benchmark
+    public List<MavenCentralClient.Artifact> parseSearchResponse() {
+        return client.parseSearchResponse(searchResponse);
+    }
+
+    @Benchmark
+    public List<String> parseVersionsResponse() {
+        return client.parseVersionsResponse(versionsResponse);
+    }
+}
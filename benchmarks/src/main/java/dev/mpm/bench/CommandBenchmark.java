@@ -0,0 +1,66 @@
+package dev.mpm.bench;
+
+import dev.mpm.command.Command;
+import dev.mpm.command.SearchCommand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end Command.execute (HTTP round trip, parsing and rendering) against a
+ * local stand-in for search.maven.org. Console output is discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandBenchmark {
+
+    @Param({"10", "200"})
+    public int docs;
+
+    private StandInServer server;
+    private PrintStream originalOut;
+    private Command search;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new StandInServer(
+                Fixtures.scaledResponse("search-response.json", docs),
+                Fixtures.scaledResponse("versions-response.json", docs));
+        System.setProperty("mpm.search.url", server.searchUrl());
+
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        search = new SearchCommand();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+        System.clearProperty("mpm.search.url");
+        server.close();
+    }
+
+    @Benchmark
+    public int searchCommand() {
+        return search.execute(new String[]{"jackson", "--limit", String.valueOf(docs)});
+    }
+}
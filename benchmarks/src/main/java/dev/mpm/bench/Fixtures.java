@@ -0,0 +1,168 @@
+package dev.mpm.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recorded search.maven.org responses and generated pom.xml files used by the benchmarks.
+ */
+public final class Fixtures {
+
+    private static final Pattern DOC = Pattern.compile(
+            "\\{\"id\":\"[^\"]*\",\"g\":\"([^\"]+)\",\"a\":\"([^\"]+)\",\"latestVersion\":\"([^\"]+)\"");
+
+    private Fixtures() {}
+
+    /**
+     * Loads a fixture from the classpath (src/main/resources/fixtures).
+     */
+    public static String load(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown fixture: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Builds a response with the given number of docs by repeating the docs of a
+     * recorded response. Repeated docs get a numeric suffix on their artifactId (default core)
+     * or version (gav core) so they stay distinct.
+     */
+    public static String scaledResponse(String fixture, int docs) {
+        String json = load(fixture);
+        int arrayStart = json.indexOf("\"docs\":[") + "\"docs\":[".length();
+        int arrayEnd = arrayStart;
+        for (int depth = 1; depth > 0; arrayEnd++) {
+            char c = json.charAt(arrayEnd);
+            if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            }
+        }
+        arrayEnd--; // position of the closing ']'
+
+        List<String> recorded = splitDocs(json.substring(arrayStart, arrayEnd));
+        boolean gav = fixture.startsWith("versions");
+
+        StringBuilder sb = new StringBuilder(json.length() * Math.max(1, docs / recorded.size()));
+        sb.append(json, 0, arrayStart);
+        for (int i = 0; i < docs; i++) {
+            String doc = recorded.get(i % recorded.size());
+            int copy = i / recorded.size();
+            if (copy > 0) {
+                doc = gav
+                        ? doc.replaceFirst("\"v\":\"([^\"]+)\"", "\"v\":\"$1." + copy + "\"")
+                        : doc.replaceFirst("\"a\":\"([^\"]+)\"", "\"a\":\"$1-" + copy + "\"");
+            }
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(doc);
+        }
+        sb.append(json, arrayEnd, json.length());
+        return sb.toString();
+    }
+
+    /**
+     * Generates a pom.xml with the given number of dependencies.
+     */
+    public static String pom(int dependencies) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\"\n")
+                .append("         xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n")
+                .append("         xsi:schemaLocation=\"http://maven.apache.org/POM/4.0.0 http://maven.apache.org/xsd/maven-4.0.0.xsd\">\n")
+                .append("    <modelVersion>4.0.0</modelVersion>\n\n")
+                .append("    <groupId>com.example</groupId>\n")
+                .append("    <artifactId>bench</artifactId>\n")
+                .append("    <version>1.0.0-SNAPSHOT</version>\n\n")
+                .append("    <dependencies>\n");
+        for (int i = 0; i < dependencies; i++) {
+            sb.append("        <dependency>\n")
+                    .append("            <groupId>com.example.group").append(i % 50).append("</groupId>\n")
+                    .append("            <artifactId>artifact-").append(i).append("</artifactId>\n")
+                    .append("            <version>1.").append(i % 20).append(".0</version>\n");
+            if (i % 4 == 0) {
+                sb.append("            <scope>test</scope>\n");
+            }
+            sb.append("        </dependency>\n");
+        }
+        sb.append("    </dependencies>\n")
+                .append("</project>\n");
+        return sb.toString();
+    }
+
+    /**
+     * Gets the coordinates of the docs of a recorded default-core response.
+     *
+     * @return {groupId, artifactId, latestVersion} per doc
+     */
+    public static List<String[]> artifacts(String fixture) {
+        List<String[]> artifacts = new ArrayList<>();
+        Matcher matcher = DOC.matcher(load(fixture));
+        while (matcher.find()) {
+            artifacts.add(new String[] {matcher.group(1), matcher.group(2), matcher.group(3)});
+        }
+        return artifacts;
+    }
+
+    /**
+     * Writes a repository layout with a POM and a JAR of the given size for every artifact
+     * of the recorded search response, for {@link StandInServer} to serve. JAR content is
+     * random, so compression on the way does not flatter the numbers.
+     *
+     * @return the artifacts written, as {groupId, artifactId, version}
+     */
+    public static List<String[]> repository(Path directory, int jarBytes) throws IOException {
+        List<String[]> artifacts = artifacts("search-response.json");
+        Random random = new Random(42);
+        for (String[] gav : artifacts) {
+            Path versionDirectory = directory.resolve(gav[0].replace('.', '/')).resolve(gav[1]).resolve(gav[2]);
+            Files.createDirectories(versionDirectory);
+            String base = gav[1] + "-" + gav[2];
+            Files.writeString(versionDirectory.resolve(base + ".pom"),
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                    "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n" +
+                    "    <modelVersion>4.0.0</modelVersion>\n" +
+                    "    <groupId>" + gav[0] + "</groupId>\n" +
+                    "    <artifactId>" + gav[1] + "</artifactId>\n" +
+                    "    <version>" + gav[2] + "</version>\n" +
+                    "</project>\n");
+            byte[] jar = new byte[jarBytes];
+            random.nextBytes(jar);
+            Files.write(versionDirectory.resolve(base + ".jar"), jar);
+        }
+        return artifacts;
+    }
+
+    private static List<String> splitDocs(String docsJson) {
+        List<String> docs = new ArrayList<>();
+        int depth = 0;
+        int start = -1;
+        for (int i = 0; i < docsJson.length(); i++) {
+            char c = docsJson.charAt(i);
+            if (c == '{') {
+                if (depth++ == 0) {
+                    start = i;
+                }
+            } else if (c == '}' && --depth == 0) {
+                docs.add(docsJson.substring(start, i + 1));
+            }
+        }
+        return docs;
+    }
+}
@@ -0,0 +1,288 @@
+package dev.mpm.bench;
+
+import dev.mpm.api.MavenCentralClient;
+import dev.mpm.api.RepositoryClient;
+import dev.mpm.util.BandwidthLimiter;
+import dev.mpm.util.LocalRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Load test of mpm's network client against a {@link StandInServer}: N concurrent clients
+ * repeat a flow for a fixed time, then throughput and latency percentiles are printed.
+ *
+ * Flows:
+ *   search  - one search API query (MavenCentralClient.search, 20 rows)
+ *   install - what mpm install g:a does before Maven runs: the latest-version lookup, then
+ *             the POM and JAR downloads with checksum verification (RepositoryClient)
+ *
+ * Usage:
+ *   java -cp target/benchmarks.jar dev.mpm.bench.LoadTest [--flow search|install]
+ *       [--clients 50] [--duration 10] [--warmup 2] [--latency 20] [--jitter 0]
+ *       [--errors 0.0] [--bandwidth 0] [--jar-size 262144] [--docs 10] [--repository dir]
+ *
+ * Everything runs in-process on loopback with a throwaway mpm home and local repository, so
+ * it works without network access. The client-side rate limiter is disabled; injected 503s
+ * are still retried by the client as they would be against Maven Central.
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "flow", "search",
+            "clients", "50",
+            "duration", "10",
+            "warmup", "2",
+            "latency", "20",
+            "jitter", "0",
+            "errors", "0",
+            "bandwidth", "0",
+            "jar-size", "262144",
+            "docs", "10");
+
+    private final String flow;
+    private final MavenCentralClient client = new MavenCentralClient();
+    private final RepositoryClient repository = new RepositoryClient();
+    private final BandwidthLimiter unlimited = new BandwidthLimiter(0);
+    private final List<String[]> artifacts;
+    private final Path work;
+
+    private LoadTest(String flow, List<String[]> artifacts, Path work) {
+        this.flow = flow;
+        this.artifacts = artifacts;
+        this.work = work;
+    }
+
+    /**
+     * Operations and latencies of one run.
+     */
+    private static final class Result {
+        final long[] latencies;
+        final int failures;
+        final String firstFailure;
+        final long nanos;
+
+        Result(long[] latencies, int failures, String firstFailure, long nanos) {
+            this.latencies = latencies;
+            this.failures = failures;
+            this.firstFailure = firstFailure;
+            this.nanos = nanos;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        if (options == null) {
+            System.err.println("Usage: LoadTest [--flow search|install] [--clients N] [--duration s] [--warmup s]");
+            System.err.println("                [--latency ms] [--jitter ms] [--errors rate] [--bandwidth bytes/s]");
+            System.err.println("                [--jar-size bytes] [--docs N] [--repository dir]");
+            System.exit(2);
+            return;
+        }
+        String flow = options.get("flow");
+        if (!flow.equals("search") && !flow.equals("install")) {
+            System.err.println("Unknown flow: " + flow);
+            System.exit(2);
+            return;
+        }
+        int clients = Integer.parseInt(options.get("clients"));
+        int docs = Integer.parseInt(options.get("docs"));
+
+        Path work = Files.createTempDirectory("mpm-load");
+        Path served = options.containsKey("repository") ? Path.of(options.get("repository")) : work.resolve("served");
+        List<String[]> artifacts = options.containsKey("repository")
+                ? Fixtures.artifacts("search-response.json")
+                : Fixtures.repository(served, Integer.parseInt(options.get("jar-size")));
+
+        System.setProperty("mpm.home", work.resolve("home").toString());
+        System.setProperty("mpm.localRepository", work.resolve("m2").toString());
+        System.setProperty("mpm.ratelimit.disabled", "true");
+        System.setProperty("mpm.offline.detect", "false");
+
+        try (StandInServer server = StandInServer.builder(
+                        Fixtures.scaledResponse("search-response.json", docs),
+                        Fixtures.scaledResponse("versions-response.json", docs))
+                .latency(Long.parseLong(options.get("latency")))
+                .jitter(Long.parseLong(options.get("jitter")))
+                .errorRate(Double.parseDouble(options.get("errors")))
+                .bandwidth(Long.parseLong(options.get("bandwidth")))
+                .repository(served)
+                .start()) {
+            System.setProperty("mpm.search.url", server.searchUrl());
+            System.setProperty("mpm.repository.url", server.repositoryUrl());
+
+            LoadTest test = new LoadTest(flow, artifacts, work);
+            test.run(clients, Long.parseLong(options.get("warmup")));
+            long requestsBefore = server.requests();
+            long errorsBefore = server.injectedErrors();
+            Result result = test.run(clients, Long.parseLong(options.get("duration")));
+
+            System.out.printf("flow %s, %d clients, %.1f s; server latency %s ms, jitter %s ms, errors %s, bandwidth %s%n",
+                    flow, clients, result.nanos / 1e9, options.get("latency"), options.get("jitter"),
+                    options.get("errors"), "0".equals(options.get("bandwidth")) ? "unlimited"
+                            : options.get("bandwidth") + " B/s");
+            report(result);
+            System.out.printf("server: %d requests, %d injected errors%n",
+                    server.requests() - requestsBefore, server.injectedErrors() - errorsBefore);
+        } finally {
+            delete(work);
+        }
+    }
+
+    /**
+     * Runs the flow on every client until the time is up.
+     */
+    private Result run(int clients, long seconds) throws InterruptedException {
+        if (seconds <= 0) {
+            return new Result(new long[0], 0, null, 0);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        List<Future<Result>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            int id = i;
+            futures.add(pool.submit(() -> client(id, deadline)));
+        }
+
+        List<long[]> latencies = new ArrayList<>();
+        int failures = 0;
+        String firstFailure = null;
+        int total = 0;
+        try {
+            for (Future<Result> future : futures) {
+                Result result = future.get();
+                latencies.add(result.latencies);
+                total += result.latencies.length;
+                failures += result.failures;
+                if (firstFailure == null) {
+                    firstFailure = result.firstFailure;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] all = new long[total];
+        int position = 0;
+        for (long[] part : latencies) {
+            System.arraycopy(part, 0, all, position, part.length);
+            position += part.length;
+        }
+        return new Result(all, failures, firstFailure, elapsed);
+    }
+
+    private Result client(int id, long deadline) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        int failures = 0;
+        String firstFailure = null;
+        for (int iteration = 0; System.nanoTime() < deadline; iteration++) {
+            long start = System.nanoTime();
+            try {
+                if (flow.equals("search")) {
+                    search(id, iteration);
+                } else {
+                    install(id, iteration);
+                }
+            } catch (IOException e) {
+                failures++;
+                if (firstFailure == null) {
+                    firstFailure = e.toString();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return new Result(Arrays.copyOf(latencies, count), failures, firstFailure, 0);
+    }
+
+    private void search(int id, int iteration) throws IOException, InterruptedException {
+        client.search("jackson" + id + "-" + iteration, 20);
+    }
+
+    private void install(int id, int iteration) throws IOException, InterruptedException {
+        String[] gav = artifacts.get((id + iteration) % artifacts.size());
+        MavenCentralClient.Artifact latest = client.searchExact(gav[0], gav[1]);
+        if (latest == null) {
+            throw new IOException("No search result for " + gav[0] + ":" + gav[1]);
+        }
+
+        // A fresh local repository per client iteration, so every run downloads
+        Path local = work.resolve("m2-" + id).resolve(Integer.toString(iteration % 2));
+        for (String extension : new String[] {"pom", "jar"}) {
+            String relative = LocalRepository.relativePath(gav[0], gav[1], gav[2], extension);
+            Path target = local.resolve(relative);
+            Files.deleteIfExists(target);
+            if (!repository.download(relative, target, unlimited, () -> false)) {
+                throw new IOException("Not in the repository: " + relative);
+            }
+        }
+    }
+
+    private static void report(Result result) {
+        long[] sorted = result.latencies.clone();
+        Arrays.sort(sorted);
+        double seconds = result.nanos / 1e9;
+        System.out.printf("ops: %d (%d failed), %.1f ops/s%n", sorted.length, result.failures,
+                sorted.length / seconds);
+        if (sorted.length > 0) {
+            System.out.printf("latency ms: p50 %.1f  p90 %.1f  p99 %.1f  max %.1f%n",
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                    sorted[sorted.length - 1] / 1e6);
+        }
+        if (result.firstFailure != null) {
+            System.out.println("first failure: " + result.firstFailure);
+        }
+    }
+
+    private static double percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    /**
+     * Parses "--name value" pairs over the defaults; null on anything else.
+     */
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                return null;
+            }
+            String name = args[i].substring(2);
+            if (!DEFAULTS.containsKey(name) && !name.equals("repository")) {
+                return null;
+            }
+            options.put(name, args[++i]);
+        }
+        return options;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package dev.mpm.bench;
+
+import dev.mpm.api.MavenCentralClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent search lookups against a stand-in server with network-like latency:
+ * the bounded platform pool used on Java 11-20 versus one virtual thread per lookup
+ * as used by the Java 21 NetworkExecutor.
+ *
+ * The "virtual" variant needs Java 21+ at run time; on older JVMs it fails in setup
+ * and JMH moves on. The client-side rate limiter is disabled so only the executors
+ * are compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class NetworkFanOutBenchmark {
+
+    /** Same pool size as the install/apply lookups on Java 11. */
+    private static final int PLATFORM_THREADS = 8;
+
+    @Param({"platform", "virtual"})
+    public String executor;
+
+    @Param({"1000"})
+    public int lookups;
+
+    @Param({"20"})
+    public long latencyMillis;
+
+    private StandInServer server;
+    private MavenCentralClient client;
+    private ExecutorService pool;
+
+    @Setup
+    public void setup() throws Exception {
+        server = new StandInServer(
+                Fixtures.scaledResponse("search-response.json", 10),
+                Fixtures.scaledResponse("versions-response.json", 10),
+                latencyMillis);
+        System.setProperty("mpm.search.url", server.searchUrl());
+        System.setProperty("mpm.ratelimit.disabled", "true");
+        client = new MavenCentralClient();
+
+        if ("virtual".equals(executor)) {
+            // Looked up reflectively: the benchmarks compile for Java 11
+            pool = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } else {
+            pool = Executors.newFixedThreadPool(PLATFORM_THREADS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+        System.clearProperty("mpm.search.url");
+        System.clearProperty("mpm.ratelimit.disabled");
+        server.close();
+    }
+
+    @Benchmark
+    public int concurrentLookups() throws Exception {
+        List<Future<Integer>> results = new ArrayList<>(lookups);
+        for (int i = 0; i < lookups; i++) {
+            String query = "jackson" + i;
+            results.add(pool.submit(() -> lookup(query)));
+        }
+        int found = 0;
+        for (Future<Integer> result : results) {
+            found += result.get();
+        }
+        return found;
+    }
+
+    private int lookup(String query) throws IOException, InterruptedException {
+        return client.search(query, 10).size();
+    }
+}
@@ -0,0 +1,314 @@
+package dev.mpm.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for Maven Central: the search.maven.org select API, answering every query
+ * with a recorded response (the gav core with the versions fixture), and optionally a
+ * repository layout served from a directory. Point mpm at it with
+ * -Dmpm.search.url={@link #searchUrl()} and -Dmpm.repository.url={@link #repositoryUrl()}.
+ *
+ * Network conditions are configurable through {@link #builder}: latency plus random jitter,
+ * a share of requests failing with 503, and a per-response bandwidth cap. Delays and
+ * throttled writes are scheduled rather than slept, so no server thread is held and the
+ * server can keep thousands of requests waiting like a remote one would. A seed makes the
+ * jitter and the failures reproducible.
+ */
+public class StandInServer implements AutoCloseable {
+
+    /** Enough pending connections for a thousand concurrent clients. */
+    private static final int BACKLOG = 2048;
+    /** Bytes written per step of a throttled response. */
+    private static final int CHUNK = 16 * 1024;
+
+    static {
+        // Headers and body go out as separate writes; with Nagle's algorithm the body then
+        // waits for the client's delayed ACK, adding ~40 ms to every response. Read once,
+        // when the JDK server is first used.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService delayer = Executors.newSingleThreadScheduledExecutor();
+    private final byte[] searchResponse;
+    private final byte[] versionsResponse;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double errorRate;
+    private final long bytesPerSecond;
+    private final Path repository;
+    private final Random random;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    public StandInServer(String searchResponse, String versionsResponse) throws IOException {
+        this(searchResponse, versionsResponse, 0);
+    }
+
+    /**
+     * @param latencyMillis delay before each response is sent
+     */
+    public StandInServer(String searchResponse, String versionsResponse, long latencyMillis) throws IOException {
+        this(builder(searchResponse, versionsResponse).latency(latencyMillis));
+    }
+
+    private StandInServer(Builder builder) throws IOException {
+        this.searchResponse = builder.searchResponse.getBytes(StandardCharsets.UTF_8);
+        this.versionsResponse = builder.versionsResponse.getBytes(StandardCharsets.UTF_8);
+        this.latencyMillis = builder.latencyMillis;
+        this.jitterMillis = builder.jitterMillis;
+        this.errorRate = builder.errorRate;
+        this.bytesPerSecond = builder.bytesPerSecond;
+        this.repository = builder.repository != null ? builder.repository.toAbsolutePath().normalize() : null;
+        this.random = new Random(builder.seed);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), BACKLOG);
+        this.executor = Executors.newFixedThreadPool(8);
+        server.setExecutor(executor);
+        server.createContext("/solrsearch/select", this::handleSelect);
+        if (repository != null) {
+            server.createContext("/maven2/", this::handleRepository);
+        }
+        server.start();
+    }
+
+    /**
+     * Starts configuring a server that answers searches with the given responses.
+     */
+    public static Builder builder(String searchResponse, String versionsResponse) {
+        return new Builder(searchResponse, versionsResponse);
+    }
+
+    /**
+     * Network conditions and content of a stand-in server.
+     */
+    public static final class Builder {
+        private final String searchResponse;
+        private final String versionsResponse;
+        private long latencyMillis;
+        private long jitterMillis;
+        private double errorRate;
+        private long bytesPerSecond;
+        private Path repository;
+        private long seed = 42;
+
+        private Builder(String searchResponse, String versionsResponse) {
+            this.searchResponse = searchResponse;
+            this.versionsResponse = versionsResponse;
+        }
+
+        /** Delay before each response. */
+        public Builder latency(long millis) {
+            this.latencyMillis = millis;
+            return this;
+        }
+
+        /** Random extra delay, uniform between 0 and the given value. */
+        public Builder jitter(long millis) {
+            this.jitterMillis = millis;
+            return this;
+        }
+
+        /** Share of requests (0 to 1) answered with 503 Service Unavailable. */
+        public Builder errorRate(double rate) {
+            this.errorRate = rate;
+            return this;
+        }
+
+        /** Cap on the throughput of each response body; 0 for unlimited. */
+        public Builder bandwidth(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            return this;
+        }
+
+        /** Directory in the Maven repository layout to serve under {@link #repositoryUrl()}. */
+        public Builder repository(Path directory) {
+            this.repository = directory;
+            return this;
+        }
+
+        /** Seed for the jitter and the injected failures. */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public StandInServer start() throws IOException {
+            return new StandInServer(this);
+        }
+    }
+
+    /**
+     * Gets the URL to use as mpm.search.url.
+     */
+    public String searchUrl() {
+        return baseUrl() + "/solrsearch/select";
+    }
+
+    /**
+     * Gets the URL to use as mpm.repository.url.
+     */
+    public String repositoryUrl() {
+        return baseUrl() + "/maven2";
+    }
+
+    /**
+     * Gets the number of requests received so far.
+     */
+    public long requests() {
+        return requests.get();
+    }
+
+    /**
+     * Gets the number of requests answered with an injected 503.
+     */
+    public long injectedErrors() {
+        return injectedErrors.get();
+    }
+
+    private String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    private void handleSelect(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getRawQuery();
+        byte[] body = query != null && query.contains("core=gav") ? versionsResponse : searchResponse;
+        serve(exchange, 200, body, "application/json");
+    }
+
+    /**
+     * Serves a file of the repository directory. Missing .sha1 sidecars are computed from
+     * the file, so a directory of plain artifacts passes mpm's checksum verification.
+     */
+    private void handleRepository(HttpExchange exchange) throws IOException {
+        String relative = exchange.getRequestURI().getPath().substring("/maven2/".length());
+        Path file = repository.resolve(relative).normalize();
+        byte[] body = null;
+        if (file.startsWith(repository)) {
+            if (Files.isRegularFile(file)) {
+                body = Files.readAllBytes(file);
+            } else if (relative.endsWith(".sha1")) {
+                Path artifact = file.resolveSibling(file.getFileName().toString().replaceFirst("\\.sha1$", ""));
+                if (Files.isRegularFile(artifact)) {
+                    body = sha1(Files.readAllBytes(artifact)).getBytes(StandardCharsets.US_ASCII);
+                }
+            }
+        }
+        if (body == null) {
+            serve(exchange, 404, new byte[0], "text/plain");
+        } else {
+            serve(exchange, 200, body, "application/octet-stream");
+        }
+    }
+
+    /**
+     * Sends a response after the configured delay, or an injected failure instead.
+     */
+    private void serve(HttpExchange exchange, int status, byte[] body, String contentType) {
+        requests.incrementAndGet();
+        long delay;
+        boolean fail;
+        synchronized (random) {
+            delay = latencyMillis + (jitterMillis > 0 ? (long) (random.nextDouble() * (jitterMillis + 1)) : 0);
+            fail = errorRate > 0 && random.nextDouble() < errorRate;
+        }
+        if (fail) {
+            injectedErrors.incrementAndGet();
+        }
+
+        Runnable send = () -> {
+            try {
+                if (fail) {
+                    respond(exchange, 503, new byte[0], "text/plain");
+                } else {
+                    respond(exchange, status, body, contentType);
+                }
+            } catch (IOException e) {
+                exchange.close();
+            }
+        };
+        if (delay <= 0) {
+            send.run();
+        } else {
+            // The timer thread only times; writes happen on the server pool
+            delayer.schedule(() -> executor.execute(send), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] body, String contentType) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Content-Length", Integer.toString(body.length));
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (bytesPerSecond <= 0 || body.length <= CHUNK) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            return;
+        }
+        writeThrottled(exchange, body, 0);
+    }
+
+    /**
+     * Writes one chunk and schedules the next one when the bandwidth allows it.
+     */
+    private void writeThrottled(HttpExchange exchange, byte[] body, int offset) {
+        try {
+            int length = Math.min(CHUNK, body.length - offset);
+            OutputStream out = exchange.getResponseBody();
+            out.write(body, offset, length);
+            if (offset + length >= body.length) {
+                out.close();
+                return;
+            }
+            out.flush();
+            long nanos = length * 1_000_000_000L / bytesPerSecond;
+            delayer.schedule(() -> executor.execute(() -> writeThrottled(exchange, body, offset + length)),
+                    nanos, TimeUnit.NANOSECONDS);
+        } catch (IOException e) {
+            exchange.close();
+        }
+    }
+
+    private static String sha1(byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(content)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        delayer.shutdownNow();
+    }
+}
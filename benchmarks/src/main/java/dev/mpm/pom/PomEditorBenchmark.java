@@ -0,0 +1,88 @@
+package dev.mpm.pom;
+
+import dev.mpm.bench.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PomEditor load / read / edit / save on poms with 20 to 5,000 dependencies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PomEditorBenchmark {
+
+    @Param({"20", "200", "1000", "5000"})
+    public int dependencies;
+
+    private Path directory;
+    private Path pomPath;
+    private String pomContent;
+
+    /** Editor loaded fresh before each invocation, for the mutating benchmarks. */
+    private PomEditor loaded;
+
+    @Setup(Level.Trial)
+    public void createPom() throws IOException {
+        directory = Files.createTempDirectory("mpm-bench");
+        pomPath = directory.resolve("pom.xml");
+        pomContent = Fixtures.pom(dependencies);
+        Files.writeString(pomPath, pomContent);
+    }
+
+    @Setup(Level.Invocation)
+    public void loadPom() throws IOException {
+        // save() rewrites the file, so restore the original before loading
+        Files.writeString(pomPath, pomContent);
+        loaded = new PomEditor(pomPath);
+        loaded.load();
+    }
+
+    @TearDown(Level.Trial)
+    public void deletePom() throws IOException {
+        Files.deleteIfExists(pomPath);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public PomEditor load() throws IOException {
+        PomEditor pom = new PomEditor(pomPath);
+        pom.load();
+        return pom;
+    }
+
+    @Benchmark
+    public List<PomEditor.Dependency> getDependencies() throws IOException {
+        return loaded.getDependencies();
+    }
+
+    @Benchmark
+    public boolean addDependency() throws IOException {
+        return loaded.addDependency("org.projectlombok", "lombok", "1.18.30", "provided");
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        loaded.save();
+    }
+}
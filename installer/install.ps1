@@ -38,12 +38,26 @@ try {
     exit 1
 }
 
-# Create wrapper script
+# Build the class-data-sharing archive for faster startup: a training run records the
+# classes mpm loads, then the JDK dumps them into an archive tied to this JDK
+Remove-Item -Force -ErrorAction SilentlyContinue "$MPM_BIN\mpm.jsa"
+& java "-XX:DumpLoadedClassList=$MPM_BIN\mpm.classlist" -cp "$MPM_BIN\mpm.jar" dev.mpm.CdsTraining *> $null
+if ($LASTEXITCODE -eq 0) {
+    & java -Xshare:dump -Xlog:cds=off "-XX:SharedClassListFile=$MPM_BIN\mpm.classlist" "-XX:SharedArchiveFile=$MPM_BIN\mpm.jsa" -cp "$MPM_BIN\mpm.jar" *> $null
+}
+if ($LASTEXITCODE -eq 0) {
+    Write-Host "[OK] Created startup archive (mpm.jsa)" -ForegroundColor Green
+} else {
+    Remove-Item -Force -ErrorAction SilentlyContinue "$MPM_BIN\mpm.jsa"
+    Write-Host "[SKIP] Startup archive not supported by this JDK" -ForegroundColor Yellow
+}
+
+# Create wrapper script (-Xshare:auto silently ignores a missing or outdated archive)
 $wrapperContent = @'
 @echo off
 setlocal
 set "MPM_HOME=%USERPROFILE%\.mpm\bin"
-java -jar "%MPM_HOME%\mpm.jar" %*
+java -XX:SharedArchiveFile="%MPM_HOME%\mpm.jsa" -Xshare:auto -jar "%MPM_HOME%\mpm.jar" %*
 exit /b %ERRORLEVEL%
 '@
 
@@ -0,0 +1,61 @@
+package dev.mpm;
+
+import dev.mpm.pom.PomEditor;
+import dev.mpm.pom.PomModel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Training run for the class-data-sharing (AppCDS) archive.
+ *
+ * Loads the classes the common commands need (CLI, console, pom editing, HTTP client)
+ * without touching the network or the current directory. The build runs it with
+ * -XX:DumpLoadedClassList and the installers turn the list into an archive with -Xshare:dump.
+ */
+public final class CdsTraining {
+
+    private CdsTraining() {}
+
+    public static void main(String[] args) throws IOException {
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Path directory = Files.createTempDirectory("mpm-cds");
+        Path pomPath = directory.resolve("pom.xml");
+        try {
+            // CLI dispatch and help text (constructs every command)
+            Mpm.run(new String[]{"help"});
+            Mpm.run(new String[]{"--version"});
+
+            // Shell completion, which has to answer within a keystroke
+            Mpm.run(new String[]{"__complete", "mpm install jackson"});
+            Mpm.run(new String[]{"__complete", "mpm install x --scope "});
+
+            // pom editing round trip, as done by install/remove/list
+            PomEditor pom = new PomEditor(pomPath);
+            pom.createNew("com.example", "training", "1.0.0-SNAPSHOT");
+            pom.addDependency("org.projectlombok", "lombok", "1.18.30", "provided");
+            pom.save();
+            pom.getDependencies();
+            pom.removeDependency("org.projectlombok", "lombok");
+            pom.save();
+            PomModel.parse(pomPath);
+
+            // HTTP client setup used by search/install; no request is sent
+            HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+            HttpRequest.newBuilder().uri(URI.create("https://search.maven.org/solrsearch/select")).GET().build();
+        } finally {
+            System.setOut(originalOut);
+            Files.deleteIfExists(pomPath);
+            Files.deleteIfExists(directory);
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package dev.mpm;
 
 import dev.mpm.command.*;
+import dev.mpm.trace.Trace;
 import dev.mpm.util.Console;
+import dev.mpm.util.MachineOutput;
+import dev.mpm.util.MavenExecutor;
+import dev.mpm.util.Offline;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Maven Package Manager (mpm) - npm-like CLI for Maven dependencies.
@@ -18,31 +28,82 @@ import java.util.Map;
  *   remove   - Remove a dependency
  *   init     - Initialize a new project
  *   list     - List dependencies
+ *   apply    - Apply a batch of install/remove operations
+ *   scan     - Find which repos in a workspace use an artifact
+ *   which    - Find the artifact that provides a class
+ *   verify   - Verify checksums of files in the local repository
+ *   analyze  - Find version conflicts, duplicate classes and unused dependencies
+ *   sync     - Set a dependency version in every project of a workspace
+ *   completion - Print a shell completion script
  *   help     - Show help
  *   version  - Show version
+ *
+ * Global options:
+ *   --timings           - print a per-phase timing table
+ *   --trace-out <file>  - write a Chrome trace (JSON) of the run
+ *   --json, --ndjson    - print results as JSON records instead of text
+ *   -o, --offline       - use only local caches and the local repository
+ *   -T, -B              - passed through to Maven
+ *   --maven-timeout <s> - stop Maven after s seconds
  */
 public class Mpm {
 
     private static final String VERSION = "1.0.0";
 
-    private static final Map<String, Command> COMMANDS = new HashMap<>();
+    /** Commands are created on first use so startup only loads what the invoked command needs. */
+    private static final Map<String, Supplier<Command>> COMMANDS = new LinkedHashMap<>();
+    private static final Map<String, String> ALIASES = new LinkedHashMap<>();
+
+    private static boolean timings;
+    private static Path traceOut;
 
     static {
-        registerCommand(new InstallCommand());
-        registerCommand(new SearchCommand());
-        registerCommand(new RemoveCommand());
-        registerCommand(new InitCommand());
-        registerCommand(new ListCommand());
+        registerCommand("install", InstallCommand::new);
+        registerCommand("search", SearchCommand::new);
+        registerCommand("remove", RemoveCommand::new);
+        registerCommand("init", InitCommand::new);
+        registerCommand("list", ListCommand::new);
+        registerCommand("apply", ApplyCommand::new);
+        registerCommand("scan", ScanCommand::new);
+        registerCommand("which", WhichCommand::new);
+        registerCommand("verify", VerifyCommand::new);
+        registerCommand("analyze", AnalyzeCommand::new);
+        registerCommand("sync", SyncCommand::new);
+        registerCommand("completion", CompletionCommand::new);
+
+        ALIASES.put("i", "install");
+        ALIASES.put("add", "install");
+        ALIASES.put("rm", "remove");
+        ALIASES.put("uninstall", "remove");
+        ALIASES.put("ls", "list");
+        ALIASES.put("s", "search");
+        ALIASES.put("find", "search");
     }
 
-    private static void registerCommand(Command command) {
-        COMMANDS.put(command.getName(), command);
+    private static void registerCommand(String name, Supplier<Command> factory) {
+        COMMANDS.put(name, factory);
     }
 
     public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs mpm with the given command line and returns the exit code.
+     */
+    static int run(String[] args) {
+        try {
+            return dispatch(parseGlobalOptions(args));
+        } finally {
+            MachineOutput.finish();
+            Console.flush();
+        }
+    }
+
+    private static int dispatch(String[] args) {
         if (args.length == 0) {
             printUsage();
-            System.exit(0);
+            return 0;
         }
 
         String commandName = args[0].toLowerCase();
@@ -53,43 +114,110 @@ public class Mpm {
             case "--help":
             case "-h":
                 printUsage();
-                System.exit(0);
-                break;
+                return 0;
             case "version":
             case "--version":
             case "-v":
                 printVersion();
-                System.exit(0);
-                break;
+                return 0;
+            case "__complete":
+                // Called by the shell completion scripts with the line up to the cursor
+                String line = args.length > 1 ? args[1] : "";
+                for (String candidate : Completer.complete(line, COMMANDS.keySet(), ALIASES)) {
+                    System.out.println(candidate);
+                }
+                return 0;
         }
 
         // Handle aliases
-        if (commandName.equals("i") || commandName.equals("add")) {
-            commandName = "install";
-        } else if (commandName.equals("rm") || commandName.equals("uninstall")) {
-            commandName = "remove";
-        } else if (commandName.equals("ls")) {
-            commandName = "list";
-        } else if (commandName.equals("s") || commandName.equals("find")) {
-            commandName = "search";
-        }
+        commandName = ALIASES.getOrDefault(commandName, commandName);
 
         // Find and execute command
-        Command command = COMMANDS.get(commandName);
-        if (command == null) {
+        Supplier<Command> factory = COMMANDS.get(commandName);
+        if (factory == null) {
             Console.error("Unknown command: " + commandName);
             Console.println();
             printUsage();
-            System.exit(1);
+            return 1;
         }
 
+        Command command = factory.get();
+
         // Extract command arguments (everything after the command name)
         String[] commandArgs = new String[args.length - 1];
         System.arraycopy(args, 1, commandArgs, 0, commandArgs.length);
 
         // Execute the command
-        int exitCode = command.execute(commandArgs);
-        System.exit(exitCode);
+        int exitCode;
+        try (Trace.Span span = Trace.span(commandName)) {
+            exitCode = command.execute(commandArgs);
+        }
+
+        reportTimings();
+        return exitCode;
+    }
+
+    /**
+     * Extracts options that apply to every command and returns the remaining arguments.
+     *
+     *   --timings           print a per-phase timing table after the command
+     *   --trace-out <file>  write a Chrome trace (JSON) of the run
+     *   --json, --ndjson    emit results as one JSON array, or one JSON object per line
+     *   -T, --threads <n>   passed to Maven as -T
+     *   -o, --offline       answer lookups locally, never touch the network; Maven gets -o
+     *   -B, --batch-mode    show Maven's full batch log instead of a progress line
+     *   --maven-timeout <s> stop Maven (and its child processes) after s seconds
+     */
+    private static String[] parseGlobalOptions(String[] args) {
+        List<String> remaining = new ArrayList<>(args.length);
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--timings")) {
+                timings = true;
+            } else if (arg.equals("--trace-out") && i + 1 < args.length) {
+                traceOut = Path.of(args[++i]);
+            } else if (arg.startsWith("--trace-out=")) {
+                traceOut = Path.of(arg.substring("--trace-out=".length()));
+            } else if (arg.equals("--json")) {
+                MachineOutput.enable(MachineOutput.Format.JSON);
+            } else if (arg.equals("--ndjson")) {
+                MachineOutput.enable(MachineOutput.Format.NDJSON);
+            } else if ((arg.equals("-T") || arg.equals("--threads")) && i + 1 < args.length) {
+                MavenExecutor.setThreads(args[++i]);
+            } else if (arg.equals("-o") || arg.equals("--offline")) {
+                Offline.enable(arg);
+            } else if (arg.equals("-B") || arg.equals("--batch-mode")) {
+                MavenExecutor.setBatchOutput(true);
+            } else if (arg.equals("--maven-timeout") && i + 1 < args.length) {
+                try {
+                    MavenExecutor.setTimeout(Duration.ofSeconds(Long.parseLong(args[++i])));
+                } catch (NumberFormatException e) {
+                    Console.warn("Ignoring invalid --maven-timeout: " + args[i]);
+                }
+            } else {
+                remaining.add(arg);
+            }
+        }
+
+        if (timings || traceOut != null) {
+            Trace.enable();
+        }
+        return remaining.toArray(new String[0]);
+    }
+
+    private static void reportTimings() {
+        if (timings) {
+            Trace.printSummary();
+        }
+        if (traceOut != null) {
+            try {
+                Trace.writeChromeTrace(traceOut);
+                Console.info("Trace written to " + traceOut);
+            } catch (IOException e) {
+                Console.error("Failed to write trace: " + e.getMessage());
+            }
+        }
     }
 
     private static void printUsage() {
@@ -100,13 +228,24 @@ public class Mpm {
         Console.println();
         Console.println(Console.bold("Commands:"));
 
-        for (Command cmd : COMMANDS.values()) {
-            String name = String.format("  %-10s", cmd.getName());
+        for (Supplier<Command> factory : COMMANDS.values()) {
+            Command cmd = factory.get();
+            String name = String.format("  %-12s", cmd.getName());
             Console.println(Console.cyan(name) + cmd.getDescription());
         }
 
-        Console.println(Console.cyan("  help      ") + "Show this help message");
-        Console.println(Console.cyan("  version   ") + "Show version");
+        Console.println(Console.cyan("  help        ") + "Show this help message");
+        Console.println(Console.cyan("  version     ") + "Show version");
+
+        Console.println();
+        Console.println(Console.bold("Global options:"));
+        Console.println(Console.dim("  --timings           Print how long each phase took"));
+        Console.println(Console.dim("  --trace-out <file>  Write a Chrome trace (JSON) of the run"));
+        Console.println(Console.dim("  --json, --ndjson    Print results as JSON records (messages go to stderr)"));
+        Console.println(Console.dim("  -T, --threads <n>   Maven build threads (e.g. 4 or 1C)"));
+        Console.println(Console.dim("  -o, --offline       Use only local caches and ~/.m2, never the network"));
+        Console.println(Console.dim("  -B, --batch-mode    Show Maven's full log instead of a progress line"));
+        Console.println(Console.dim("  --maven-timeout <s> Stop Maven after s seconds (default 900)"));
 
         Console.println();
         Console.println(Console.bold("Aliases:"));
@@ -121,9 +260,19 @@ public class Mpm {
         Console.println("  mpm install lombok                Install lombok (latest)");
         Console.println("  mpm install jackson-databind@2.15.2  Install specific version");
         Console.println("  mpm install junit --scope test    Install with test scope");
+        Console.println("  mpm install guava --plan          Show downloads and time, change nothing");
         Console.println("  mpm search spring-boot            Search for artifacts");
+        Console.println("  mpm search -i                     Search as you type, Enter installs");
+        Console.println("  mpm search log4j --ndjson > all.ndjson  Export every match, one JSON line each");
         Console.println("  mpm list                          List dependencies");
         Console.println("  mpm remove lombok                 Remove a dependency");
+        Console.println("  mpm apply deps.txt                Apply a batch of install/remove operations");
+        Console.println("  mpm scan ~/src jackson-databind   Which repos use jackson-databind, at which version");
+        Console.println("  mpm which org.slf4j.LoggerFactory Find (and install) the artifact providing a class");
+        Console.println("  mpm verify --all --fix            Re-download corrupted files in ~/.m2");
+        Console.println("  mpm analyze                       Version conflicts, duplicate classes, unused deps");
+        Console.println("  mpm sync org.yaml:snakeyaml:2.2 --in ~/src  Bump it in every repo under ~/src");
+        Console.println("  eval \"$(mpm completion bash)\"     Tab completion for install, remove and --scope");
     }
 
     private static void printVersion() {
@@ -0,0 +1,382 @@
+package dev.mpm.analyze;
+
+import dev.mpm.api.ClasspathResolver;
+import dev.mpm.trace.Trace;
+import dev.mpm.util.AtomicFiles;
+import dev.mpm.util.MpmHome;
+import dev.mpm.util.ZipDirectory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Looks inside the JARs of a resolved classpath.
+ *
+ * Each JAR's central directory is listed with {@link ZipDirectory} (memory-mapped, nothing
+ * inflated), all JARs in parallel. Top-level classes found in more than one JAR are grouped
+ * by the set of JARs that share them, since one overlap (a relocated copy, an old artifact
+ * renamed under a new groupId) usually accounts for hundreds of classes. The class counts,
+ * packages and overlaps only depend on the JAR files, so they are kept in
+ * ~/.mpm/cache/analyze/&lt;hash&gt;.tsv, keyed by a SHA-256 of every JAR's coordinates, path,
+ * size and mtime; an unchanged classpath is answered without opening a JAR.
+ *
+ * A direct dependency looks unused when none of its packages is mentioned in the project's
+ * sources, as an import or a qualified name. Reflection, ServiceLoader and framework wiring
+ * are invisible to that check, so the result is a hint, not a verdict.
+ */
+public final class ClasspathAnalyzer {
+
+    private static final String DIRECTORY = "cache/analyze";
+    private static final int EXAMPLES = 3;
+    private static final Set<String> SOURCE_EXTENSIONS = Set.of(".java", ".kt", ".groovy", ".scala");
+    /** A package followed by a class name or a wildcard: "org.slf4j.Logger", "org.slf4j.*". */
+    private static final Pattern QUALIFIED_NAME = Pattern.compile(
+            "\\b([a-z_]\\w*(?:\\.[a-z_]\\w*)*)\\.(?:[A-Z]\\w*|\\*)");
+
+    private ClasspathAnalyzer() {}
+
+    /**
+     * What one JAR contains.
+     */
+    public static final class Jar {
+        public final String coordinates;
+        /** Number of top-level classes. */
+        public final int classes;
+        public final Set<String> packages;
+
+        Jar(String coordinates, int classes, Set<String> packages) {
+            this.coordinates = coordinates;
+            this.classes = classes;
+            this.packages = Collections.unmodifiableSet(packages);
+        }
+    }
+
+    /**
+     * Classes that are in every one of a set of JARs.
+     */
+    public static final class Overlap {
+        public final List<String> jars;
+        public final int classes;
+        /** A few of the shared class names. */
+        public final List<String> examples;
+
+        Overlap(List<String> jars, int classes, List<String> examples) {
+            this.jars = Collections.unmodifiableList(jars);
+            this.classes = classes;
+            this.examples = Collections.unmodifiableList(examples);
+        }
+    }
+
+    /**
+     * Outcome of reading a classpath's JARs.
+     */
+    public static final class Report {
+        /** By coordinates, in classpath order. */
+        public final Map<String, Jar> jars;
+        /** Largest first. */
+        public final List<Overlap> overlaps;
+        /** Coordinates of JARs that are not in the local repository. */
+        public final List<String> missing;
+        /** Coordinates of JARs that could not be read as ZIP files. */
+        public final List<String> unreadable;
+        public final boolean cached;
+        public final long elapsedMillis;
+
+        Report(Map<String, Jar> jars, List<Overlap> overlaps, List<String> missing, List<String> unreadable,
+               boolean cached, long elapsedMillis) {
+            this.jars = Collections.unmodifiableMap(jars);
+            this.overlaps = Collections.unmodifiableList(overlaps);
+            this.missing = Collections.unmodifiableList(missing);
+            this.unreadable = Collections.unmodifiableList(unreadable);
+            this.cached = cached;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    /**
+     * Reads the JARs of a classpath, or gets the result of an earlier run on the same files.
+     */
+    public static Report analyze(List<ClasspathResolver.Entry> entries) throws IOException {
+        long start = System.nanoTime();
+        List<ClasspathResolver.Entry> present = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        MessageDigest digest = sha256();
+        for (ClasspathResolver.Entry entry : entries) {
+            if (entry.file == null) {
+                continue;
+            }
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(entry.file, BasicFileAttributes.class);
+            } catch (IOException e) {
+                missing.add(entry.coordinates());
+                continue;
+            }
+            present.add(entry);
+            digest.update((entry.coordinates() + "\t" + entry.file + "\t" + attributes.size() + "\t" +
+                    attributes.lastModifiedTime().toMillis() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        Path cacheFile = MpmHome.root().resolve(DIRECTORY).resolve(hex(digest.digest()) + ".tsv");
+        try (Trace.Span span = Trace.span("analyze.jars", Trace.Kind.PHASE, present.size() + " JARs")) {
+            Report cached = read(cacheFile, missing, start);
+            if (cached != null && cached.jars.size() == present.size()) {
+                span.set("result", "hit");
+                return cached;
+            }
+            span.set("result", "read");
+
+            // One class list per JAR, listed in parallel; null when the JAR is not a ZIP file
+            List<List<String>> classes = IntStream.range(0, present.size())
+                    .parallel()
+                    .mapToObj(i -> listClasses(present.get(i).file))
+                    .collect(Collectors.toList());
+
+            Map<String, Jar> jars = new LinkedHashMap<>();
+            List<String> unreadable = new ArrayList<>();
+            Map<String, Integer> owners = new HashMap<>();
+            Map<String, List<Integer>> shared = new HashMap<>();
+            for (int i = 0; i < present.size(); i++) {
+                String coordinates = present.get(i).coordinates();
+                List<String> names = classes.get(i);
+                if (names == null) {
+                    unreadable.add(coordinates);
+                    continue;
+                }
+                Set<String> packages = new TreeSet<>();
+                for (String name : names) {
+                    int dot = name.lastIndexOf('.');
+                    if (dot > 0) {
+                        packages.add(name.substring(0, dot));
+                    }
+                    Integer owner = owners.putIfAbsent(name, i);
+                    if (owner != null) {
+                        shared.computeIfAbsent(name, n -> new ArrayList<>(List.of(owner))).add(i);
+                    }
+                }
+                jars.put(coordinates, new Jar(coordinates, names.size(), packages));
+            }
+
+            List<Overlap> overlaps = overlaps(shared, present);
+            if (unreadable.isEmpty()) {
+                write(cacheFile, jars, overlaps);
+            }
+            span.set("classes", owners.size());
+            return new Report(jars, overlaps, missing, unreadable, false, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Finds the direct dependencies whose packages the project's sources never mention.
+     *
+     * @param projectDirectory the directory holding pom.xml and src/
+     * @return in classpath order, or null when the project has no sources to go by
+     */
+    public static List<ClasspathResolver.Entry> unused(List<ClasspathResolver.Entry> entries, Report report,
+                                                       Path projectDirectory) throws IOException {
+        Set<String> referenced = referencedPackages(projectDirectory.resolve("src"));
+        if (referenced == null) {
+            return null;
+        }
+
+        List<ClasspathResolver.Entry> unused = new ArrayList<>();
+        for (ClasspathResolver.Entry entry : entries) {
+            // Runtime dependencies are never referenced from source; empty JARs are starters and aggregators
+            Jar jar = report.jars.get(entry.coordinates());
+            if (!entry.direct || "runtime".equals(entry.scope) || jar == null || jar.classes == 0) {
+                continue;
+            }
+            if (Collections.disjoint(jar.packages, referenced)) {
+                unused.add(entry);
+            }
+        }
+        return unused;
+    }
+
+    /**
+     * Collects the packages named in source files under src/, in parallel.
+     *
+     * @return null if there are no source files
+     */
+    private static Set<String> referencedPackages(Path sources) throws IOException {
+        if (!Files.isDirectory(sources)) {
+            return null;
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(sources)) {
+            files = walk.filter(ClasspathAnalyzer::isSource).collect(Collectors.toList());
+        }
+        if (files.isEmpty()) {
+            return null;
+        }
+
+        Set<String> packages = ConcurrentHashMap.newKeySet();
+        try (Trace.Span span = Trace.span("analyze.sources", Trace.Kind.PHASE, files.size() + " files")) {
+            files.parallelStream().forEach(file -> {
+                try {
+                    Matcher matcher = QUALIFIED_NAME.matcher(Files.readString(file));
+                    while (matcher.find()) {
+                        packages.add(matcher.group(1));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            span.set("packages", packages.size());
+            return packages;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isSource(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && SOURCE_EXTENSIONS.contains(name.substring(dot));
+    }
+
+    /**
+     * Lists the top-level classes of a JAR as dotted names; null if it is not a ZIP file.
+     */
+    private static List<String> listClasses(Path file) {
+        List<String> names = new ArrayList<>();
+        try {
+            ZipDirectory.list(file, name -> {
+                // Multi-release JARs repeat classes under META-INF/versions/N/
+                if (!name.endsWith(".class") || name.indexOf('$') >= 0 || name.endsWith("-info.class") ||
+                        name.startsWith("META-INF/")) {
+                    return;
+                }
+                names.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+            });
+            return names;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Groups shared classes by the JARs that contain them, largest group first.
+     */
+    private static List<Overlap> overlaps(Map<String, List<Integer>> shared, List<ClasspathResolver.Entry> present) {
+        Map<List<Integer>, List<String>> groups = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : shared.entrySet()) {
+            groups.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).add(entry.getKey());
+        }
+
+        List<Overlap> overlaps = new ArrayList<>();
+        for (Map.Entry<List<Integer>, List<String>> group : groups.entrySet()) {
+            List<String> jars = new ArrayList<>();
+            for (int index : group.getKey()) {
+                jars.add(present.get(index).coordinates());
+            }
+            List<String> names = group.getValue();
+            Collections.sort(names);
+            overlaps.add(new Overlap(jars, names.size(), new ArrayList<>(names.subList(0, Math.min(EXAMPLES,
+                    names.size())))));
+        }
+        overlaps.sort((a, b) -> a.classes != b.classes ? Integer.compare(b.classes, a.classes)
+                : a.jars.get(0).compareTo(b.jars.get(0)));
+        return overlaps;
+    }
+
+    /**
+     * Reads a cached report; null if there is none or it is unreadable.
+     *
+     * Lines are "jar TAB coordinates TAB classes TAB packages" and
+     * "overlap TAB classes TAB examples TAB coordinates...", lists comma separated.
+     */
+    private static Report read(Path file, List<String> missing, long start) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file);
+        } catch (IOException e) {
+            return null;
+        }
+        Map<String, Jar> jars = new LinkedHashMap<>();
+        List<Overlap> overlaps = new ArrayList<>();
+        try {
+            for (String line : lines) {
+                String[] fields = line.split("\t", -1);
+                if ("jar".equals(fields[0]) && fields.length == 4) {
+                    Set<String> packages = new TreeSet<>(split(fields[3]));
+                    jars.put(fields[1], new Jar(fields[1], Integer.parseInt(fields[2]), packages));
+                } else if ("overlap".equals(fields[0]) && fields.length >= 5) {
+                    overlaps.add(new Overlap(Arrays.asList(fields).subList(3, fields.length),
+                            Integer.parseInt(fields[1]), split(fields[2])));
+                } else {
+                    return null;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return new Report(jars, overlaps, missing, List.of(), true, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static List<String> split(String list) {
+        return list.isEmpty() ? List.of() : Arrays.asList(list.split(","));
+    }
+
+    /**
+     * Saves a report. Failures are ignored; the cache is only an optimization.
+     */
+    private static void write(Path file, Map<String, Jar> jars, List<Overlap> overlaps) {
+        try {
+            Files.createDirectories(file.getParent());
+            AtomicFiles.write(file, output -> {
+                BufferedWriter out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                for (Jar jar : jars.values()) {
+                    out.write("jar\t" + jar.coordinates + "\t" + jar.classes + "\t" +
+                            String.join(",", jar.packages) + "\n");
+                }
+                for (Overlap overlap : overlaps) {
+                    out.write("overlap\t" + overlap.classes + "\t" + String.join(",", overlap.examples) + "\t" +
+                            String.join("\t", overlap.jars) + "\n");
+                }
+                out.flush();
+            });
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,151 @@
+package dev.mpm.api;
+
+import dev.mpm.pom.PomSnapshot;
+import dev.mpm.trace.Trace;
+import dev.mpm.util.AtomicFiles;
+import dev.mpm.util.MpmHome;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Managed-version tables of BOMs, flattened once and cached on disk.
+ *
+ * A BOM's table is its dependencyManagement after inheritance, property interpolation and
+ * nested imports: groupId:artifactId to version. A released BOM never changes, so its table
+ * is kept in ~/.mpm/cache/bom/&lt;groupId&gt;/&lt;artifactId&gt;-&lt;version&gt;.tsv for good, and
+ * later lookups read one small text file instead of parsing, or fetching, the BOM and its
+ * parents. SNAPSHOT BOMs are resolved every time.
+ */
+public class BomCache {
+
+    private static final String DIRECTORY = "cache/bom";
+
+    private final PomResolver resolver = new PomResolver(new RepositoryClient());
+
+    /**
+     * A version the project manages, and where it comes from.
+     */
+    public static final class Managed {
+        public final String groupId;
+        public final String artifactId;
+        public final String version;
+        /** groupId:artifactId:version of the BOM, or of the POM whose dependencyManagement declares it. */
+        public final String source;
+
+        Managed(String groupId, String artifactId, String version, String source) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.source = source;
+        }
+    }
+
+    /**
+     * Gets the flattened managed-version table of a BOM.
+     *
+     * @return groupId:artifactId -> version, or null if the repository does not have the BOM
+     */
+    public Map<String, String> table(String groupId, String artifactId, String version)
+            throws IOException, InterruptedException {
+        boolean release = !version.endsWith("-SNAPSHOT");
+        Path file = MpmHome.root().resolve(DIRECTORY).resolve(groupId).resolve(artifactId + "-" + version + ".tsv");
+        try (Trace.Span span = Trace.span("bom.table", Trace.Kind.PHASE, groupId + ":" + artifactId + ":" + version)) {
+            if (release) {
+                Map<String, String> cached = read(file);
+                if (cached != null) {
+                    span.set("result", "hit");
+                    return cached;
+                }
+            }
+
+            span.set("result", "resolved");
+            PomResolver.Effective bom = resolver.effectiveOf(groupId, artifactId, version);
+            if (bom == null) {
+                return null;
+            }
+            Map<String, String> table = new TreeMap<>(bom.managed);
+            if (release) {
+                write(file, table);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Gets the versions a project manages: its own and its parents' dependencyManagement,
+     * then its imported BOMs, nearer declarations first as in Maven.
+     *
+     * @return groupId:artifactId -> managed version, in declaration order
+     */
+    public Map<String, Managed> project(Path pom) throws IOException, InterruptedException {
+        Path absolute = pom.toAbsolutePath().normalize();
+        PomResolver.Effective project = resolver.effective(PomSnapshot.load(absolute).model, absolute.getParent(),
+                false, 0);
+
+        Map<String, Managed> managed = new LinkedHashMap<>();
+        project.managed.forEach((key, version) -> put(managed, key, version, project.managedBy.get(key)));
+        for (String[] bom : project.imports) {
+            Map<String, String> table = table(bom[0], bom[1], bom[2]);
+            if (table != null) {
+                String source = bom[0] + ":" + bom[1] + ":" + bom[2];
+                table.forEach((key, version) -> put(managed, key, version, source));
+            }
+        }
+        return managed;
+    }
+
+    private static void put(Map<String, Managed> managed, String key, String version, String source) {
+        int colon = key.indexOf(':');
+        if (colon > 0 && !managed.containsKey(key)) {
+            managed.put(key, new Managed(key.substring(0, colon), key.substring(colon + 1), version, source));
+        }
+    }
+
+    /**
+     * Reads a cached table; null if there is none or it is unreadable.
+     */
+    private static Map<String, String> read(Path file) {
+        try {
+            Map<String, String> table = new TreeMap<>();
+            for (String line : Files.readAllLines(file)) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    table.put(line.substring(0, tab), line.substring(tab + 1));
+                }
+            }
+            return table;
+        } catch (IOException e) {
+            // not cached yet, or unreadable: resolve it again
+            return null;
+        }
+    }
+
+    /**
+     * Saves a table. Failures are ignored; the cache is only an optimization.
+     */
+    private static void write(Path file, Map<String, String> table) {
+        try {
+            Files.createDirectories(file.getParent());
+            AtomicFiles.write(file, output -> {
+                BufferedWriter out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                for (Map.Entry<String, String> entry : table.entrySet()) {
+                    out.write(entry.getKey());
+                    out.write('\t');
+                    out.write(entry.getValue());
+                    out.write('\n');
+                }
+                out.flush();
+            });
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+}
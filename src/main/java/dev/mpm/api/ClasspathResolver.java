@@ -0,0 +1,208 @@
+package dev.mpm.api;
+
+import dev.mpm.pom.PomModel;
+import dev.mpm.trace.Trace;
+import dev.mpm.util.LocalRepository;
+import dev.mpm.util.Versions;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Resolves a project's classpath from its POM, without running Maven.
+ *
+ * The closure is walked by {@link DependencyWalker}, as for {@link InstallPlanner}: breadth
+ * first, the nearest declaration of a groupId:artifactId wins, and test, provided, system and
+ * optional dependencies of dependencies are left out. The project's dependencyManagement
+ * overrides transitive versions. Every version that was asked for is
+ * kept, so the losers of nearest-wins come out as {@link Conflict}s. The result is the test
+ * classpath: every scope except system and import, each entry tagged with the scope Maven
+ * would give it.
+ *
+ * Exclusions and version ranges are not evaluated, so the result can differ from Maven's in
+ * those cases.
+ */
+public class ClasspathResolver {
+
+    /** Who asked for the project's own dependencies. */
+    public static final String PROJECT = "pom.xml";
+
+    private final PomResolver resolver = new PomResolver(new RepositoryClient());
+
+    /**
+     * An artifact on the classpath.
+     */
+    public static final class Entry {
+        public final String groupId;
+        public final String artifactId;
+        public final String version;
+        public final String classifier;
+        public final String scope;
+        /** Whether the project declares it itself. */
+        public final boolean direct;
+        /** The JAR in the local repository (which may not be downloaded yet), or null for POM-only artifacts. */
+        public final Path file;
+
+        Entry(String groupId, String artifactId, String version, String classifier, String scope, boolean direct,
+              Path file) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.classifier = classifier;
+            this.scope = scope;
+            this.direct = direct;
+            this.file = file;
+        }
+
+        public String coordinates() {
+            return groupId + ":" + artifactId + ":" + version + (classifier != null ? ":" + classifier : "");
+        }
+    }
+
+    /**
+     * A groupId:artifactId that was asked for in more than one version.
+     */
+    public static final class Conflict {
+        public final String key;
+        /** The version on the classpath. */
+        public final String chosen;
+        /** Whether the project's dependencyManagement picked it. */
+        public final boolean managed;
+        /** Requested version -> who asked for it ({@link #PROJECT} or groupId:artifactId:version), oldest first. */
+        public final Map<String, List<String>> requested;
+
+        Conflict(String key, String chosen, boolean managed, Map<String, List<String>> requested) {
+            this.key = key;
+            this.chosen = chosen;
+            this.managed = managed;
+            this.requested = Collections.unmodifiableMap(requested);
+        }
+
+        /**
+         * Checks whether something asked for a newer version than the one that won, which is
+         * where NoSuchMethodError and friends come from.
+         */
+        public boolean isDowngrade() {
+            for (String version : requested.keySet()) {
+                if (Versions.compare(version, chosen) > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Outcome of resolving a classpath.
+     */
+    public static final class Classpath {
+        /** In resolution order: the project's dependencies first, then level by level. */
+        public final List<Entry> entries;
+        public final List<Conflict> conflicts;
+        /** Dependencies whose version or POM could not be determined. */
+        public final List<String> unresolved;
+
+        Classpath(List<Entry> entries, List<Conflict> conflicts, List<String> unresolved) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.conflicts = Collections.unmodifiableList(conflicts);
+            this.unresolved = Collections.unmodifiableList(unresolved);
+        }
+    }
+
+    /**
+     * Resolves the classpath of a project.
+     */
+    public Classpath resolve(Path projectPom) throws IOException, InterruptedException {
+        ExecutorService executor = NetworkExecutor.create("mpm-classpath", DependencyWalker.THREADS);
+        try (Trace.Span span = Trace.span("classpath.resolve", Trace.Kind.PHASE, projectPom.toString())) {
+            PomModel model = PomModel.parse(projectPom);
+            PomResolver.Effective project = resolver.effective(model, projectPom.toAbsolutePath().getParent(),
+                    true, 0);
+
+            Map<String, String> chosen = new HashMap<>();
+            Map<String, Map<String, List<String>>> requests = new HashMap<>();
+            List<String> unresolved = new ArrayList<>();
+            List<Entry> entries = new ArrayList<>();
+
+            List<DependencyWalker.Node> roots = new ArrayList<>();
+            for (PomModel.Dependency dep : model.dependencies) {
+                String scope = dep.scope != null ? dep.scope : "compile";
+                if ("system".equals(scope) || "import".equals(scope)) {
+                    continue;
+                }
+                String groupId = model.interpolate(dep.groupId, project.properties);
+                String key = groupId + ":" + dep.artifactId;
+                String version = dep.version != null
+                        ? model.interpolate(dep.version, project.properties) : project.managed.get(key);
+                if (!DependencyWalker.isResolvable(version)) {
+                    unresolved.add(key + (version != null ? ":" + version : ""));
+                    continue;
+                }
+                request(requests, key, version, PROJECT);
+                if (chosen.putIfAbsent(key, version) == null) {
+                    roots.add(new DependencyWalker.Node(groupId, dep.artifactId, version, dep.type, dep.classifier,
+                            scope, true));
+                }
+            }
+
+            DependencyWalker walker = new DependencyWalker(resolver, executor, true);
+            unresolved.addAll(walker.walk(roots, chosen, project.managed, new DependencyWalker.Visitor() {
+                @Override
+                public boolean visit(DependencyWalker.Node node, PomResolver.Effective pom) {
+                    boolean pomOnly = "pom".equals(node.type) ||
+                            (node.type == null && "pom".equals(pom.model.packaging));
+                    entries.add(new Entry(node.groupId, node.artifactId, node.version, node.classifier, node.scope,
+                            node.direct, pomOnly ? null : LocalRepository.root().resolve(jarPath(node))));
+                    return true;
+                }
+
+                @Override
+                public void declared(DependencyWalker.Node from, String key, String version, boolean nearer) {
+                    if (version != null) {
+                        request(requests, key, version, from.coordinates());
+                    }
+                }
+            }));
+
+            List<Conflict> conflicts = new ArrayList<>();
+            for (Map.Entry<String, Map<String, List<String>>> request : requests.entrySet()) {
+                String version = chosen.get(request.getKey());
+                Map<String, List<String>> versions = request.getValue();
+                if (versions.size() > 1 || (version != null && !versions.containsKey(version))) {
+                    conflicts.add(new Conflict(request.getKey(), version,
+                            project.managed.containsKey(request.getKey()), versions));
+                }
+            }
+            conflicts.sort((a, b) -> a.key.compareTo(b.key));
+
+            span.set("artifacts", entries.size());
+            span.set("conflicts", conflicts.size());
+            return new Classpath(entries, conflicts, unresolved);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void request(Map<String, Map<String, List<String>>> requests, String key, String version,
+                                String by) {
+        requests.computeIfAbsent(key, k -> new TreeMap<>(Versions.ORDER))
+                .computeIfAbsent(version, v -> new ArrayList<>())
+                .add(by);
+    }
+
+    private static String jarPath(DependencyWalker.Node node) {
+        String classifier = node.classifier;
+        if (classifier == null && "test-jar".equals(node.type)) {
+            classifier = "tests";
+        }
+        return node.groupId.replace('.', '/') + "/" + node.artifactId + "/" + node.version + "/" +
+                node.artifactId + "-" + node.version + (classifier != null ? "-" + classifier : "") + ".jar";
+    }
+}
@@ -0,0 +1,205 @@
+package dev.mpm.api;
+
+import dev.mpm.pom.PomModel;
+import dev.mpm.util.LocalRepository;
+import dev.mpm.util.Offline;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Walks the transitive dependencies of a set of artifacts the way Maven does in the common
+ * case, for {@link InstallPlanner} and {@link ClasspathResolver}.
+ *
+ * The walk is breadth first, with one level of POMs read in parallel through a
+ * {@link PomResolver}. The nearest declaration of a groupId:artifactId wins, managed
+ * versions given by the caller override transitive ones, and test, provided, system, import
+ * and optional dependencies of dependencies are left out. A {@link Visitor} sees every node
+ * and every declaration, and decides which nodes are followed.
+ *
+ * Exclusions and version ranges are not evaluated.
+ */
+final class DependencyWalker {
+
+    /** Pool size for the POM lookups of one level. */
+    static final int THREADS = 8;
+
+    /**
+     * A dependency reached during the walk.
+     */
+    static final class Node {
+        final String groupId;
+        final String artifactId;
+        final String version;
+        final String type;
+        final String classifier;
+        final String scope;
+        /** Whether it is one of the roots. */
+        final boolean direct;
+
+        Node(String groupId, String artifactId, String version, String type, String classifier, String scope,
+             boolean direct) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.type = type;
+            this.classifier = classifier;
+            this.scope = scope;
+            this.direct = direct;
+        }
+
+        String coordinates() {
+            return groupId + ":" + artifactId + ":" + version;
+        }
+    }
+
+    /**
+     * Receives the walk as it happens, on the calling thread.
+     */
+    interface Visitor {
+        /**
+         * Called for each node whose POM was found, level by level.
+         *
+         * @return whether to follow its dependencies
+         */
+        boolean visit(Node node, PomResolver.Effective pom);
+
+        /**
+         * Called for each dependency a followed POM declares, before nearest-wins decides.
+         *
+         * @param version the version it declares or manages itself, or null
+         * @param nearer  whether a nearer declaration of the groupId:artifactId was already chosen
+         */
+        default void declared(Node from, String key, String version, boolean nearer) {
+        }
+    }
+
+    private final PomResolver resolver;
+    private final ExecutorService executor;
+    private final boolean offlineGaps;
+
+    /**
+     * @param offlineGaps offline, treat a POM that is not in the local repository as missing
+     *                    instead of failing the walk
+     */
+    DependencyWalker(PomResolver resolver, ExecutorService executor, boolean offlineGaps) {
+        this.resolver = resolver;
+        this.executor = executor;
+        this.offlineGaps = offlineGaps;
+    }
+
+    /**
+     * Walks the dependencies of the roots.
+     *
+     * @param chosen  groupId:artifactId -> version already decided, nearer than anything the
+     *                walk finds (the roots and the project's dependencies); extended as it goes
+     * @param managed groupId:artifactId -> version that overrides transitive versions
+     * @return dependencies whose version or POM could not be determined
+     */
+    List<String> walk(List<Node> roots, Map<String, String> chosen, Map<String, String> managed, Visitor visitor)
+            throws IOException, InterruptedException {
+        List<String> unresolved = new ArrayList<>();
+        List<Node> level = roots;
+        while (!level.isEmpty()) {
+            List<Future<PomResolver.Effective>> futures = new ArrayList<>(level.size());
+            for (Node node : level) {
+                futures.add(executor.submit(() -> {
+                    // Offline, a POM that is not in ~/.m2 leaves a gap rather than failing the whole run
+                    if (offlineGaps && Offline.isEnabled() &&
+                            !Files.exists(LocalRepository.pomPath(node.groupId, node.artifactId, node.version))) {
+                        return null;
+                    }
+                    return resolver.effectiveOf(node.groupId, node.artifactId, node.version);
+                }));
+            }
+
+            List<Node> next = new ArrayList<>();
+            for (int i = 0; i < level.size(); i++) {
+                Node node = level.get(i);
+                PomResolver.Effective pom = await(futures.get(i));
+                if (pom == null) {
+                    unresolved.add(node.coordinates() + " (no POM)");
+                    continue;
+                }
+                if (!visitor.visit(node, pom)) {
+                    continue;
+                }
+
+                for (PomModel.Dependency dep : pom.model.dependencies) {
+                    if (dep.optional || "test".equals(dep.scope) || "provided".equals(dep.scope) ||
+                            "system".equals(dep.scope) || "import".equals(dep.scope)) {
+                        continue;
+                    }
+                    String groupId = pom.model.interpolate(dep.groupId, pom.properties);
+                    String key = groupId + ":" + dep.artifactId;
+                    String declared = dep.version != null
+                            ? pom.model.interpolate(dep.version, pom.properties) : pom.managed.get(key);
+                    boolean nearer = chosen.containsKey(key);
+                    visitor.declared(node, key, declared, nearer);
+                    if (nearer) {
+                        continue; // nearest wins
+                    }
+
+                    String version = managed.get(key);
+                    if (version == null) {
+                        version = declared;
+                    }
+                    chosen.put(key, version != null ? version : "?");
+                    if (!isResolvable(version)) {
+                        unresolved.add(key + (version != null ? ":" + version : ""));
+                        continue;
+                    }
+                    next.add(new Node(groupId, dep.artifactId, version, dep.type, dep.classifier,
+                            scope(node.scope, dep.scope), false));
+                }
+            }
+            level = next;
+        }
+        return unresolved;
+    }
+
+    /**
+     * Checks whether a version is a plain version: not missing, not an unresolved
+     * expression and not a range.
+     */
+    static boolean isResolvable(String version) {
+        return version != null && !version.contains("${") && !version.startsWith("[") && !version.startsWith("(");
+    }
+
+    /**
+     * Gets the scope of a transitive dependency, as in Maven's scope table: compile and
+     * runtime dependencies of a test or provided dependency take its scope, and a runtime
+     * dependency stays runtime.
+     */
+    private static String scope(String parentScope, String scope) {
+        if (parentScope != null && !"compile".equals(parentScope)) {
+            return parentScope;
+        }
+        return "runtime".equals(scope) ? "runtime" : "compile";
+    }
+
+    static <T> T await(Future<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw new InterruptedIOException("Interrupted while resolving dependencies");
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package dev.mpm.api;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Shared HTTP client for all network access (search API and repository downloads).
+ * The client is built when this class is first used, so commands that never touch
+ * the network do not initialize java.net.http.
+ */
+final class Http {
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private Http() {}
+
+    static HttpClient client() {
+        return CLIENT;
+    }
+}
@@ -0,0 +1,390 @@
+package dev.mpm.api;
+
+import dev.mpm.pom.PomModel;
+import dev.mpm.trace.Trace;
+import dev.mpm.util.AtomicFiles;
+import dev.mpm.util.Bandwidth;
+import dev.mpm.util.LocalRepository;
+import dev.mpm.util.MpmHome;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Works out what installing an artifact would download, without touching the pom or ~/.m2.
+ *
+ * The transitive closure is walked by {@link DependencyWalker} the way Maven resolves it in
+ * the common case: breadth first, the nearest declaration of a groupId:artifactId wins,
+ * test/provided/system and optional dependencies of dependencies are left out, and missing
+ * versions come from the dependencyManagement of the parent chain and of imported BOMs. The project's own
+ * dependencies and dependencyManagement come first, as they are nearest. POMs that are not
+ * in the local repository are read into memory only. The sizes of missing artifact files
+ * come from concurrent HEAD requests and are kept in ~/.mpm/cache/sizes.tsv, since a released
+ * file never changes.
+ *
+ * Exclusions and version ranges are not evaluated, so the result is an estimate.
+ */
+public class InstallPlanner {
+
+    private static final String SIZE_CACHE = "cache/sizes.tsv";
+    private static final long PROBE_BYTES = 1024 * 1024;
+
+    private final RepositoryClient repository = new RepositoryClient();
+    private final PomResolver resolver = new PomResolver(repository);
+    private final Map<String, Long> sizes = new ConcurrentHashMap<>();
+    private final Map<String, Long> newSizes = new ConcurrentHashMap<>();
+
+    /**
+     * A file the install would download.
+     */
+    public static final class Download {
+        public final String coordinates;
+        public final String path;
+        /** Size in bytes, or -1 when the repository did not say. */
+        public final long bytes;
+
+        Download(String coordinates, String path, long bytes) {
+            this.coordinates = coordinates;
+            this.path = path;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Outcome of planning an install.
+     */
+    public static final class Plan {
+        /** groupId:artifactId:version of every artifact the new dependency brings in, itself first. */
+        public final List<String> artifacts;
+        /** Artifacts already in the project's dependencies, which the new one would reuse. */
+        public final List<String> shared;
+        /** Dependencies whose version or POM could not be determined. */
+        public final List<String> unresolved;
+        public final List<Download> downloads;
+        /** Median round trip of the requests made while planning, or -1 if none were needed. */
+        public final long latencyNanos;
+
+        Plan(List<String> artifacts, List<String> shared, List<String> unresolved, List<Download> downloads,
+             long latencyNanos) {
+            this.artifacts = Collections.unmodifiableList(artifacts);
+            this.shared = Collections.unmodifiableList(shared);
+            this.unresolved = Collections.unmodifiableList(unresolved);
+            this.downloads = Collections.unmodifiableList(downloads);
+            this.latencyNanos = latencyNanos;
+        }
+
+        public long totalBytes() {
+            long total = 0;
+            for (Download download : downloads) {
+                total += Math.max(0, download.bytes);
+            }
+            return total;
+        }
+
+        public int unknownSizes() {
+            int unknown = 0;
+            for (Download download : downloads) {
+                if (download.bytes < 0) {
+                    unknown++;
+                }
+            }
+            return unknown;
+        }
+
+        /**
+         * Estimates the download time: the bytes at the given bandwidth, plus one round trip
+         * per file spread over Maven's parallel downloads. The bandwidth is the aggregate of
+         * all connections ({@link Bandwidth} records wall-clock throughput), so the bytes are
+         * not divided by the parallelism again.
+         */
+        public long estimatedMillis(long bytesPerSecond, int parallelDownloads) {
+            long latency = latencyNanos > 0 ? latencyNanos : 100_000_000L;
+            long rounds = (downloads.size() + parallelDownloads - 1) / parallelDownloads;
+            return totalBytes() * 1000 / Math.max(1, bytesPerSecond) + rounds * latency / 1_000_000;
+        }
+    }
+
+    /**
+     * Plans the install of one artifact into a project.
+     *
+     * @param projectPom the project's pom.xml, or null when there is none yet
+     * @param scope      the scope it would be added with
+     */
+    public Plan plan(Path projectPom, String groupId, String artifactId, String version, String scope)
+            throws IOException, InterruptedException {
+        loadSizes();
+        ExecutorService executor = NetworkExecutor.create("mpm-plan", DependencyWalker.THREADS);
+        String coordinates = groupId + ":" + artifactId + ":" + version;
+        try (Trace.Span span = Trace.span("plan.resolve", Trace.Kind.PHASE, coordinates)) {
+            // The project's dependencies and managed versions are nearer than anything transitive
+            Map<String, String> chosen = new HashMap<>();
+            Map<String, String> projectManaged = new HashMap<>();
+            Map<String, String> projectDependencies = new HashMap<>();
+            if (projectPom != null && Files.isRegularFile(projectPom)) {
+                PomModel model = PomModel.parse(projectPom);
+                PomResolver.Effective project = resolver.effective(model, projectPom.toAbsolutePath().getParent(),
+                        true, 0);
+                projectManaged.putAll(project.managed);
+                for (PomModel.Dependency dep : model.dependencies) {
+                    String key = model.interpolate(dep.groupId, project.properties) + ":" + dep.artifactId;
+                    String depVersion = dep.version != null
+                            ? model.interpolate(dep.version, project.properties) : project.managed.get(key);
+                    projectDependencies.put(key, depVersion != null ? depVersion : "?");
+                }
+                chosen.putAll(projectDependencies);
+            }
+
+            List<DependencyWalker.Node> closure = new ArrayList<>();
+            List<String> shared = new ArrayList<>();
+            DependencyWalker.Node root = new DependencyWalker.Node(groupId, artifactId, version,
+                    "import".equals(scope) ? "pom" : null, null, scope, true);
+            chosen.put(groupId + ":" + artifactId, version);
+
+            DependencyWalker walker = new DependencyWalker(resolver, executor, false);
+            List<String> unresolved = walker.walk(List.of(root), chosen, projectManaged, new DependencyWalker.Visitor() {
+                @Override
+                public boolean visit(DependencyWalker.Node node, PomResolver.Effective pom) {
+                    closure.add(node);
+                    return node != root || !"import".equals(scope); // an imported BOM only contributes versions
+                }
+
+                @Override
+                public void declared(DependencyWalker.Node from, String key, String version, boolean nearer) {
+                    String existing = nearer ? projectDependencies.get(key) : null;
+                    if (existing != null && !shared.contains(key + ":" + existing)) {
+                        shared.add(key + ":" + existing);
+                    }
+                }
+            });
+
+            List<Download> downloads = downloads(closure, executor);
+            saveSizes();
+
+            List<String> artifacts = new ArrayList<>();
+            for (DependencyWalker.Node node : closure) {
+                artifacts.add(node.coordinates());
+            }
+            span.set("artifacts", artifacts.size());
+            span.set("downloads", downloads.size());
+            return new Plan(artifacts, shared, unresolved, downloads, medianRoundTrip());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Measures the bandwidth by reading the start of the largest file in the plan, and
+     * records it for later estimates. Used when nothing was measured before.
+     *
+     * @return bytes per second, or -1 if no file is big enough to tell
+     */
+    public long probeBandwidth(Plan plan) throws IOException, InterruptedException {
+        Download largest = null;
+        for (Download download : plan.downloads) {
+            if (largest == null || download.bytes > largest.bytes) {
+                largest = download;
+            }
+        }
+        if (largest == null || largest.bytes < Bandwidth.MIN_SAMPLE_BYTES) {
+            return -1;
+        }
+        long bytes = Math.min(largest.bytes, PROBE_BYTES);
+        String[] gav = largest.coordinates.split(":");
+        String path = gav.length == 3
+                ? resolver.snapshots.remotePath(largest.path, gav[0], gav[1], gav[2]) : largest.path;
+        long rate = repository.transferRate(path, bytes);
+        if (rate > 0) {
+            Bandwidth.record(bytes, bytes * 1_000_000_000L / rate);
+        }
+        return rate;
+    }
+
+    /**
+     * Lists the files of the closure that are not in the local repository, getting the
+     * sizes of missing artifact files concurrently.
+     */
+    private List<Download> downloads(List<DependencyWalker.Node> closure, ExecutorService executor)
+            throws IOException, InterruptedException {
+        Map<String, Future<Long>> pending = new LinkedHashMap<>();
+        List<Download> downloads = new ArrayList<>();
+        Map<String, Download> poms = new TreeMap<>();
+        for (Download pom : fetchedPomDownloads()) {
+            poms.put(pom.path, pom);
+        }
+
+        for (DependencyWalker.Node node : closure) {
+            String pomPath = LocalRepository.relativePath(node.groupId, node.artifactId, node.version, "pom");
+            Download pom = poms.remove(pomPath);
+            if (pom != null) {
+                downloads.add(pom);
+            }
+
+            String path = artifactPath(node);
+            if (path == null || Files.exists(LocalRepository.root().resolve(path))) {
+                continue;
+            }
+            downloads.add(new Download(node.coordinates(), path, -1));
+            if (!sizes.containsKey(path)) {
+                pending.put(path, executor.submit(() -> {
+                    long start = System.nanoTime();
+                    long size = repository.size(
+                            resolver.snapshots.remotePath(path, node.groupId, node.artifactId, node.version));
+                    resolver.roundTrips.add(System.nanoTime() - start);
+                    return size;
+                }));
+            }
+        }
+        // Parents and imported BOMs
+        downloads.addAll(poms.values());
+
+        for (Map.Entry<String, Future<Long>> entry : pending.entrySet()) {
+            long size = DependencyWalker.await(entry.getValue());
+            sizes.put(entry.getKey(), size);
+            if (size >= 0 && !entry.getKey().contains("-SNAPSHOT")) {
+                newSizes.put(entry.getKey(), size);
+            }
+        }
+
+        List<Download> sized = new ArrayList<>(downloads.size());
+        for (Download download : downloads) {
+            sized.add(download.bytes >= 0 ? download
+                    : new Download(download.coordinates, download.path, sizes.getOrDefault(download.path, -1L)));
+        }
+        return sized;
+    }
+
+    private List<Download> fetchedPomDownloads() {
+        List<Download> poms = new ArrayList<>();
+        resolver.fetchedPoms.forEach((path, size) -> poms.add(new Download(coordinatesOf(path), path, size)));
+        return poms;
+    }
+
+    /**
+     * Gets the repository path of the node's main file, or null when it has none (a POM
+     * dependency, or a jar dependency on a pom-packaged artifact).
+     */
+    private String artifactPath(DependencyWalker.Node node) {
+        String type = node.type != null ? node.type : "jar";
+        String classifier = node.classifier;
+        String extension;
+        switch (type) {
+            case "pom":
+                return null;
+            case "test-jar":
+                extension = "jar";
+                classifier = classifier != null ? classifier : "tests";
+                break;
+            case "jar":
+            case "bundle":
+            case "maven-plugin":
+                extension = "jar";
+                break;
+            default:
+                extension = type;
+        }
+        PomModel model = resolver.model(node.coordinates());
+        if (node.type == null && model != null && "pom".equals(model.packaging)) {
+            return null;
+        }
+        return node.groupId.replace('.', '/') + "/" + node.artifactId + "/" + node.version + "/" +
+                node.artifactId + "-" + node.version + (classifier != null ? "-" + classifier : "") + "." + extension;
+    }
+
+    /**
+     * Gets "g:a:v" back from a repository path of a POM.
+     */
+    private static String coordinatesOf(String pomPath) {
+        String[] parts = pomPath.split("/");
+        int n = parts.length;
+        if (n < 4) {
+            return pomPath;
+        }
+        StringBuilder groupId = new StringBuilder(parts[0]);
+        for (int i = 1; i < n - 3; i++) {
+            groupId.append('.').append(parts[i]);
+        }
+        return groupId + ":" + parts[n - 3] + ":" + parts[n - 2];
+    }
+
+
+    private long medianRoundTrip() {
+        List<Long> sorted;
+        synchronized (resolver.roundTrips) {
+            sorted = new ArrayList<>(resolver.roundTrips);
+        }
+        if (sorted.isEmpty()) {
+            return -1;
+        }
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    /**
+     * Loads the cached sizes of released files.
+     */
+    private void loadSizes() {
+        try {
+            for (String line : Files.readAllLines(MpmHome.root().resolve(SIZE_CACHE))) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    sizes.put(line.substring(0, tab), Long.parseLong(line.substring(tab + 1)));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // no cache yet, or a broken one: ask the repository
+        }
+    }
+
+    /**
+     * Merges the sizes learned in this run into the cache. Failures are ignored.
+     */
+    private void saveSizes() {
+        if (newSizes.isEmpty()) {
+            return;
+        }
+        try {
+            Path file = MpmHome.resolve(SIZE_CACHE);
+            AtomicFiles.update(file, generation -> {
+                Map<String, String> lines = new TreeMap<>();
+                try {
+                    for (String line : Files.readAllLines(file)) {
+                        int tab = line.indexOf('\t');
+                        if (tab > 0) {
+                            lines.put(line.substring(0, tab), line.substring(tab + 1));
+                        }
+                    }
+                } catch (NoSuchFileException e) {
+                    // first entries
+                }
+                newSizes.forEach((path, size) -> lines.put(path, Long.toString(size)));
+                return output -> {
+                    BufferedWriter out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                    for (Map.Entry<String, String> entry : lines.entrySet()) {
+                        out.write(entry.getKey());
+                        out.write('\t');
+                        out.write(entry.getValue());
+                        out.write('\n');
+                    }
+                    out.flush();
+                };
+            });
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+}
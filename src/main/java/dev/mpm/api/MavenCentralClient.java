@@ -1,29 +1,66 @@
 package dev.mpm.api;
 
+import dev.mpm.search.LocalCatalog;
+import dev.mpm.trace.Trace;
+import dev.mpm.util.Offline;
+import dev.mpm.util.Versions;
+
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
 import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Client for Maven Central Search API.
  * Uses only Java standard library (no external JSON dependencies).
+ *
+ * When mpm is {@link Offline}, or the API host cannot be connected to, lookups are answered
+ * by {@link LocalCatalog} instead; what it cannot answer fails at once. An unreachable API
+ * host only affects searches: it does not make mpm offline, and Maven still runs online.
  */
 public class MavenCentralClient {
 
-    private static final String SEARCH_URL = "https://search.maven.org/solrsearch/select";
-    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
+    private static final String DEFAULT_SEARCH_URL = "https://search.maven.org/solrsearch/select";
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long MAX_RETRY_AFTER_SECONDS = 30;
+    /** Rows per request when paging through a result set. */
+    private static final int PAGE_ROWS = 200;
+
+    private static final Pattern DOC_PATTERN =
+            Pattern.compile("\\{[^{}]*\"g\"\\s*:\\s*\"([^\"]+)\"[^{}]*\"a\"\\s*:\\s*\"([^\"]+)\"[^{}]*\\}");
+    private static final Pattern LATEST_VERSION_PATTERN = Pattern.compile("\"latestVersion\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern VERSION_COUNT_PATTERN = Pattern.compile("\"versionCount\"\\s*:\\s*(\\d+)");
+
+    /** The API host once it refused or timed out a connection; later lookups go local. */
+    private static volatile String unreachable;
+
+    private final String searchUrl;
 
     /**
      * Represents a Maven artifact from search results.
@@ -51,6 +88,18 @@ public class MavenCentralClient {
         }
     }
 
+    /**
+     * A lookup that may go to the network.
+     */
+    private interface Call<T> {
+        T run() throws IOException, InterruptedException;
+    }
+
+    public MavenCentralClient() {
+        String override = System.getProperty("mpm.search.url");
+        this.searchUrl = override != null && !override.isEmpty() ? override : DEFAULT_SEARCH_URL;
+    }
+
     /**
      * Searches for artifacts by name.
      *
@@ -60,21 +109,34 @@ public class MavenCentralClient {
      */
     public List<Artifact> search(String query, int rows) throws IOException, InterruptedException {
         String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
-        String url = SEARCH_URL + "?q=" + encodedQuery + "&rows=" + rows + "&wt=json";
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofSeconds(30))
-                .GET()
-                .build();
+        String url = searchUrl + "?q=" + encodedQuery + "&rows=" + rows + "&wt=json";
 
-        HttpResponse<String> response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+        return online(() -> parseSearchResponse(get("search", url)), () -> searchLocal(query, rows));
+    }
 
-        if (response.statusCode() != 200) {
-            throw new IOException("API returned status " + response.statusCode());
+    /**
+     * Streams every artifact matching a query, in the search API's relevance order.
+     *
+     * Results are requested {@value #PAGE_ROWS} at a time with start/rows, and the next page
+     * is fetched while the current one is consumed. At most two pages are held at once, so
+     * exporting 100,000 matches takes as much memory as exporting 200. Close the stream to
+     * stop early. Errors are thrown as {@link UncheckedIOException} from the stream.
+     *
+     * @param query the search query
+     * @param limit maximum number of results, or 0 for all of them
+     */
+    public Stream<Artifact> stream(String query, int limit) {
+        if (Offline.isEnabled() || unreachable != null) {
+            try {
+                return searchLocal(query, limit > 0 ? limit : Integer.MAX_VALUE).stream();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
-
-        return parseSearchResponse(response.body());
+        PageIterator pages = new PageIterator(URLEncoder.encode(query, StandardCharsets.UTF_8), limit);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(pages::close);
     }
 
     /**
@@ -87,22 +149,19 @@ public class MavenCentralClient {
     public Artifact searchExact(String groupId, String artifactId) throws IOException, InterruptedException {
         String query = "g:" + URLEncoder.encode(groupId, StandardCharsets.UTF_8) +
                 " AND a:" + URLEncoder.encode(artifactId, StandardCharsets.UTF_8);
-        String url = SEARCH_URL + "?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8) + "&rows=1&wt=json";
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofSeconds(30))
-                .GET()
-                .build();
-
-        HttpResponse<String> response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() != 200) {
-            throw new IOException("API returned status " + response.statusCode());
-        }
-
-        List<Artifact> results = parseSearchResponse(response.body());
-        return results.isEmpty() ? null : results.get(0);
+        String url = searchUrl + "?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8) + "&rows=1&wt=json";
+
+        return online(() -> {
+            List<Artifact> results = parseSearchResponse(get("searchExact", url));
+            return results.isEmpty() ? null : results.get(0);
+        }, () -> {
+            Artifact local = LocalCatalog.find(groupId, artifactId);
+            if (local == null) {
+                throw unavailable("Latest version of " + groupId + ":" + artifactId +
+                        " (none in the local repository)");
+            }
+            return local;
+        });
     }
 
     /**
@@ -115,58 +174,206 @@ public class MavenCentralClient {
     public List<String> getVersions(String groupId, String artifactId) throws IOException, InterruptedException {
         String query = "g:" + URLEncoder.encode(groupId, StandardCharsets.UTF_8) +
                 " AND a:" + URLEncoder.encode(artifactId, StandardCharsets.UTF_8);
-        String url = SEARCH_URL + "?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8) +
+        String url = searchUrl + "?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8) +
                 "&core=gav&rows=100&wt=json";
 
+        return online(() -> parseVersionsResponse(get("versions", url)), () -> {
+            List<String> versions = LocalCatalog.versions(groupId, artifactId);
+            if (versions.isEmpty()) {
+                throw unavailable("Version list of " + groupId + ":" + artifactId +
+                        " (none in the local repository)");
+            }
+            return versions;
+        });
+    }
+
+    /**
+     * Finds the artifacts that contain a class.
+     *
+     * @param className fully qualified class name, or a simple name
+     * @param rows      maximum number of artifact versions to look at
+     * @return one entry per groupId:artifactId, with the newest version that contains the class
+     */
+    public List<Artifact> searchByClass(String className, int rows) throws IOException, InterruptedException {
+        String query = (className.indexOf('.') >= 0 ? "fc:" : "c:") + "\"" + className + "\"";
+        String url = searchUrl + "?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8) +
+                "&core=gav&rows=" + rows + "&wt=json";
+
+        return online(() -> parseClassResponse(get("searchByClass", url)), () -> {
+            throw unavailable("Class search for " + className);
+        });
+    }
+
+    /**
+     * Runs a lookup against the API, or the local one when offline. A host that refuses or
+     * times out the connection sends the rest of the run's lookups to the local one too.
+     */
+    private <T> T online(Call<T> remote, Call<T> local) throws IOException, InterruptedException {
+        if (!Offline.isEnabled() && unreachable == null) {
+            try {
+                return remote.run();
+            } catch (ConnectException | HttpConnectTimeoutException e) {
+                unreachable = URI.create(searchUrl).getHost();
+            }
+        }
+        return local.run();
+    }
+
+    /**
+     * Creates the error for a lookup that only the API could answer.
+     */
+    private static IOException unavailable(String what) {
+        if (Offline.isEnabled()) {
+            return Offline.unavailable(what);
+        }
+        return new IOException(what + " needs the search API, but mpm cannot connect to " + unreachable);
+    }
+
+    private static List<Artifact> searchLocal(String query, int rows) throws IOException {
+        List<Artifact> results = LocalCatalog.search(query, rows);
+        if (results.isEmpty()) {
+            throw unavailable("Search for \"" + query + "\" (not cached, no match in the local repository)");
+        }
+        return results;
+    }
+
+    /**
+     * Sends a GET request to the search API and returns the response body.
+     * Requests go through the shared {@link RateLimiter}; 429 and 503 answers are retried
+     * after the limiter has backed off.
+     *
+     * @param name short name of the call, used in timings and traces
+     */
+    private String get(String name, String url) throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .timeout(Duration.ofSeconds(30))
                 .GET()
                 .build();
 
-        HttpResponse<String> response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+        RateLimiter limiter = RateLimiter.search();
+        for (int attempt = 1; ; attempt++) {
+            long lease = limiter.acquire();
+            // Bytes rather than a String, so the span records what came over the wire
+            HttpResponse<byte[]> response;
+            try (Trace.Span span = Trace.span("http." + name, Trace.Kind.HTTP, url)) {
+                response = Http.client().send(request, HttpResponse.BodyHandlers.ofByteArray());
+                span.set("status", response.statusCode()).set("bytes", response.body().length);
+                if (attempt > 1) {
+                    span.set("attempt", attempt);
+                }
+            } catch (IOException | InterruptedException e) {
+                limiter.release(lease, -1, 0);
+                throw e;
+            }
 
-        if (response.statusCode() != 200) {
-            throw new IOException("API returned status " + response.statusCode());
+            int status = response.statusCode();
+            limiter.release(lease, status, retryAfterMillis(response));
+            if (status == 200) {
+                return new String(response.body(), StandardCharsets.UTF_8);
+            }
+            if (!RateLimiter.isThrottled(status) || attempt >= MAX_ATTEMPTS) {
+                throw new IOException("API returned status " + status);
+            }
         }
+    }
 
-        return parseVersionsResponse(response.body());
+    /**
+     * Reads a Retry-After header given in seconds; HTTP dates are ignored.
+     */
+    private static long retryAfterMillis(HttpResponse<?> response) {
+        String value = response.headers().firstValue("Retry-After").orElse(null);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.min(MAX_RETRY_AFTER_SECONDS, Long.parseLong(value.trim())) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
     /**
      * Parses the search response JSON without external libraries.
      * Uses regex-based parsing for the simple JSON structure.
      */
-    private List<Artifact> parseSearchResponse(String json) {
+    List<Artifact> parseSearchResponse(String json) {
         List<Artifact> artifacts = new ArrayList<>();
+        parseDocs(json, null, artifacts::add);
 
-        // Find all docs in the response
-        Pattern docPattern = Pattern.compile("\\{[^{}]*\"g\"\\s*:\\s*\"([^\"]+)\"[^{}]*\"a\"\\s*:\\s*\"([^\"]+)\"[^{}]*\\}");
-        Matcher docMatcher = docPattern.matcher(json);
+        // Sort by versionCount descending (more versions = more likely official)
+        artifacts.sort(Comparator.comparingInt((Artifact a) -> a.versionCount).reversed());
+
+        return artifacts;
+    }
 
+    /**
+     * Parses the docs of a search response in the order they appear.
+     *
+     * @param groupIds if not null, groupId strings are shared through this map
+     * @return the number of docs found, including incomplete ones that were skipped
+     */
+    static int parseDocs(String json, Map<String, String> groupIds, Consumer<Artifact> sink) {
+        int docs = 0;
+        Matcher docMatcher = DOC_PATTERN.matcher(json);
         while (docMatcher.find()) {
+            docs++;
             String docJson = docMatcher.group(0);
 
-            String groupId = extractField(docJson, "g");
-            String artifactId = extractField(docJson, "a");
-            String latestVersion = extractField(docJson, "latestVersion");
-            int versionCount = extractIntField(docJson, "versionCount");
+            String groupId = docMatcher.group(1);
+            String artifactId = docMatcher.group(2);
+            Matcher latestVersion = LATEST_VERSION_PATTERN.matcher(docJson);
+            Matcher versionCount = VERSION_COUNT_PATTERN.matcher(docJson);
+            if (!latestVersion.find()) {
+                continue;
+            }
 
-            if (groupId != null && artifactId != null && latestVersion != null) {
-                artifacts.add(new Artifact(groupId, artifactId, latestVersion, versionCount));
+            if (groupIds != null) {
+                groupId = groupIds.computeIfAbsent(groupId, g -> g);
             }
+            sink.accept(new Artifact(groupId, artifactId, latestVersion.group(1),
+                    versionCount.find() ? Integer.parseInt(versionCount.group(1)) : 0));
         }
+        return docs;
+    }
 
-        // Sort by versionCount descending (more versions = more likely official)
-        artifacts.sort(Comparator.comparingInt((Artifact a) -> a.versionCount).reversed());
+    /**
+     * Parses a class search response (gav core) into one artifact per groupId:artifactId,
+     * keeping the newest version and counting how many versions contain the class.
+     */
+    List<Artifact> parseClassResponse(String json) {
+        Map<String, String[]> found = new LinkedHashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+
+        Matcher docMatcher = Pattern.compile("\\{[^{}]*\\}").matcher(json);
+        while (docMatcher.find()) {
+            String docJson = docMatcher.group(0);
+            String groupId = extractField(docJson, "g");
+            String artifactId = extractField(docJson, "a");
+            String version = extractField(docJson, "v");
+            if (groupId == null || artifactId == null || version == null) {
+                continue;
+            }
+            String key = groupId + ":" + artifactId;
+            String[] previous = found.get(key);
+            if (previous == null || Versions.compare(version, previous[2]) > 0) {
+                found.put(key, new String[] {groupId, artifactId, version});
+            }
+            counts.merge(key, 1, Integer::sum);
+        }
 
+        List<Artifact> artifacts = new ArrayList<>();
+        for (Map.Entry<String, String[]> entry : found.entrySet()) {
+            String[] gav = entry.getValue();
+            artifacts.add(new Artifact(gav[0], gav[1], gav[2], counts.get(entry.getKey())));
+        }
         return artifacts;
     }
 
     /**
      * Parses the versions response JSON.
      */
-    private List<String> parseVersionsResponse(String json) {
+    List<String> parseVersionsResponse(String json) {
         List<String> versions = new ArrayList<>();
 
         Pattern versionPattern = Pattern.compile("\"v\"\\s*:\\s*\"([^\"]+)\"");
@@ -196,4 +403,106 @@ public class MavenCentralClient {
         Matcher matcher = pattern.matcher(json);
         return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
     }
+
+    /**
+     * One page of a streamed search.
+     */
+    private static final class Page {
+        final List<Artifact> artifacts;
+        final boolean last;
+
+        Page(List<Artifact> artifacts, boolean last) {
+            this.artifacts = artifacts;
+            this.last = last;
+        }
+    }
+
+    /**
+     * Walks a result set page by page, keeping one request in flight ahead of the consumer.
+     */
+    private final class PageIterator implements Iterator<Artifact> {
+        private final String encodedQuery;
+        private final int limit;
+        private final ExecutorService executor = NetworkExecutor.create("mpm-search-page", 1);
+        private Future<Page> next;
+        private Iterator<Artifact> current = Collections.emptyIterator();
+        private int start;
+
+        PageIterator(String encodedQuery, int limit) {
+            this.encodedQuery = encodedQuery;
+            this.limit = limit;
+            next = submit();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (next == null) {
+                    return false;
+                }
+                Page page = await(next);
+                next = page.last ? null : submit();
+                if (next == null) {
+                    executor.shutdown();
+                }
+                current = page.artifacts.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Artifact next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        void close() {
+            if (next != null) {
+                next.cancel(true);
+                next = null;
+            }
+            executor.shutdownNow();
+        }
+
+        /**
+         * Requests the page at {@link #start}; pages are fetched one after another, never in parallel.
+         */
+        private Future<Page> submit() {
+            int pageStart = start;
+            int rows = limit > 0 ? Math.min(PAGE_ROWS, limit - pageStart) : PAGE_ROWS;
+            start += rows;
+            return executor.submit(() -> {
+                String url = searchUrl + "?q=" + encodedQuery + "&start=" + pageStart + "&rows=" + rows + "&wt=json";
+                String json = get("searchPage", url);
+                List<Artifact> artifacts = new ArrayList<>(rows);
+                // Rows of a page mostly share a few groupIds; one String of each, dropped with the page
+                int docs = parseDocs(json, new HashMap<>(), artifacts::add);
+                boolean last = docs < rows || pageStart + rows >= extractIntField(json, "numFound") ||
+                        (limit > 0 && pageStart + rows >= limit);
+                return new Page(artifacts, last);
+            });
+        }
+
+        private Page await(Future<Page> page) {
+            try {
+                return page.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new UncheckedIOException(new InterruptedIOException("Search interrupted"));
+            } catch (ExecutionException e) {
+                close();
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw new UncheckedIOException((IOException) cause);
+                }
+                if (cause instanceof InterruptedException) {
+                    throw new UncheckedIOException(new InterruptedIOException("Search interrupted"));
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
 }
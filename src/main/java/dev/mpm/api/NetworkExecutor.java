@@ -0,0 +1,40 @@
+package dev.mpm.api;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for blocking network fan-out (parallel lookups and downloads).
+ *
+ * This is the Java 11 version: a bounded pool of daemon platform threads. The jar is
+ * multi-release; on Java 21+ the JVM loads META-INF/versions/21/dev/mpm/api/NetworkExecutor
+ * instead (src/main/java21), which runs every task on its own virtual thread, so a
+ * thousand concurrent lookups do not need a thousand platform threads.
+ */
+public final class NetworkExecutor {
+
+    private NetworkExecutor() {}
+
+    /**
+     * Checks whether tasks run on virtual threads.
+     */
+    public static boolean usesVirtualThreads() {
+        return false;
+    }
+
+    /**
+     * Creates an executor for blocking network calls. Shut it down when done.
+     *
+     * @param name            thread name prefix
+     * @param platformThreads pool size; ignored when virtual threads are used
+     */
+    public static ExecutorService create(String name, int platformThreads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, platformThreads), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
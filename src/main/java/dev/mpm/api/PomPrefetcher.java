@@ -0,0 +1,223 @@
+package dev.mpm.api;
+
+import dev.mpm.pom.PomModel;
+import dev.mpm.util.BandwidthLimiter;
+import dev.mpm.util.LocalRepository;
+import dev.mpm.util.Offline;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Speculatively downloads the POM of the artifact about to be installed, its parent
+ * chain and its first-level transitive POMs into the local repository.
+ *
+ * Runs on background daemon threads while the user is still reading prompts, so that
+ * the Maven resolve step afterwards mostly hits the local cache. All work is bounded
+ * (number of POMs, bandwidth) and can be cancelled at any time.
+ */
+public class PomPrefetcher {
+
+    private static final int THREADS = 2;
+    private static final int MAX_POMS = 32;
+    private static final int MAX_PARENT_DEPTH = 5;
+    private static final long DEFAULT_BYTES_PER_SECOND = 2L * 1024 * 1024;
+
+    private final RepositoryClient repository = new RepositoryClient();
+    private final BandwidthLimiter limiter = new BandwidthLimiter(
+            Long.getLong("mpm.prefetch.bytesPerSecond", DEFAULT_BYTES_PER_SECOND));
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+    private final Object lock = new Object();
+    private ExecutorService executor;
+    private int pending;
+    private volatile boolean cancelled;
+
+    /**
+     * Starts prefetching for the given artifact. Returns immediately.
+     */
+    public void start(String groupId, String artifactId, String version) {
+        if (Boolean.getBoolean("mpm.prefetch.disabled") || Offline.isEnabled()) {
+            return;
+        }
+        synchronized (lock) {
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+                    Thread thread = new Thread(runnable, "mpm-prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+        submit(groupId, artifactId, version, true);
+    }
+
+    /**
+     * Waits up to the given time for in-flight downloads, then cancels whatever is left.
+     * Files that completed stay in the local repository.
+     */
+    public void finish(Duration maxWait) {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        synchronized (lock) {
+            try {
+                while (pending > 0 && !cancelled) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    lock.wait(remaining / 1_000_000 + 1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        cancel();
+    }
+
+    /**
+     * Cancels all outstanding work. Partially downloaded files are discarded.
+     */
+    public void cancel() {
+        cancelled = true;
+        synchronized (lock) {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private void submit(String groupId, String artifactId, String version, boolean withDependencies) {
+        String key = groupId + ":" + artifactId + ":" + version;
+        if (cancelled || seen.size() >= MAX_POMS || !seen.add(key)) {
+            return;
+        }
+
+        synchronized (lock) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        prefetch(groupId, artifactId, version, withDependencies);
+                    } finally {
+                        taskDone();
+                    }
+                });
+                pending++;
+            } catch (RejectedExecutionException e) {
+                // Cancelled concurrently
+            }
+        }
+    }
+
+    private void taskDone() {
+        synchronized (lock) {
+            pending--;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Fetches one POM and its parent chain, then schedules its direct dependencies.
+     */
+    private void prefetch(String groupId, String artifactId, String version, boolean withDependencies) {
+        try {
+            PomModel model = obtain(groupId, artifactId, version);
+            if (model == null) {
+                return;
+            }
+
+            // Parents are needed to interpolate versions, so fetch them inline
+            Map<String, String> inheritedProperties = new HashMap<>(model.properties);
+            List<PomModel.Dependency> managed = new ArrayList<>(model.managedDependencies);
+
+            PomModel current = model;
+            for (int depth = 0; depth < MAX_PARENT_DEPTH && current.parent != null && !cancelled; depth++) {
+                PomModel.Parent parent = current.parent;
+                if (parent.groupId == null || parent.version == null) {
+                    break;
+                }
+                String key = parent.groupId + ":" + parent.artifactId + ":" + parent.version;
+                if (!seen.add(key) && !isCached(parent)) {
+                    break; // another task is already downloading it
+                }
+                current = obtain(parent.groupId, parent.artifactId, parent.version);
+                if (current == null) {
+                    break;
+                }
+                current.properties.forEach(inheritedProperties::putIfAbsent);
+                managed.addAll(current.managedDependencies);
+            }
+
+            if (!withDependencies) {
+                return;
+            }
+
+            // Interpolate against the artifact's own model, as Maven does for the effective POM;
+            // declarations closer to the artifact win
+            Map<String, String> managedVersions = new HashMap<>();
+            for (PomModel.Dependency dep : managed) {
+                String key = model.interpolate(dep.groupId, inheritedProperties) + ":" + dep.artifactId;
+                if (dep.version != null) {
+                    managedVersions.putIfAbsent(key, model.interpolate(dep.version, inheritedProperties));
+                }
+            }
+
+            for (PomModel.Dependency dep : model.dependencies) {
+                if (cancelled) {
+                    return;
+                }
+                if (dep.optional || "test".equals(dep.scope) || "provided".equals(dep.scope) ||
+                        "system".equals(dep.scope)) {
+                    continue;
+                }
+
+                String depGroupId = model.interpolate(dep.groupId, inheritedProperties);
+                String depVersion = dep.version != null
+                        ? model.interpolate(dep.version, inheritedProperties)
+                        : managedVersions.get(depGroupId + ":" + dep.artifactId);
+
+                if (depVersion != null && !depVersion.contains("${") && !depVersion.startsWith("[") &&
+                        !depVersion.startsWith("(")) {
+                    submit(depGroupId, dep.artifactId, depVersion, false);
+                }
+            }
+        } catch (IOException e) {
+            // Best effort: Maven will fetch whatever we could not
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isCached(PomModel.Parent parent) {
+        return Files.exists(LocalRepository.pomPath(parent.groupId, parent.artifactId, parent.version));
+    }
+
+    /**
+     * Reads the POM from the local repository, downloading it first if needed.
+     */
+    private PomModel obtain(String groupId, String artifactId, String version)
+            throws IOException, InterruptedException {
+        Path local = LocalRepository.pomPath(groupId, artifactId, version);
+        if (!Files.exists(local)) {
+            // Maven keeps SNAPSHOTs with its own metadata next to them; leave those to it
+            if (SnapshotResolver.isSnapshot(version)) {
+                return null;
+            }
+            String relativePath = LocalRepository.relativePath(groupId, artifactId, version, "pom");
+            if (!repository.download(relativePath, local, limiter, () -> cancelled)) {
+                return null;
+            }
+        }
+        return PomModel.parse(local);
+    }
+}
@@ -0,0 +1,211 @@
+package dev.mpm.api;
+
+import dev.mpm.pom.PomModel;
+import dev.mpm.util.LocalRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads POMs and works out their effective properties and managed versions.
+ *
+ * POMs come from the local repository, or are fetched into memory when they are not
+ * there; the local repository is never written. Parents are looked up at ../pom.xml first
+ * for project files. Models are memoized, so one resolver can be shared by the threads of
+ * a task. Remote fetches and their round trips are recorded for callers that report on them.
+ */
+final class PomResolver {
+
+    private static final int MAX_PARENT_DEPTH = 5;
+    private static final int MAX_IMPORT_DEPTH = 3;
+
+    private final RepositoryClient repository;
+    /** Maps SNAPSHOT versions to the timestamped file names the repository has. */
+    final SnapshotResolver snapshots;
+    private final Map<String, PomModel> models = new ConcurrentHashMap<>();
+    private final Map<String, Effective> effective = new ConcurrentHashMap<>();
+    /** Repository path -> size of the POMs fetched because they were not local. */
+    final Map<String, Long> fetchedPoms = new ConcurrentHashMap<>();
+    /** Durations of the remote fetches, in nanoseconds. */
+    final List<Long> roundTrips = Collections.synchronizedList(new ArrayList<>());
+
+    PomResolver(RepositoryClient repository) {
+        this(repository, new SnapshotResolver(repository));
+    }
+
+    PomResolver(RepositoryClient repository, SnapshotResolver snapshots) {
+        this.repository = repository;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Properties and managed versions of a POM after inheritance and BOM imports.
+     */
+    static final class Effective {
+        final PomModel model;
+        final Map<String, String> properties;
+        /** groupId:artifactId -> version */
+        final Map<String, String> managed;
+        /** groupId:artifactId -> groupId:artifactId:version of the POM or BOM that manages it */
+        final Map<String, String> managedBy;
+        /** Imported BOMs as {groupId, artifactId, version}, in declaration order. */
+        final List<String[]> imports;
+
+        Effective(PomModel model, Map<String, String> properties, Map<String, String> managed,
+                  Map<String, String> managedBy, List<String[]> imports) {
+            this.model = model;
+            this.properties = properties;
+            this.managed = managed;
+            this.managedBy = managedBy;
+            this.imports = imports;
+        }
+    }
+
+    /**
+     * Resolves a repository POM, with its imports.
+     *
+     * @return the effective POM, or null if the repository does not have it
+     */
+    Effective effectiveOf(String groupId, String artifactId, String version)
+            throws IOException, InterruptedException {
+        String key = groupId + ":" + artifactId + ":" + version;
+        Effective cached = effective.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        PomModel model = obtain(groupId, artifactId, version);
+        if (model == null) {
+            return null;
+        }
+        Effective result = effective(model, null, true, 0);
+        effective.put(key, result);
+        return result;
+    }
+
+    /**
+     * Resolves properties and managed versions through the parent chain and, if asked,
+     * BOM imports.
+     *
+     * @param directory   the POM's directory when it is a local project file, so parents can
+     *                    be found at ../pom.xml; null for repository POMs
+     * @param withImports whether to merge imported BOMs into the managed versions; they are
+     *                    listed in {@link Effective#imports} either way
+     */
+    Effective effective(PomModel model, Path directory, boolean withImports, int importDepth)
+            throws IOException, InterruptedException {
+        List<PomModel> chain = new ArrayList<>();
+        chain.add(model);
+        PomModel current = model;
+        for (int depth = 0; depth < MAX_PARENT_DEPTH && current.parent != null; depth++) {
+            PomModel.Parent parent = current.parent;
+            PomModel parentModel = null;
+            Path relative = directory != null && directory.getParent() != null
+                    ? directory.getParent().resolve("pom.xml") : null;
+            if (relative != null && Files.isRegularFile(relative)) {
+                PomModel candidate = PomModel.parse(relative);
+                if (parent.artifactId != null && parent.artifactId.equals(candidate.artifactId)) {
+                    parentModel = candidate;
+                    directory = relative.getParent();
+                }
+            }
+            if (parentModel == null) {
+                if (parent.groupId == null || parent.artifactId == null || parent.version == null) {
+                    break;
+                }
+                parentModel = obtain(parent.groupId, parent.artifactId, parent.version);
+                directory = null;
+            }
+            if (parentModel == null) {
+                break;
+            }
+            chain.add(parentModel);
+            current = parentModel;
+        }
+
+        // Child properties override inherited ones
+        Map<String, String> properties = new HashMap<>();
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            properties.putAll(chain.get(i).properties);
+        }
+
+        // Declarations closer to the POM win; imported BOMs only fill the gaps
+        Map<String, String> managed = new HashMap<>();
+        Map<String, String> managedBy = new HashMap<>();
+        List<String[]> imports = new ArrayList<>();
+        for (PomModel pom : chain) {
+            String source = pom.effectiveGroupId() + ":" + pom.artifactId + ":" + pom.effectiveVersion();
+            for (PomModel.Dependency dep : pom.managedDependencies) {
+                String depGroupId = model.interpolate(dep.groupId, properties);
+                String depVersion = model.interpolate(dep.version, properties);
+                if (depVersion == null || depVersion.contains("${")) {
+                    continue;
+                }
+                if ("import".equals(dep.scope) && "pom".equals(dep.type)) {
+                    imports.add(new String[] {depGroupId, dep.artifactId, depVersion});
+                } else if (managed.putIfAbsent(depGroupId + ":" + dep.artifactId, depVersion) == null) {
+                    managedBy.put(depGroupId + ":" + dep.artifactId, source);
+                }
+            }
+        }
+        if (withImports && importDepth < MAX_IMPORT_DEPTH) {
+            for (String[] bom : imports) {
+                PomModel bomModel = obtain(bom[0], bom[1], bom[2]);
+                if (bomModel != null) {
+                    String source = bom[0] + ":" + bom[1] + ":" + bom[2];
+                    effective(bomModel, null, true, importDepth + 1).managed.forEach((key, version) -> {
+                        if (managed.putIfAbsent(key, version) == null) {
+                            managedBy.put(key, source);
+                        }
+                    });
+                }
+            }
+        }
+        return new Effective(model, properties, managed, managedBy, imports);
+    }
+
+    /**
+     * Reads a POM from the local repository, or fetches it into memory when it is not there.
+     *
+     * @return the model, or null if the repository does not have it
+     */
+    PomModel obtain(String groupId, String artifactId, String version)
+            throws IOException, InterruptedException {
+        String key = groupId + ":" + artifactId + ":" + version;
+        PomModel model = models.get(key);
+        if (model != null) {
+            return model;
+        }
+
+        Path local = LocalRepository.pomPath(groupId, artifactId, version);
+        if (Files.exists(local)) {
+            model = PomModel.parse(local);
+        } else {
+            String path = LocalRepository.relativePath(groupId, artifactId, version, "pom");
+            long start = System.nanoTime();
+            byte[] content = repository.fetch(snapshots.remotePath(path, groupId, artifactId, version));
+            roundTrips.add(System.nanoTime() - start);
+            if (content == null) {
+                return null;
+            }
+            fetchedPoms.put(path, (long) content.length);
+            model = PomModel.parse(new ByteArrayInputStream(content));
+        }
+        models.put(key, model);
+        return model;
+    }
+
+    /**
+     * Gets a model read earlier, or null.
+     */
+    PomModel model(String coordinates) {
+        return models.get(coordinates);
+    }
+}
@@ -0,0 +1,275 @@
+package dev.mpm.api;
+
+import dev.mpm.util.MpmHome;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-side limit on calls to the search API, shared by all mpm processes of a user.
+ *
+ * Combines a token bucket (requests per second) with a concurrency limit (requests in
+ * flight). Both adapt AIMD-style: a 429 or 503 halves them and pauses every caller for the
+ * Retry-After period; each success raises them a little. The state lives in a small file
+ * under ~/.mpm that is only touched while holding an exclusive lock on it, so 40 CI jobs on
+ * one host share one budget and converge near the server's limit instead of all retrying
+ * at once. If the file cannot be used, the state is kept in memory for this process only.
+ *
+ * Each request in flight is a lease in the file, with the process id and the time it was
+ * taken. Leases are returned on release and, for requests still running when the JVM
+ * exits (Ctrl+C), by a shutdown hook; a lease whose process is gone or that is older than
+ * the request timeout is dropped, so a killed process cannot hold a slot for good.
+ */
+final class RateLimiter {
+
+    private static final double INITIAL_RATE = 5.0;
+    private static final double MIN_RATE = 0.5;
+    private static final double MAX_RATE = 20.0;
+    private static final double RATE_STEP = 0.5;
+    private static final double INITIAL_CONCURRENCY = 4.0;
+    private static final double MAX_CONCURRENCY = 16.0;
+    private static final long POLL_MILLIS = 50;
+    /** Leases are dropped after the search request timeout; the request is over by then. */
+    private static final long LEASE_MILLIS = 30_000;
+    private static final long PID = ProcessHandle.current().pid();
+
+    private static final RateLimiter SEARCH = new RateLimiter("ratelimit/search.state");
+
+    private final String fileName;
+    private final Object lock = new Object();
+    private final AtomicLong nextLease = new AtomicLong();
+    /** Leases of this process not yet released, returned by the shutdown hook. */
+    private final Set<Long> held = ConcurrentHashMap.newKeySet();
+    private Thread releaseHook;
+
+    // Shared state, reloaded from the file under the lock
+    private double rate = INITIAL_RATE;
+    private double tokens = INITIAL_RATE;
+    private double concurrency = INITIAL_CONCURRENCY;
+    /** Requests in flight as {pid, lease, takenMillis}. */
+    private final List<long[]> leases = new ArrayList<>();
+    private long updatedMillis = System.currentTimeMillis();
+    private long pausedUntilMillis;
+
+    private RateLimiter(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Gets the limiter for search.maven.org.
+     */
+    static RateLimiter search() {
+        return SEARCH;
+    }
+
+    /**
+     * Blocks until a request may be sent. Every call must be followed by {@link #release}.
+     *
+     * @return the lease to release
+     */
+    long acquire() throws InterruptedException {
+        if (Boolean.getBoolean("mpm.ratelimit.disabled")) {
+            return 0;
+        }
+        registerReleaseHook();
+        long lease = nextLease.incrementAndGet();
+        while (true) {
+            long waitMillis = update(Outcome.ACQUIRE, lease, 0);
+            if (waitMillis <= 0) {
+                return lease;
+            }
+            Thread.sleep(waitMillis);
+        }
+    }
+
+    /**
+     * Reports the result of a request.
+     *
+     * @param lease            what {@link #acquire} returned
+     * @param status           HTTP status, or -1 if the request failed without a response
+     * @param retryAfterMillis the server's Retry-After, or 0
+     */
+    void release(long lease, int status, long retryAfterMillis) {
+        if (Boolean.getBoolean("mpm.ratelimit.disabled")) {
+            return;
+        }
+        update(status < 0 ? Outcome.FAILED : isThrottled(status) ? Outcome.THROTTLED : Outcome.DONE,
+                lease, retryAfterMillis);
+    }
+
+    /**
+     * Returns the leases of requests the JVM is killed in the middle of.
+     */
+    private void registerReleaseHook() {
+        synchronized (lock) {
+            if (releaseHook != null) {
+                return;
+            }
+            releaseHook = new Thread(() -> {
+                for (Long lease : held) {
+                    update(Outcome.FAILED, lease, 0);
+                }
+            }, "mpm-ratelimit-release");
+            Runtime.getRuntime().addShutdownHook(releaseHook);
+        }
+    }
+
+    static boolean isThrottled(int status) {
+        return status == 429 || status == 503;
+    }
+
+    private enum Outcome { ACQUIRE, DONE, FAILED, THROTTLED }
+
+    /**
+     * Applies one transition to the shared state.
+     *
+     * @return for ACQUIRE, how long to wait before trying again (0 when a slot was taken)
+     */
+    private long update(Outcome outcome, long lease, long retryAfterMillis) {
+        synchronized (lock) {
+            FileChannel channel = null;
+            try {
+                channel = FileChannel.open(MpmHome.resolve(fileName), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                // Fall back to this process's own state
+            }
+
+            try (FileChannel file = channel; FileLock fileLock = file != null ? file.lock() : null) {
+                if (file != null) {
+                    read(file);
+                }
+                long wait = apply(outcome, lease, retryAfterMillis, System.currentTimeMillis());
+                if (file != null) {
+                    write(file);
+                }
+                return wait;
+            } catch (IOException e) {
+                return outcome == Outcome.ACQUIRE ? 0 : -1;
+            }
+        }
+    }
+
+    private long apply(Outcome outcome, long lease, long retryAfterMillis, long now) {
+        dropStaleLeases(now);
+        if (outcome != Outcome.ACQUIRE) {
+            removeLease(lease);
+        }
+        tokens = Math.min(rate, tokens + rate * Math.max(0, now - updatedMillis) / 1000.0);
+        updatedMillis = now;
+
+        switch (outcome) {
+            case ACQUIRE:
+                if (now < pausedUntilMillis) {
+                    return pausedUntilMillis - now;
+                }
+                if (leases.size() >= Math.max(1, (int) concurrency)) {
+                    return POLL_MILLIS;
+                }
+                if (tokens < 1) {
+                    return Math.max(1, (long) Math.ceil((1 - tokens) * 1000 / rate));
+                }
+                tokens -= 1;
+                leases.add(new long[] {PID, lease, now});
+                held.add(lease);
+                return 0;
+            case DONE:
+                rate = Math.min(MAX_RATE, rate + RATE_STEP / rate);
+                concurrency = Math.min(MAX_CONCURRENCY, concurrency + 1 / concurrency);
+                return 0;
+            case FAILED:
+                // No answer from the server says nothing about its limit
+                return 0;
+            default:
+                rate = Math.max(MIN_RATE, rate / 2);
+                concurrency = Math.max(1, concurrency / 2);
+                tokens = Math.min(tokens, 0);
+                long pause = Math.max(retryAfterMillis, (long) (1000 / rate));
+                pausedUntilMillis = Math.max(pausedUntilMillis, now + pause);
+                return 0;
+        }
+    }
+
+    /**
+     * Drops leases of processes that are gone and leases older than the request timeout.
+     */
+    private void dropStaleLeases(long now) {
+        for (Iterator<long[]> it = leases.iterator(); it.hasNext(); ) {
+            long[] entry = it.next();
+            boolean alive = entry[0] == PID ||
+                    ProcessHandle.of(entry[0]).map(ProcessHandle::isAlive).orElse(false);
+            if (!alive || now - entry[2] > LEASE_MILLIS) {
+                it.remove();
+                if (entry[0] == PID) {
+                    held.remove(entry[1]);
+                }
+            }
+        }
+    }
+
+    private void removeLease(long lease) {
+        held.remove(lease);
+        leases.removeIf(entry -> entry[0] == PID && entry[1] == lease);
+    }
+
+    /**
+     * Reads "rate tokens concurrency updatedMillis pausedUntilMillis" and then one
+     * "pid lease takenMillis" line per lease; an empty or unreadable file keeps the current
+     * values.
+     */
+    private void read(FileChannel file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(file.size(), 64 * 1024));
+        file.read(buffer, 0);
+        String[] lines = new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII).trim()
+                .split("\n");
+        String[] fields = lines[0].trim().split(" ");
+        if (fields.length != 5) {
+            return;
+        }
+        try {
+            double fileRate = Double.parseDouble(fields[0]);
+            double fileTokens = Double.parseDouble(fields[1]);
+            double fileConcurrency = Double.parseDouble(fields[2]);
+            long fileUpdated = Long.parseLong(fields[3]);
+            long filePaused = Long.parseLong(fields[4]);
+            List<long[]> fileLeases = new ArrayList<>();
+            for (int i = 1; i < lines.length; i++) {
+                String[] lease = lines[i].trim().split(" ");
+                if (lease.length == 3) {
+                    fileLeases.add(new long[] {
+                            Long.parseLong(lease[0]), Long.parseLong(lease[1]), Long.parseLong(lease[2])});
+                }
+            }
+            rate = fileRate;
+            tokens = fileTokens;
+            concurrency = fileConcurrency;
+            updatedMillis = fileUpdated;
+            pausedUntilMillis = filePaused;
+            leases.clear();
+            leases.addAll(fileLeases);
+        } catch (NumberFormatException e) {
+            // Keep the current values; the write below repairs the file
+        }
+    }
+
+    private void write(FileChannel file) throws IOException {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%.3f %.3f %.3f %d %d%n",
+                rate, tokens, concurrency, updatedMillis, pausedUntilMillis));
+        for (long[] lease : leases) {
+            sb.append(lease[0]).append(' ').append(lease[1]).append(' ').append(lease[2]).append('\n');
+        }
+        file.truncate(0);
+        file.write(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.US_ASCII)), 0);
+    }
+}
@@ -0,0 +1,271 @@
+package dev.mpm.api;
+
+import dev.mpm.trace.Trace;
+import dev.mpm.util.BandwidthLimiter;
+import dev.mpm.util.Offline;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Downloads files from the Maven Central repository into the local repository layout.
+ */
+public class RepositoryClient {
+
+    private static final String DEFAULT_REPOSITORY_URL = "https://repo1.maven.org/maven2";
+    /** Id Maven uses for Central; part of the names of its local metadata files. */
+    static final String REPOSITORY_ID = "central";
+
+    private final String baseUrl;
+
+    public RepositoryClient() {
+        String override = System.getProperty("mpm.repository.url");
+        this.baseUrl = override != null && !override.isEmpty() ? override : DEFAULT_REPOSITORY_URL;
+    }
+
+    /**
+     * Downloads a file and its .sha1 checksum into the local repository.
+     * The file is written to a temporary name and moved into place only after the
+     * checksum matches, so Maven never sees a partial download.
+     *
+     * @param relativePath the repository-relative path (e.g. "g/a/v/a-v.pom")
+     * @param target       the local file to create
+     * @param limiter      bandwidth limiter shared with other downloads
+     * @param cancelled    polled between chunks; the download is abandoned when it returns true
+     * @return true if the file was downloaded, false if it does not exist remotely or was cancelled
+     */
+    public boolean download(String relativePath, Path target, BandwidthLimiter limiter, BooleanSupplier cancelled)
+            throws IOException, InterruptedException {
+        if (Offline.isEnabled()) {
+            throw Offline.unavailable("Download of " + relativePath);
+        }
+        String expectedSha1 = fetchChecksum(relativePath + ".sha1");
+        String url = baseUrl + "/" + relativePath;
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        try (Trace.Span span = Trace.span("http.download", Trace.Kind.HTTP, url)) {
+            return download(request, relativePath, target, expectedSha1, limiter, cancelled, span);
+        }
+    }
+
+    private boolean download(HttpRequest request, String relativePath, Path target, String expectedSha1,
+                             BandwidthLimiter limiter, BooleanSupplier cancelled, Trace.Span span)
+            throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = Http.client().send(request, HttpResponse.BodyHandlers.ofInputStream());
+        span.set("status", response.statusCode());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            if (response.statusCode() == 404) {
+                return false;
+            }
+            throw new IOException("Repository returned status " + response.statusCode() + " for " + relativePath);
+        }
+
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".part");
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            long total = 0;
+            try (InputStream in = response.body(); OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (cancelled.getAsBoolean()) {
+                        return false;
+                    }
+                    limiter.acquire(read);
+                    sha1.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    total += read;
+                }
+            }
+            span.set("bytes", total);
+
+            String actualSha1 = toHex(sha1.digest());
+            if (expectedSha1 != null && !expectedSha1.equalsIgnoreCase(actualSha1)) {
+                throw new IOException("Checksum mismatch for " + relativePath);
+            }
+
+            if (expectedSha1 != null) {
+                Files.writeString(target.resolveSibling(target.getFileName() + ".sha1"), expectedSha1);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            recordRemoteOrigin(target);
+            return true;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-1 not available", e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Fetches a file into memory, leaving the local repository alone.
+     *
+     * @return the content, or null if it does not exist remotely
+     */
+    public byte[] fetch(String relativePath) throws IOException, InterruptedException {
+        if (Offline.isEnabled()) {
+            throw Offline.unavailable("Download of " + relativePath);
+        }
+        String url = baseUrl + "/" + relativePath;
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        try (Trace.Span span = Trace.span("http.fetch", Trace.Kind.HTTP, url)) {
+            HttpResponse<byte[]> response = Http.client().send(request, HttpResponse.BodyHandlers.ofByteArray());
+            span.set("status", response.statusCode());
+            if (response.statusCode() == 404) {
+                return null;
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("Repository returned status " + response.statusCode() + " for " + relativePath);
+            }
+            span.set("bytes", response.body().length);
+            return response.body();
+        }
+    }
+
+    /**
+     * Gets the size of a remote file from the Content-Length of a HEAD request.
+     *
+     * @return the size in bytes, or -1 if the file does not exist or the size was not sent
+     */
+    public long size(String relativePath) throws IOException, InterruptedException {
+        if (Offline.isEnabled()) {
+            throw Offline.unavailable("Size of " + relativePath);
+        }
+        String url = baseUrl + "/" + relativePath;
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        try (Trace.Span span = Trace.span("http.head", Trace.Kind.HTTP, url)) {
+            HttpResponse<Void> response = Http.client().send(request, HttpResponse.BodyHandlers.discarding());
+            span.set("status", response.statusCode());
+            if (response.statusCode() == 404) {
+                return -1;
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("Repository returned status " + response.statusCode() + " for " + relativePath);
+            }
+            return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        }
+    }
+
+    /**
+     * Measures the transfer rate by reading the start of a remote file. Only the body is
+     * timed, so the round trip to the server does not count.
+     *
+     * @param maxBytes how much of the file to read
+     * @return bytes per second, or -1 if the file does not exist
+     */
+    public long transferRate(String relativePath, long maxBytes) throws IOException, InterruptedException {
+        if (Offline.isEnabled()) {
+            throw Offline.unavailable("Download of " + relativePath);
+        }
+        String url = baseUrl + "/" + relativePath;
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Range", "bytes=0-" + (maxBytes - 1))
+                .GET()
+                .build();
+
+        try (Trace.Span span = Trace.span("http.probe", Trace.Kind.HTTP, url)) {
+            HttpResponse<InputStream> response = Http.client().send(request, HttpResponse.BodyHandlers.ofInputStream());
+            span.set("status", response.statusCode());
+            try (InputStream in = response.body()) {
+                if (response.statusCode() != 200 && response.statusCode() != 206) {
+                    return -1;
+                }
+                long start = System.nanoTime();
+                long total = 0;
+                byte[] buffer = new byte[8192];
+                int read;
+                // A server that ignores Range sends the whole file; stop at the limit anyway
+                while (total < maxBytes && (read = in.read(buffer)) != -1) {
+                    total += read;
+                }
+                long nanos = System.nanoTime() - start;
+                span.set("bytes", total);
+                return nanos > 0 ? total * 1_000_000_000L / nanos : -1;
+            }
+        }
+    }
+
+    /**
+     * Fetches a checksum sidecar file, returning null if it does not exist.
+     */
+    private String fetchChecksum(String relativePath) throws IOException, InterruptedException {
+        String url = baseUrl + "/" + relativePath;
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        HttpResponse<String> response;
+        try (Trace.Span span = Trace.span("http.checksum", Trace.Kind.HTTP, url)) {
+            response = Http.client().send(request, HttpResponse.BodyHandlers.ofString());
+            span.set("status", response.statusCode());
+        }
+        if (response.statusCode() != 200) {
+            return null;
+        }
+
+        // Sidecars sometimes contain "<hash>  <filename>"
+        String body = response.body().trim();
+        int space = body.indexOf(' ');
+        return space > 0 ? body.substring(0, space) : body;
+    }
+
+    /**
+     * Registers the file in _remote.repositories the way Maven does,
+     * so Maven treats it as already downloaded from central.
+     */
+    private void recordRemoteOrigin(Path file) throws IOException {
+        Path tracking = file.resolveSibling("_remote.repositories");
+        String entry = file.getFileName() + ">" + REPOSITORY_ID + "=";
+
+        synchronized (RepositoryClient.class) {
+            String existing = Files.exists(tracking) ? Files.readString(tracking) : "";
+            if (!existing.contains(entry)) {
+                String header = existing.isEmpty() ? "#NOTE: This is a Maven Resolver internal implementation file\n" : "";
+                Files.write(tracking, (header + entry + "\n").getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
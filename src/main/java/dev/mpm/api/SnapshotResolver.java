@@ -0,0 +1,414 @@
+package dev.mpm.api;
+
+import dev.mpm.pom.PomModel;
+import dev.mpm.pom.PomSnapshot;
+import dev.mpm.trace.Trace;
+import dev.mpm.util.AtomicFiles;
+import dev.mpm.util.LocalRepository;
+import dev.mpm.util.MpmHome;
+import dev.mpm.util.Offline;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves SNAPSHOT versions to timestamped builds through the repository's
+ * maven-metadata.xml, and remembers the answer under an update policy.
+ *
+ * The metadata of g:a:1.0-SNAPSHOT lists its latest build, e.g. 1.0-20240105.143012-7, and
+ * the file name of every artifact of that build. It is kept in
+ * ~/.mpm/cache/snapshots/&lt;groupId&gt;/&lt;artifactId&gt;/&lt;version&gt;.xml, and the file's
+ * modification time is when the repository was last asked. Within the policy the cached
+ * copy answers without a round trip. The policy is read from mpm.snapshots.updatePolicy,
+ * with Maven's values:
+ *   always      - ask every time
+ *   daily       - ask once a day (the default, as in Maven)
+ *   interval:N  - ask when the last answer is more than N minutes old
+ *   never       - ask only when nothing is cached
+ * Offline, cached metadata of any age is used, and without any the SNAPSHOT is taken to
+ * have no repository build.
+ */
+public class SnapshotResolver {
+
+    private static final String DIRECTORY = "cache/snapshots";
+    private static final String METADATA = "maven-metadata.xml";
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private final RepositoryClient repository;
+    private final UpdatePolicy policy = UpdatePolicy.configured();
+    /** Answers of this run, so a SNAPSHOT is looked up at most once per command. */
+    private final Map<String, Optional<Snapshot>> resolved = new ConcurrentHashMap<>();
+
+    public SnapshotResolver() {
+        this(new RepositoryClient());
+    }
+
+    SnapshotResolver(RepositoryClient repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * The latest build of a SNAPSHOT version.
+     */
+    public static final class Snapshot {
+        public final String groupId;
+        public final String artifactId;
+        /** The SNAPSHOT version, e.g. 1.0-SNAPSHOT. */
+        public final String baseVersion;
+        /** Build timestamp, e.g. 20240105.143012; null for a build deployed without one. */
+        public final String timestamp;
+        public final int buildNumber;
+        /** extension, or extension:classifier -> timestamped version of that file. */
+        private final Map<String, String> values;
+
+        Snapshot(String groupId, String artifactId, String baseVersion, String timestamp, int buildNumber,
+                 Map<String, String> values) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.baseVersion = baseVersion;
+            this.timestamp = timestamp;
+            this.buildNumber = buildNumber;
+            this.values = values;
+        }
+
+        /**
+         * Gets the timestamped version of the build, e.g. 1.0-20240105.143012-7, or the
+         * base version when the repository stores it without a timestamp.
+         */
+        public String version() {
+            return timestamp != null
+                    ? baseVersion.substring(0, baseVersion.length() - "SNAPSHOT".length()) + timestamp + "-" + buildNumber
+                    : baseVersion;
+        }
+
+        /**
+         * Gets the timestamped version of one file of the build.
+         */
+        public String version(String extension, String classifier) {
+            String value = values.get(classifier != null ? extension + ":" + classifier : extension);
+            return value != null ? value : version();
+        }
+
+        boolean sameBuild(Snapshot other) {
+            return other != null && buildNumber == other.buildNumber
+                    && (timestamp == null ? other.timestamp == null : timestamp.equals(other.timestamp));
+        }
+    }
+
+    /**
+     * How long a cached answer is trusted.
+     */
+    static final class UpdatePolicy {
+        final String name;
+        /** Maximum age in milliseconds; -1 for daily, Long.MAX_VALUE for never. */
+        final long maxAgeMillis;
+
+        private UpdatePolicy(String name, long maxAgeMillis) {
+            this.name = name;
+            this.maxAgeMillis = maxAgeMillis;
+        }
+
+        static UpdatePolicy configured() {
+            String value = System.getProperty("mpm.snapshots.updatePolicy", "daily").trim();
+            switch (value) {
+                case "always":
+                    return new UpdatePolicy(value, 0);
+                case "never":
+                    return new UpdatePolicy(value, Long.MAX_VALUE);
+                default:
+                    if (value.startsWith("interval:")) {
+                        try {
+                            long minutes = Long.parseLong(value.substring("interval:".length()));
+                            return new UpdatePolicy(value, Math.max(0, minutes) * 60_000);
+                        } catch (NumberFormatException ignored) {
+                            // keep default
+                        }
+                    }
+                    return new UpdatePolicy("daily", -1);
+            }
+        }
+
+        /**
+         * Checks whether an answer obtained at the given time has to be asked again.
+         */
+        boolean isDue(long checkedMillis, long now) {
+            if (maxAgeMillis < 0) {
+                long midnight = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                return checkedMillis < midnight;
+            }
+            return maxAgeMillis != Long.MAX_VALUE && now - checkedMillis >= maxAgeMillis;
+        }
+    }
+
+    /**
+     * Checks whether a version is a SNAPSHOT that needs resolving.
+     */
+    public static boolean isSnapshot(String version) {
+        return version != null && version.endsWith("-SNAPSHOT");
+    }
+
+    /**
+     * Gets the latest build of a SNAPSHOT, from the cache while the update policy allows it.
+     *
+     * @return the build, or null if the repository has no metadata for the version, e.g. a
+     *         module that only exists in the local repository, or if it is offline and
+     *         nothing is cached
+     */
+    public Snapshot resolve(String groupId, String artifactId, String version)
+            throws IOException, InterruptedException {
+        String key = groupId + ":" + artifactId + ":" + version;
+        Optional<Snapshot> known = resolved.get(key);
+        if (known != null) {
+            return known.orElse(null);
+        }
+
+        Path file = MpmHome.root().resolve(DIRECTORY).resolve(groupId).resolve(artifactId).resolve(version + ".xml");
+        try (Trace.Span span = Trace.span("snapshot.resolve", Trace.Kind.PHASE, key)) {
+            byte[] cached = Files.exists(file) ? Files.readAllBytes(file) : null;
+            long checked = cached != null ? Files.getLastModifiedTime(file).toMillis() : 0;
+            Snapshot snapshot;
+            if (cached != null && (Offline.isEnabled() || !policy.isDue(checked, System.currentTimeMillis()))) {
+                span.set("result", "cached");
+                snapshot = parse(groupId, artifactId, version, cached);
+            } else if (Offline.isEnabled()) {
+                // Nothing to ask: the local repository decides, as for a module only installed locally
+                span.set("result", "offline");
+                snapshot = null;
+            } else {
+                span.set("result", "checked");
+                span.set("policy", policy.name);
+                byte[] content = repository.fetch(LocalRepository.relativePath(groupId, artifactId, version, "pom")
+                        .replaceFirst("[^/]+$", METADATA));
+                snapshot = content != null ? parse(groupId, artifactId, version, content) : null;
+                store(file, cached, content);
+            }
+            resolved.put(key, Optional.ofNullable(snapshot));
+            return snapshot;
+        }
+    }
+
+    /**
+     * Gets the repository path of a file, with the timestamped file name for a SNAPSHOT.
+     * Other versions map to the usual layout.
+     */
+    public String remotePath(String groupId, String artifactId, String version, String extension, String classifier)
+            throws IOException, InterruptedException {
+        String path = LocalRepository.relativePath(groupId, artifactId, version, extension);
+        Snapshot snapshot = isSnapshot(version) ? resolve(groupId, artifactId, version) : null;
+        String fileVersion = snapshot != null ? snapshot.version(extension, classifier) : version;
+        String name = artifactId + "-" + fileVersion + (classifier != null ? "-" + classifier : "") + "." + extension;
+        return path.substring(0, path.lastIndexOf('/') + 1) + name;
+    }
+
+    /**
+     * Maps a local repository path of g:a:v (a-v.ext or a-v-classifier.ext) to its
+     * repository path, see {@link #remotePath(String, String, String, String, String)}.
+     */
+    public String remotePath(String relativePath, String groupId, String artifactId, String version)
+            throws IOException, InterruptedException {
+        String prefix = artifactId + "-" + version;
+        String name = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+        if (!isSnapshot(version) || !name.startsWith(prefix)) {
+            return relativePath;
+        }
+        String rest = name.substring(prefix.length());
+        int dot = rest.lastIndexOf('.');
+        String classifier = rest.startsWith("-") && dot > 1 ? rest.substring(1, dot) : null;
+        return remotePath(groupId, artifactId, version, rest.substring(dot + 1), classifier);
+    }
+
+    /**
+     * Decides how Maven should treat remote SNAPSHOT metadata when resolving a project: its
+     * SNAPSHOT parent and dependencies, and the SNAPSHOTs those depend on in turn.
+     *
+     * @see #mavenUpdates(Iterable)
+     */
+    public Boolean mavenUpdates(Path pom) throws IOException, InterruptedException {
+        Path absolute = pom.toAbsolutePath().normalize();
+        PomResolver poms = new PomResolver(repository, this);
+        PomModel model = PomSnapshot.load(absolute).model;
+        PomResolver.Effective project = poms.effective(model, absolute.getParent(), true, 0);
+
+        Deque<String[]> pending = new ArrayDeque<>();
+        if (model.parent != null && isSnapshot(model.parent.version)) {
+            pending.add(new String[] {model.parent.groupId, model.parent.artifactId, model.parent.version});
+        }
+        addSnapshots(project, pending, true);
+
+        List<String[]> snapshots = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        while (!pending.isEmpty()) {
+            String[] gav = pending.poll();
+            if (!seen.add(gav[0] + ":" + gav[1] + ":" + gav[2])) {
+                continue;
+            }
+            snapshots.add(gav);
+            PomResolver.Effective dependency = poms.effectiveOf(gav[0], gav[1], gav[2]);
+            if (dependency != null) {
+                addSnapshots(dependency, pending, false);
+            }
+        }
+        return mavenUpdates(snapshots);
+    }
+
+    /**
+     * Queues the SNAPSHOT dependencies of a POM; of a dependency's POM only those that are
+     * transitive (not test, provided or optional).
+     */
+    private static void addSnapshots(PomResolver.Effective pom, Deque<String[]> pending, boolean project) {
+        for (PomModel.Dependency dep : pom.model.dependencies) {
+            if (!project && (dep.optional || "test".equals(dep.scope) || "provided".equals(dep.scope))) {
+                continue;
+            }
+            String groupId = pom.model.interpolate(dep.groupId, pom.properties);
+            String version = dep.version != null ? pom.model.interpolate(dep.version, pom.properties)
+                    : pom.managed.get(groupId + ":" + dep.artifactId);
+            if (isSnapshot(version)) {
+                pending.add(new String[] {groupId, dep.artifactId, version});
+            }
+        }
+    }
+
+    /**
+     * Decides how Maven should treat remote SNAPSHOT metadata for the given coordinates,
+     * comparing the latest builds with the metadata Maven keeps in the local repository.
+     *
+     * @param coordinates {groupId, artifactId, version} triples; non-SNAPSHOTs are ignored
+     * @return true if the repository has a newer build than Maven knows (run it with -U),
+     *         false if Maven's copies of every SNAPSHOT are current (-nsu, no remote checks),
+     *         or null when there are no SNAPSHOTs or one has no metadata in mpm's repository
+     *         (it may come from another repository, so Maven's own policy decides)
+     */
+    public Boolean mavenUpdates(Iterable<String[]> coordinates) throws IOException, InterruptedException {
+        Boolean updates = null;
+        boolean unknown = false;
+        for (String[] gav : coordinates) {
+            if (!isSnapshot(gav[2])) {
+                continue;
+            }
+            if (updates == null) {
+                updates = false;
+            }
+            Snapshot latest = resolve(gav[0], gav[1], gav[2]);
+            if (latest == null) {
+                unknown = true;
+                continue;
+            }
+            Path local = LocalRepository.root()
+                    .resolve(LocalRepository.relativePath(gav[0], gav[1], gav[2], "pom"))
+                    .resolveSibling("maven-metadata-" + RepositoryClient.REPOSITORY_ID + ".xml");
+            // Without local metadata Maven fetches it even with -nsu
+            if (Files.exists(local) && !latest.sameBuild(parse(gav[0], gav[1], gav[2], Files.readAllBytes(local)))) {
+                return true;
+            }
+        }
+        return unknown ? null : updates;
+    }
+
+    /**
+     * Saves fetched metadata, or marks unchanged metadata as checked now.
+     */
+    private static void store(Path file, byte[] cached, byte[] content) throws IOException {
+        if (content == null) {
+            Files.deleteIfExists(file);
+        } else if (Arrays.equals(cached, content)) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } else {
+            Files.createDirectories(file.getParent());
+            AtomicFiles.write(file, out -> out.write(content));
+        }
+    }
+
+    /**
+     * Reads versioning/snapshot and versioning/snapshotVersions from metadata.
+     */
+    private static Snapshot parse(String groupId, String artifactId, String version, byte[] content)
+            throws IOException {
+        String timestamp = null;
+        int buildNumber = 0;
+        Map<String, String> values = new HashMap<>();
+        String extension = null;
+        String classifier = null;
+        String value = null;
+
+        XMLStreamReader reader = null;
+        try (Trace.Span span = Trace.span("xml.parse", Trace.Kind.XML, groupId + ":" + artifactId + ":" + version)) {
+            reader = INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(content));
+            String parent = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if (name.equals("snapshot") || name.equals("snapshotVersion")) {
+                        parent = name;
+                        extension = null;
+                        classifier = null;
+                        value = null;
+                    } else if ("snapshot".equals(parent)) {
+                        if (name.equals("timestamp")) {
+                            timestamp = reader.getElementText().trim();
+                        } else if (name.equals("buildNumber")) {
+                            buildNumber = Integer.parseInt(reader.getElementText().trim());
+                        }
+                    } else if ("snapshotVersion".equals(parent)) {
+                        if (name.equals("extension")) {
+                            extension = reader.getElementText().trim();
+                        } else if (name.equals("classifier")) {
+                            classifier = reader.getElementText().trim();
+                        } else if (name.equals("value")) {
+                            value = reader.getElementText().trim();
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if (name.equals("snapshotVersion") && extension != null && value != null) {
+                        values.put(classifier != null && !classifier.isEmpty() ? extension + ":" + classifier
+                                : extension, value);
+                    }
+                    if (name.equals(parent)) {
+                        parent = null;
+                    }
+                }
+            }
+        } catch (XMLStreamException | NumberFormatException e) {
+            throw new IOException("Failed to parse metadata of " + groupId + ":" + artifactId + ":" + version + ": " +
+                    e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing useful to do
+                }
+            }
+        }
+        return new Snapshot(groupId, artifactId, version, timestamp, buildNumber, values);
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
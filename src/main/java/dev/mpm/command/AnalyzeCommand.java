@@ -0,0 +1,326 @@
+package dev.mpm.command;
+
+import dev.mpm.analyze.ClasspathAnalyzer;
+import dev.mpm.analyze.ClasspathAnalyzer.Overlap;
+import dev.mpm.analyze.ClasspathAnalyzer.Report;
+import dev.mpm.api.ClasspathResolver;
+import dev.mpm.api.ClasspathResolver.Classpath;
+import dev.mpm.api.ClasspathResolver.Conflict;
+import dev.mpm.api.ClasspathResolver.Entry;
+import dev.mpm.util.Console;
+import dev.mpm.util.MachineOutput;
+import dev.mpm.util.Versions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks the project's classpath for version conflicts, classes that more than one JAR
+ * provides, and dependencies that look unused.
+ *
+ * The classpath is resolved from the POMs with {@link ClasspathResolver}, without running
+ * Maven, and the JARs are read by {@link ClasspathAnalyzer}, which caches what it finds per
+ * classpath. JARs that are not downloaded yet are listed and left out.
+ *
+ * Usage:
+ *   mpm analyze           - report the most important findings of each kind
+ *   mpm analyze --all     - report everything, including conflicts settled by dependencyManagement
+ *   mpm analyze --json    - conflict, duplicate and unused records, then a summary
+ */
+public class AnalyzeCommand implements Command {
+
+    private static final int MAX_SHOWN = 10;
+    private static final int MAX_REQUESTERS = 3;
+
+    @Override
+    public String getName() {
+        return "analyze";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Find version conflicts, duplicate classes and unused dependencies";
+    }
+
+    @Override
+    public String getUsage() {
+        return "mpm analyze [--all]";
+    }
+
+    @Override
+    public int execute(String[] args) {
+        boolean all = false;
+        for (String arg : args) {
+            if ("--all".equals(arg)) {
+                all = true;
+            } else {
+                Console.error("Unknown option: " + arg);
+                Console.println("Usage: " + getUsage());
+                return 1;
+            }
+        }
+
+        Path pom = Path.of("pom.xml");
+        if (!Files.exists(pom)) {
+            Console.error("pom.xml not found in current directory");
+            Console.info("Run 'mpm init' to create a new project");
+            return 1;
+        }
+
+        Console.flush();
+        try {
+            long start = System.nanoTime();
+            Classpath classpath = new ClasspathResolver().resolve(pom);
+            long resolveMillis = (System.nanoTime() - start) / 1_000_000;
+
+            List<Conflict> conflicts = new ArrayList<>();
+            for (Conflict conflict : classpath.conflicts) {
+                if (all || !conflict.managed) {
+                    conflicts.add(conflict);
+                }
+            }
+            // Downgrades are the ones that break at runtime
+            conflicts.sort((a, b) -> Boolean.compare(b.isDowngrade(), a.isDowngrade()));
+            // Records go out as each step finishes, not after the whole analysis
+            if (MachineOutput.isEnabled() && !emitConflicts(conflicts)) {
+                return 0;
+            }
+
+            Report report = ClasspathAnalyzer.analyze(classpath.entries);
+            if (MachineOutput.isEnabled() && !emitOverlaps(report.overlaps)) {
+                return 0;
+            }
+            List<Entry> unused = ClasspathAnalyzer.unused(classpath.entries, report,
+                    pom.toAbsolutePath().getParent());
+            if (MachineOutput.isEnabled()) {
+                if (emitUnused(unused)) {
+                    emitSummary(classpath, conflicts, report, unused);
+                }
+                return 0;
+            }
+
+            Console.info("Resolved " + classpath.entries.size() + " artifacts " +
+                    Console.dim("(" + resolveMillis + " ms)") + ", " +
+                    (report.cached ? "JAR contents from cache " : "read " + report.jars.size() + " JARs ") +
+                    Console.dim("(" + report.elapsedMillis + " ms)"));
+
+            printConflicts(conflicts, classpath.conflicts.size() - conflicts.size(), all);
+            printOverlaps(report.overlaps, all);
+            printUnused(unused);
+            printProblems(classpath, report);
+            return 0;
+
+        } catch (IOException e) {
+            Console.error("Analysis failed: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Console.error("Analysis interrupted");
+            return 1;
+        }
+    }
+
+    private void printConflicts(List<Conflict> conflicts, int hidden, boolean all) {
+        Console.println();
+        if (conflicts.isEmpty()) {
+            Console.success("No version conflicts" +
+                    (hidden > 0 ? Console.dim(" (" + hidden + " settled by dependencyManagement)") : ""));
+            return;
+        }
+
+        Console.println(Console.bold("Version conflicts (" + conflicts.size() + "):"));
+        int shown = all ? conflicts.size() : Math.min(MAX_SHOWN, conflicts.size());
+        for (Conflict conflict : conflicts.subList(0, shown)) {
+            Console.println("  " + Console.bold(conflict.key) + " " + Console.green(conflict.chosen) +
+                    (conflict.managed ? Console.dim("  managed") : ""));
+            for (Map.Entry<String, List<String>> request : conflict.requested.entrySet()) {
+                String version = request.getKey();
+                if (version.equals(conflict.chosen) && conflict.requested.size() > 1 && !all) {
+                    continue;
+                }
+                String line = "    " + version + Console.dim(" requested by " + requesters(request.getValue()));
+                if (Versions.compare(version, conflict.chosen) > 0) {
+                    line += " " + Console.yellow("newer than the version used");
+                }
+                Console.println(line);
+            }
+        }
+        printMore(conflicts.size() - shown, hidden > 0 && !all
+                ? hidden + " settled by dependencyManagement" : null);
+    }
+
+    private void printOverlaps(List<Overlap> overlaps, boolean all) {
+        Console.println();
+        if (overlaps.isEmpty()) {
+            Console.success("No duplicate classes");
+            return;
+        }
+
+        int total = 0;
+        for (Overlap overlap : overlaps) {
+            total += overlap.classes;
+        }
+        Console.println(Console.bold("Duplicate classes (" + total + " in " + overlaps.size() + " groups):"));
+        int shown = all ? overlaps.size() : Math.min(MAX_SHOWN, overlaps.size());
+        for (Overlap overlap : overlaps.subList(0, shown)) {
+            Console.println("  " + Console.yellow(overlap.classes + (overlap.classes == 1 ? " class" : " classes")) +
+                    " in " + Console.bold(String.join(", ", overlap.jars)));
+            Console.println(Console.dim("    " + String.join(", ", overlap.examples) +
+                    (overlap.classes > overlap.examples.size() ? ", ..." : "")));
+        }
+        printMore(overlaps.size() - shown, null);
+    }
+
+    private void printUnused(List<Entry> unused) {
+        Console.println();
+        if (unused == null) {
+            Console.info("No sources under src/, skipped the unused dependency check");
+            return;
+        }
+        if (unused.isEmpty()) {
+            Console.success("Every direct dependency is referenced from the sources");
+            return;
+        }
+
+        Console.println(Console.bold("Dependencies that look unused (" + unused.size() + "):"));
+        for (Entry entry : unused) {
+            Console.println("  " + Console.bold(entry.groupId + ":" + entry.artifactId) + " " +
+                    Console.green(entry.version) + Console.dim("  " + entry.scope));
+        }
+        Console.println(Console.dim("  No package of these appears in src/; reflection and service loading are not seen"));
+    }
+
+    private void printProblems(Classpath classpath, Report report) {
+        if (report.missing.isEmpty() && report.unreadable.isEmpty() && classpath.unresolved.isEmpty()) {
+            return;
+        }
+        Console.println();
+        if (!report.missing.isEmpty()) {
+            Console.warn(report.missing.size() + " JARs are not in the local repository and were skipped " +
+                    Console.dim("(" + String.join(", ", first(report.missing)) + ")"));
+            Console.info("Run 'mvn dependency:resolve' to download them");
+        }
+        if (!report.unreadable.isEmpty()) {
+            Console.warn("Not readable as JARs: " + String.join(", ", report.unreadable));
+            Console.info("Run 'mpm verify --fix' to repair the local repository");
+        }
+        if (!classpath.unresolved.isEmpty()) {
+            Console.warn("Could not resolve " + classpath.unresolved.size() + ": " +
+                    String.join(", ", first(classpath.unresolved)));
+        }
+    }
+
+    private static void printMore(int more, String note) {
+        List<String> parts = new ArrayList<>();
+        if (more > 0) {
+            parts.add(more + " more");
+        }
+        if (note != null) {
+            parts.add(note);
+        }
+        if (!parts.isEmpty()) {
+            Console.println(Console.dim("  ... " + String.join(", ", parts) + " (--all to show)"));
+        }
+    }
+
+    private static String requesters(List<String> requesters) {
+        List<String> shown = requesters.subList(0, Math.min(MAX_REQUESTERS, requesters.size()));
+        return String.join(", ", shown) +
+                (requesters.size() > shown.size() ? " and " + (requesters.size() - shown.size()) + " more" : "");
+    }
+
+    private static List<String> first(List<String> items) {
+        if (items.size() <= MAX_SHOWN) {
+            return items;
+        }
+        List<String> shown = new ArrayList<>(items.subList(0, MAX_SHOWN));
+        shown.add("...");
+        return shown;
+    }
+
+    /**
+     * Emits one conflict record per losing version.
+     *
+     * @return false once the consumer has gone away
+     */
+    private boolean emitConflicts(List<Conflict> conflicts) {
+        for (Conflict conflict : conflicts) {
+            int colon = conflict.key.indexOf(':');
+            for (Map.Entry<String, List<String>> request : conflict.requested.entrySet()) {
+                if (request.getKey().equals(conflict.chosen)) {
+                    continue;
+                }
+                Map<String, Object> record = new LinkedHashMap<>();
+                record.put("type", "conflict");
+                record.put("groupId", conflict.key.substring(0, colon));
+                record.put("artifactId", conflict.key.substring(colon + 1));
+                record.put("version", conflict.chosen);
+                record.put("requested", request.getKey());
+                record.put("requestedBy", request.getValue());
+                record.put("newer", Versions.compare(request.getKey(), conflict.chosen) > 0);
+                record.put("managed", conflict.managed);
+                if (!MachineOutput.emit(record)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Emits one duplicate record per group of JARs sharing classes.
+     */
+    private boolean emitOverlaps(List<Overlap> overlaps) {
+        for (Overlap overlap : overlaps) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("type", "duplicate");
+            record.put("artifacts", overlap.jars);
+            record.put("classes", overlap.classes);
+            record.put("examples", overlap.examples);
+            if (!MachineOutput.emit(record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Emits one unused record per dependency; none when the sources were not checked.
+     */
+    private boolean emitUnused(List<Entry> unused) {
+        if (unused == null) {
+            return true;
+        }
+        for (Entry entry : unused) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("type", "unused");
+            record.put("groupId", entry.groupId);
+            record.put("artifactId", entry.artifactId);
+            record.put("version", entry.version);
+            record.put("scope", entry.scope);
+            if (!MachineOutput.emit(record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void emitSummary(Classpath classpath, List<Conflict> conflicts, Report report, List<Entry> unused) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("type", "summary");
+        summary.put("artifacts", classpath.entries.size());
+        summary.put("jars", report.jars.size());
+        summary.put("conflicts", conflicts.size());
+        summary.put("duplicates", report.overlaps.size());
+        summary.put("unused", unused != null ? unused.size() : null);
+        summary.put("missing", report.missing);
+        summary.put("unresolved", classpath.unresolved);
+        summary.put("cached", report.cached);
+        MachineOutput.emit(summary);
+    }
+}
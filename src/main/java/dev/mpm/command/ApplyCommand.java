@@ -0,0 +1,395 @@
+package dev.mpm.command;
+
+import dev.mpm.api.MavenCentralClient;
+import dev.mpm.api.MavenCentralClient.Artifact;
+import dev.mpm.api.NetworkExecutor;
+import dev.mpm.api.SnapshotResolver;
+import dev.mpm.pom.PomEditor;
+import dev.mpm.pom.PomEditor.Dependency;
+import dev.mpm.search.ArtifactRanker;
+import dev.mpm.search.SelectionHistory;
+import dev.mpm.trace.Trace;
+import dev.mpm.util.Console;
+import dev.mpm.util.Json;
+import dev.mpm.util.MachineOutput;
+import dev.mpm.util.MavenExecutor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies a batch of install/remove operations in one run.
+ *
+ * The batch is processed as a pipeline: coordinate lookups for all installs run in
+ * parallel, every edit is applied to a single loaded pom.xml which is saved once, and
+ * Maven resolves dependencies once at the end. One result record per operation is
+ * written to stdout once the pom has been saved, so an edit that was never written is
+ * reported as an error: NDJSON by default, or a JSON array with the global --json option.
+ *
+ * Input (file or "-" for stdin), either one operation per line:
+ *   install lombok --scope provided
+ *   install com.google.guava:guava:33.0.0-jre
+ *   remove junit
+ * or a JSON list:
+ *   [{"op": "install", "artifact": "lombok", "scope": "provided"}, {"op": "remove", "artifact": "junit"}]
+ *
+ * Usage:
+ *   mpm apply <file|-> [--no-resolve]
+ */
+public class ApplyCommand implements Command {
+
+    /** Lookup pool size on Java 11-20; on 21+ lookups use virtual threads and the RateLimiter caps them. */
+    private static final int MAX_LOOKUP_THREADS = 8;
+    private static final Pattern JSON_OBJECT = Pattern.compile("\\{[^{}]*\\}");
+
+    private final MavenCentralClient client = new MavenCentralClient();
+
+    /**
+     * One operation from the input.
+     */
+    private static class Operation {
+        final int index;
+        final String op;
+        final String artifact;
+        final String scope;
+        String error;
+        CompletableFuture<ArtifactSpec> lookup;
+
+        Operation(int index, String op, String artifact, String scope) {
+            this.index = index;
+            this.op = op;
+            this.artifact = artifact;
+            this.scope = scope;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "apply";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Apply a batch of install/remove operations";
+    }
+
+    @Override
+    public String getUsage() {
+        return "mpm apply <file|-> [--no-resolve]";
+    }
+
+    @Override
+    public int execute(String[] args) {
+        if (args.length == 0) {
+            Console.error("Missing operations file (use - for stdin)");
+            Console.println("Usage: " + getUsage());
+            return 1;
+        }
+
+        // The output of apply is always records
+        MachineOutput.enable(MachineOutput.Format.NDJSON);
+
+        String source = args[0];
+        boolean resolve = true;
+        for (int i = 1; i < args.length; i++) {
+            if ("--no-resolve".equals(args[i])) {
+                resolve = false;
+            }
+        }
+
+        List<Operation> operations;
+        try {
+            String input = source.equals("-")
+                    ? new String(System.in.readAllBytes(), StandardCharsets.UTF_8)
+                    : Files.readString(Path.of(source));
+            operations = parseOperations(input);
+        } catch (IOException e) {
+            Console.error("Failed to read operations: " + e.getMessage());
+            return 1;
+        }
+
+        Path pomPath = Path.of("pom.xml");
+        PomEditor pom = new PomEditor(pomPath);
+        if (!pom.exists()) {
+            Console.error("pom.xml not found in current directory");
+            return 1;
+        }
+
+        ExecutorService lookupPool = NetworkExecutor.create("mpm-lookup",
+                Math.min(MAX_LOOKUP_THREADS, operations.size()));
+
+        SelectionHistory history = SelectionHistory.load();
+        ArtifactRanker ranker = new ArtifactRanker(history, InstallCommand.projectGroupIds(pom));
+
+        Console.flush();
+        try {
+            // Stage 1: start all coordinate lookups in parallel
+            for (Operation operation : operations) {
+                if (operation.error == null && operation.op.equals("install")) {
+                    operation.lookup = CompletableFuture.supplyAsync(() -> lookup(operation.artifact, ranker), lookupPool);
+                }
+            }
+
+            // Stage 2: apply edits in input order to a single loaded pom
+            int added = 0;
+            int removed = 0;
+            int unchanged = 0;
+            int failed = 0;
+
+            // Results are held back until the pom is saved, so no edit is reported that was never written
+            List<Map<String, Object>> results = new ArrayList<>(operations.size());
+            for (Operation operation : operations) {
+                Map<String, Object> record = apply(pom, operation, history);
+                String status = (String) record.get("status");
+                switch (status) {
+                    case "added": added++; break;
+                    case "removed": removed++; break;
+                    case "exists": unchanged++; break;
+                    default: failed++;
+                }
+                results.add(record);
+            }
+
+            boolean saved = false;
+            if (added + removed > 0) {
+                try {
+                    pom.save();
+                    saved = true;
+                } catch (IOException e) {
+                    Console.error("Could not save pom.xml: " + e.getMessage());
+                    for (Map<String, Object> record : results) {
+                        Object status = record.get("status");
+                        if ("added".equals(status) || "removed".equals(status)) {
+                            fail(record, "pom.xml was not saved: " + e.getMessage());
+                        }
+                    }
+                    failed += added + removed;
+                    added = 0;
+                    removed = 0;
+                }
+            }
+            for (Map<String, Object> record : results) {
+                emit(record);
+            }
+
+            // Stage 3: one Maven resolution for the whole batch
+            Boolean resolved = null;
+            if (resolve && added > 0) {
+                try (Trace.Span span = Trace.span("resolve")) {
+                    InstallCommand.configureSnapshotUpdates(new SnapshotResolver(), pomPath);
+                    resolved = MavenExecutor.resolveDependencies(
+                            pomPath.toAbsolutePath().getParent().toFile(), System.err);
+                }
+            }
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("type", "summary");
+            summary.put("operations", operations.size());
+            summary.put("added", added);
+            summary.put("removed", removed);
+            summary.put("unchanged", unchanged);
+            summary.put("failed", failed);
+            summary.put("saved", saved);
+            summary.put("resolved", resolved);
+            emit(summary);
+
+            return failed == 0 && !Boolean.FALSE.equals(resolved) ? 0 : 1;
+
+        } catch (IOException e) {
+            Console.error("Error: " + e.getMessage());
+            return 1;
+        } finally {
+            lookupPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Applies one operation to the loaded pom and describes the outcome.
+     */
+    private Map<String, Object> apply(PomEditor pom, Operation operation, SelectionHistory history)
+            throws IOException {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("type", "result");
+        record.put("index", operation.index);
+        record.put("op", operation.op);
+        record.put("artifact", operation.artifact);
+
+        if (operation.error != null) {
+            return fail(record, operation.error);
+        }
+
+        if (operation.op.equals("install")) {
+            ArtifactSpec spec;
+            try {
+                spec = operation.lookup.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+                return fail(record, cause.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return fail(record, "interrupted");
+            }
+
+            record.put("groupId", spec.groupId);
+            record.put("artifactId", spec.artifactId);
+            record.put("version", spec.version);
+            record.put("scope", operation.scope);
+
+            if (pom.hasDependency(spec.groupId, spec.artifactId)) {
+                record.put("status", "exists");
+            } else if (pom.addDependency(spec.groupId, spec.artifactId, spec.version, operation.scope)) {
+                record.put("status", "added");
+                InstallCommand.rememberChoice(history, ArtifactSpec.parse(operation.artifact).artifactId, spec);
+            } else {
+                return fail(record, "failed to add dependency");
+            }
+            return record;
+        }
+
+        // remove
+        ArtifactSpec spec = ArtifactSpec.parse(operation.artifact);
+        List<Dependency> matches = RemoveCommand.findMatches(pom.getDependencies(), spec.groupId, spec.artifactId);
+        if (matches.isEmpty()) {
+            record.put("status", "not_found");
+            return record;
+        }
+        if (matches.size() > 1) {
+            record.put("status", "ambiguous");
+            record.put("message", "multiple dependencies match; use <groupId>:" + spec.artifactId);
+            return record;
+        }
+
+        Dependency dep = matches.get(0);
+        record.put("groupId", dep.groupId);
+        record.put("artifactId", dep.artifactId);
+        record.put("version", dep.version);
+        if (pom.removeDependency(dep.groupId, dep.artifactId)) {
+            record.put("status", "removed");
+        } else {
+            return fail(record, "failed to remove dependency");
+        }
+        return record;
+    }
+
+    /**
+     * Resolves full coordinates for an install, searching Maven Central as needed.
+     * Runs on the lookup pool.
+     */
+    private ArtifactSpec lookup(String artifact, ArtifactRanker ranker) {
+        ArtifactSpec spec = ArtifactSpec.parse(artifact);
+        try {
+            if (spec.groupId == null) {
+                List<Artifact> results = InstallCommand.search(client, spec.artifactId);
+                if (results.isEmpty()) {
+                    throw new IOException("No artifacts found matching: " + spec.artifactId);
+                }
+                Artifact selected = ranker.rank(spec.artifactId, results).get(0);
+                spec.groupId = selected.groupId;
+                spec.artifactId = selected.artifactId;
+                if (spec.version == null) {
+                    spec.version = selected.latestVersion;
+                }
+            }
+
+            if (spec.version == null) {
+                Artifact found = client.searchExact(spec.groupId, spec.artifactId);
+                if (found == null) {
+                    throw new IOException("Artifact not found: " + spec.groupId + ":" + spec.artifactId);
+                }
+                spec.version = found.latestVersion;
+            }
+            return spec;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Lookup interrupted"));
+        }
+    }
+
+    /**
+     * Parses operations from either a JSON list or the line format.
+     */
+    private static List<Operation> parseOperations(String input) {
+        List<Operation> operations = new ArrayList<>();
+        String trimmed = input.trim();
+
+        if (trimmed.startsWith("[")) {
+            Matcher matcher = JSON_OBJECT.matcher(trimmed);
+            while (matcher.find()) {
+                String object = matcher.group();
+                operations.add(createOperation(operations.size() + 1, Json.stringField(object, "op"),
+                        Json.stringField(object, "artifact"), Json.stringField(object, "scope")));
+            }
+            return operations;
+        }
+
+        for (String line : input.split("\\R")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] tokens = line.split("\\s+");
+            String scope = null;
+            for (int i = 2; i < tokens.length; i++) {
+                if ("--scope".equals(tokens[i]) && i + 1 < tokens.length) {
+                    scope = tokens[++i];
+                }
+            }
+            operations.add(createOperation(operations.size() + 1, tokens[0],
+                    tokens.length > 1 ? tokens[1] : null, scope));
+        }
+        return operations;
+    }
+
+    private static Operation createOperation(int index, String op, String artifact, String scope) {
+        String normalized = op == null ? "" : op.toLowerCase();
+        switch (normalized) {
+            case "i":
+            case "add":
+                normalized = "install";
+                break;
+            case "rm":
+            case "uninstall":
+                normalized = "remove";
+                break;
+        }
+
+        Operation operation = new Operation(index, normalized, artifact, scope != null ? scope : "compile");
+        if (!normalized.equals("install") && !normalized.equals("remove")) {
+            operation.error = "unknown operation: " + op;
+        } else if (artifact == null || artifact.isEmpty()) {
+            operation.error = "missing artifact";
+        } else if (!InstallCommand.isValidScope(operation.scope)) {
+            operation.error = "invalid scope: " + scope;
+        }
+        return operation;
+    }
+
+    private static Map<String, Object> fail(Map<String, Object> record, String message) {
+        record.put("status", "error");
+        record.put("message", message);
+        return record;
+    }
+
+    /**
+     * Emits one record and flushes it so consumers see progress immediately.
+     */
+    private static void emit(Map<String, Object> record) {
+        MachineOutput.emit(record);
+        MachineOutput.flush();
+    }
+}
@@ -0,0 +1,56 @@
+package dev.mpm.command;
+
+/**
+ * Parsed artifact specification as typed on the command line.
+ * Supports formats:
+ *   - artifact
+ *   - artifact@version
+ *   - groupId:artifactId
+ *   - groupId:artifactId:version
+ */
+class ArtifactSpec {
+    String groupId;
+    String artifactId;
+    String version;
+
+    /**
+     * Parses an artifact specification.
+     */
+    static ArtifactSpec parse(String input) {
+        ArtifactSpec spec = new ArtifactSpec();
+
+        // Check for @ version separator (npm style)
+        int atIndex = input.lastIndexOf('@');
+        if (atIndex > 0) {
+            spec.version = input.substring(atIndex + 1);
+            input = input.substring(0, atIndex);
+        }
+
+        // Check for : coordinate separator (Maven style)
+        String[] parts = input.split(":");
+        if (parts.length == 1) {
+            // Just artifact name
+            spec.artifactId = parts[0];
+        } else if (parts.length == 2) {
+            // groupId:artifactId
+            spec.groupId = parts[0];
+            spec.artifactId = parts[1];
+        } else if (parts.length >= 3) {
+            // groupId:artifactId:version
+            spec.groupId = parts[0];
+            spec.artifactId = parts[1];
+            if (spec.version == null) {
+                spec.version = parts[2];
+            }
+        }
+
+        return spec;
+    }
+
+    /**
+     * Checks whether all coordinates are known (no lookup needed).
+     */
+    boolean isComplete() {
+        return groupId != null && artifactId != null && version != null;
+    }
+}
@@ -0,0 +1,174 @@
+package dev.mpm.command;
+
+import dev.mpm.pom.PomModel;
+import dev.mpm.pom.PomSnapshot;
+import dev.mpm.search.CoordinateIndex;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Computes shell completions for a partial command line (the hidden {@code mpm __complete}).
+ *
+ * Everything is answered from local files: install arguments from the {@link CoordinateIndex},
+ * remove arguments from the pom's {@link PomSnapshot} or, when that is stale, a plain text
+ * scan of pom.xml. No network client or XML parser is loaded, so the answer takes little more
+ * than JVM startup.
+ */
+public final class Completer {
+
+    private static final int MAX_CANDIDATES = 50;
+    private static final List<String> SCOPES = List.of("compile", "test", "provided", "runtime", "system", "import");
+    private static final List<String> GLOBAL_OPTIONS_WITH_VALUE = List.of("-T", "--threads", "--trace-out",
+            "--maven-timeout");
+
+    private static final Pattern COMMENT = Pattern.compile("<!--.*?-->", Pattern.DOTALL);
+    /** Sections whose dependency elements are not project dependencies. */
+    private static final Pattern OTHER_DEPENDENCIES = Pattern.compile(
+            "<(dependencyManagement|build|profiles|reporting)\\b.*?</\\1>", Pattern.DOTALL);
+    private static final Pattern DEPENDENCY = Pattern.compile("<dependency>(.*?)</dependency>", Pattern.DOTALL);
+
+    private Completer() {}
+
+    /**
+     * Completes the last word of a command line.
+     *
+     * @param line     the line up to the cursor, starting with the program name
+     * @param commands command names
+     * @param aliases  alias -> command name
+     * @return candidates starting with the word being completed
+     */
+    public static List<String> complete(String line, Collection<String> commands, Map<String, String> aliases) {
+        List<String> words = new ArrayList<>(Arrays.asList(line.trim().split("\\s+")));
+        if (line.isEmpty() || Character.isWhitespace(line.charAt(line.length() - 1))) {
+            words.add("");
+        }
+        String current = words.remove(words.size() - 1);
+        if (!words.isEmpty()) {
+            words.remove(0); // program name
+        }
+
+        // Skip global options before the command
+        int position = 0;
+        while (position < words.size() && words.get(position).startsWith("-")) {
+            position += GLOBAL_OPTIONS_WITH_VALUE.contains(words.get(position)) ? 2 : 1;
+        }
+        if (position >= words.size()) {
+            List<String> names = new ArrayList<>(commands);
+            names.add("help");
+            names.add("version");
+            return filter(names, current);
+        }
+
+        String command = words.get(position).toLowerCase(Locale.ROOT);
+        command = aliases.getOrDefault(command, command);
+        String previous = words.get(words.size() - 1);
+
+        if ("--scope".equals(previous)) {
+            return filter(SCOPES, current);
+        }
+        if (current.startsWith("-")) {
+            return filter(options(command), current);
+        }
+
+        switch (command) {
+            case "install":
+                return CoordinateIndex.complete(current, MAX_CANDIDATES);
+            case "remove":
+                return filter(projectDependencies(Path.of("pom.xml")), current);
+            case "completion":
+                return filter(List.of("bash", "zsh", "fish"), current);
+            default:
+                return new ArrayList<>();
+        }
+    }
+
+    private static List<String> options(String command) {
+        switch (command) {
+            case "install":
+                return List.of("--scope", "--plan", "--json", "--ndjson");
+            case "search":
+                return List.of("--limit", "--json", "--ndjson", "-i");
+            case "list":
+            case "remove":
+                return List.of("--json", "--ndjson");
+            case "init":
+                return List.of("--yes", "--groupId", "--artifactId");
+            case "apply":
+                return List.of("--no-resolve");
+            case "scan":
+                return List.of("--rebuild");
+            case "which":
+                return List.of("--install", "--refresh", "--scope");
+            case "verify":
+                return List.of("--all", "--fix", "--jobs");
+            case "analyze":
+                return List.of("--all", "--json", "--ndjson");
+            case "sync":
+                return List.of("--in", "--dry-run", "--resolve", "--force", "--json", "--ndjson");
+            default:
+                return List.of();
+        }
+    }
+
+    /**
+     * Gets artifactIds and groupId:artifactId of the pom's dependencies, from the snapshot
+     * when it is current.
+     */
+    private static List<String> projectDependencies(Path pom) {
+        Set<String> names = new LinkedHashSet<>();
+        PomSnapshot snapshot = PomSnapshot.cached(pom);
+        if (snapshot != null) {
+            for (PomModel.Dependency dep : snapshot.model.dependencies) {
+                names.add(dep.artifactId);
+                names.add(dep.groupId + ":" + dep.artifactId);
+            }
+            return new ArrayList<>(names);
+        }
+
+        try {
+            String xml = new String(Files.readAllBytes(pom), StandardCharsets.UTF_8);
+            xml = OTHER_DEPENDENCIES.matcher(COMMENT.matcher(xml).replaceAll("")).replaceAll("");
+            Matcher dependency = DEPENDENCY.matcher(xml);
+            while (dependency.find()) {
+                String groupId = element(dependency.group(1), "groupId");
+                String artifactId = element(dependency.group(1), "artifactId");
+                if (groupId != null && artifactId != null) {
+                    names.add(artifactId);
+                    names.add(groupId + ":" + artifactId);
+                }
+            }
+        } catch (IOException e) {
+            // no pom.xml: nothing to remove
+        }
+        return new ArrayList<>(names);
+    }
+
+    private static String element(String xml, String name) {
+        Matcher matcher = Pattern.compile("<" + name + ">\\s*([^<]+?)\\s*</" + name + ">").matcher(xml);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static List<String> filter(Collection<String> candidates, String prefix) {
+        List<String> matches = new ArrayList<>();
+        String lower = prefix.toLowerCase(Locale.ROOT);
+        for (String candidate : candidates) {
+            if (candidate.toLowerCase(Locale.ROOT).startsWith(lower) && matches.size() < MAX_CANDIDATES) {
+                matches.add(candidate);
+            }
+        }
+        return matches;
+    }
+}
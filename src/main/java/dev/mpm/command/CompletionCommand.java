@@ -0,0 +1,79 @@
+package dev.mpm.command;
+
+import dev.mpm.util.Console;
+
+/**
+ * Prints a shell completion script.
+ *
+ * Usage:
+ *   mpm completion bash  - add {@code eval "$(mpm completion bash)"} to ~/.bashrc
+ *   mpm completion zsh   - add {@code eval "$(mpm completion zsh)"} to ~/.zshrc
+ *   mpm completion fish  - save as ~/.config/fish/completions/mpm.fish
+ *
+ * The scripts call {@code mpm __complete <line>}, which {@link Completer} answers from local files.
+ */
+public class CompletionCommand implements Command {
+
+    private static final String BASH =
+            "_mpm() {\n" +
+            "    local line=\"${COMP_LINE:0:COMP_POINT}\" IFS=$'\\n'\n" +
+            "    local candidates=($(mpm __complete \"$line\" 2>/dev/null))\n" +
+            "    # bash splits words at ':', so only the part after the last one is replaced\n" +
+            "    local word=\"${line##*[[:space:]]}\"\n" +
+            "    if [[ \"$word\" == *:* && \"$COMP_WORDBREAKS\" == *:* ]]; then\n" +
+            "        candidates=(\"${candidates[@]#\"${word%:*}:\"}\")\n" +
+            "    fi\n" +
+            "    COMPREPLY=(\"${candidates[@]}\")\n" +
+            "}\n" +
+            "complete -o default -F _mpm mpm\n";
+
+    private static final String ZSH =
+            "#compdef mpm\n" +
+            "_mpm() {\n" +
+            "    local -a candidates\n" +
+            "    candidates=(\"${(@f)$(mpm __complete \"${(j: :)words[1,CURRENT]}\" 2>/dev/null)}\")\n" +
+            "    compadd -- ${candidates:#}\n" +
+            "}\n" +
+            "compdef _mpm mpm\n";
+
+    private static final String FISH =
+            "function __mpm_complete\n" +
+            "    mpm __complete (commandline -cp) 2>/dev/null\n" +
+            "end\n" +
+            "complete -c mpm -f -a '(__mpm_complete)'\n";
+
+    @Override
+    public String getName() {
+        return "completion";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Print a shell completion script";
+    }
+
+    @Override
+    public String getUsage() {
+        return "mpm completion bash|zsh|fish";
+    }
+
+    @Override
+    public int execute(String[] args) {
+        String shell = args.length > 0 ? args[0] : "";
+        switch (shell) {
+            case "bash":
+                Console.print(BASH);
+                return 0;
+            case "zsh":
+                Console.print(ZSH);
+                return 0;
+            case "fish":
+                Console.print(FISH);
+                return 0;
+            default:
+                Console.error(shell.isEmpty() ? "Missing shell" : "Unsupported shell: " + shell);
+                Console.println("Usage: " + getUsage());
+                return 1;
+        }
+    }
+}
@@ -1,17 +1,36 @@
 package dev.mpm.command;
 
+import dev.mpm.api.BomCache;
+import dev.mpm.api.InstallPlanner;
 import dev.mpm.api.MavenCentralClient;
 import dev.mpm.api.MavenCentralClient.Artifact;
+import dev.mpm.api.PomPrefetcher;
+import dev.mpm.api.SnapshotResolver;
 import dev.mpm.pom.PomEditor;
+import dev.mpm.pom.PomEditor.Dependency;
+import dev.mpm.search.ArtifactRanker;
+import dev.mpm.search.CoordinateIndex;
+import dev.mpm.search.SearchCache;
+import dev.mpm.search.SelectionHistory;
+import dev.mpm.util.Bandwidth;
 import dev.mpm.util.Console;
+import dev.mpm.util.LocalRepository;
+import dev.mpm.util.MachineOutput;
 import dev.mpm.util.MavenExecutor;
+import dev.mpm.util.MavenProgress;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Set;
 
 /**
  * Installs a Maven dependency.
@@ -21,10 +40,27 @@ import java.util.List;
  *   mpm install <artifact>@<version>    - installs specific version
  *   mpm install <g:a:v>                 - installs with full coordinates
  *   mpm install <artifact> --scope test - installs with specific scope
+ *   mpm install <artifact> --plan       - shows what would be downloaded, changing nothing
+ *   mpm install <bom> --scope import    - imports a BOM into dependencyManagement
+ *   mpm install <g:a:1.0-SNAPSHOT>      - installs a SNAPSHOT, resolved to its latest build
+ *
+ * A versionless install of an artifact the project already manages, through its own or an
+ * imported BOM's dependencyManagement, adds it without a version and skips the search.
  */
 public class InstallCommand implements Command {
 
+    /** Maximum time to wait for speculative POM downloads before handing over to Maven. */
+    private static final Duration PREFETCH_GRACE = Duration.ofSeconds(5);
+
+    /** Files Maven's resolver downloads at once (aether.connector.basic.threads). */
+    private static final int MAVEN_DOWNLOAD_THREADS = 5;
+
+    /** Candidates fetched for a bare name; wide enough for the ranker to find the real artifact. */
+    static final int SEARCH_ROWS = 20;
+    static final SearchCache SEARCH_CACHE = new SearchCache();
+
     private final MavenCentralClient client = new MavenCentralClient();
+    private final SnapshotResolver snapshots = new SnapshotResolver();
 
     @Override
     public String getName() {
@@ -38,7 +74,7 @@ public class InstallCommand implements Command {
 
     @Override
     public String getUsage() {
-        return "mpm install <artifact> [--scope <scope>]";
+        return "mpm install <artifact> [--scope <scope>] [--plan]";
     }
 
     @Override
@@ -52,10 +88,13 @@ public class InstallCommand implements Command {
         // Parse arguments
         String artifactArg = args[0];
         String scope = "compile"; // default scope
+        boolean planOnly = false;
 
         for (int i = 1; i < args.length; i++) {
             if ("--scope".equals(args[i]) && i + 1 < args.length) {
                 scope = args[++i];
+            } else if ("--plan".equals(args[i])) {
+                planOnly = true;
             }
         }
 
@@ -66,37 +105,40 @@ public class InstallCommand implements Command {
             return 1;
         }
 
-        // Check if pom.xml exists
-        Path pomPath = Path.of("pom.xml");
-        PomEditor pom = new PomEditor(pomPath);
-
-        if (!pom.exists()) {
-            pomPath = handleMissingPom();
-            if (pomPath == null) {
-                return 1; // User chose to abort
-            }
-            pom = new PomEditor(pomPath);
-        }
-
+        PomPrefetcher prefetcher = new PomPrefetcher();
         try {
             // Parse artifact specification
-            ArtifactSpec spec = parseArtifactSpec(artifactArg);
+            ArtifactSpec spec = ArtifactSpec.parse(artifactArg);
+            String query = spec.artifactId;
+            SelectionHistory history = SelectionHistory.load();
+
+            Path pomPath = Path.of("pom.xml");
+            PomEditor pom = new PomEditor(pomPath);
+
+            // A version the project's BOMs already decide needs no lookup and no <version>
+            BomCache.Managed managed = null;
+            if (spec.version == null && !scope.equals("import") && pom.exists()) {
+                managed = managedVersion(pomPath, spec);
+            }
+            if (managed != null) {
+                spec.groupId = managed.groupId;
+                spec.artifactId = managed.artifactId;
+                spec.version = managed.version;
+            }
 
             // If we don't have full coordinates, search for the artifact
             if (spec.groupId == null) {
                 Console.info("Searching for " + Console.bold(spec.artifactId) + "...");
 
-                List<Artifact> results = client.search(spec.artifactId, 10);
+                List<Artifact> results = search(client, spec.artifactId);
                 if (results.isEmpty()) {
                     Console.error("No artifacts found matching: " + spec.artifactId);
                     return 1;
                 }
 
-                // If multiple results and the first one doesn't match exactly, show options
-                Artifact selected = selectArtifact(results, spec.artifactId);
-                if (selected == null) {
-                    return 1;
-                }
+                // Rank with local knowledge: past choices and the groupIds this project already uses
+                ArtifactRanker ranker = new ArtifactRanker(history, projectGroupIds(pom));
+                Artifact selected = selectArtifact(ranker.rank(spec.artifactId, results), spec.artifactId);
 
                 spec.groupId = selected.groupId;
                 spec.artifactId = selected.artifactId;
@@ -107,6 +149,7 @@ public class InstallCommand implements Command {
 
             // If version is still null, get the latest version
             if (spec.version == null) {
+                Console.flush();
                 Artifact artifact = client.searchExact(spec.groupId, spec.artifactId);
                 if (artifact == null) {
                     Console.error("Artifact not found: " + spec.groupId + ":" + spec.artifactId);
@@ -115,28 +158,82 @@ public class InstallCommand implements Command {
                 spec.version = artifact.latestVersion;
             }
 
+            if (planOnly) {
+                if (pom.exists() && pom.hasDependency(spec.groupId, spec.artifactId)) {
+                    Console.warn("Dependency already exists: " + spec.groupId + ":" + spec.artifactId);
+                    return 0;
+                }
+                return plan(spec, scope, pom.exists() ? pomPath : null);
+            }
+
+            // Say which build a SNAPSHOT gets: the repository's latest or a local mvn install. When it
+            // is neither, a repository from settings.xml or the pom may still have it; Maven decides.
+            String build = null;
+            if (SnapshotResolver.isSnapshot(spec.version)) {
+                SnapshotResolver.Snapshot snapshot = snapshots.resolve(spec.groupId, spec.artifactId, spec.version);
+                if (snapshot != null) {
+                    build = snapshot.version();
+                } else if (Files.exists(LocalRepository.pomPath(spec.groupId, spec.artifactId, spec.version))) {
+                    build = "local build";
+                } else {
+                    Console.warn("No build of " + spec.groupId + ":" + spec.artifactId + ":" + spec.version +
+                            " in Maven Central or the local repository; leaving it to Maven's repositories");
+                }
+            }
+
+            // Coordinates are known: warm the local repository while we deal with the pom
+            prefetcher.start(spec.groupId, spec.artifactId, spec.version);
+
+            // Check if pom.xml exists
+            if (!pom.exists()) {
+                pomPath = handleMissingPom();
+                if (pomPath == null) {
+                    return 1; // User chose to abort
+                }
+                pom = new PomEditor(pomPath);
+            }
+
+            if (scope.equals("import")) {
+                return importBom(pom, spec, history, artifactArg);
+            }
+
             // Check if dependency already exists
-            pom.load();
             if (pom.hasDependency(spec.groupId, spec.artifactId)) {
                 Console.warn("Dependency already exists: " + spec.groupId + ":" + spec.artifactId);
                 Console.info("Use 'mpm remove' to remove it first, or edit pom.xml manually");
+                MachineOutput.emit(result("install", artifactArg, spec.groupId, spec.artifactId, spec.version, scope,
+                        "exists"));
                 return 0;
             }
 
             // Add the dependency
             Console.info("Installing " + Console.bold(spec.groupId + ":" + spec.artifactId + "@" + spec.version) +
-                    (scope.equals("compile") ? "" : " (" + scope + ")"));
+                    (scope.equals("compile") ? "" : " (" + scope + ")") +
+                    (managed != null ? Console.dim(" managed by " + managed.source) : "") +
+                    (build != null ? Console.dim(" build " + build) : ""));
 
-            boolean added = pom.addDependency(spec.groupId, spec.artifactId, spec.version, scope);
+            boolean added = pom.addDependency(spec.groupId, spec.artifactId, managed != null ? null : spec.version,
+                    scope);
             if (added) {
                 pom.save();
                 Console.success("Added to pom.xml");
+                rememberChoice(history, query, spec);
+
+                // Let in-flight POM downloads land before Maven starts resolving
+                prefetcher.finish(PREFETCH_GRACE);
 
                 // Resolve dependencies
                 Console.info("Downloading dependencies...");
+                configureSnapshotUpdates(snapshots, pomPath);
                 Path workingDir = pomPath.toAbsolutePath().getParent();
                 boolean resolved = MavenExecutor.resolveDependencies(workingDir.toFile());
 
+                Map<String, Object> record = result("install", artifactArg, spec.groupId, spec.artifactId,
+                        spec.version, scope, "added");
+                record.put("managedBy", managed != null ? managed.source : null);
+                record.put("resolved", resolved);
+                MachineOutput.emit(record);
+
                 if (resolved) {
                     Console.success("Installed " + spec.groupId + ":" + spec.artifactId + "@" + spec.version);
                     return 0;
@@ -157,67 +254,224 @@ public class InstallCommand implements Command {
             Thread.currentThread().interrupt();
             Console.error("Operation interrupted");
             return 1;
+        } finally {
+            prefetcher.cancel();
         }
     }
 
     /**
-     * Parses an artifact specification.
-     * Supports formats:
-     *   - artifact
-     *   - artifact@version
-     *   - groupId:artifactId
-     *   - groupId:artifactId:version
+     * Lets Maven skip its remote SNAPSHOT checks (-nsu) when mpm's cached metadata, kept
+     * under mpm.snapshots.updatePolicy, says its copies are current, and forces them (-U)
+     * when a newer build is out. Best effort: on failure Maven checks as it would anyway.
      */
-    private ArtifactSpec parseArtifactSpec(String input) {
-        ArtifactSpec spec = new ArtifactSpec();
-
-        // Check for @ version separator (npm style)
-        int atIndex = input.lastIndexOf('@');
-        if (atIndex > 0) {
-            spec.version = input.substring(atIndex + 1);
-            input = input.substring(0, atIndex);
+    static void configureSnapshotUpdates(SnapshotResolver snapshots, Path pomPath) {
+        try {
+            Console.flush();
+            Boolean updates = snapshots.mavenUpdates(pomPath);
+            if (Boolean.TRUE.equals(updates)) {
+                Console.info("Newer SNAPSHOT builds are available; Maven will update them");
+            }
+            MavenExecutor.setSnapshotUpdates(updates);
+        } catch (IOException e) {
+            MavenExecutor.setSnapshotUpdates(null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            MavenExecutor.setSnapshotUpdates(null);
         }
+    }
 
-        // Check for : coordinate separator (Maven style)
-        String[] parts = input.split(":");
-        if (parts.length == 1) {
-            // Just artifact name
-            spec.artifactId = parts[0];
-        } else if (parts.length == 2) {
-            // groupId:artifactId
-            spec.groupId = parts[0];
-            spec.artifactId = parts[1];
-        } else if (parts.length >= 3) {
-            // groupId:artifactId:version
-            spec.groupId = parts[0];
-            spec.artifactId = parts[1];
-            if (spec.version == null) {
-                spec.version = parts[2];
+    /**
+     * Gets the version the project manages for the artifact, matching the artifactId alone
+     * when no groupId was given and exactly one managed artifact has it.
+     *
+     * @return the managed version, or null to look the artifact up as usual
+     */
+    static BomCache.Managed managedVersion(Path pomPath, ArtifactSpec spec) throws InterruptedException {
+        Map<String, BomCache.Managed> managed;
+        try {
+            managed = new BomCache().project(pomPath);
+        } catch (IOException e) {
+            // An unreadable pom or BOM: fall back to the search, which reports real problems
+            return null;
+        }
+        if (spec.groupId != null) {
+            return managed.get(spec.groupId + ":" + spec.artifactId);
+        }
+        BomCache.Managed match = null;
+        for (BomCache.Managed candidate : managed.values()) {
+            if (candidate.artifactId.equals(spec.artifactId)) {
+                if (match != null) {
+                    return null;
+                }
+                match = candidate;
             }
         }
+        return match;
+    }
+
+    /**
+     * Adds a BOM to dependencyManagement and caches its managed-version table, so installs
+     * of the artifacts it manages skip the search.
+     */
+    private int importBom(PomEditor pom, ArtifactSpec spec, SelectionHistory history, String artifactArg)
+            throws IOException, InterruptedException {
+        String coordinates = spec.groupId + ":" + spec.artifactId + ":" + spec.version;
+        if (pom.hasManagedDependency(spec.groupId, spec.artifactId)) {
+            Console.warn("Already in dependencyManagement: " + spec.groupId + ":" + spec.artifactId);
+            return 0;
+        }
+
+        Console.info("Importing " + Console.bold(coordinates) + "...");
+        Map<String, String> table = new BomCache().table(spec.groupId, spec.artifactId, spec.version);
+        if (table == null) {
+            Console.error("BOM not found: " + coordinates);
+            return 1;
+        }
+        if (table.isEmpty()) {
+            Console.error(coordinates + " is not a BOM: it manages no versions");
+            return 1;
+        }
 
-        return spec;
+        pom.addBomImport(spec.groupId, spec.artifactId, spec.version);
+        pom.save();
+        Map<String, Object> record = result("install", artifactArg, spec.groupId, spec.artifactId, spec.version,
+                "import", "imported");
+        record.put("managedVersions", table.size());
+        MachineOutput.emit(record);
+        rememberChoice(history, ArtifactSpec.parse(artifactArg).artifactId, spec);
+        Console.success("Imported " + coordinates + " (" + table.size() + " managed versions)");
+        Console.info("Install its artifacts without a version, e.g. " +
+                Console.cyan("mpm install " + table.keySet().iterator().next()));
+        return 0;
     }
 
     /**
-     * Selects the most appropriate artifact from search results.
+     * Prints what installing the artifact would download and how long it should take.
+     * Neither the pom nor the local repository is changed.
      */
-    private Artifact selectArtifact(List<Artifact> results, String query) {
-        // If top result matches the query exactly by artifactId, use it
-        Artifact topResult = results.get(0);
-        if (topResult.artifactId.equalsIgnoreCase(query)) {
-            return topResult;
+    private int plan(ArtifactSpec spec, String scope, Path pomPath) throws IOException, InterruptedException {
+        Console.info("Planning " + Console.bold(spec.groupId + ":" + spec.artifactId + "@" + spec.version) +
+                (scope.equals("compile") ? "" : " (" + scope + ")") + "...");
+        Console.flush();
+        InstallPlanner planner = new InstallPlanner();
+        InstallPlanner.Plan plan = planner.plan(pomPath, spec.groupId, spec.artifactId, spec.version, scope);
+
+        // One line per artifact: its missing files and their total size
+        Map<String, long[]> missing = new TreeMap<>();
+        Map<String, String> kinds = new TreeMap<>();
+        for (InstallPlanner.Download download : plan.downloads) {
+            long[] bytes = missing.computeIfAbsent(download.coordinates, c -> new long[1]);
+            bytes[0] = bytes[0] < 0 || download.bytes < 0 ? -1 : bytes[0] + download.bytes;
+            String extension = download.path.substring(download.path.lastIndexOf('.') + 1);
+            kinds.merge(download.coordinates, extension, (a, b) -> a + "+" + b);
         }
 
-        // Look for exact artifactId match
-        for (Artifact artifact : results) {
-            if (artifact.artifactId.equalsIgnoreCase(query)) {
-                return artifact;
+        Console.println();
+        int local = 0;
+        for (String artifact : plan.artifacts) {
+            if (!missing.containsKey(artifact)) {
+                local++;
             }
         }
+        Console.println(Console.bold(plan.artifacts.size() + " artifact(s)") + " in the dependency tree, " +
+                local + " already in the local repository");
+        int width = 0;
+        for (String coordinates : missing.keySet()) {
+            width = Math.max(width, coordinates.length());
+        }
+        for (Map.Entry<String, long[]> entry : missing.entrySet()) {
+            long bytes = entry.getValue()[0];
+            Console.println(String.format("  %-" + width + "s  %-7s %10s", entry.getKey(), kinds.get(entry.getKey()),
+                    bytes >= 0 ? MavenProgress.formatBytes(bytes) : "?"));
+        }
+        if (!plan.shared.isEmpty()) {
+            Console.println(Console.dim("  Already in the project: " + String.join(", ", plan.shared)));
+        }
+        if (!plan.unresolved.isEmpty()) {
+            Console.warn("Could not resolve: " + String.join(", ", plan.unresolved));
+        }
+        Console.println();
+
+        long bandwidth = -1;
+        long millis = -1;
+        if (plan.downloads.isEmpty()) {
+            Console.success("Nothing to download");
+        } else {
+            long total = plan.totalBytes();
+            String size = MavenProgress.formatBytes(total) + " in " + plan.downloads.size() + " file(s)" +
+                    (plan.unknownSizes() > 0 ? " (" + plan.unknownSizes() + " of unknown size)" : "");
+            bandwidth = Bandwidth.bytesPerSecond();
+            String source = "measured";
+            if (bandwidth <= 0) {
+                Console.flush();
+                bandwidth = planner.probeBandwidth(plan);
+                source = "sampled now";
+            }
+            if (bandwidth > 0) {
+                millis = plan.estimatedMillis(bandwidth, MAVEN_DOWNLOAD_THREADS);
+                Console.info("To download: " + Console.bold(size) + ", about " + formatDuration(millis) + " at " +
+                        MavenProgress.formatBytes(bandwidth) + "/s (" + source + ")");
+            } else {
+                Console.info("To download: " + Console.bold(size) +
+                        " (no bandwidth measured yet; installs record it)");
+            }
+        }
+        Console.info("pom.xml was not changed; run without --plan to install");
+
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("type", "plan");
+        record.put("groupId", spec.groupId);
+        record.put("artifactId", spec.artifactId);
+        record.put("version", spec.version);
+        record.put("scope", scope);
+        record.put("artifacts", plan.artifacts.size());
+        record.put("files", plan.downloads.size());
+        record.put("bytes", plan.totalBytes());
+        record.put("unknownSizes", plan.unknownSizes());
+        record.put("bytesPerSecond", bandwidth > 0 ? bandwidth : null);
+        record.put("estimatedMillis", millis >= 0 ? millis : null);
+        MachineOutput.emit(record);
+        return 0;
+    }
+
+    /**
+     * Builds the record describing the outcome of an install or remove, in the schema the
+     * apply command also uses.
+     */
+    static Map<String, Object> result(String op, String artifact, String groupId, String artifactId, String version,
+                                      String scope, String status) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("type", "result");
+        record.put("op", op);
+        record.put("artifact", artifact);
+        record.put("groupId", groupId);
+        record.put("artifactId", artifactId);
+        record.put("version", version);
+        record.put("scope", scope != null ? scope : "compile");
+        record.put("status", status);
+        return record;
+    }
+
+    private static String formatDuration(long millis) {
+        if (millis < 1000) {
+            return "1 s";
+        }
+        long seconds = Math.round(millis / 1000.0);
+        return seconds < 60 ? seconds + " s" : seconds / 60 + " min " + seconds % 60 + " s";
+    }
+
+    /**
+     * Picks the top ranked artifact, listing the alternatives when the name was not an
+     * exact match.
+     */
+    private Artifact selectArtifact(List<Artifact> ranked, String query) {
+        Artifact topResult = ranked.get(0);
+        if (topResult.artifactId.equalsIgnoreCase(query)) {
+            return topResult;
+        }
 
         // Show options to user
-        Console.warn("Multiple artifacts found. The most popular is:");
+        Console.warn("Multiple artifacts found. The best match is:");
         Console.println("  " + Console.bold(topResult.groupId + ":" + topResult.artifactId) +
                 " (" + topResult.versionCount + " versions)");
         Console.println();
@@ -225,15 +479,72 @@ public class InstallCommand implements Command {
         Console.println("  mpm install " + Console.cyan("<groupId>:<artifactId>"));
         Console.println();
         Console.println("Other matches:");
-        for (int i = 1; i < Math.min(results.size(), 5); i++) {
-            Artifact a = results.get(i);
+        for (int i = 1; i < Math.min(ranked.size(), 5); i++) {
+            Artifact a = ranked.get(i);
             Console.println("  " + Console.dim(a.groupId + ":" + a.artifactId + " (" + a.versionCount + " versions)"));
         }
 
         return topResult;
     }
 
-    private boolean isValidScope(String scope) {
+    /**
+     * Searches Maven Central for a bare name, using the on-disk cache when it is fresh.
+     * New results are also added to the completion index.
+     */
+    static List<Artifact> search(MavenCentralClient client, String name) throws IOException, InterruptedException {
+        List<Artifact> results = SEARCH_CACHE.get(name, SEARCH_ROWS);
+        if (results == null) {
+            Console.flush();
+            results = client.search(name, SEARCH_ROWS);
+            SEARCH_CACHE.put(name, SEARCH_ROWS, results);
+            CoordinateIndex.add(results);
+        }
+        return results;
+    }
+
+    /**
+     * Gets the groupIds the project already uses (its own and its dependencies'),
+     * or an empty set when there is no readable pom.xml.
+     */
+    static Set<String> projectGroupIds(PomEditor pom) {
+        Set<String> groupIds = new HashSet<>();
+        if (!pom.exists()) {
+            return groupIds;
+        }
+        try {
+            String own = pom.getGroupId();
+            if (own != null) {
+                groupIds.add(own);
+            }
+            for (Dependency dep : pom.getDependencies()) {
+                groupIds.add(dep.groupId);
+            }
+        } catch (IOException e) {
+            // Ranking hint only; a broken pom is reported when it is edited
+        }
+        return groupIds;
+    }
+
+    /**
+     * Records the coordinates installed for a name so the next bare install ranks them first.
+     *
+     * Only a name that is the artifactId itself is recorded: either the user gave the
+     * coordinates, or the search found an exact match. A best guess for a partial name (which
+     * {@link #selectArtifact} prints alternatives for) is not a choice the user made, and
+     * recording it would make a wrong guess win every later ranking.
+     */
+    static void rememberChoice(SelectionHistory history, String query, ArtifactSpec spec) {
+        if (!spec.artifactId.equalsIgnoreCase(query)) {
+            return;
+        }
+        try {
+            history.record(query, spec.groupId, spec.artifactId);
+        } catch (IOException e) {
+            // History is only a ranking hint
+        }
+    }
+
+    static boolean isValidScope(String scope) {
         return scope.equals("compile") ||
                 scope.equals("test") ||
                 scope.equals("provided") ||
@@ -249,6 +560,11 @@ public class InstallCommand implements Command {
      * @return the Path to the pom.xml to use, or null if aborted
      */
     private Path handleMissingPom() {
+        if (MachineOutput.isEnabled()) {
+            // Nobody to answer a prompt; stdout is for records
+            Console.error("pom.xml not found in current directory");
+            return null;
+        }
         Console.warn("pom.xml not found in current directory");
         Console.println();
         Console.println("What would you like to do?");
@@ -311,13 +627,4 @@ public class InstallCommand implements Command {
             return null;
         }
     }
-
-    /**
-     * Internal class to hold parsed artifact specification.
-     */
-    private static class ArtifactSpec {
-        String groupId;
-        String artifactId;
-        String version;
-    }
 }
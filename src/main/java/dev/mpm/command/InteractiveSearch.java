@@ -0,0 +1,294 @@
+package dev.mpm.command;
+
+import dev.mpm.api.MavenCentralClient;
+import dev.mpm.api.MavenCentralClient.Artifact;
+import dev.mpm.search.FuzzyScorer;
+import dev.mpm.util.Console;
+import dev.mpm.util.Terminal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead search behind 'mpm search -i'.
+ *
+ * A wide candidate set is fetched from Maven Central once; every keystroke then filters
+ * and re-ranks it locally with {@link FuzzyScorer}. A new network query is only sent when
+ * the typed text is not a refinement of something already fetched or too few local
+ * candidates match. Those queries are debounced, and a query that is still pending or
+ * in flight is cancelled when the user keeps typing. Fetched results are merged into the
+ * candidate set, so going back to an earlier query costs no round trip.
+ */
+final class InteractiveSearch {
+
+    private static final int CANDIDATE_ROWS = 200;
+    private static final int VISIBLE_RESULTS = 10;
+    private static final int REFETCH_BELOW = VISIBLE_RESULTS / 2;
+    private static final long DEBOUNCE_MILLIS = 250;
+
+    private final MavenCentralClient client;
+    private final Map<String, Artifact> candidates = new LinkedHashMap<>();
+    private final Set<String> fetchedQueries = new HashSet<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mpm-typeahead");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private String query;
+    private List<Artifact> visible = new ArrayList<>();
+    private int selected;
+    private ScheduledFuture<?> pendingFetch;
+    private String status;
+    private int renderedLines;
+
+    InteractiveSearch(MavenCentralClient client, String initialQuery) {
+        this.client = client;
+        this.query = initialQuery;
+    }
+
+    /**
+     * Runs the typeahead until the user picks an artifact or quits.
+     *
+     * @return the chosen artifact, or null if the user quit
+     */
+    Artifact run() throws IOException, InterruptedException {
+        try {
+            if (!query.isEmpty()) {
+                // Seed the candidate set before the first render
+                merge(query, client.search(query, CANDIDATE_ROWS));
+            }
+
+            Terminal terminal = Terminal.open();
+            if (terminal == null) {
+                return runLineMode();
+            }
+            try (terminal) {
+                return runRaw(terminal);
+            }
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private Artifact runRaw(Terminal terminal) throws IOException {
+        synchronized (this) {
+            refresh();
+        }
+
+        while (true) {
+            int key = terminal.readKey();
+            synchronized (this) {
+                switch (key) {
+                    case Terminal.KEY_EOF:
+                    case Terminal.KEY_ESCAPE:
+                        clear();
+                        return null;
+                    case Terminal.KEY_ENTER:
+                        if (!visible.isEmpty()) {
+                            clear();
+                            return visible.get(selected);
+                        }
+                        break;
+                    case Terminal.KEY_UP:
+                        selected = Math.max(0, selected - 1);
+                        render();
+                        break;
+                    case Terminal.KEY_DOWN:
+                        selected = Math.min(Math.max(0, visible.size() - 1), selected + 1);
+                        render();
+                        break;
+                    case Terminal.KEY_BACKSPACE:
+                        if (!query.isEmpty()) {
+                            query = query.substring(0, query.length() - 1);
+                            refresh();
+                        }
+                        break;
+                    default:
+                        if (key > 0) {
+                            query += (char) key;
+                            refresh();
+                        }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fallback for terminals without raw input: each line refines the query,
+     * a number picks a result and an empty line quits.
+     */
+    private Artifact runLineMode() throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        while (true) {
+            if (needsFetch(query)) {
+                merge(query, client.search(query, CANDIDATE_ROWS));
+            }
+            visible = FuzzyScorer.rank(query, new ArrayList<>(candidates.values()), VISIBLE_RESULTS);
+
+            Console.println();
+            for (int i = 0; i < visible.size(); i++) {
+                Console.println(Console.dim(String.format("%2d.", i + 1)) + " " + describe(visible.get(i)));
+            }
+            if (visible.isEmpty()) {
+                Console.warn("No artifacts match: " + query);
+            }
+            Console.print("Refine search, pick a number to install, or press Enter to quit: ");
+
+            String line = reader.readLine();
+            if (line == null || line.trim().isEmpty()) {
+                return null;
+            }
+            line = line.trim();
+            if (line.matches("\\d+")) {
+                int index = Integer.parseInt(line) - 1;
+                if (index >= 0 && index < visible.size()) {
+                    return visible.get(index);
+                }
+                Console.error("No result " + line);
+            } else {
+                query = line;
+            }
+        }
+    }
+
+    /**
+     * Re-ranks locally for the current query and schedules a network query if needed.
+     * Caller holds the lock.
+     */
+    private void refresh() {
+        visible = FuzzyScorer.rank(query, new ArrayList<>(candidates.values()), VISIBLE_RESULTS);
+        selected = 0;
+
+        if (pendingFetch != null) {
+            pendingFetch.cancel(true);
+            pendingFetch = null;
+            status = null;
+        }
+        if (needsFetch(query)) {
+            String fetchQuery = query;
+            status = "searching...";
+            pendingFetch = scheduler.schedule(() -> fetch(fetchQuery), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        render();
+    }
+
+    private void fetch(String fetchQuery) {
+        List<Artifact> results;
+        String error = null;
+        try {
+            results = client.search(fetchQuery, CANDIDATE_ROWS);
+        } catch (InterruptedException e) {
+            // Superseded by a newer keystroke
+            return;
+        } catch (IOException e) {
+            results = List.of();
+            error = "search failed: " + e.getMessage();
+        }
+
+        synchronized (this) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            merge(fetchQuery, results);
+            if (fetchQuery.equals(query)) {
+                pendingFetch = null;
+                status = error;
+                Artifact current = visible.isEmpty() ? null : visible.get(selected);
+                visible = FuzzyScorer.rank(query, new ArrayList<>(candidates.values()), VISIBLE_RESULTS);
+                // Keep the highlighted artifact selected if it is still on screen
+                int keep = current == null ? -1 : visible.indexOf(current);
+                selected = Math.max(0, keep);
+                render();
+            }
+        }
+    }
+
+    private void merge(String fetchQuery, List<Artifact> results) {
+        fetchedQueries.add(fetchQuery.toLowerCase());
+        for (Artifact artifact : results) {
+            candidates.putIfAbsent(artifact.groupId + ":" + artifact.artifactId, artifact);
+        }
+    }
+
+    /**
+     * A query needs a round trip unless it was fetched before, or it refines a fetched
+     * query and enough local candidates still match.
+     */
+    private boolean needsFetch(String text) {
+        String q = text.trim().toLowerCase();
+        if (q.isEmpty() || fetchedQueries.contains(q)) {
+            return false;
+        }
+        boolean refinement = false;
+        for (String fetched : fetchedQueries) {
+            if (q.contains(fetched)) {
+                refinement = true;
+                break;
+            }
+        }
+        return !refinement || visible.size() < REFETCH_BELOW;
+    }
+
+    /**
+     * Redraws the result list and prompt in place. Caller holds the lock.
+     */
+    private void render() {
+        StringBuilder out = new StringBuilder();
+        moveToTop(out);
+
+        int lines = 0;
+        for (int i = 0; i < visible.size(); i++) {
+            String marker = i == selected ? Console.cyan("> ") : "  ";
+            String text = describe(visible.get(i));
+            out.append(marker).append(i == selected ? Console.bold(text) : text).append('\n');
+            lines++;
+        }
+        if (visible.isEmpty() && !query.isEmpty() && pendingFetch == null) {
+            out.append(Console.dim("  no matches")).append('\n');
+            lines++;
+        }
+        out.append(Console.dim("  up/down select, enter install, esc quit"));
+        if (status != null) {
+            out.append(Console.dim(" - " + status));
+        }
+        out.append('\n');
+        lines++;
+
+        out.append(Console.cyan("? ")).append(Console.bold("search> ")).append(query);
+        renderedLines = lines;
+
+        Console.print(out.toString());
+    }
+
+    private void clear() {
+        StringBuilder out = new StringBuilder();
+        moveToTop(out);
+        renderedLines = 0;
+        Console.print(out.toString());
+    }
+
+    private void moveToTop(StringBuilder out) {
+        out.append('\r');
+        if (renderedLines > 0) {
+            out.append("\u001B[").append(renderedLines).append('A');
+        }
+        out.append("\u001B[J");
+    }
+
+    private static String describe(Artifact artifact) {
+        return artifact.groupId + ":" + artifact.artifactId + " " + Console.green(artifact.latestVersion) +
+                Console.dim(" (" + artifact.versionCount + " versions)");
+    }
+}
@@ -1,19 +1,25 @@
 package dev.mpm.command;
 
-import dev.mpm.pom.PomEditor;
-import dev.mpm.pom.PomEditor.Dependency;
+import dev.mpm.pom.PomModel.Dependency;
+import dev.mpm.pom.PomSnapshot;
 import dev.mpm.util.Console;
+import dev.mpm.util.MachineOutput;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Lists dependencies in the current project.
+ * Reads the pom through its {@link PomSnapshot}, so repeated runs on an unchanged pom do not parse XML.
  *
  * Usage:
  *   mpm list         - lists all dependencies
  *   mpm list --tree  - shows dependency tree (requires mvn)
+ *   mpm list --json  - one dependency record each, in declaration order
  */
 public class ListCommand implements Command {
 
@@ -35,15 +41,21 @@ public class ListCommand implements Command {
     @Override
     public int execute(String[] args) {
         // Check if pom.xml exists
-        PomEditor pom = new PomEditor(Path.of("pom.xml"));
-        if (!pom.exists()) {
+        Path pom = Path.of("pom.xml");
+        if (!Files.exists(pom)) {
             Console.error("pom.xml not found in current directory");
             Console.info("Run 'mpm init' to create a new project");
             return 1;
         }
 
         try {
-            List<Dependency> dependencies = pom.getDependencies();
+            PomSnapshot snapshot = PomSnapshot.load(pom);
+            List<Dependency> dependencies = snapshot.model.dependencies;
+
+            if (MachineOutput.isEnabled()) {
+                emitRecords(snapshot);
+                return 0;
+            }
 
             if (dependencies.isEmpty()) {
                 Console.info("No dependencies found");
@@ -55,11 +67,11 @@ public class ListCommand implements Command {
             Console.println();
 
             // Group by scope
-            printByScope(dependencies, "compile", "Compile");
-            printByScope(dependencies, "test", "Test");
-            printByScope(dependencies, "provided", "Provided");
-            printByScope(dependencies, "runtime", "Runtime");
-            printByScope(dependencies, null, "Default"); // null scope
+            printByScope(snapshot, "compile", "Compile");
+            printByScope(snapshot, "test", "Test");
+            printByScope(snapshot, "provided", "Provided");
+            printByScope(snapshot, "runtime", "Runtime");
+            printByScope(snapshot, null, "Default"); // null scope
 
             return 0;
 
@@ -69,13 +81,35 @@ public class ListCommand implements Command {
         }
     }
 
+    /**
+     * Emits one record per dependency; an absent scope is reported as compile.
+     */
+    private void emitRecords(PomSnapshot snapshot) {
+        List<Dependency> dependencies = snapshot.model.dependencies;
+        for (int i = 0; i < dependencies.size(); i++) {
+            Dependency dep = dependencies.get(i);
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("type", "dependency");
+            record.put("groupId", dep.groupId);
+            record.put("artifactId", dep.artifactId);
+            record.put("version", dep.version);
+            record.put("effectiveVersion", snapshot.effectiveVersions.get(i));
+            record.put("scope", dep.scope != null ? dep.scope : "compile");
+            if (!MachineOutput.emit(record)) {
+                return;
+            }
+        }
+    }
+
     /**
      * Prints dependencies with a specific scope.
      */
-    private void printByScope(List<Dependency> dependencies, String scope, String label) {
+    private void printByScope(PomSnapshot snapshot, String scope, String label) {
         boolean headerPrinted = false;
 
-        for (Dependency dep : dependencies) {
+        List<Dependency> dependencies = snapshot.model.dependencies;
+        for (int i = 0; i < dependencies.size(); i++) {
+            Dependency dep = dependencies.get(i);
             String depScope = dep.scope;
 
             // Match scope (null scope is treated as "compile")
@@ -95,7 +129,12 @@ public class ListCommand implements Command {
                 }
 
                 String versionStr = dep.version != null ? "@" + dep.version : "";
-                Console.println("    " + dep.groupId + ":" + Console.bold(dep.artifactId) + Console.green(versionStr));
+                // Property references and managed versions, resolved
+                String effective = snapshot.effectiveVersions.get(i);
+                String resolved = effective == null || effective.equals(dep.version) ? ""
+                        : dep.version == null ? " (managed: " + effective + ")" : " (" + effective + ")";
+                Console.println("    " + dep.groupId + ":" + Console.bold(dep.artifactId) + Console.green(versionStr) +
+                        Console.dim(resolved));
             }
         }
 
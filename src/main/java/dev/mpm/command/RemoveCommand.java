@@ -3,9 +3,11 @@ package dev.mpm.command;
 import dev.mpm.pom.PomEditor;
 import dev.mpm.pom.PomEditor.Dependency;
 import dev.mpm.util.Console;
+import dev.mpm.util.MachineOutput;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -66,26 +68,15 @@ public class RemoveCommand implements Command {
             }
 
             // Find matching dependency
-            Dependency toRemove = null;
-            int matchCount = 0;
+            List<Dependency> matches = findMatches(dependencies, groupId, artifactId);
 
-            for (Dependency dep : dependencies) {
-                boolean artifactMatch = dep.artifactId.equals(artifactId);
-                boolean groupMatch = groupId == null || dep.groupId.equals(groupId);
-
-                if (artifactMatch && groupMatch) {
-                    toRemove = dep;
-                    matchCount++;
-                }
-            }
-
-            if (matchCount == 0) {
+            if (matches.isEmpty()) {
                 Console.error("Dependency not found: " + artifactArg);
                 Console.info("Use 'mpm list' to see installed dependencies");
                 return 1;
             }
 
-            if (matchCount > 1) {
+            if (matches.size() > 1) {
                 Console.error("Multiple dependencies match '" + artifactId + "'");
                 Console.info("Please specify the full coordinates: mpm remove <groupId>:" + artifactId);
 
@@ -98,12 +89,15 @@ public class RemoveCommand implements Command {
             }
 
             // Remove the dependency
+            Dependency toRemove = matches.get(0);
             Console.info("Removing " + Console.bold(toRemove.groupId + ":" + toRemove.artifactId) + "...");
 
             boolean removed = pom.removeDependency(toRemove.groupId, toRemove.artifactId);
             if (removed) {
                 pom.save();
                 Console.success("Removed " + toRemove.groupId + ":" + toRemove.artifactId);
+                MachineOutput.emit(InstallCommand.result("remove", artifactArg, toRemove.groupId,
+                        toRemove.artifactId, toRemove.version, toRemove.scope, "removed"));
                 return 0;
             } else {
                 Console.error("Failed to remove dependency");
@@ -115,4 +109,20 @@ public class RemoveCommand implements Command {
             return 1;
         }
     }
+
+    /**
+     * Finds the declared dependencies matching an artifactId and, if given, a groupId.
+     */
+    static List<Dependency> findMatches(List<Dependency> dependencies, String groupId, String artifactId) {
+        List<Dependency> matches = new ArrayList<>();
+        for (Dependency dep : dependencies) {
+            boolean artifactMatch = dep.artifactId.equals(artifactId);
+            boolean groupMatch = groupId == null || dep.groupId.equals(groupId);
+
+            if (artifactMatch && groupMatch) {
+                matches.add(dep);
+            }
+        }
+        return matches;
+    }
 }
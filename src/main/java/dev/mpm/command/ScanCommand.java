@@ -0,0 +1,156 @@
+package dev.mpm.command;
+
+import dev.mpm.scan.WorkspaceIndex;
+import dev.mpm.scan.WorkspaceIndex.Usage;
+import dev.mpm.scan.WorkspaceScanner;
+import dev.mpm.util.Console;
+import dev.mpm.util.Versions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Scans a directory of checked-out repositories and answers
+ * "which repos depend on X, at which version".
+ *
+ * Usage:
+ *   mpm scan <dir>                 - index all pom.xml files, show the most used dependencies
+ *   mpm scan <dir> <artifact>      - show every repo/module that declares the artifact
+ *   mpm scan <dir> ... --rebuild   - ignore the saved index and parse everything again
+ */
+public class ScanCommand implements Command {
+
+    private static final int TOP_DEPENDENCIES = 15;
+
+    @Override
+    public String getName() {
+        return "scan";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Find which repos in a workspace use an artifact";
+    }
+
+    @Override
+    public String getUsage() {
+        return "mpm scan <dir> [<artifact|groupId:artifactId>] [--rebuild]";
+    }
+
+    @Override
+    public int execute(String[] args) {
+        List<String> positional = new ArrayList<>();
+        boolean rebuild = false;
+        for (String arg : args) {
+            if ("--rebuild".equals(arg)) {
+                rebuild = true;
+            } else {
+                positional.add(arg);
+            }
+        }
+
+        Path root = Path.of(positional.isEmpty() ? "." : positional.get(0));
+        String query = positional.size() > 1 ? positional.get(1) : null;
+        if (!Files.isDirectory(root)) {
+            Console.error("Not a directory: " + root);
+            return 1;
+        }
+
+        Console.flush();
+        WorkspaceScanner scanner = new WorkspaceScanner(root, !rebuild);
+        WorkspaceIndex index = scanner.scan();
+        WorkspaceScanner.Stats stats = scanner.stats();
+
+        Console.info("Scanned " + index.poms().size() + " pom.xml file(s) in " + index.repoCount() + " repo(s) " +
+                Console.dim("(" + stats.parsed + " parsed, " + stats.reused + " unchanged, " +
+                        stats.removed + " removed, " + stats.elapsedMillis + " ms)"));
+        for (Map.Entry<String, String> failure : scanner.failures().entrySet()) {
+            Console.warn("Skipped " + failure.getKey() + ": " + failure.getValue());
+        }
+
+        try {
+            index.save();
+        } catch (IOException e) {
+            Console.warn("Could not save the index: " + e.getMessage());
+        }
+        Console.println();
+
+        if (query == null) {
+            printTopDependencies(index);
+            return 0;
+        }
+
+        Map<String, List<Usage>> matches = index.find(query);
+        if (matches.isEmpty()) {
+            Console.warn("No repo declares " + query);
+            return 1;
+        }
+        for (Map.Entry<String, List<Usage>> entry : matches.entrySet()) {
+            printUsages(entry.getKey(), entry.getValue());
+        }
+        return 0;
+    }
+
+    /**
+     * Prints where an artifact is declared, grouped by version.
+     */
+    private void printUsages(String key, List<Usage> usages) {
+        Map<String, List<Usage>> byVersion = new TreeMap<>(Versions.ORDER.reversed());
+        Set<String> repos = new HashSet<>();
+        for (Usage usage : usages) {
+            byVersion.computeIfAbsent(usage.version != null ? usage.version : "(no version)",
+                    v -> new ArrayList<>()).add(usage);
+            repos.add(usage.repo);
+        }
+
+        Console.println(Console.bold(key) + Console.dim("  " + usages.size() + " declaration(s) in " +
+                repos.size() + " repo(s), " + byVersion.size() + " version(s)"));
+        for (Map.Entry<String, List<Usage>> entry : byVersion.entrySet()) {
+            String version = entry.getKey();
+            Console.println("  " + (version.contains("${") ? Console.yellow(version) : Console.green(version)) +
+                    Console.dim("  (" + entry.getValue().size() + ")"));
+
+            List<Usage> sorted = new ArrayList<>(entry.getValue());
+            sorted.sort(Comparator.comparing((Usage u) -> u.repo).thenComparing(u -> u.module));
+            for (Usage usage : sorted) {
+                String scope = usage.scope != null ? usage.scope : "compile";
+                if (usage.managed) {
+                    scope += " (managed)";
+                }
+                Console.println(String.format("    %-32s %-28s %s", usage.repo, usage.module, Console.dim(scope)));
+            }
+        }
+        Console.println();
+    }
+
+    /**
+     * Prints the dependencies declared by the most repositories.
+     */
+    private void printTopDependencies(WorkspaceIndex index) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        for (Map.Entry<String, List<Usage>> entry : index.all().entrySet()) {
+            Set<String> repos = new HashSet<>();
+            for (Usage usage : entry.getValue()) {
+                repos.add(usage.repo);
+            }
+            counts.add(Map.entry(entry.getKey(), repos.size()));
+        }
+        counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        Console.println(Console.bold("Most used dependencies (" + index.all().size() + " distinct):"));
+        for (int i = 0; i < Math.min(TOP_DEPENDENCIES, counts.size()); i++) {
+            Map.Entry<String, Integer> entry = counts.get(i);
+            Console.println(String.format("  %4d repo(s)  %s", entry.getValue(), entry.getKey()));
+        }
+        Console.println();
+        Console.println("Run " + Console.cyan("mpm scan <dir> <artifact>") + " to see versions per repo");
+    }
+}
@@ -2,10 +2,18 @@ package dev.mpm.command;
 
 import dev.mpm.api.MavenCentralClient;
 import dev.mpm.api.MavenCentralClient.Artifact;
+import dev.mpm.search.CoordinateIndex;
 import dev.mpm.util.Console;
+import dev.mpm.util.MachineOutput;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Searches for Maven artifacts.
@@ -13,6 +21,9 @@ import java.util.List;
  * Usage:
  *   mpm search <query>           - searches for artifacts
  *   mpm search <query> --limit 5 - limits results
+ *   mpm search <query> --ndjson  - streams every match as NDJSON, one artifact per line
+ *   mpm search <query> --json    - the same as one JSON array
+ *   mpm search -i [query]        - interactive typeahead; Enter installs the selection
  */
 public class SearchCommand implements Command {
 
@@ -30,11 +41,17 @@ public class SearchCommand implements Command {
 
     @Override
     public String getUsage() {
-        return "mpm search <query> [--limit <n>]";
+        return "mpm search <query> [--limit <n>] [--json|--ndjson] | mpm search -i [query] [--scope <scope>]";
     }
 
     @Override
     public int execute(String[] args) {
+        for (String arg : args) {
+            if ("-i".equals(arg) || "--interactive".equals(arg)) {
+                return executeInteractive(args);
+            }
+        }
+
         if (args.length == 0) {
             Console.error("Missing search query");
             Console.println("Usage: " + getUsage());
@@ -42,7 +59,7 @@ public class SearchCommand implements Command {
         }
 
         String query = args[0];
-        int limit = 10;
+        Integer limit = null;
 
         // Parse optional arguments
         for (int i = 1; i < args.length; i++) {
@@ -56,11 +73,18 @@ public class SearchCommand implements Command {
             }
         }
 
+        // --json and --ndjson are global options; without a limit they export every match
+        if (MachineOutput.isEnabled()) {
+            return exportRecords(query, limit != null ? limit : 0);
+        }
+
         try {
             Console.info("Searching for " + Console.bold(query) + "...");
             Console.println();
+            Console.flush();
 
-            List<Artifact> results = client.search(query, limit);
+            List<Artifact> results = client.search(query, limit != null ? limit : 10);
+            CoordinateIndex.add(results);
 
             if (results.isEmpty()) {
                 Console.warn("No artifacts found matching: " + query);
@@ -96,4 +120,74 @@ public class SearchCommand implements Command {
             return 1;
         }
     }
+
+    /**
+     * Emits matches as records while later pages are still being fetched. Nothing is
+     * collected, so the export size is bounded only by the limit (0 = all).
+     */
+    private int exportRecords(String query, int limit) {
+        try (Stream<Artifact> results = client.stream(query, limit)) {
+            Iterator<Artifact> iterator = results.iterator();
+            while (iterator.hasNext()) {
+                Artifact artifact = iterator.next();
+                Map<String, Object> record = new LinkedHashMap<>();
+                record.put("type", "artifact");
+                record.put("groupId", artifact.groupId);
+                record.put("artifactId", artifact.artifactId);
+                record.put("latestVersion", artifact.latestVersion);
+                record.put("versionCount", artifact.versionCount);
+                if (!MachineOutput.emit(record)) {
+                    break; // stdout closed, e.g. piped into head
+                }
+            }
+            return 0;
+        } catch (UncheckedIOException e) {
+            return exportFailed(e.getCause());
+        }
+    }
+
+    /**
+     * Reports a failed export as an error record; the message itself goes to stderr.
+     */
+    private static int exportFailed(IOException e) {
+        Console.error(e instanceof InterruptedIOException ? "Search interrupted" : "Search failed: " + e.getMessage());
+        return 1;
+    }
+
+    /**
+     * Runs the typeahead and hands the chosen artifact to the install command.
+     */
+    private int executeInteractive(String[] args) {
+        String query = "";
+        String scope = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("--scope".equals(args[i]) && i + 1 < args.length) {
+                scope = args[++i];
+            } else if (!args[i].startsWith("-")) {
+                query = args[i];
+            }
+        }
+
+        try {
+            Artifact selected = new InteractiveSearch(client, query).run();
+            if (selected == null) {
+                return 0;
+            }
+
+            // Full coordinates, so install does not repeat the lookup
+            String coordinates = selected.getCoordinates();
+            String[] installArgs = scope != null
+                    ? new String[]{coordinates, "--scope", scope}
+                    : new String[]{coordinates};
+            return new InstallCommand().execute(installArgs);
+
+        } catch (IOException e) {
+            Console.error("Search failed: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Console.error("Search interrupted");
+            return 1;
+        }
+    }
 }
@@ -0,0 +1,462 @@
+package dev.mpm.command;
+
+import dev.mpm.pom.PomModel;
+import dev.mpm.scan.WorkspaceIndex;
+import dev.mpm.scan.WorkspaceScanner;
+import dev.mpm.scan.WorkspaceSync;
+import dev.mpm.scan.WorkspaceSync.Change;
+import dev.mpm.scan.WorkspaceSync.Status;
+import dev.mpm.trace.Trace;
+import dev.mpm.util.Console;
+import dev.mpm.util.MachineOutput;
+import dev.mpm.util.MavenExecutor;
+import dev.mpm.util.MpmHome;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Sets one dependency to one version across every project in one or more workspaces.
+ *
+ * The workspaces are indexed like {@code mpm scan} (incrementally), every pom.xml that
+ * declares the artifact is found, directly or through a version property, and all of them
+ * are rewritten at once by {@link WorkspaceSync}: only the version text changes, the rest
+ * of each file stays byte for byte as it was, and either every file is written or none.
+ * Versions newer than the requested one are kept unless --force is given.
+ *
+ * With --resolve, Maven then downloads the new dependencies. Projects that share a local
+ * repository are resolved by one Maven run over a generated aggregator pom, so shared
+ * artifacts are fetched once; projects with their own -Dmaven.repo.local in
+ * .mvn/maven.config form their own batch. A batch that fails is retried project by
+ * project, to tell which one broke.
+ *
+ * Usage:
+ *   mpm sync <groupId:artifactId:version> --in <dir>...   - update every project under the directories
+ *   mpm sync <groupId:artifactId:version> --dry-run       - show what would change, write nothing
+ *   mpm sync <groupId:artifactId:version> --resolve       - run Maven afterwards, batched per local repository
+ *   mpm sync <groupId:artifactId:version> --force         - also lower versions newer than the given one
+ */
+public class SyncCommand implements Command {
+
+    private static final String REPO_LOCAL = "-Dmaven.repo.local=";
+
+    @Override
+    public String getName() {
+        return "sync";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Set a dependency version in every project of a workspace";
+    }
+
+    @Override
+    public String getUsage() {
+        return "mpm sync <groupId:artifactId:version> [--in <dir>...] [--dry-run] [--resolve] [--force]";
+    }
+
+    @Override
+    public int execute(String[] args) {
+        String coordinates = null;
+        List<Path> roots = new ArrayList<>();
+        boolean dryRun = false;
+        boolean resolve = false;
+        boolean force = false;
+        boolean inDirectories = false;
+        for (String arg : args) {
+            if ("--in".equals(arg)) {
+                inDirectories = true;
+            } else if ("--dry-run".equals(arg)) {
+                dryRun = true;
+            } else if ("--resolve".equals(arg)) {
+                resolve = true;
+            } else if ("--force".equals(arg)) {
+                force = true;
+            } else if (arg.startsWith("-")) {
+                Console.error("Unknown option: " + arg);
+                Console.println("Usage: " + getUsage());
+                return 1;
+            } else if (inDirectories) {
+                roots.add(Path.of(arg));
+            } else if (coordinates == null) {
+                coordinates = arg;
+            } else {
+                roots.add(Path.of(arg));
+            }
+        }
+
+        ArtifactSpec spec = coordinates != null ? ArtifactSpec.parse(coordinates) : null;
+        if (spec == null || !spec.isComplete()) {
+            Console.error("Give the artifact as groupId:artifactId:version");
+            Console.println("Usage: " + getUsage());
+            return 1;
+        }
+        if (roots.isEmpty()) {
+            roots.add(Path.of("."));
+        }
+        for (Path root : roots) {
+            if (!Files.isDirectory(root)) {
+                Console.error("Not a directory: " + root);
+                return 1;
+            }
+        }
+
+        Console.flush();
+        List<WorkspaceIndex> indexes = new ArrayList<>();
+        int pomCount = 0;
+        for (Path root : roots) {
+            WorkspaceScanner scanner = new WorkspaceScanner(root, true);
+            WorkspaceIndex index = scanner.scan();
+            for (Map.Entry<String, String> failure : scanner.failures().entrySet()) {
+                Console.warn("Skipped " + failure.getKey() + ": " + failure.getValue());
+            }
+            try {
+                index.save();
+            } catch (IOException e) {
+                Console.warn("Could not save the index: " + e.getMessage());
+            }
+            indexes.add(index);
+            pomCount += index.poms().size();
+        }
+
+        String key = spec.groupId + ":" + spec.artifactId;
+        WorkspaceSync sync = new WorkspaceSync(spec.groupId, spec.artifactId, spec.version, force);
+        List<Change> changes;
+        try {
+            changes = sync.plan(indexes);
+        } catch (IOException e) {
+            Console.error("Could not read the workspace: " + e.getMessage());
+            return 1;
+        }
+        Console.info("Scanned " + pomCount + " pom.xml file(s), " + key + " is set in " + changes.size() +
+                " place(s)");
+        if (changes.isEmpty()) {
+            emitSummary(changes, dryRun, null);
+            return 0;
+        }
+
+        boolean failed = false;
+        if (!dryRun && count(changes, Status.UPDATE) > 0) {
+            try {
+                sync.apply(changes);
+            } catch (IOException e) {
+                if (count(changes, Status.UPDATE) > 0) {
+                    Console.error("Sync failed and not every file could be restored: " + e.getMessage());
+                } else {
+                    Console.error("Nothing was changed: " + e.getMessage());
+                }
+                failed = true;
+            }
+        }
+
+        printChanges(changes, spec.version, dryRun);
+        emitResults(changes, key, spec.version, dryRun);
+
+        Map<Path, Boolean> resolved = null;
+        if (resolve && !dryRun && !failed) {
+            resolved = resolve(changes);
+        }
+
+        printSummary(changes, dryRun, resolved);
+        emitSummary(changes, dryRun, resolved);
+        return failed || (resolved != null && resolved.containsValue(false)) ? 1 : 0;
+    }
+
+    private void printChanges(List<Change> changes, String version, boolean dryRun) {
+        Console.println();
+        for (Change change : changes) {
+            String file = relative(change);
+            String line;
+            switch (change.status()) {
+                case UPDATE:
+                    line = Console.green(dryRun ? "~ " : "+ ") + file + "  " + change.location + "  " +
+                            change.from + " -> " + Console.green(version);
+                    break;
+                case UNCHANGED:
+                    line = Console.dim("= " + file + "  " + change.location + "  " + change.from);
+                    break;
+                case NEWER:
+                    line = Console.yellow("! ") + file + "  " + change.location + "  " + change.from +
+                            Console.dim("  newer, kept (--force to lower it)");
+                    break;
+                case SKIPPED:
+                    line = Console.yellow("! ") + file + "  " + change.location + "  " +
+                            Console.dim(change.note);
+                    break;
+                default:
+                    line = Console.red("x ") + file + "  " + change.location + "  " + change.from;
+            }
+            Console.println("  " + line);
+            if (change.location.startsWith("property ") && change.declaredIn.size() > 1) {
+                Console.println(Console.dim("      used by " + String.join(", ", change.declaredIn)));
+            }
+        }
+    }
+
+    private void printSummary(List<Change> changes, boolean dryRun, Map<Path, Boolean> resolved) {
+        Console.println();
+        int updated = count(changes, Status.UPDATE);
+        Set<Path> files = new HashSet<>();
+        Set<Path> repositories = new HashSet<>();
+        for (Change change : changes) {
+            if (change.status() == Status.UPDATE) {
+                files.add(change.file);
+                repositories.add(change.repository());
+            }
+        }
+        String summary = (dryRun ? "Would update " : "Updated ") + updated + " version(s) in " + files.size() +
+                " file(s) of " + repositories.size() + " repo(s)";
+        List<String> rest = new ArrayList<>();
+        addCount(rest, count(changes, Status.UNCHANGED), "already current");
+        addCount(rest, count(changes, Status.NEWER), "newer");
+        addCount(rest, count(changes, Status.SKIPPED), "skipped");
+        addCount(rest, count(changes, Status.FAILED), "failed");
+        if (!rest.isEmpty()) {
+            summary += Console.dim(" (" + String.join(", ", rest) + ")");
+        }
+        if (count(changes, Status.FAILED) > 0) {
+            Console.error(summary);
+        } else {
+            Console.success(summary);
+        }
+
+        if (resolved != null) {
+            long ok = resolved.values().stream().filter(Boolean::booleanValue).count();
+            if (ok == resolved.size()) {
+                Console.success("Resolved dependencies of " + ok + " project(s)");
+            } else {
+                Console.error("Resolution failed in " + (resolved.size() - ok) + " of " + resolved.size() +
+                        " project(s):");
+                resolved.forEach((project, success) -> {
+                    if (!success) {
+                        Console.println("  " + project);
+                    }
+                });
+            }
+        } else if (dryRun && updated > 0) {
+            Console.info("Run without --dry-run to write the changes");
+        }
+    }
+
+    private static void addCount(List<String> parts, int count, String label) {
+        if (count > 0) {
+            parts.add(count + " " + label);
+        }
+    }
+
+    private static int count(List<Change> changes, Status status) {
+        int count = 0;
+        for (Change change : changes) {
+            if (change.status() == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String relative(Change change) {
+        Path base = change.root.toAbsolutePath().normalize();
+        Path cwd = Path.of("").toAbsolutePath();
+        String root = base.startsWith(cwd) ? cwd.relativize(base).toString() : base.toString();
+        String file = base.relativize(change.file).toString();
+        return root.isEmpty() ? file : root + "/" + file;
+    }
+
+    /**
+     * Resolves the updated projects, one Maven run per batch of projects that share a local
+     * repository.
+     *
+     * @return success per project directory
+     */
+    private Map<Path, Boolean> resolve(List<Change> changes) {
+        Set<Path> projects = new LinkedHashSet<>();
+        for (Change change : changes) {
+            if (change.status() == Status.UPDATE) {
+                Path repository = change.repository();
+                projects.add(Files.isRegularFile(repository.resolve("pom.xml"))
+                        ? repository : change.file.getParent());
+            }
+        }
+
+        // A reactor must not contain the same groupId:artifactId twice, so such projects go to separate batches
+        Map<String, List<Map<Path, String>>> byLocalRepository = new LinkedHashMap<>();
+        for (Path project : projects) {
+            String projectKey;
+            try {
+                PomModel model = PomModel.parse(project.resolve("pom.xml"));
+                projectKey = model.effectiveGroupId() + ":" + model.artifactId;
+            } catch (IOException e) {
+                projectKey = project.toString();
+            }
+            List<Map<Path, String>> batches = byLocalRepository.computeIfAbsent(localRepository(project),
+                    r -> new ArrayList<>());
+            Map<Path, String> target = null;
+            for (Map<Path, String> batch : batches) {
+                if (!batch.containsValue(projectKey)) {
+                    target = batch;
+                    break;
+                }
+            }
+            if (target == null) {
+                target = new LinkedHashMap<>();
+                batches.add(target);
+            }
+            target.put(project, projectKey);
+        }
+
+        Map<Path, Boolean> results = new LinkedHashMap<>();
+        PrintStream output = MachineOutput.isEnabled() ? System.err : null;
+        for (Map.Entry<String, List<Map<Path, String>>> group : byLocalRepository.entrySet()) {
+            for (Map<Path, String> batch : group.getValue()) {
+                List<Path> batchProjects = new ArrayList<>(batch.keySet());
+                Console.info("Resolving " + batchProjects.size() + " project(s)" +
+                        (group.getKey().isEmpty() ? "" : Console.dim(" into " + group.getKey())));
+                try (Trace.Span span = Trace.span("sync.resolve", Trace.Kind.PHASE, batchProjects.size() + " projects")) {
+                    if (batchProjects.size() == 1 || !resolveTogether(batchProjects, group.getKey(), output)) {
+                        for (Path project : batchProjects) {
+                            results.put(project, MavenExecutor.resolveDependencies(project.toFile(), output));
+                        }
+                    } else {
+                        for (Path project : batchProjects) {
+                            results.put(project, true);
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Runs Maven once over an aggregator pom listing the projects as modules.
+     *
+     * @param localRepository the local repository to pass to Maven, or "" for its default
+     */
+    private static boolean resolveTogether(List<Path> projects, String localRepository, PrintStream output) {
+        Path directory = null;
+        try {
+            directory = Files.createTempDirectory(MpmHome.resolve("sync/batch").getParent(), "batch-");
+            StringBuilder pom = new StringBuilder();
+            pom.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            pom.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n");
+            pom.append("    <modelVersion>4.0.0</modelVersion>\n");
+            pom.append("    <groupId>dev.mpm.sync</groupId>\n");
+            pom.append("    <artifactId>").append(directory.getFileName()).append("</artifactId>\n");
+            pom.append("    <version>1</version>\n");
+            pom.append("    <packaging>pom</packaging>\n");
+            pom.append("    <modules>\n");
+            for (Path project : projects) {
+                String module = directory.relativize(project.toAbsolutePath().normalize()).toString()
+                        .replace('\\', '/');
+                pom.append("        <module>").append(module).append("</module>\n");
+            }
+            pom.append("    </modules>\n");
+            pom.append("</project>\n");
+            Files.write(directory.resolve("pom.xml"), pom.toString().getBytes(StandardCharsets.UTF_8));
+
+            return localRepository.isEmpty()
+                    ? MavenExecutor.run(directory.toFile(), output, null, "dependency:resolve").isSuccess()
+                    : MavenExecutor.run(directory.toFile(), output, null, "dependency:resolve",
+                            REPO_LOCAL + localRepository).isSuccess();
+        } catch (IOException e) {
+            return false;
+        } finally {
+            deleteQuietly(directory);
+        }
+    }
+
+    /**
+     * Gets the local repository a project sets in .mvn/maven.config, or "" for the default.
+     */
+    private static String localRepository(Path project) {
+        Path config = project.resolve(".mvn/maven.config");
+        try {
+            for (String token : Files.readString(config).split("\\s+")) {
+                if (token.startsWith(REPO_LOCAL)) {
+                    Path repository = Path.of(token.substring(REPO_LOCAL.length()));
+                    return project.resolve(repository).toAbsolutePath().normalize().toString();
+                }
+            }
+        } catch (IOException e) {
+            // no config: Maven's default
+        }
+        return "";
+    }
+
+    private static void deleteQuietly(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private void emitResults(List<Change> changes, String key, String version, boolean dryRun) {
+        if (!MachineOutput.isEnabled()) {
+            return;
+        }
+        int colon = key.indexOf(':');
+        for (Change change : changes) {
+            Map<String, Object> record = InstallCommand.result("sync", key, key.substring(0, colon),
+                    key.substring(colon + 1), version, null, status(change.status(), dryRun));
+            record.remove("scope");
+            record.put("file", change.file.toString());
+            record.put("location", change.location);
+            record.put("from", change.from);
+            record.put("declaredIn", change.declaredIn);
+            if (change.note != null) {
+                record.put("note", change.note);
+            }
+            if (!MachineOutput.emit(record)) {
+                return;
+            }
+        }
+    }
+
+    private void emitSummary(List<Change> changes, boolean dryRun, Map<Path, Boolean> resolved) {
+        if (!MachineOutput.isEnabled()) {
+            return;
+        }
+        Map<Status, Integer> counts = new EnumMap<>(Status.class);
+        for (Change change : changes) {
+            counts.merge(change.status(), 1, Integer::sum);
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("type", "summary");
+        summary.put("places", changes.size());
+        summary.put(dryRun ? "wouldUpdate" : "updated", counts.getOrDefault(Status.UPDATE, 0));
+        summary.put("unchanged", counts.getOrDefault(Status.UNCHANGED, 0));
+        summary.put("newer", counts.getOrDefault(Status.NEWER, 0));
+        summary.put("skipped", counts.getOrDefault(Status.SKIPPED, 0));
+        summary.put("failed", counts.getOrDefault(Status.FAILED, 0));
+        summary.put("resolved", resolved != null ? !resolved.containsValue(false) : null);
+        MachineOutput.emit(summary);
+    }
+
+    private static String status(Status status, boolean dryRun) {
+        switch (status) {
+            case UPDATE:
+                return dryRun ? "would-update" : "updated";
+            case UNCHANGED:
+                return "exists";
+            default:
+                return status.name().toLowerCase();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package dev.mpm.command;
+
+import dev.mpm.api.NetworkExecutor;
+import dev.mpm.api.RepositoryClient;
+import dev.mpm.pom.PomModel;
+import dev.mpm.pom.PomSnapshot;
+import dev.mpm.util.BandwidthLimiter;
+import dev.mpm.util.Console;
+import dev.mpm.util.LocalRepository;
+import dev.mpm.util.Offline;
+import dev.mpm.util.MavenProgress;
+import dev.mpm.util.MpmHome;
+import dev.mpm.verify.ChecksumVerifier;
+import dev.mpm.verify.ChecksumVerifier.Failure;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Checks files in the local repository against their checksum sidecars, so truncated
+ * or corrupted downloads are found before they break a build.
+ *
+ * Corrupted files are moved to ~/.mpm/quarantine as soon as they are found, so Maven
+ * downloads them again on the next build instead of using them; --fix downloads them at once.
+ *
+ * Usage:
+ *   mpm verify                 - verify the dependencies declared in pom.xml
+ *   mpm verify --all           - verify the whole local repository
+ *   mpm verify --fix           - also download the quarantined files again
+ *   mpm verify --jobs <n>      - number of files hashed in parallel
+ */
+public class VerifyCommand implements Command {
+
+    private static final int DOWNLOAD_THREADS = 4;
+
+    @Override
+    public String getName() {
+        return "verify";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Verify checksums of files in the local repository";
+    }
+
+    @Override
+    public String getUsage() {
+        return "mpm verify [--all] [--fix] [--jobs <n>]";
+    }
+
+    @Override
+    public int execute(String[] args) {
+        boolean all = false;
+        boolean fix = false;
+        int jobs = Integer.getInteger("mpm.verify.threads",
+                Math.min(4, Runtime.getRuntime().availableProcessors()));
+        for (int i = 0; i < args.length; i++) {
+            if ("--all".equals(args[i])) {
+                all = true;
+            } else if ("--fix".equals(args[i])) {
+                fix = true;
+            } else if (("--jobs".equals(args[i]) || "-j".equals(args[i])) && i + 1 < args.length) {
+                try {
+                    jobs = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    Console.error("Invalid number of jobs: " + args[i]);
+                    return 1;
+                }
+            } else {
+                Console.error("Unknown option: " + args[i]);
+                Console.println("Usage: " + getUsage());
+                return 1;
+            }
+        }
+
+        if (fix && Offline.isEnabled()) {
+            Console.error("--fix downloads files again, but mpm is offline (" + Offline.reason() + ")");
+            return 1;
+        }
+
+        Path repository = LocalRepository.root();
+        List<Path> directories;
+        if (all || !Files.exists(Path.of("pom.xml"))) {
+            directories = List.of(repository);
+            Console.info("Verifying " + Console.bold(repository.toString()) + "...");
+        } else {
+            try {
+                directories = projectDirectories(PomSnapshot.load(Path.of("pom.xml")).model, repository);
+            } catch (IOException e) {
+                Console.error("Failed to read pom.xml: " + e.getMessage());
+                return 1;
+            }
+            Console.info("Verifying " + directories.size() + " artifact(s) referenced by pom.xml...");
+        }
+
+        Console.flush();
+        long start = System.nanoTime();
+        ChecksumVerifier verifier = new ChecksumVerifier(jobs);
+        try {
+            verifier.verify(directories);
+        } catch (IOException e) {
+            Console.error("Verification failed: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Console.error("Verification interrupted");
+            return 1;
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        List<Failure> failures = verifier.failures();
+        Console.println(Console.dim("  " + verifier.verifiedCount() + " file(s), " +
+                MavenProgress.formatBytes(verifier.bytesHashed()) + " checked in " + elapsedMillis + " ms" +
+                (verifier.uncheckedCount() > 0 ? ", " + verifier.uncheckedCount() + " without checksum" : "")));
+        if (failures.isEmpty()) {
+            Console.success("All checksums match");
+            return 0;
+        }
+
+        Console.println();
+        List<Failure> quarantined = new ArrayList<>();
+        for (Failure failure : failures) {
+            String relative = repository.relativize(failure.file).toString();
+            if (failure.status == ChecksumVerifier.Status.MISMATCH) {
+                Console.error(relative + Console.dim("  " + failure.algorithm + " expected " +
+                        failure.expected + ", got " + failure.actual));
+            } else {
+                Console.error(relative + Console.dim("  unreadable: " + failure.actual));
+            }
+            try {
+                quarantine(repository, failure.file);
+                quarantined.add(failure);
+            } catch (IOException e) {
+                Console.warn(relative + ": could not quarantine: " + e.getMessage());
+            }
+        }
+        Console.println();
+
+        if (!fix) {
+            Console.warn(failures.size() + " corrupted file(s), " + quarantined.size() + " quarantined in " +
+                    MpmHome.root().resolve("quarantine") + ". Maven downloads them again on the next build, or run " +
+                    Console.cyan("mpm verify --fix") + " to do it now");
+            return 1;
+        }
+        int repaired = repair(repository, quarantined);
+        return quarantined.size() == failures.size() ? repaired : 1;
+    }
+
+    /**
+     * Moves a corrupted file to ~/.mpm/quarantine, under its path in the local repository.
+     */
+    private static void quarantine(Path repository, Path file) throws IOException {
+        String relative = repository.relativize(file).toString().replace('\\', '/');
+        Files.move(file, MpmHome.resolve("quarantine/" + relative), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Gets the local repository directories of the project's parent and dependencies.
+     * When a version cannot be resolved from pom.xml alone, all versions of the artifact are checked.
+     */
+    private List<Path> projectDirectories(PomModel model, Path repository) {
+        Set<Path> directories = new LinkedHashSet<>();
+        if (model.parent != null && model.parent.groupId != null) {
+            directories.add(artifactDirectory(repository, model.parent.groupId, model.parent.artifactId,
+                    model.parent.version));
+        }
+
+        Map<String, String> properties = model.properties;
+        List<PomModel.Dependency> dependencies = new ArrayList<>(model.managedDependencies);
+        dependencies.addAll(model.dependencies);
+        for (PomModel.Dependency dep : dependencies) {
+            String groupId = model.interpolate(dep.groupId, properties);
+            String artifactId = model.interpolate(dep.artifactId, properties);
+            String version = dep.version != null ? model.interpolate(dep.version, properties) : null;
+            if (groupId == null || artifactId == null || groupId.contains("${")) {
+                continue;
+            }
+            directories.add(artifactDirectory(repository, groupId, artifactId, version));
+        }
+        return new ArrayList<>(directories);
+    }
+
+    private static Path artifactDirectory(Path repository, String groupId, String artifactId, String version) {
+        Path directory = repository.resolve(groupId.replace('.', '/')).resolve(artifactId);
+        boolean exact = version != null && !version.contains("${") && !version.startsWith("[") &&
+                !version.startsWith("(");
+        return exact ? directory.resolve(version) : directory;
+    }
+
+    /**
+     * Downloads quarantined files again in parallel.
+     */
+    private int repair(Path repository, List<Failure> failures) {
+        RepositoryClient client = new RepositoryClient();
+        BandwidthLimiter unlimited = new BandwidthLimiter(0);
+        ExecutorService executor = NetworkExecutor.create("mpm-verify-fix", DOWNLOAD_THREADS);
+        // Bounds downloads even when the executor runs every task on its own virtual thread
+        Semaphore downloads = new Semaphore(DOWNLOAD_THREADS);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (Failure failure : failures) {
+            String relative = repository.relativize(failure.file).toString().replace('\\', '/');
+            results.add(CompletableFuture.supplyAsync(() -> {
+                downloads.acquireUninterruptibly();
+                try {
+                    return repair(client, unlimited, failure.file, relative);
+                } finally {
+                    downloads.release();
+                }
+            }, executor));
+        }
+
+        int fixed = 0;
+        for (int i = 0; i < failures.size(); i++) {
+            String relative = repository.relativize(failures.get(i).file).toString();
+            String problem = results.get(i).join();
+            if (problem == null) {
+                Console.success("Fixed " + relative);
+                fixed++;
+            } else {
+                Console.warn(relative + ": " + problem);
+            }
+        }
+        executor.shutdown();
+
+        Console.println();
+        Console.info("Quarantined files are in " + MpmHome.root().resolve("quarantine"));
+        return fixed == failures.size() ? 0 : 1;
+    }
+
+    /**
+     * @return null when the file was replaced by a verified download, otherwise what went wrong
+     */
+    private String repair(RepositoryClient client, BandwidthLimiter limiter, Path file, String relative) {
+        try {
+            if (!client.download(relative, file, limiter, () -> false)) {
+                return "not found on Maven Central; quarantined, Maven will download it again on the next build";
+            }
+
+            ChecksumVerifier recheck = new ChecksumVerifier(1);
+            recheck.check(file);
+            return recheck.failures().isEmpty() ? null : "downloaded again but still does not match its checksum";
+        } catch (IOException e) {
+            return "could not repair: " + e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+}
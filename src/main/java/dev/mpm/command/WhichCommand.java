@@ -0,0 +1,228 @@
+package dev.mpm.command;
+
+import dev.mpm.api.MavenCentralClient;
+import dev.mpm.api.MavenCentralClient.Artifact;
+import dev.mpm.search.ClassIndex;
+import dev.mpm.search.ClassIndex.Match;
+import dev.mpm.util.Console;
+import dev.mpm.util.Offline;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the artifact that provides a class.
+ *
+ * Looks in the class index of the local repository first (refreshing it when the class
+ * is not there), then falls back to a class search on Maven Central. Candidates whose
+ * groupId matches more of the class's package come first, then those with more versions
+ * containing it. A simple name found in several artifacts is ambiguous: --install refuses it
+ * and asks for the fully qualified name.
+ *
+ * Usage:
+ *   mpm which <className>              - fully qualified or simple class name
+ *   mpm which <className> --install    - add the best match to pom.xml without asking
+ *                                        (a simple name must not be ambiguous)
+ *   mpm which <className> --refresh    - re-read changed JARs before looking up
+ */
+public class WhichCommand implements Command {
+
+    private static final int MAX_SHOWN = 10;
+    private static final int REMOTE_ROWS = 100;
+
+    @Override
+    public String getName() {
+        return "which";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Find the artifact that provides a class";
+    }
+
+    @Override
+    public String getUsage() {
+        return "mpm which <className> [--install] [--refresh] [--scope <scope>]";
+    }
+
+    @Override
+    public int execute(String[] args) {
+        String className = null;
+        String scope = null;
+        boolean install = false;
+        boolean refresh = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("--install".equals(args[i])) {
+                install = true;
+            } else if ("--refresh".equals(args[i])) {
+                refresh = true;
+            } else if ("--scope".equals(args[i]) && i + 1 < args.length) {
+                scope = args[++i];
+            } else if (!args[i].startsWith("-")) {
+                className = args[i];
+            }
+        }
+
+        if (className == null) {
+            Console.error("Missing class name");
+            Console.println("Usage: " + getUsage());
+            return 1;
+        }
+        if (scope != null && !InstallCommand.isValidScope(scope)) {
+            Console.error("Invalid scope: " + scope);
+            return 1;
+        }
+
+        try {
+            List<Artifact> candidates = findLocal(className, refresh);
+            if (candidates.isEmpty()) {
+                if (!Offline.isEnabled()) {
+                    Console.info("Not in the local repository, searching Maven Central...");
+                }
+                candidates = new ArrayList<>(new MavenCentralClient().searchByClass(className, REMOTE_ROWS));
+                if (candidates.isEmpty()) {
+                    Console.warn("No artifact contains " + className);
+                    return 1;
+                }
+                String packageName = packageOf(className);
+                candidates.sort(Comparator.comparingInt((Artifact a) -> packageMatch(a.groupId, packageName))
+                        .thenComparingInt(a -> a.versionCount).reversed());
+                printCandidates(candidates, "Maven Central");
+            }
+
+            Artifact best = candidates.get(0);
+            if (install && className.indexOf('.') < 0 && candidates.size() > 1) {
+                Console.error(className + " is in " + candidates.size() + " artifacts; give the fully " +
+                        "qualified class name, or install one with " + Console.cyan("mpm install <groupId>:<artifactId>"));
+                return 1;
+            }
+            if (!Files.exists(Path.of("pom.xml")) || !(install || confirm(best))) {
+                return 0;
+            }
+
+            Console.println();
+            String[] installArgs = scope != null
+                    ? new String[]{best.getCoordinates(), "--scope", scope}
+                    : new String[]{best.getCoordinates()};
+            return new InstallCommand().execute(installArgs);
+
+        } catch (IOException e) {
+            Console.error("Lookup failed: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Console.error("Lookup interrupted");
+            return 1;
+        }
+    }
+
+    /**
+     * Looks the class up in the local index, refreshing it on a miss.
+     *
+     * @return one candidate per groupId:artifactId (newest version), empty if none
+     */
+    private List<Artifact> findLocal(String className, boolean refresh) throws IOException {
+        ClassIndex index = ClassIndex.load();
+        List<Match> matches = refresh || index.isEmpty() ? List.of() : index.find(className);
+
+        if (matches.isEmpty()) {
+            ClassIndex.RefreshStats stats = index.refresh();
+            if (stats.read > 0 || stats.removed > 0) {
+                Console.info("Indexed local repository " + Console.dim("(" + index.jarCount() + " JARs, " +
+                        stats.read + " read, " + stats.reused + " unchanged, " + stats.removed + " removed, " +
+                        stats.elapsedMillis + " ms)"));
+            }
+            matches = index.find(className);
+        }
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        // Matches are sorted by artifact, newest version first
+        Map<String, List<Match>> byArtifact = new LinkedHashMap<>();
+        for (Match match : matches) {
+            byArtifact.computeIfAbsent(match.jar.groupId + ":" + match.jar.artifactId + " " + match.className,
+                    k -> new ArrayList<>()).add(match);
+        }
+
+        List<List<Match>> ranked = new ArrayList<>(byArtifact.values());
+        ranked.sort(Comparator.comparingInt((List<Match> versions) ->
+                        packageMatch(versions.get(0).jar.groupId, packageOf(versions.get(0).className)))
+                .thenComparingInt(List::size).reversed());
+
+        List<Artifact> candidates = new ArrayList<>();
+        Console.println(Console.bold("Found in the local repository:"));
+        int shown = 0;
+        for (List<Match> versions : ranked) {
+            Match newest = versions.get(0);
+            candidates.add(new Artifact(newest.jar.groupId, newest.jar.artifactId, newest.jar.version,
+                    versions.size()));
+            if (shown++ < MAX_SHOWN) {
+                Console.println("  " + Console.bold(newest.jar.groupId + ":" + newest.jar.artifactId) + " " +
+                        Console.green(newest.jar.version) + Console.dim("  " + newest.className +
+                        (versions.size() > 1 ? ", " + versions.size() + " versions" : "")));
+            }
+        }
+        if (shown > MAX_SHOWN) {
+            Console.println(Console.dim("  ... and " + (shown - MAX_SHOWN) + " more"));
+        }
+        return candidates;
+    }
+
+    /**
+     * Gets the package of a fully qualified class name, or "" for a simple name.
+     */
+    private static String packageOf(String className) {
+        int dot = className.lastIndexOf('.');
+        return dot < 0 ? "" : className.substring(0, dot);
+    }
+
+    /**
+     * Counts the leading segments a groupId shares with a package: 2 for com.google.guava
+     * and com.google.common.collect, 4 for com.fasterxml.jackson.core and the same package.
+     */
+    private static int packageMatch(String groupId, String packageName) {
+        String[] group = groupId.split("\\.");
+        String[] pkg = packageName.split("\\.");
+        int shared = 0;
+        while (shared < group.length && shared < pkg.length && group[shared].equals(pkg[shared])) {
+            shared++;
+        }
+        return shared;
+    }
+
+    private void printCandidates(List<Artifact> candidates, String source) {
+        Console.println(Console.bold("Found on " + source + ":"));
+        for (int i = 0; i < Math.min(MAX_SHOWN, candidates.size()); i++) {
+            Artifact artifact = candidates.get(i);
+            Console.println("  " + Console.bold(artifact.groupId + ":" + artifact.artifactId) + " " +
+                    Console.green(artifact.latestVersion));
+        }
+        if (candidates.size() > MAX_SHOWN) {
+            Console.println(Console.dim("  ... and " + (candidates.size() - MAX_SHOWN) + " more"));
+        }
+    }
+
+    /**
+     * Asks whether to install the best match; only when someone is at the terminal.
+     */
+    private boolean confirm(Artifact artifact) throws IOException {
+        if (System.console() == null) {
+            Console.println();
+            Console.println("Install: " + Console.cyan("mpm install " + artifact.getCoordinates()));
+            return false;
+        }
+        Console.println();
+        Console.print("Install " + Console.bold(artifact.getCoordinates()) + "? [y/N] ");
+        String answer = new BufferedReader(new InputStreamReader(System.in)).readLine();
+        return answer != null && answer.trim().toLowerCase().startsWith("y");
+    }
+}
@@ -1,5 +1,8 @@
 package dev.mpm.pom;
 
+import dev.mpm.trace.Trace;
+import dev.mpm.util.AtomicFiles;
+
 import org.w3c.dom.*;
 import org.xml.sax.SAXException;
 
@@ -11,8 +14,12 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.*;
 import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,6 +31,14 @@ public class PomEditor {
 
     private final Path pomPath;
     private Document document;
+    /** Hash of the content the document was parsed from, compared before saving. */
+    private String loadedHash;
+    /** Changes made since load, replayed if another process saved in between. */
+    private final List<Edit> edits = new ArrayList<>();
+
+    private interface Edit {
+        void apply() throws IOException;
+    }
 
     /**
      * Represents a Maven dependency.
@@ -66,12 +81,18 @@ public class PomEditor {
      * Loads and parses the pom.xml file.
      */
     public void load() throws IOException {
-        try {
+        parse(Files.readAllBytes(pomPath));
+        edits.clear();
+    }
+
+    private void parse(byte[] content) throws IOException {
+        try (Trace.Span span = Trace.span("pom.load", Trace.Kind.XML, pomPath.toString())) {
             DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
             factory.setNamespaceAware(true);
             DocumentBuilder builder = factory.newDocumentBuilder();
-            document = builder.parse(pomPath.toFile());
+            document = builder.parse(new ByteArrayInputStream(content), pomPath.toUri().toString());
             document.getDocumentElement().normalize();
+            loadedHash = hash(content);
         } catch (ParserConfigurationException | SAXException e) {
             throw new IOException("Failed to parse pom.xml: " + e.getMessage(), e);
         }
@@ -79,8 +100,37 @@ public class PomEditor {
 
     /**
      * Saves the pom.xml file.
+     *
+     * The write is a compare-and-swap under the pom's writer lock: if another process
+     * changed pom.xml since it was loaded, the file is re-read and this editor's changes
+     * are applied again on top, so neither edit is lost. The new content replaces the file
+     * atomically.
      */
     public void save() throws IOException {
+        try (Trace.Span span = Trace.span("pom.save", Trace.Kind.XML, pomPath.toString())) {
+            AtomicFiles.update(pomPath, generation -> {
+                byte[] current = Files.exists(pomPath) ? Files.readAllBytes(pomPath) : null;
+                if (current != null && !hash(current).equals(loadedHash)) {
+                    List<Edit> pending = new ArrayList<>(edits);
+                    parse(current);
+                    for (Edit edit : pending) {
+                        edit.apply();
+                    }
+                    span.set("replayed", pending.size());
+                }
+
+                byte[] content = serialize();
+                loadedHash = hash(content);
+                return out -> out.write(content);
+            });
+            edits.clear();
+        }
+    }
+
+    /**
+     * Serializes the document, cleaning up formatting issues caused by the XML transformer.
+     */
+    private byte[] serialize() throws IOException {
         try {
             TransformerFactory transformerFactory = TransformerFactory.newInstance();
             Transformer transformer = transformerFactory.newTransformer();
@@ -91,17 +141,30 @@ public class PomEditor {
             // Preserve existing XML declaration
             document.setXmlStandalone(true);
 
-            DOMSource source = new DOMSource(document);
-            StreamResult result = new StreamResult(pomPath.toFile());
-            transformer.transform(source, result);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            transformer.transform(new DOMSource(document), new StreamResult(out));
+            String content = out.toString(StandardCharsets.UTF_8);
+
+            // Remove multiple consecutive blank lines
+            content = content.replaceAll("(\r?\n){3,}", "\n\n");
+
+            // Ensure consistent line endings
+            content = content.replace("\r\n", "\n");
 
-            // Clean up extra blank lines that transformer adds
-            cleanupFormatting();
+            return content.getBytes(StandardCharsets.UTF_8);
         } catch (TransformerException e) {
             throw new IOException("Failed to save pom.xml: " + e.getMessage(), e);
         }
     }
 
+    private static String hash(byte[] content) {
+        try {
+            return new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(content)).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * Gets all dependencies from the pom.xml.
      */
@@ -139,6 +202,23 @@ public class PomEditor {
         return dependencies;
     }
 
+    /**
+     * Gets the project's groupId, or the parent's groupId when it is inherited.
+     */
+    public String getGroupId() throws IOException {
+        if (document == null) {
+            load();
+        }
+
+        Element project = document.getDocumentElement();
+        Element groupId = getDirectChild(project, "groupId");
+        if (groupId == null) {
+            Element parent = getDirectChild(project, "parent");
+            groupId = parent != null ? getDirectChild(parent, "groupId") : null;
+        }
+        return groupId != null ? groupId.getTextContent().trim() : null;
+    }
+
     /**
      * Checks if a dependency already exists.
      */
@@ -156,7 +236,7 @@ public class PomEditor {
      *
      * @param groupId    the group ID
      * @param artifactId the artifact ID
-     * @param version    the version
+     * @param version    the version, or null to leave it to dependencyManagement
      * @param scope      the scope (compile, test, provided, runtime, or null for default)
      * @return true if added, false if already exists
      */
@@ -164,6 +244,15 @@ public class PomEditor {
         if (document == null) {
             load();
         }
+        boolean added = insertDependency(groupId, artifactId, version, scope);
+        if (added) {
+            edits.add(() -> insertDependency(groupId, artifactId, version, scope));
+        }
+        return added;
+    }
+
+    private boolean insertDependency(String groupId, String artifactId, String version, String scope)
+            throws IOException {
 
         // Check if already exists
         if (hasDependency(groupId, artifactId)) {
@@ -184,9 +273,12 @@ public class PomEditor {
         artifactIdElement.setTextContent(artifactId);
         dependency.appendChild(artifactIdElement);
 
-        Element versionElement = document.createElement("version");
-        versionElement.setTextContent(version);
-        dependency.appendChild(versionElement);
+        // Without a version, dependencyManagement (an imported BOM) decides it
+        if (version != null) {
+            Element versionElement = document.createElement("version");
+            versionElement.setTextContent(version);
+            dependency.appendChild(versionElement);
+        }
 
         if (scope != null && !scope.equals("compile")) {
             Element scopeElement = document.createElement("scope");
@@ -202,6 +294,88 @@ public class PomEditor {
         return true;
     }
 
+    /**
+     * Checks if the project's own dependencyManagement declares a dependency, such as an
+     * imported BOM.
+     */
+    public boolean hasManagedDependency(String groupId, String artifactId) throws IOException {
+        if (document == null) {
+            load();
+        }
+        return findManagedDependency(groupId, artifactId) != null;
+    }
+
+    /**
+     * Imports a BOM: adds it to dependencyManagement with type pom and scope import, creating
+     * the section if needed.
+     *
+     * @return true if added, false if already imported
+     */
+    public boolean addBomImport(String groupId, String artifactId, String version) throws IOException {
+        if (document == null) {
+            load();
+        }
+        boolean added = insertBomImport(groupId, artifactId, version);
+        if (added) {
+            edits.add(() -> insertBomImport(groupId, artifactId, version));
+        }
+        return added;
+    }
+
+    private boolean insertBomImport(String groupId, String artifactId, String version) {
+        if (findManagedDependency(groupId, artifactId) != null) {
+            return false;
+        }
+
+        Element root = document.getDocumentElement();
+        Element management = getDirectChild(root, "dependencyManagement");
+        if (management == null) {
+            // Maven convention puts it right before <dependencies>
+            management = document.createElement("dependencyManagement");
+            Node before = getDirectChild(root, "dependencies");
+            if (before == null) {
+                root.appendChild(management);
+            } else {
+                root.insertBefore(management, before);
+            }
+        }
+        Element dependencies = getDirectChild(management, "dependencies");
+        if (dependencies == null) {
+            dependencies = document.createElement("dependencies");
+            management.appendChild(dependencies);
+        }
+
+        Element dependency = document.createElement("dependency");
+        String[][] children = {
+                {"groupId", groupId}, {"artifactId", artifactId}, {"version", version},
+                {"type", "pom"}, {"scope", "import"}};
+        for (String[] child : children) {
+            Element element = document.createElement(child[0]);
+            element.setTextContent(child[1]);
+            dependency.appendChild(element);
+        }
+        dependencies.appendChild(dependency);
+        return true;
+    }
+
+    private Element findManagedDependency(String groupId, String artifactId) {
+        Element management = getDirectChild(document.getDocumentElement(), "dependencyManagement");
+        Element dependencies = management != null ? getDirectChild(management, "dependencies") : null;
+        if (dependencies == null) {
+            return null;
+        }
+        for (Node child = dependencies.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE && child.getNodeName().equals("dependency")) {
+                Element dependency = (Element) child;
+                if (groupId.equals(getChildText(dependency, "groupId"))
+                        && artifactId.equals(getChildText(dependency, "artifactId"))) {
+                    return dependency;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Removes a dependency from the pom.xml.
      *
@@ -213,6 +387,14 @@ public class PomEditor {
         if (document == null) {
             load();
         }
+        boolean removed = deleteDependency(groupId, artifactId);
+        if (removed) {
+            edits.add(() -> deleteDependency(groupId, artifactId));
+        }
+        return removed;
+    }
+
+    private boolean deleteDependency(String groupId, String artifactId) {
 
         NodeList depNodes = document.getElementsByTagName("dependency");
 
@@ -267,7 +449,7 @@ public class PomEditor {
                 "    </dependencies>\n" +
                 "</project>\n";
 
-        Files.writeString(pomPath, content);
+        AtomicFiles.write(pomPath, out -> out.write(content.getBytes(StandardCharsets.UTF_8)));
 
         // Reload the document
         load();
@@ -284,6 +466,15 @@ public class PomEditor {
         return null;
     }
 
+    private Element getDirectChild(Element parent, String childName) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE && child.getNodeName().equals(childName)) {
+                return (Element) child;
+            }
+        }
+        return null;
+    }
+
     /**
      * Gets or creates the <dependencies> element.
      */
@@ -308,19 +499,4 @@ public class PomEditor {
 
         return dependencies;
     }
-
-    /**
-     * Cleans up formatting issues caused by the XML transformer.
-     */
-    private void cleanupFormatting() throws IOException {
-        String content = Files.readString(pomPath);
-
-        // Remove multiple consecutive blank lines
-        content = content.replaceAll("(\r?\n){3,}", "\n\n");
-
-        // Ensure consistent line endings
-        content = content.replace("\r\n", "\n");
-
-        Files.writeString(pomPath, content);
-    }
 }
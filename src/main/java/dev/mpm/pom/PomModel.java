@@ -0,0 +1,399 @@
+package dev.mpm.pom;
+
+import dev.mpm.trace.Trace;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of the parts of a POM that matter for dependency resolution.
+ * Parsed with a streaming (StAX) reader, so it is cheap enough for remote POMs
+ * and large numbers of files. Use {@link PomEditor} to modify a project's pom.xml.
+ */
+public final class PomModel {
+
+    public final String groupId;
+    public final String artifactId;
+    public final String version;
+    public final String packaging;
+    public final Parent parent;
+    public final Map<String, String> properties;
+    public final List<Dependency> dependencies;
+    public final List<Dependency> managedDependencies;
+
+    /**
+     * Parent POM reference.
+     */
+    public static class Parent {
+        public final String groupId;
+        public final String artifactId;
+        public final String version;
+
+        public Parent(String groupId, String artifactId, String version) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Dependency declaration as written in the POM (not interpolated).
+     */
+    public static class Dependency {
+        public final String groupId;
+        public final String artifactId;
+        public final String version;
+        public final String scope;
+        public final String type;
+        public final String classifier;
+        public final boolean optional;
+
+        public Dependency(String groupId, String artifactId, String version, String scope,
+                          String type, String classifier, boolean optional) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.scope = scope;
+            this.type = type;
+            this.classifier = classifier;
+            this.optional = optional;
+        }
+
+        @Override
+        public String toString() {
+            return groupId + ":" + artifactId + "@" + version;
+        }
+    }
+
+    private PomModel(String groupId, String artifactId, String version, String packaging, Parent parent,
+                     Map<String, String> properties, List<Dependency> dependencies,
+                     List<Dependency> managedDependencies) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.packaging = packaging;
+        this.parent = parent;
+        this.properties = Collections.unmodifiableMap(properties);
+        this.dependencies = Collections.unmodifiableList(dependencies);
+        this.managedDependencies = Collections.unmodifiableList(managedDependencies);
+    }
+
+    /**
+     * Creates a model from already parsed parts, e.g. when reading it back from a cache.
+     */
+    public static PomModel of(String groupId, String artifactId, String version, String packaging, Parent parent,
+                              Map<String, String> properties, List<Dependency> dependencies,
+                              List<Dependency> managedDependencies) {
+        return new PomModel(groupId, artifactId, version, packaging, parent, properties, dependencies,
+                managedDependencies);
+    }
+
+    /**
+     * Created on first parse only, so models read back from a cache never look up a StAX implementation.
+     */
+    private static final class Parser {
+        static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    }
+
+    /**
+     * Parses a POM file.
+     */
+    public static PomModel parse(Path path) throws IOException {
+        try (Trace.Span span = Trace.span("xml.parse", Trace.Kind.XML, path.toString());
+             InputStream in = Files.newInputStream(path)) {
+            return parse(in);
+        }
+    }
+
+    /**
+     * Parses a POM from a stream. The stream is not closed.
+     */
+    public static PomModel parse(InputStream in) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = Parser.INPUT_FACTORY.createXMLStreamReader(in);
+            return read(reader);
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to parse POM: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing useful to do
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the model in the binary form read by {@link #readFrom}.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        writeString(out, groupId);
+        writeString(out, artifactId);
+        writeString(out, version);
+        writeString(out, packaging);
+
+        out.writeBoolean(parent != null);
+        if (parent != null) {
+            writeString(out, parent.groupId);
+            writeString(out, parent.artifactId);
+            writeString(out, parent.version);
+        }
+
+        out.writeInt(properties.size());
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            out.writeUTF(entry.getKey());
+            writeString(out, entry.getValue());
+        }
+        writeDependencies(out, dependencies);
+        writeDependencies(out, managedDependencies);
+    }
+
+    /**
+     * Reads a model written by {@link #writeTo}.
+     */
+    public static PomModel readFrom(DataInput in) throws IOException {
+        String groupId = readString(in);
+        String artifactId = readString(in);
+        String version = readString(in);
+        String packaging = readString(in);
+
+        Parent parent = in.readBoolean()
+                ? new Parent(readString(in), readString(in), readString(in))
+                : null;
+
+        int propertyCount = in.readInt();
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (int i = 0; i < propertyCount; i++) {
+            properties.put(in.readUTF(), readString(in));
+        }
+        List<Dependency> dependencies = readDependencies(in);
+        List<Dependency> managed = readDependencies(in);
+
+        return new PomModel(groupId, artifactId, version, packaging, parent, properties, dependencies, managed);
+    }
+
+    private static void writeDependencies(DataOutput out, List<Dependency> dependencies) throws IOException {
+        out.writeInt(dependencies.size());
+        for (Dependency dep : dependencies) {
+            writeString(out, dep.groupId);
+            writeString(out, dep.artifactId);
+            writeString(out, dep.version);
+            writeString(out, dep.scope);
+            writeString(out, dep.type);
+            writeString(out, dep.classifier);
+            out.writeBoolean(dep.optional);
+        }
+    }
+
+    private static List<Dependency> readDependencies(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<Dependency> dependencies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            dependencies.add(new Dependency(readString(in), readString(in), readString(in),
+                    readString(in), readString(in), readString(in), in.readBoolean()));
+        }
+        return dependencies;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Gets the effective groupId (inherited from the parent when not declared).
+     */
+    public String effectiveGroupId() {
+        return groupId != null ? groupId : parent != null ? parent.groupId : null;
+    }
+
+    /**
+     * Gets the effective version (inherited from the parent when not declared).
+     */
+    public String effectiveVersion() {
+        return version != null ? version : parent != null ? parent.version : null;
+    }
+
+    /**
+     * Replaces ${...} expressions using the given properties plus the project.* built-ins.
+     * Unknown expressions are left untouched.
+     */
+    public String interpolate(String value, Map<String, String> inheritedProperties) {
+        if (value == null || !value.contains("${")) {
+            return value;
+        }
+
+        StringBuilder result = new StringBuilder();
+        int pos = 0;
+        // Bounded number of passes guards against self-referencing properties
+        for (int pass = 0; pass < 10 && value.contains("${"); pass++) {
+            result.setLength(0);
+            pos = 0;
+            int start;
+            while ((start = value.indexOf("${", pos)) >= 0) {
+                int end = value.indexOf('}', start);
+                if (end < 0) {
+                    break;
+                }
+                result.append(value, pos, start);
+                String key = value.substring(start + 2, end);
+                String replacement = lookup(key, inheritedProperties);
+                result.append(replacement != null ? replacement : value.substring(start, end + 1));
+                pos = end + 1;
+            }
+            result.append(value.substring(pos));
+            if (result.toString().equals(value)) {
+                break;
+            }
+            value = result.toString();
+        }
+        return value;
+    }
+
+    private String lookup(String key, Map<String, String> inheritedProperties) {
+        switch (key) {
+            case "project.groupId":
+            case "pom.groupId":
+                return effectiveGroupId();
+            case "project.artifactId":
+            case "pom.artifactId":
+                return artifactId;
+            case "project.version":
+            case "pom.version":
+                return effectiveVersion();
+            case "project.parent.groupId":
+                return parent != null ? parent.groupId : null;
+            case "project.parent.version":
+                return parent != null ? parent.version : null;
+        }
+        String value = properties.get(key);
+        if (value == null && inheritedProperties != null) {
+            value = inheritedProperties.get(key);
+        }
+        return value;
+    }
+
+    private static PomModel read(XMLStreamReader reader) throws XMLStreamException {
+        String groupId = null;
+        String artifactId = null;
+        String version = null;
+        String packaging = null;
+        String[] parent = new String[3];
+        boolean hasParent = false;
+        Map<String, String> properties = new LinkedHashMap<>();
+        List<Dependency> dependencies = new ArrayList<>();
+        List<Dependency> managed = new ArrayList<>();
+
+        // Element path from the root, e.g. [project, dependencies, dependency, version]
+        List<String> path = new ArrayList<>();
+        Map<String, String> dep = null;
+        StringBuilder text = new StringBuilder();
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    path.add(reader.getLocalName());
+                    text.setLength(0);
+                    if (isDependency(path)) {
+                        dep = new LinkedHashMap<>();
+                    }
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    text.append(reader.getText());
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    String value = text.toString().trim();
+                    int depth = path.size();
+                    String name = path.get(depth - 1);
+
+                    if (depth == 2) {
+                        switch (name) {
+                            case "groupId": groupId = value; break;
+                            case "artifactId": artifactId = value; break;
+                            case "version": version = value; break;
+                            case "packaging": packaging = value; break;
+                        }
+                    } else if (depth == 3 && path.get(1).equals("parent")) {
+                        hasParent = true;
+                        switch (name) {
+                            case "groupId": parent[0] = value; break;
+                            case "artifactId": parent[1] = value; break;
+                            case "version": parent[2] = value; break;
+                        }
+                    } else if (depth == 3 && path.get(1).equals("properties")) {
+                        properties.put(name, value);
+                    } else if (dep != null && isDependency(path.subList(0, depth - 1))) {
+                        dep.put(name, value);
+                    } else if (dep != null && isDependency(path)) {
+                        Dependency d = new Dependency(dep.get("groupId"), dep.get("artifactId"), dep.get("version"),
+                                dep.get("scope"), dep.get("type"), dep.get("classifier"),
+                                "true".equals(dep.get("optional")));
+                        if (d.groupId != null && d.artifactId != null) {
+                            (path.get(1).equals("dependencies") ? dependencies : managed).add(d);
+                        }
+                        dep = null;
+                    }
+
+                    path.remove(depth - 1);
+                    text.setLength(0);
+                    break;
+            }
+        }
+
+        Parent parentRef = hasParent ? new Parent(parent[0], parent[1], parent[2]) : null;
+        return new PomModel(groupId, artifactId, version, packaging, parentRef, properties, dependencies, managed);
+    }
+
+    /**
+     * Checks whether the path points to project/dependencies/dependency
+     * or project/dependencyManagement/dependencies/dependency.
+     */
+    private static boolean isDependency(List<String> path) {
+        int size = path.size();
+        if (size == 3) {
+            return path.get(1).equals("dependencies") && path.get(2).equals("dependency");
+        }
+        if (size == 4) {
+            return path.get(1).equals("dependencyManagement") && path.get(2).equals("dependencies") &&
+                    path.get(3).equals("dependency");
+        }
+        return false;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
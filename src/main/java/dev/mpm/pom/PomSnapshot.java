@@ -0,0 +1,342 @@
+package dev.mpm.pom;
+
+import dev.mpm.trace.Trace;
+import dev.mpm.util.AtomicFiles;
+import dev.mpm.util.LocalRepository;
+import dev.mpm.util.MpmHome;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsed pom.xml kept as a small binary file in ~/.mpm/pomcache, so read-only commands
+ * skip XML parsing while the pom is unchanged.
+ *
+ * A snapshot holds the {@link PomModel} and the effective version of each dependency,
+ * resolved through properties and the dependencyManagement of the pom and of the parents
+ * found locally (../pom.xml or ~/.m2). It is keyed by the pom's path and remembers its
+ * size, mtime and SHA-256, plus the size and mtime of every parent file it read (or that it
+ * looked for and did not find). When only the mtime changed (a checkout, a touch), the hash
+ * decides, and the model is reused without parsing.
+ *
+ * Size and mtime alone are not trusted for a file modified within {@link #RACY_MILLIS} of
+ * when the snapshot read it, since an edit that keeps the size and lands in the same mtime
+ * tick would look unchanged (the racy-git problem): the pom's hash is checked instead, and
+ * such a parent is read again.
+ */
+public final class PomSnapshot {
+
+    private static final int MAGIC = 0x6d706d50; // "mpmP"
+    private static final int FORMAT = 2;
+    /** Coarsest mtime granularity to expect (FAT has 2 s). */
+    private static final long RACY_MILLIS = 2_000;
+    private static final int MAX_PARENT_DEPTH = 5;
+
+    public final PomModel model;
+    /** Effective version of each entry of {@code model.dependencies}; null where it is not known locally. */
+    public final List<String> effectiveVersions;
+
+    private final long size;
+    private final long modified;
+    private final byte[] hash;
+    /** When the pom and its parents were read. */
+    private final long checked;
+    /** Parent POMs the effective versions were resolved from; size -1 for one that was missing. */
+    private final List<Input> inputs;
+
+    /**
+     * A file the snapshot depends on, with the size and mtime it had.
+     */
+    private static final class Input {
+        final String path;
+        final long size;
+        final long modified;
+
+        Input(String path, long size, long modified) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+
+        boolean isCurrent(long checked) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(Path.of(path), BasicFileAttributes.class);
+                return size == attributes.size() && modified == attributes.lastModifiedTime().toMillis() &&
+                        !isRacy(modified, checked);
+            } catch (IOException e) {
+                return size < 0;
+            }
+        }
+    }
+
+    private PomSnapshot(PomModel model, List<String> effectiveVersions, long size, long modified, byte[] hash,
+                        long checked, List<Input> inputs) {
+        this.model = model;
+        this.effectiveVersions = Collections.unmodifiableList(effectiveVersions);
+        this.size = size;
+        this.modified = modified;
+        this.hash = hash;
+        this.checked = checked;
+        this.inputs = inputs;
+    }
+
+    /**
+     * Gets the model of a pom, from its snapshot when the pom and its parents are unchanged,
+     * otherwise by parsing it (and saving a new snapshot).
+     */
+    public static PomSnapshot load(Path pom) throws IOException {
+        Path absolute = pom.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        Path file = file(absolute);
+
+        try (Trace.Span span = Trace.span("pomcache.load", Trace.Kind.XML, absolute.toString())) {
+            PomSnapshot cached = read(file, absolute);
+            if (cached != null && cached.size == size && cached.modified == modified &&
+                    !isRacy(modified, cached.checked) && cached.inputsCurrent()) {
+                span.set("result", "hit");
+                return cached;
+            }
+
+            long checked = System.currentTimeMillis();
+            byte[] content = Files.readAllBytes(absolute);
+            byte[] hash = sha256(content);
+            PomSnapshot snapshot;
+            if (cached != null && Arrays.equals(cached.hash, hash) && cached.inputsCurrent()) {
+                span.set("result", "touched");
+                snapshot = new PomSnapshot(cached.model, cached.effectiveVersions, size, modified, hash, checked,
+                        cached.inputs);
+            } else {
+                span.set("result", "parsed");
+                PomModel model = PomModel.parse(new ByteArrayInputStream(content));
+                List<Input> inputs = new ArrayList<>();
+                List<String> effective = resolve(model, absolute, inputs);
+                snapshot = new PomSnapshot(model, effective, size, modified, hash, checked, inputs);
+            }
+            snapshot.write(file, absolute);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Gets the snapshot of a pom only if it is up to date; never parses or writes.
+     *
+     * @return the snapshot, or null if there is none or the pom or a parent changed
+     */
+    public static PomSnapshot cached(Path pom) {
+        Path absolute = pom.toAbsolutePath().normalize();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+            PomSnapshot cached = read(file(absolute), absolute);
+            if (cached == null || cached.size != attributes.size() ||
+                    cached.modified != attributes.lastModifiedTime().toMillis() || !cached.inputsCurrent()) {
+                return null;
+            }
+            if (isRacy(cached.modified, cached.checked) &&
+                    !Arrays.equals(cached.hash, sha256(Files.readAllBytes(absolute)))) {
+                return null;
+            }
+            return cached;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private boolean inputsCurrent() {
+        for (Input input : inputs) {
+            if (!input.isCurrent(checked)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a file was modified so close to when it was read that an edit in the
+     * same mtime tick would not show.
+     */
+    private static boolean isRacy(long modified, long checked) {
+        return modified >= checked - RACY_MILLIS;
+    }
+
+    /**
+     * Resolves dependency versions through the local parent chain, child declarations first.
+     */
+    private static List<String> resolve(PomModel model, Path pom, List<Input> inputs) {
+        List<PomModel> chain = new ArrayList<>();
+        chain.add(model);
+        PomModel current = model;
+        Path directory = pom.getParent();
+        for (int depth = 0; depth < MAX_PARENT_DEPTH && current.parent != null; depth++) {
+            PomModel.Parent parent = current.parent;
+            Path parentPom = null;
+            PomModel parentModel = null;
+
+            Path relative = directory != null && directory.getParent() != null
+                    ? directory.getParent().resolve("pom.xml") : null;
+            if (relative != null && Files.isRegularFile(relative)) {
+                PomModel candidate = parseInput(relative, inputs);
+                if (candidate != null && parent.artifactId != null && parent.artifactId.equals(candidate.artifactId)) {
+                    parentPom = relative;
+                    parentModel = candidate;
+                }
+            }
+            if (parentModel == null && parent.groupId != null && parent.artifactId != null && parent.version != null) {
+                parentPom = LocalRepository.pomPath(parent.groupId, parent.artifactId, parent.version);
+                parentModel = parseInput(parentPom, inputs);
+            }
+            if (parentModel == null) {
+                break;
+            }
+            chain.add(parentModel);
+            current = parentModel;
+            directory = parentPom.getParent();
+        }
+
+        // Child properties override inherited ones
+        Map<String, String> properties = new HashMap<>();
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            properties.putAll(chain.get(i).properties);
+        }
+
+        List<String> effective = new ArrayList<>(model.dependencies.size());
+        for (PomModel.Dependency dep : model.dependencies) {
+            String version = dep.version != null ? dep.version : managedVersion(chain, dep);
+            version = model.interpolate(version, properties);
+            effective.add(version != null && !version.contains("${") ? version : null);
+        }
+        return effective;
+    }
+
+    private static String managedVersion(List<PomModel> chain, PomModel.Dependency dep) {
+        for (PomModel model : chain) {
+            for (PomModel.Dependency managed : model.managedDependencies) {
+                if (dep.groupId.equals(managed.groupId) && dep.artifactId.equals(managed.artifactId) &&
+                        managed.version != null) {
+                    return managed.version;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a parent POM and records it as an input; a missing or broken file is recorded
+     * too, so the snapshot is rebuilt once it appears or changes.
+     */
+    private static PomModel parseInput(Path path, List<Input> inputs) {
+        Path absolute = path.toAbsolutePath().normalize();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+            inputs.add(new Input(absolute.toString(), attributes.size(), attributes.lastModifiedTime().toMillis()));
+            return PomModel.parse(absolute);
+        } catch (NoSuchFileException e) {
+            inputs.add(new Input(absolute.toString(), -1, 0));
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a snapshot; null if there is none, or it is for another path or format.
+     */
+    private static PomSnapshot read(Path file, Path pom) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 13))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT || !in.readUTF().equals(pom.toString())) {
+                return null;
+            }
+            long size = in.readLong();
+            long modified = in.readLong();
+            byte[] hash = new byte[in.readUnsignedByte()];
+            in.readFully(hash);
+            long checked = in.readLong();
+
+            int inputCount = in.readInt();
+            List<Input> inputs = new ArrayList<>(inputCount);
+            for (int i = 0; i < inputCount; i++) {
+                inputs.add(new Input(in.readUTF(), in.readLong(), in.readLong()));
+            }
+
+            PomModel model = PomModel.readFrom(in);
+            List<String> effective = new ArrayList<>(model.dependencies.size());
+            for (int i = 0; i < model.dependencies.size(); i++) {
+                effective.add(in.readBoolean() ? in.readUTF() : null);
+            }
+            return new PomSnapshot(model, effective, size, modified, hash, checked, inputs);
+        } catch (IOException e) {
+            // Missing or unreadable: parse the pom instead
+            return null;
+        }
+    }
+
+    /**
+     * Saves the snapshot. Failures are ignored; the snapshot is only an optimization.
+     */
+    private void write(Path file, Path pom) {
+        try {
+            // One file per pom: concurrent writers store equivalent snapshots, the last one wins
+            AtomicFiles.replace(file, output -> {
+                DataOutputStream out = new DataOutputStream(output);
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeUTF(pom.toString());
+                out.writeLong(size);
+                out.writeLong(modified);
+                out.writeByte(hash.length);
+                out.write(hash);
+                out.writeLong(checked);
+
+                out.writeInt(inputs.size());
+                for (Input input : inputs) {
+                    out.writeUTF(input.path);
+                    out.writeLong(input.size);
+                    out.writeLong(input.modified);
+                }
+
+                model.writeTo(out);
+                for (String version : effectiveVersions) {
+                    out.writeBoolean(version != null);
+                    if (version != null) {
+                        out.writeUTF(version);
+                    }
+                }
+                out.flush();
+            });
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private static Path file(Path pom) {
+        Path directory = pom.getParent();
+        String name = directory != null && directory.getFileName() != null ? directory.getFileName().toString() : "root";
+        // Readable name plus a hash of the full path
+        name = name.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + Integer.toHexString(pom.toString().hashCode());
+        return MpmHome.root().resolve("pomcache").resolve(name + ".bin");
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package dev.mpm.pom;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A pom.xml as text, for edits that must not reformat the file.
+ *
+ * {@link PomEditor} rewrites the whole document through the DOM, which normalizes
+ * indentation, attribute quoting and blank lines. This class instead lexes the raw text
+ * once, recording where the values of dependency versions and properties start and end,
+ * and an edit replaces those characters only: comments, whitespace, line endings and the
+ * encoding stay byte for byte as they were.
+ *
+ * Recognized are the project's parent, its dependencies and dependencyManagement, the same
+ * inside profiles, and project-level properties. Plugin dependencies are left alone.
+ */
+public final class PomText {
+
+    private static final Pattern ENCODING = Pattern.compile("^<\\?xml[^>]*encoding=[\"']([^\"']+)[\"']");
+
+    /**
+     * The text content of a leaf element: offsets of the trimmed value in {@link #text()}.
+     */
+    public static final class Value {
+        public final int start;
+        public final int end;
+        public final String text;
+
+        Value(int start, int end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+    }
+
+    /**
+     * A dependency or parent declaration, with its values as written (expressions not
+     * interpolated).
+     */
+    public static final class Declaration {
+        public final String groupId;
+        public final String artifactId;
+        /** Null when the version is left to dependencyManagement. */
+        public final Value version;
+        /** "parent", "dependencies" or "dependencyManagement", prefixed with "profile &lt;id&gt; " inside a profile. */
+        public final String section;
+
+        Declaration(String groupId, String artifactId, Value version, String section) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.section = section;
+        }
+    }
+
+    private final String text;
+    private final Charset charset;
+    private final byte[] content;
+    private final List<Declaration> declarations = new ArrayList<>();
+    private final Map<String, Value> properties = new LinkedHashMap<>();
+
+    private PomText(byte[] content) throws IOException {
+        this.content = content;
+        this.charset = charsetOf(content);
+        this.text = new String(content, charset);
+        lex();
+    }
+
+    public static PomText read(Path file) throws IOException {
+        return new PomText(Files.readAllBytes(file));
+    }
+
+    public static PomText of(byte[] content) throws IOException {
+        return new PomText(content);
+    }
+
+    public String text() {
+        return text;
+    }
+
+    /**
+     * Gets the bytes this was read from.
+     */
+    public byte[] content() {
+        return content.clone();
+    }
+
+    public List<Declaration> declarations() {
+        return Collections.unmodifiableList(declarations);
+    }
+
+    /**
+     * Gets a property of the project's &lt;properties&gt;, or null.
+     */
+    public Value property(String name) {
+        return properties.get(name);
+    }
+
+    /**
+     * Replaces values, leaving every other byte of the file as it was.
+     *
+     * @return the new content, in the file's encoding
+     */
+    public byte[] replace(Map<Value, String> replacements) {
+        List<Map.Entry<Value, String>> sorted = new ArrayList<>(replacements.entrySet());
+        sorted.sort(Comparator.comparingInt(entry -> entry.getKey().start));
+
+        StringBuilder sb = new StringBuilder(text.length() + 16);
+        int position = 0;
+        for (Map.Entry<Value, String> entry : sorted) {
+            Value value = entry.getKey();
+            if (value.start < position) {
+                continue; // the same value twice
+            }
+            sb.append(text, position, value.start).append(escape(entry.getValue()));
+            position = value.end;
+        }
+        sb.append(text, position, text.length());
+        return sb.toString().getBytes(charset);
+    }
+
+    /**
+     * Walks the tags, keeping the path of open elements and the text of leaf elements.
+     */
+    private void lex() throws IOException {
+        List<String> path = new ArrayList<>();
+        Map<String, Value> leaves = new LinkedHashMap<>();
+        String profileId = null;
+        int textStart = -1;
+        int length = text.length();
+        int i = 0;
+
+        while (i < length) {
+            int open = text.indexOf('<', i);
+            if (open < 0) {
+                break;
+            }
+            if (text.startsWith("<!--", open)) {
+                i = skipPast(open, "-->");
+                continue;
+            }
+            if (text.startsWith("<![CDATA[", open)) {
+                i = skipPast(open, "]]>");
+                continue;
+            }
+            if (text.startsWith("<?", open)) {
+                i = skipPast(open, "?>");
+                continue;
+            }
+            if (text.startsWith("<!", open)) {
+                i = skipPast(open, ">");
+                continue;
+            }
+
+            int close = tagEnd(open);
+            boolean endTag = text.charAt(open + 1) == '/';
+            boolean empty = !endTag && text.charAt(close - 1) == '/';
+            String name = tagName(open + (endTag ? 2 : 1), close);
+
+            if (endTag) {
+                if (path.isEmpty() || !path.get(path.size() - 1).equals(name)) {
+                    throw new IOException("Unbalanced </" + name + "> at offset " + open);
+                }
+                String parentPath = String.join("/", path.subList(0, path.size() - 1));
+                if (textStart >= 0) {
+                    Value value = trimmed(textStart, open);
+                    if (section(parentPath) != null) {
+                        leaves.put(name, value); // not the groupId of an exclusion
+                    }
+                    if (parentPath.equals("project/properties")) {
+                        properties.put(name, value);
+                    } else if (parentPath.equals("project/profiles/profile") && name.equals("id")) {
+                        profileId = value.text;
+                    }
+                }
+                String section = section(String.join("/", path));
+                if (section != null) {
+                    if (section.startsWith("profile ")) {
+                        section = "profile " + (profileId != null ? profileId : "?") +
+                                section.substring("profile".length());
+                    }
+                    declarations.add(new Declaration(text(leaves.get("groupId")), text(leaves.get("artifactId")),
+                            leaves.get("version"), section));
+                }
+                if (name.equals("profile")) {
+                    profileId = null;
+                }
+                path.remove(path.size() - 1);
+                textStart = -1;
+            } else if (!empty) {
+                path.add(name);
+                String current = String.join("/", path);
+                if (section(current) != null) {
+                    leaves.clear();
+                }
+                textStart = close + 1;
+            } else {
+                textStart = -1;
+            }
+            i = close + 1;
+        }
+        if (!path.isEmpty()) {
+            throw new IOException("Unclosed <" + path.get(path.size() - 1) + ">");
+        }
+    }
+
+    /**
+     * Gets the section a declaration element belongs to, or null if the path is not one.
+     */
+    private static String section(String path) {
+        String prefix = "";
+        if (path.startsWith("project/profiles/profile/")) {
+            prefix = "profile ";
+            path = "project/" + path.substring("project/profiles/profile/".length());
+        }
+        switch (path) {
+            case "project/parent":
+                return prefix.isEmpty() ? "parent" : null;
+            case "project/dependencies/dependency":
+                return prefix + "dependencies";
+            case "project/dependencyManagement/dependencies/dependency":
+                return prefix + "dependencyManagement";
+            default:
+                return null;
+        }
+    }
+
+    private int skipPast(int from, String terminator) throws IOException {
+        int end = text.indexOf(terminator, from);
+        if (end < 0) {
+            throw new IOException("Unterminated markup at offset " + from);
+        }
+        return end + terminator.length();
+    }
+
+    /**
+     * Finds the closing '&gt;' of a tag, skipping quoted attribute values.
+     */
+    private int tagEnd(int open) throws IOException {
+        char quote = 0;
+        for (int i = open + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        throw new IOException("Unterminated tag at offset " + open);
+    }
+
+    /**
+     * Reads a tag's local name (without namespace prefix).
+     */
+    private String tagName(int from, int close) {
+        int end = from;
+        while (end < close && !Character.isWhitespace(text.charAt(end)) && text.charAt(end) != '/') {
+            end++;
+        }
+        String name = text.substring(from, end);
+        int colon = name.indexOf(':');
+        return colon >= 0 ? name.substring(colon + 1) : name;
+    }
+
+    private Value trimmed(int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return new Value(start, end, unescape(text.substring(start, end)));
+    }
+
+    private static String text(Value value) {
+        return value != null ? value.text : null;
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('&') < 0) {
+            return value;
+        }
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&amp;", "&");
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;");
+    }
+
+    /**
+     * Reads the encoding from the XML declaration; UTF-8 when there is none or it is unknown.
+     */
+    private static Charset charsetOf(byte[] content) {
+        String head = new String(content, 0, Math.min(content.length, 200), StandardCharsets.ISO_8859_1);
+        Matcher matcher = ENCODING.matcher(head);
+        if (matcher.find()) {
+            try {
+                return Charset.forName(matcher.group(1));
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                // fall through
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
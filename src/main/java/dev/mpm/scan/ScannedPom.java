@@ -0,0 +1,58 @@
+package dev.mpm.scan;
+
+import dev.mpm.pom.PomModel;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * What the workspace index keeps of one pom.xml: its location, the mtime/size it was
+ * parsed at, and the parts of the model needed to answer dependency queries.
+ */
+public final class ScannedPom {
+
+    /** Path relative to the scan root, with '/' separators. */
+    public final String path;
+    public final long modified;
+    public final long size;
+    public final PomModel model;
+
+    public ScannedPom(String path, long modified, long size, PomModel model) {
+        this.path = path;
+        this.modified = modified;
+        this.size = size;
+        this.model = model;
+    }
+
+    /**
+     * Gets the repository: the first directory below the scan root ("." for a pom at the root).
+     */
+    public String repo() {
+        int slash = path.indexOf('/');
+        return slash < 0 ? "." : path.substring(0, slash);
+    }
+
+    /**
+     * Gets the module directory relative to its repository ("." for the repository root).
+     */
+    public String module() {
+        int first = path.indexOf('/');
+        int last = path.lastIndexOf('/');
+        return first < 0 || first == last ? "." : path.substring(first + 1, last);
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeUTF(path);
+        out.writeLong(modified);
+        out.writeLong(size);
+        model.writeTo(out);
+    }
+
+    static ScannedPom read(DataInput in) throws IOException {
+        String path = in.readUTF();
+        long modified = in.readLong();
+        long size = in.readLong();
+        return new ScannedPom(path, modified, size, PomModel.readFrom(in));
+    }
+}
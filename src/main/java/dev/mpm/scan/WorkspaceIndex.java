@@ -0,0 +1,260 @@
+package dev.mpm.scan;
+
+import dev.mpm.pom.PomModel;
+import dev.mpm.util.AtomicFiles;
+import dev.mpm.util.MpmHome;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over the pom.xml files of a workspace: from groupId:artifactId to
+ * every place that declares it, with the version resolved against properties and
+ * dependencyManagement of the module and its parents in the same repository.
+ *
+ * The per-file data is saved under ~/.mpm/scan so the next scan only re-parses
+ * files whose mtime or size changed.
+ */
+public final class WorkspaceIndex {
+
+    private static final int MAGIC = 0x6d706d53; // "mpmS"
+    private static final int FORMAT = 1;
+    private static final int MAX_PARENT_DEPTH = 10;
+
+    /**
+     * One declaration of a dependency.
+     */
+    public static final class Usage {
+        public final String repo;
+        public final String module;
+        public final String groupId;
+        public final String artifactId;
+        /** Resolved version, or the declared expression if it could not be resolved. */
+        public final String version;
+        public final String scope;
+        /** True for entries in dependencyManagement rather than dependencies. */
+        public final boolean managed;
+
+        Usage(String repo, String module, String groupId, String artifactId, String version, String scope,
+              boolean managed) {
+            this.repo = repo;
+            this.module = module;
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.scope = scope;
+            this.managed = managed;
+        }
+
+        public String key() {
+            return groupId + ":" + artifactId;
+        }
+    }
+
+    private final Path root;
+    /** Scanned poms by path relative to the root. */
+    private final Map<String, ScannedPom> poms;
+    private final Map<String, List<Usage>> usages = new HashMap<>();
+    /** Modules by repo and groupId:artifactId, to find parents checked out in the same repo. */
+    private final Map<String, Map<String, ScannedPom>> modules = new HashMap<>();
+
+    WorkspaceIndex(Path root, Map<String, ScannedPom> poms) {
+        this.root = root;
+        this.poms = poms;
+        build();
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    public Collection<ScannedPom> poms() {
+        return Collections.unmodifiableCollection(poms.values());
+    }
+
+    /**
+     * Gets the number of repositories (top-level directories containing a pom).
+     */
+    public int repoCount() {
+        return (int) poms.values().stream().map(ScannedPom::repo).distinct().count();
+    }
+
+    /**
+     * Gets all indexed groupId:artifactId keys with their usages.
+     */
+    public Map<String, List<Usage>> all() {
+        return Collections.unmodifiableMap(usages);
+    }
+
+    /**
+     * Finds usages for a query: "groupId:artifactId", an exact artifactId, or
+     * (when nothing matches exactly) a substring of groupId:artifactId.
+     *
+     * @return usages grouped by groupId:artifactId, sorted by key
+     */
+    public Map<String, List<Usage>> find(String query) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        Map<String, List<Usage>> result = new TreeMap<>();
+
+        if (q.contains(":")) {
+            List<Usage> exact = usages.get(query.trim());
+            if (exact != null) {
+                result.put(query.trim(), exact);
+                return result;
+            }
+        }
+        for (Map.Entry<String, List<Usage>> entry : usages.entrySet()) {
+            String artifactId = entry.getKey().substring(entry.getKey().indexOf(':') + 1);
+            if (artifactId.toLowerCase(Locale.ROOT).equals(q)) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (result.isEmpty()) {
+            for (Map.Entry<String, List<Usage>> entry : usages.entrySet()) {
+                if (entry.getKey().toLowerCase(Locale.ROOT).contains(q)) {
+                    result.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the inverted index, resolving versions through in-repository parents.
+     */
+    private void build() {
+        for (ScannedPom pom : poms.values()) {
+            String key = pom.model.effectiveGroupId() + ":" + pom.model.artifactId;
+            modules.computeIfAbsent(pom.repo(), r -> new HashMap<>()).put(key, pom);
+        }
+
+        for (ScannedPom pom : poms.values()) {
+            List<PomModel> chain = new ArrayList<>();
+            for (ScannedPom member : parentChain(pom)) {
+                chain.add(member.model);
+            }
+            Map<String, String> properties = mergedProperties(chain);
+            PomModel model = pom.model;
+
+            for (PomModel.Dependency dep : model.dependencies) {
+                String version = dep.version != null
+                        ? model.interpolate(dep.version, properties)
+                        : managedVersion(chain, dep, properties);
+                add(new Usage(pom.repo(), pom.module(), model.interpolate(dep.groupId, properties),
+                        model.interpolate(dep.artifactId, properties), version, dep.scope, false));
+            }
+            for (PomModel.Dependency dep : model.managedDependencies) {
+                add(new Usage(pom.repo(), pom.module(), model.interpolate(dep.groupId, properties),
+                        model.interpolate(dep.artifactId, properties), model.interpolate(dep.version, properties),
+                        dep.scope, true));
+            }
+        }
+    }
+
+    private void add(Usage usage) {
+        usages.computeIfAbsent(usage.key(), k -> new ArrayList<>()).add(usage);
+    }
+
+    /**
+     * Gets the module followed by its parents that live in the same repository.
+     */
+    List<ScannedPom> parentChain(ScannedPom pom) {
+        Map<String, ScannedPom> repoModules = modules.getOrDefault(pom.repo(), Map.of());
+        List<ScannedPom> chain = new ArrayList<>();
+        ScannedPom current = pom;
+        while (current != null && chain.size() < MAX_PARENT_DEPTH) {
+            chain.add(current);
+            PomModel.Parent parent = current.model.parent;
+            if (parent == null) {
+                break;
+            }
+            ScannedPom next = repoModules.get(parent.groupId + ":" + parent.artifactId);
+            current = next != null && !chain.contains(next) ? next : null;
+        }
+        return chain;
+    }
+
+    /**
+     * Merges properties down the chain; the module's own values win.
+     */
+    static Map<String, String> mergedProperties(List<PomModel> chain) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            properties.putAll(chain.get(i).properties);
+        }
+        return properties;
+    }
+
+    private static String managedVersion(List<PomModel> chain, PomModel.Dependency dep,
+                                         Map<String, String> properties) {
+        for (PomModel model : chain) {
+            for (PomModel.Dependency managed : model.managedDependencies) {
+                if (dep.artifactId.equals(managed.artifactId) && dep.groupId.equals(managed.groupId)) {
+                    return managed.version != null ? chain.get(0).interpolate(managed.version, properties) : null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Loads the saved index for a root, or null if there is none or it is unreadable.
+     */
+    static Map<String, ScannedPom> load(Path root) {
+        Path file = indexFile(root);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT || !in.readUTF().equals(root.toString())) {
+                return null;
+            }
+            int count = in.readInt();
+            Map<String, ScannedPom> poms = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                ScannedPom pom = ScannedPom.read(in);
+                poms.put(pom.path, pom);
+            }
+            return poms;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // Corrupt or from another version: rebuild
+            return null;
+        }
+    }
+
+    /**
+     * Saves the per-file data so the next scan can skip unchanged files.
+     */
+    public void save() throws IOException {
+        AtomicFiles.write(MpmHome.resolve("scan/" + indexFile(root).getFileName()), output -> {
+            DataOutputStream out = new DataOutputStream(output);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeUTF(root.toString());
+            out.writeInt(poms.size());
+            for (ScannedPom pom : poms.values()) {
+                pom.write(out);
+            }
+            out.flush();
+        });
+    }
+
+    private static Path indexFile(Path root) {
+        Path name = root.getFileName();
+        String label = name != null ? name.toString().replaceAll("[^A-Za-z0-9._-]", "_") : "root";
+        return MpmHome.root().resolve("scan").resolve(label + "-" + Integer.toHexString(root.toString().hashCode()) + ".idx");
+    }
+}
@@ -0,0 +1,191 @@
+package dev.mpm.scan;
+
+import dev.mpm.pom.PomModel;
+import dev.mpm.trace.Trace;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Walks a directory tree in parallel and builds a {@link WorkspaceIndex} from every
+ * pom.xml it finds.
+ *
+ * Each directory is a fork/join task, so wide trees (hundreds of checkouts side by side)
+ * are listed and parsed on all cores. POMs are read with the streaming {@link PomModel}
+ * parser. With a previous index, files whose mtime and size are unchanged are reused
+ * without parsing. Hidden directories (VCS metadata) and node_modules are skipped, and so are
+ * target/ and src/ next to a pom.xml, which hold build output and test fixtures; elsewhere,
+ * e.g. ~/src, they are searched like any other directory.
+ */
+public final class WorkspaceScanner {
+
+    private static final Set<String> SKIPPED_DIRECTORIES = Set.of("node_modules");
+    /** Skipped only in a directory that has a pom.xml. */
+    private static final Set<String> PROJECT_DIRECTORIES = Set.of("target", "src");
+
+    /**
+     * Counters from the last scan.
+     */
+    public static final class Stats {
+        public final int parsed;
+        public final int reused;
+        public final int removed;
+        public final int failed;
+        public final long elapsedMillis;
+
+        Stats(int parsed, int reused, int removed, int failed, long elapsedMillis) {
+            this.parsed = parsed;
+            this.reused = reused;
+            this.removed = removed;
+            this.failed = failed;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    private final Path root;
+    private final Map<String, ScannedPom> previous;
+    private final ConcurrentLinkedQueue<ScannedPom> found = new ConcurrentLinkedQueue<>();
+    private final Map<String, String> failures = new ConcurrentHashMap<>();
+    private final AtomicInteger parsed = new AtomicInteger();
+    private final AtomicInteger reused = new AtomicInteger();
+    private Stats stats;
+
+    /**
+     * @param root        directory to scan
+     * @param incremental reuse the saved index for this root when there is one
+     */
+    public WorkspaceScanner(Path root, boolean incremental) {
+        this.root = root.toAbsolutePath().normalize();
+        Map<String, ScannedPom> saved = incremental ? WorkspaceIndex.load(this.root) : null;
+        this.previous = saved != null ? saved : Map.of();
+    }
+
+    /**
+     * Scans the tree and builds the index.
+     */
+    public WorkspaceIndex scan() {
+        long start = System.nanoTime();
+        try (Trace.Span span = Trace.span("scan.walk")) {
+            ForkJoinPool pool = new ForkJoinPool();
+            try {
+                pool.invoke(new DirectoryTask(root));
+            } finally {
+                pool.shutdown();
+            }
+            span.set("poms", found.size()).set("parsed", parsed.get());
+        }
+
+        Map<String, ScannedPom> poms = new HashMap<>(found.size() * 2);
+        for (ScannedPom pom : found) {
+            poms.put(pom.path, pom);
+        }
+
+        int removed = 0;
+        for (String path : previous.keySet()) {
+            if (!poms.containsKey(path)) {
+                removed++;
+            }
+        }
+
+        WorkspaceIndex index;
+        try (Trace.Span span = Trace.span("scan.index")) {
+            index = new WorkspaceIndex(root, poms);
+        }
+        stats = new Stats(parsed.get(), reused.get(), removed, failures.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return index;
+    }
+
+    public Stats stats() {
+        return stats;
+    }
+
+    /**
+     * Gets the POMs that could not be parsed, with the reason.
+     */
+    public Map<String, String> failures() {
+        return failures;
+    }
+
+    private void visitPom(Path file, BasicFileAttributes attributes) {
+        String relative = root.relativize(file).toString().replace('\\', '/');
+        long modified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        ScannedPom old = previous.get(relative);
+        if (old != null && old.modified == modified && old.size == size) {
+            found.add(old);
+            reused.incrementAndGet();
+            return;
+        }
+
+        try {
+            found.add(new ScannedPom(relative, modified, size, PomModel.parse(file)));
+            parsed.incrementAndGet();
+        } catch (IOException e) {
+            failures.put(relative, e.getMessage());
+        }
+    }
+
+    /**
+     * Lists one directory: records its pom.xml and forks a task per subdirectory.
+     */
+    private final class DirectoryTask extends RecursiveAction {
+        private final Path dir;
+
+        DirectoryTask(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected void compute() {
+            List<Path> directories = new ArrayList<>();
+            boolean project = false;
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+
+                    String name = entry.getFileName().toString();
+                    if (attributes.isDirectory()) {
+                        if (!name.startsWith(".") && !SKIPPED_DIRECTORIES.contains(name)) {
+                            directories.add(entry);
+                        }
+                    } else if (attributes.isRegularFile() && name.equals("pom.xml")) {
+                        project = true;
+                        visitPom(entry, attributes);
+                    }
+                }
+            } catch (IOException e) {
+                // Unreadable directory: skip it
+                return;
+            }
+
+            List<DirectoryTask> subtasks = new ArrayList<>(directories.size());
+            for (Path directory : directories) {
+                if (!project || !PROJECT_DIRECTORIES.contains(directory.getFileName().toString())) {
+                    subtasks.add(new DirectoryTask(directory));
+                }
+            }
+            invokeAll(subtasks);
+        }
+    }
+}
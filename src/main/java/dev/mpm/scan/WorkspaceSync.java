@@ -0,0 +1,397 @@
+package dev.mpm.scan;
+
+import dev.mpm.pom.PomModel;
+import dev.mpm.pom.PomText;
+import dev.mpm.trace.Trace;
+import dev.mpm.util.AtomicFiles;
+import dev.mpm.util.Versions;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sets one artifact to one version in every pom.xml of one or more workspaces.
+ *
+ * Candidates come from the {@link WorkspaceIndex}, so unchanged files are not parsed again.
+ * Each candidate is read as {@link PomText} (in parallel) and every declaration of the
+ * artifact is traced to the text that holds its version: the declaration's own
+ * &lt;version&gt;, or, for a version of the form ${name}, the property in the nearest pom of
+ * the module's parent chain within the same repository that defines it. A property shared
+ * by several modules is one change. Declarations without a version are left to whichever
+ * dependencyManagement supplies it, which is a change of its own when it is in the workspace.
+ *
+ * {@link #apply} writes all files or none: each file is replaced atomically under its
+ * writer lock, and if any write fails, or a file changed since it was planned, the files
+ * written so far are put back once every write has finished.
+ */
+public final class WorkspaceSync {
+
+    private static final int THREADS = 8;
+    private static final Pattern PROPERTY_REFERENCE = Pattern.compile("\\$\\{([^}]+)}");
+
+    /**
+     * What happens, or happened, to one version value.
+     */
+    public enum Status {
+        /** Will be or was set to the target version. */
+        UPDATE,
+        /** Already at the target version. */
+        UNCHANGED,
+        /** At a newer version, kept (see {@code force}). */
+        NEWER,
+        /** Cannot be changed here; see the note. */
+        SKIPPED,
+        /** The write failed or was rolled back. */
+        FAILED
+    }
+
+    /**
+     * One version value and the declarations that get their version from it.
+     */
+    public static final class Change {
+        /** The pom.xml holding the value. */
+        public final Path file;
+        /** Workspace root the file was found under. */
+        public final Path root;
+        /** "dependencies", "dependencyManagement", "parent" or "property &lt;name&gt;", possibly in a profile. */
+        public final String location;
+        /** The current value, or the expression that could not be followed. */
+        public final String from;
+        /** Modules (repo/module) whose declarations this value decides. */
+        public final List<String> declaredIn;
+        public final String note;
+        private Status status;
+        final PomText text;
+        final PomText.Value value;
+
+        Change(Path file, Path root, String location, String from, Status status, String note, PomText text,
+               PomText.Value value) {
+            this.file = file;
+            this.root = root;
+            this.location = location;
+            this.from = from;
+            this.status = status;
+            this.note = note;
+            this.text = text;
+            this.value = value;
+            this.declaredIn = Collections.synchronizedList(new ArrayList<>());
+        }
+
+        public Status status() {
+            return status;
+        }
+
+        /**
+         * Gets the repository directory the file belongs to (first directory below the root).
+         */
+        public Path repository() {
+            Path relative = root.relativize(file);
+            return relative.getNameCount() > 1 ? root.resolve(relative.getName(0)) : root;
+        }
+    }
+
+    private final String groupId;
+    private final String artifactId;
+    private final String version;
+    private final boolean force;
+
+    /**
+     * @param force also lower versions that are newer than the target
+     */
+    public WorkspaceSync(String groupId, String artifactId, String version, boolean force) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.force = force;
+    }
+
+    /**
+     * Finds every version value of the artifact in the indexed workspaces.
+     *
+     * @return one change per distinct value, ordered by file
+     */
+    public List<Change> plan(List<WorkspaceIndex> indexes) throws IOException {
+        Map<String, Change> changes = new ConcurrentHashMap<>();
+        Map<Path, PomText> texts = new ConcurrentHashMap<>();
+        ConcurrentLinkedQueue<String> scanned = new ConcurrentLinkedQueue<>();
+        byte[] needle = artifactId.getBytes(StandardCharsets.UTF_8);
+
+        try (Trace.Span span = Trace.span("sync.plan", Trace.Kind.PHASE, groupId + ":" + artifactId)) {
+            for (WorkspaceIndex index : indexes) {
+                index.poms().parallelStream().forEach(pom -> {
+                    try {
+                        Path file = index.root().resolve(pom.path);
+                        byte[] content = Files.readAllBytes(file);
+                        if (indexOf(content, needle) < 0) {
+                            return;
+                        }
+                        scanned.add(pom.path);
+                        PomText parsed = PomText.of(content);
+                        PomText existing = texts.putIfAbsent(file, parsed);
+                        PomText text = existing != null ? existing : parsed;
+                        planPom(index, pom, text, texts, changes);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            span.set("poms", scanned.size()).set("changes", changes.size());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        List<Change> sorted = new ArrayList<>(changes.values());
+        sorted.sort((a, b) -> {
+            int byFile = a.file.compareTo(b.file);
+            return byFile != 0 ? byFile : a.location.compareTo(b.location);
+        });
+        for (Change change : sorted) {
+            List<String> modules = new ArrayList<>(new TreeSet<>(change.declaredIn));
+            change.declaredIn.clear();
+            change.declaredIn.addAll(modules);
+        }
+        return sorted;
+    }
+
+    /**
+     * Traces the declarations of the artifact in one pom to their version values.
+     */
+    private void planPom(WorkspaceIndex index, ScannedPom pom, PomText text, Map<Path, PomText> texts,
+                         Map<String, Change> changes) throws IOException {
+        List<ScannedPom> chain = index.parentChain(pom);
+        List<PomModel> models = new ArrayList<>();
+        for (ScannedPom member : chain) {
+            models.add(member.model);
+        }
+        Map<String, String> properties = WorkspaceIndex.mergedProperties(models);
+        Path file = index.root().resolve(pom.path);
+        String module = pom.repo() + (pom.module().equals(".") ? "" : "/" + pom.module());
+
+        for (PomText.Declaration declaration : text.declarations()) {
+            if (declaration.groupId == null || declaration.artifactId == null ||
+                    !groupId.equals(pom.model.interpolate(declaration.groupId, properties)) ||
+                    !artifactId.equals(pom.model.interpolate(declaration.artifactId, properties))) {
+                continue;
+            }
+            if (declaration.version == null) {
+                continue; // managed: the managing declaration is a change of its own
+            }
+
+            String raw = declaration.version.text;
+            Matcher reference = PROPERTY_REFERENCE.matcher(raw);
+            if (!raw.contains("${")) {
+                record(changes, file, index.root(), declaration.section, raw, text, declaration.version, null, module);
+            } else if (!reference.matches()) {
+                record(changes, file, index.root(), declaration.section, raw, null, null,
+                        "version is the expression " + raw, module);
+            } else {
+                String name = reference.group(1);
+                if (name.startsWith("project.") || name.startsWith("pom.") || name.equals("version")) {
+                    record(changes, file, index.root(), declaration.section, raw, null, null,
+                            "version follows the project's own version", module);
+                    continue;
+                }
+
+                // The nearest definition wins, as in Maven's property inheritance
+                boolean found = false;
+                for (ScannedPom member : chain) {
+                    Path memberFile = index.root().resolve(member.path);
+                    PomText memberText = texts.get(memberFile);
+                    if (memberText == null) {
+                        memberText = PomText.read(memberFile);
+                        PomText previous = texts.putIfAbsent(memberFile, memberText);
+                        memberText = previous != null ? previous : memberText;
+                    }
+                    PomText.Value property = memberText.property(name);
+                    if (property == null) {
+                        continue;
+                    }
+                    found = true;
+                    if (property.text.contains("${")) {
+                        record(changes, memberFile, index.root(), "property " + name, property.text, null, null,
+                                "property is the expression " + property.text, module);
+                    } else {
+                        record(changes, memberFile, index.root(), "property " + name, property.text, memberText,
+                                property, null, module);
+                    }
+                    break;
+                }
+                if (!found) {
+                    record(changes, file, index.root(), declaration.section, raw, null, null,
+                            "${" + name + "} is defined outside the workspace", module);
+                }
+            }
+        }
+    }
+
+    private void record(Map<String, Change> changes, Path file, Path root, String location, String from,
+                        PomText text, PomText.Value value, String note, String module) {
+        String key = file + "#" + (value != null ? value.start : location + " " + module);
+        Change change = changes.computeIfAbsent(key, k -> {
+            Status status;
+            if (value == null) {
+                status = Status.SKIPPED;
+            } else if (from.equals(version)) {
+                status = Status.UNCHANGED;
+            } else if (!force && Versions.compare(from, version) > 0) {
+                status = Status.NEWER;
+            } else {
+                status = Status.UPDATE;
+            }
+            return new Change(file, root, location, from, status, note, text, value);
+        });
+        change.declaredIn.add(module);
+    }
+
+    /**
+     * Writes every planned update, all or nothing.
+     *
+     * The files are written in parallel. Only when every write has finished, successfully
+     * or not, are the files written so far put back, so no write can land after the
+     * rollback.
+     *
+     * @throws IOException if a file could not be written or changed since it was planned;
+     *                     files written before are restored and their changes marked FAILED.
+     *                     A file that could not be restored keeps its changes as UPDATE and
+     *                     is named in the message.
+     */
+    public void apply(List<Change> changes) throws IOException {
+        Map<Path, List<Change>> byFile = new LinkedHashMap<>();
+        for (Change change : changes) {
+            if (change.status == Status.UPDATE) {
+                byFile.computeIfAbsent(change.file, f -> new ArrayList<>()).add(change);
+            }
+        }
+        if (byFile.isEmpty()) {
+            return;
+        }
+
+        Map<Path, byte[]> written = new ConcurrentHashMap<>();
+        IOException failure = null;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(THREADS, byFile.size()), runnable -> {
+            Thread thread = new Thread(runnable, "mpm-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Trace.Span span = Trace.span("sync.apply", Trace.Kind.PHASE, byFile.size() + " files")) {
+            List<Future<?>> futures = new ArrayList<>(byFile.size());
+            for (Map.Entry<Path, List<Change>> entry : byFile.entrySet()) {
+                futures.add(executor.submit(() -> {
+                    write(entry.getKey(), entry.getValue(), written);
+                    return null;
+                }));
+            }
+            executor.shutdown();
+
+            boolean interrupted = false;
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true; // keep waiting: the write may still land
+                    } catch (ExecutionException e) {
+                        IOException cause = e.getCause() instanceof IOException
+                                ? (IOException) e.getCause() : new IOException(e.getCause());
+                        if (failure == null) {
+                            failure = cause;
+                        } else {
+                            failure.addSuppressed(cause);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new InterruptedIOException("Interrupted while syncing");
+                }
+            }
+            span.set("written", written.size());
+        } finally {
+            executor.shutdownNow();
+        }
+        if (failure == null) {
+            return;
+        }
+
+        List<String> unrestored = new ArrayList<>();
+        for (Map.Entry<Path, List<Change>> entry : byFile.entrySet()) {
+            Path file = entry.getKey();
+            byte[] original = written.get(file);
+            boolean restored = true;
+            if (original != null) {
+                try {
+                    AtomicFiles.write(file, out -> out.write(original));
+                } catch (IOException e) {
+                    restored = false;
+                    unrestored.add(file + " (" + e.getMessage() + ")");
+                }
+            }
+            if (restored) {
+                for (Change change : entry.getValue()) {
+                    change.status = Status.FAILED;
+                }
+            }
+        }
+        if (!unrestored.isEmpty()) {
+            throw new IOException(failure.getMessage() + "; could not restore " + String.join(", ", unrestored),
+                    failure);
+        }
+        throw failure;
+    }
+
+    /**
+     * Replaces the values of one file, if it still has the content they were planned on.
+     */
+    private void write(Path file, List<Change> fileChanges, Map<Path, byte[]> written) throws IOException {
+        PomText text = fileChanges.get(0).text;
+        Map<PomText.Value, String> replacements = new LinkedHashMap<>();
+        for (Change change : fileChanges) {
+            replacements.put(change.value, version);
+        }
+        byte[] original = text.content();
+        byte[] updated = text.replace(replacements);
+        AtomicFiles.update(file, generation -> {
+            if (!Arrays.equals(Files.readAllBytes(file), original)) {
+                throw new IOException(file + " changed while syncing");
+            }
+            return out -> out.write(updated);
+        });
+        written.put(file, original);
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,148 @@
+package dev.mpm.search;
+
+import dev.mpm.api.MavenCentralClient.Artifact;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ranks search results for a bare artifact name so the intended artifact comes first.
+ *
+ * Signals, strongest first:
+ * <ul>
+ *   <li>coordinates the user picked for the same query before ({@link SelectionHistory})</li>
+ *   <li>exact or prefix artifactId match</li>
+ *   <li>group ownership: the groupId names the project (guava in com.google.guava,
+ *       jackson in com.fasterxml.jackson.core)</li>
+ *   <li>groupIds the current project already depends on</li>
+ *   <li>popularity (versionCount), on a log scale</li>
+ * </ul>
+ * Shaded, relocated and repackaged copies are penalized, since they usually share the
+ * artifactId of the real thing.
+ */
+public final class ArtifactRanker {
+
+    private static final String[] REPACKAGED_MARKERS = {
+            "shaded", "shade", "relocated", "repackaged", "unofficial", "fork", "servicemix.bundles"
+    };
+
+    private final SelectionHistory history;
+    private final Set<String> projectGroupIds;
+
+    /**
+     * @param history         previous choices, or null
+     * @param projectGroupIds groupIds used by the current project (may be empty)
+     */
+    public ArtifactRanker(SelectionHistory history, Collection<String> projectGroupIds) {
+        this.history = history;
+        this.projectGroupIds = new HashSet<>(projectGroupIds);
+    }
+
+    /**
+     * Returns the results ordered best first. The input list is not modified.
+     */
+    public List<Artifact> rank(String query, List<Artifact> results) {
+        Map<Artifact, Double> scores = new HashMap<>();
+        for (Artifact artifact : results) {
+            scores.put(artifact, score(query, artifact));
+        }
+
+        List<Artifact> ranked = new ArrayList<>(results);
+        // Stable sort: equal scores keep the server's order
+        ranked.sort(Comparator.comparingDouble((Artifact a) -> scores.get(a)).reversed());
+        return ranked;
+    }
+
+    /**
+     * Scores one result; higher is better.
+     */
+    public double score(String query, Artifact artifact) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        String groupId = artifact.groupId.toLowerCase(Locale.ROOT);
+        String artifactId = artifact.artifactId.toLowerCase(Locale.ROOT);
+        double score = 0;
+
+        // Name match
+        if (artifactId.equals(q)) {
+            score += 100;
+        } else if (artifactId.startsWith(q + "-")) {
+            score += 40;
+        } else if (artifactId.startsWith(q)) {
+            score += 30;
+        } else if (artifactId.contains(q)) {
+            score += 10;
+        }
+
+        if (history != null) {
+            score += 200 * Math.min(3, history.count(q, artifact.groupId, artifact.artifactId));
+            // Chosen for other names: only a tie-breaker among artifacts that match this one
+            if (score > 0) {
+                score += 10 * Math.min(3, history.total(artifact.groupId, artifact.artifactId));
+            }
+        }
+
+        score += ownership(q, groupId, artifactId);
+
+        // Same organisation as what the project already uses
+        if (projectGroupIds.contains(artifact.groupId)) {
+            score += 25;
+        } else if (sharesOrganisation(artifact.groupId)) {
+            score += 10;
+        }
+
+        for (String marker : REPACKAGED_MARKERS) {
+            if (groupId.contains(marker) || artifactId.contains(marker)) {
+                score -= 80;
+                break;
+            }
+        }
+
+        return score + 5 * Math.log1p(Math.max(0, artifact.versionCount));
+    }
+
+    /**
+     * Rewards groupIds that look like they belong to the project that publishes the artifact.
+     */
+    private static double ownership(String query, String groupId, String artifactId) {
+        String[] segments = groupId.split("\\.");
+        String last = segments[segments.length - 1];
+        if (last.equals(query) || last.equals(artifactId)) {
+            return 40;
+        }
+        for (int i = 1; i < segments.length; i++) {
+            // "jackson" in com.fasterxml.jackson.core owns jackson-databind
+            String segment = segments[i];
+            if (segment.length() > 2 && (segment.equals(query) || artifactId.startsWith(segment + "-"))) {
+                return 30;
+            }
+        }
+        // org.projectlombok for lombok
+        return last.endsWith(query) || last.startsWith(query) ? 20 : 0;
+    }
+
+    private boolean sharesOrganisation(String groupId) {
+        String organisation = organisation(groupId);
+        for (String projectGroup : projectGroupIds) {
+            if (organisation.equals(organisation(projectGroup))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * First two groupId segments, e.g. "org.springframework" for org.springframework.boot.
+     */
+    private static String organisation(String groupId) {
+        int first = groupId.indexOf('.');
+        int second = first < 0 ? -1 : groupId.indexOf('.', first + 1);
+        return second < 0 ? groupId : groupId.substring(0, second);
+    }
+}
@@ -0,0 +1,345 @@
+package dev.mpm.search;
+
+import dev.mpm.trace.Trace;
+import dev.mpm.util.AtomicFiles;
+import dev.mpm.util.LocalRepository;
+import dev.mpm.util.MpmHome;
+import dev.mpm.util.Versions;
+import dev.mpm.util.ZipDirectory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Index from class name to the JARs in the local repository that contain it.
+ *
+ * JARs are listed through their ZIP central directory only ({@link ZipDirectory}), in
+ * parallel. Only top-level classes are kept (no inner classes, package-info or
+ * module-info), stored per JAR with their package written once, in ~/.mpm/classindex.bin.
+ * A refresh re-reads only JARs whose mtime or size changed.
+ */
+public final class ClassIndex {
+
+    private static final String FILE = "classindex.bin";
+    private static final int MAGIC = 0x6d706d43; // "mpmC"
+    private static final int FORMAT = 1;
+
+    /**
+     * A JAR in the local repository and the classes it contains.
+     */
+    public static final class Jar {
+        public final String groupId;
+        public final String artifactId;
+        public final String version;
+        /** Path relative to the repository root. */
+        final String path;
+        final long modified;
+        final long size;
+        /** Package name -> simple class names. */
+        final Map<String, List<String>> packages;
+
+        Jar(String groupId, String artifactId, String version, String path, long modified, long size,
+            Map<String, List<String>> packages) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.version = version;
+            this.path = path;
+            this.modified = modified;
+            this.size = size;
+            this.packages = packages;
+        }
+
+        public String coordinates() {
+            return groupId + ":" + artifactId + ":" + version;
+        }
+    }
+
+    /**
+     * A class found in a JAR.
+     */
+    public static final class Match {
+        public final String className;
+        public final Jar jar;
+
+        Match(String className, Jar jar) {
+            this.className = className;
+            this.jar = jar;
+        }
+    }
+
+    /**
+     * Counters from the last refresh.
+     */
+    public static final class RefreshStats {
+        public final int read;
+        public final int reused;
+        public final int removed;
+        public final long elapsedMillis;
+
+        RefreshStats(int read, int reused, int removed, long elapsedMillis) {
+            this.read = read;
+            this.reused = reused;
+            this.removed = removed;
+            this.elapsedMillis = elapsedMillis;
+        }
+    }
+
+    private final Path repository;
+    private Map<String, Jar> jars;
+
+    private ClassIndex(Path repository, Map<String, Jar> jars) {
+        this.repository = repository;
+        this.jars = jars;
+    }
+
+    /**
+     * Loads the saved index; empty if there is none yet.
+     */
+    public static ClassIndex load() {
+        Path repository = LocalRepository.root();
+        Map<String, Jar> jars = new HashMap<>();
+        try (Trace.Span span = Trace.span("classindex.load");
+             DataInputStream in = new DataInputStream(new BufferedInputStream(
+                     Files.newInputStream(MpmHome.root().resolve(FILE)), 1 << 16))) {
+            if (in.readInt() == MAGIC && in.readInt() == FORMAT && in.readUTF().equals(repository.toString())) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    Jar jar = readJar(in);
+                    jars.put(jar.path, jar);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // not built yet
+        } catch (IOException e) {
+            // unreadable: the next refresh rebuilds it
+            jars.clear();
+        }
+        return new ClassIndex(repository, jars);
+    }
+
+    public boolean isEmpty() {
+        return jars.isEmpty();
+    }
+
+    public int jarCount() {
+        return jars.size();
+    }
+
+    /**
+     * Gets every indexed JAR, in no particular order.
+     */
+    public Collection<Jar> jars() {
+        return Collections.unmodifiableCollection(jars.values());
+    }
+
+    /**
+     * Finds a class by fully qualified name, or by simple name when the query has no package.
+     *
+     * @return matches, newest version of each artifact first
+     */
+    public List<Match> find(String query) {
+        String className = query.endsWith(".class") ? query.substring(0, query.length() - 6) : query;
+        className = className.replace('/', '.');
+        int dot = className.lastIndexOf('.');
+        String packageName = dot < 0 ? null : className.substring(0, dot);
+        String simpleName = className.substring(dot + 1);
+
+        List<Match> matches = new ArrayList<>();
+        for (Jar jar : jars.values()) {
+            if (packageName != null) {
+                List<String> classes = jar.packages.get(packageName);
+                if (classes != null && classes.contains(simpleName)) {
+                    matches.add(new Match(className, jar));
+                }
+            } else {
+                for (Map.Entry<String, List<String>> entry : jar.packages.entrySet()) {
+                    if (entry.getValue().contains(simpleName)) {
+                        matches.add(new Match(entry.getKey() + "." + simpleName, jar));
+                    }
+                }
+            }
+        }
+
+        matches.sort((a, b) -> {
+            int byName = (a.jar.groupId + ":" + a.jar.artifactId).compareTo(b.jar.groupId + ":" + b.jar.artifactId);
+            return byName != 0 ? byName : Versions.compare(b.jar.version, a.jar.version);
+        });
+        return matches;
+    }
+
+    /**
+     * Brings the index up to date with the local repository and saves it.
+     */
+    public RefreshStats refresh() throws IOException {
+        long start = System.nanoTime();
+        if (!Files.isDirectory(repository)) {
+            jars = new HashMap<>();
+            return new RefreshStats(0, 0, 0, 0);
+        }
+
+        Map<String, Jar> previous = jars;
+        Map<String, Jar> current = new ConcurrentHashMap<>();
+        AtomicInteger read = new AtomicInteger();
+        AtomicInteger reused = new AtomicInteger();
+
+        try (Trace.Span span = Trace.span("classindex.refresh");
+             Stream<Path> files = Files.walk(repository)) {
+            files.filter(ClassIndex::isLibraryJar)
+                    .parallel()
+                    .forEach(file -> {
+                        try {
+                            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                            String path = repository.relativize(file).toString().replace('\\', '/');
+                            Jar old = previous.get(path);
+                            if (old != null && old.modified == attributes.lastModifiedTime().toMillis() &&
+                                    old.size == attributes.size()) {
+                                current.put(path, old);
+                                reused.incrementAndGet();
+                                return;
+                            }
+                            Jar jar = readJarFile(path, file, attributes);
+                            if (jar != null) {
+                                current.put(path, jar);
+                                read.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            // Truncated or non-ZIP file: leave it out
+                        }
+                    });
+            span.set("read", read.get()).set("reused", reused.get());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        int removed = 0;
+        for (String path : previous.keySet()) {
+            if (!current.containsKey(path)) {
+                removed++;
+            }
+        }
+
+        jars = new HashMap<>(current);
+        if (read.get() > 0 || removed > 0) {
+            save();
+        }
+        return new RefreshStats(read.get(), reused.get(), removed, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Main artifact JARs only: sources, javadoc and test JARs would just duplicate matches.
+     */
+    private static boolean isLibraryJar(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".jar") && !name.endsWith("-sources.jar") && !name.endsWith("-javadoc.jar") &&
+                !name.endsWith("-tests.jar") && !name.endsWith("-test-sources.jar");
+    }
+
+    /**
+     * Reads the class list of one JAR, deriving coordinates from its repository path
+     * (group/path/artifactId/version/artifactId-version[-classifier].jar).
+     */
+    private static Jar readJarFile(String path, Path file, BasicFileAttributes attributes) throws IOException {
+        String[] parts = path.split("/");
+        if (parts.length < 4) {
+            return null;
+        }
+        String version = parts[parts.length - 2];
+        String artifactId = parts[parts.length - 3];
+        if (!parts[parts.length - 1].startsWith(artifactId + "-" + version)) {
+            return null;
+        }
+        String groupId = String.join(".", Arrays.asList(parts).subList(0, parts.length - 3));
+
+        Map<String, List<String>> packages = new TreeMap<>();
+        ZipDirectory.list(file, name -> {
+            if (!name.endsWith(".class") || name.indexOf('$') >= 0 || name.endsWith("-info.class")) {
+                return;
+            }
+            // Multi-release JARs repeat classes under META-INF/versions/N/
+            if (name.startsWith("META-INF/")) {
+                return;
+            }
+            int slash = name.lastIndexOf('/');
+            String packageName = slash < 0 ? "" : name.substring(0, slash).replace('/', '.');
+            String simpleName = name.substring(slash + 1, name.length() - 6);
+            packages.computeIfAbsent(packageName, p -> new ArrayList<>()).add(simpleName);
+        });
+        return new Jar(groupId, artifactId, version, path, attributes.lastModifiedTime().toMillis(),
+                attributes.size(), packages);
+    }
+
+    /**
+     * Replaces the index file; concurrent readers keep seeing the previous version until the rename.
+     */
+    private void save() throws IOException {
+        try (Trace.Span span = Trace.span("classindex.save")) {
+            AtomicFiles.write(MpmHome.resolve(FILE), output -> {
+                DataOutputStream out = new DataOutputStream(output);
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeUTF(repository.toString());
+                out.writeInt(jars.size());
+                for (Jar jar : jars.values()) {
+                    writeJar(out, jar);
+                }
+                out.flush();
+            });
+        }
+    }
+
+    private static void writeJar(DataOutputStream out, Jar jar) throws IOException {
+        out.writeUTF(jar.path);
+        out.writeUTF(jar.groupId);
+        out.writeUTF(jar.artifactId);
+        out.writeUTF(jar.version);
+        out.writeLong(jar.modified);
+        out.writeLong(jar.size);
+        out.writeInt(jar.packages.size());
+        for (Map.Entry<String, List<String>> entry : jar.packages.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (String simpleName : entry.getValue()) {
+                out.writeUTF(simpleName);
+            }
+        }
+    }
+
+    private static Jar readJar(DataInputStream in) throws IOException {
+        String path = in.readUTF();
+        String groupId = in.readUTF();
+        String artifactId = in.readUTF();
+        String version = in.readUTF();
+        long modified = in.readLong();
+        long size = in.readLong();
+        int packageCount = in.readInt();
+        Map<String, List<String>> packages = new HashMap<>(packageCount * 2);
+        for (int i = 0; i < packageCount; i++) {
+            String packageName = in.readUTF();
+            int classCount = in.readInt();
+            List<String> classes = new ArrayList<>(classCount);
+            for (int j = 0; j < classCount; j++) {
+                classes.add(in.readUTF());
+            }
+            packages.put(packageName, classes);
+        }
+        return new Jar(groupId, artifactId, version, path, modified, size, packages);
+    }
+}
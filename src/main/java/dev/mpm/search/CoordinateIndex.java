@@ -0,0 +1,163 @@
+package dev.mpm.search;
+
+import dev.mpm.api.MavenCentralClient.Artifact;
+import dev.mpm.util.AtomicFiles;
+import dev.mpm.util.MpmHome;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Prefix index of the coordinates mpm has seen, for shell completion of install arguments.
+ *
+ * Stored in ~/.mpm/coordinates.idx as sorted "key TAB completion" lines, two per artifact:
+ * the lowercase artifactId with the artifactId, and the lowercase groupId:artifactId with the
+ * coordinates. Lookups map the file and binary search it for the first key with the prefix,
+ * so they take the same few microseconds however many artifacts were recorded. Search results
+ * are added as they come in, so the index grows with use.
+ */
+public final class CoordinateIndex {
+
+    private static final String FILE = "coordinates.idx";
+
+    private CoordinateIndex() {}
+
+    /**
+     * Records artifacts. Failures are ignored; the index is only a completion aid.
+     */
+    public static void add(Collection<Artifact> artifacts) {
+        if (artifacts.isEmpty()) {
+            return;
+        }
+        try {
+            Path file = MpmHome.resolve(FILE);
+            AtomicFiles.update(file, generation -> {
+                TreeSet<String> lines = new TreeSet<>();
+                try {
+                    lines.addAll(Files.readAllLines(file));
+                } catch (NoSuchFileException e) {
+                    // first entries
+                }
+                int before = lines.size();
+                for (Artifact artifact : artifacts) {
+                    lines.add(line(artifact.artifactId, artifact.artifactId));
+                    String coordinates = artifact.groupId + ":" + artifact.artifactId;
+                    lines.add(line(coordinates, coordinates));
+                }
+                if (lines.size() == before) {
+                    return null;
+                }
+                return output -> {
+                    BufferedWriter out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                    for (String line : lines) {
+                        out.write(line);
+                        out.write('\n');
+                    }
+                    out.flush();
+                };
+            });
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * Finds completions whose key starts with the prefix (case-insensitive), in key order.
+     */
+    public static List<String> complete(String prefix, int max) {
+        List<String> completions = new ArrayList<>();
+        byte[] key = prefix.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(MpmHome.root().resolve(FILE), StandardOpenOption.READ)) {
+            if (channel.size() == 0 || channel.size() > Integer.MAX_VALUE) {
+                return completions;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            // Binary search for the first line whose key is >= the prefix
+            int low = 0;
+            int high = buffer.limit();
+            while (low < high) {
+                int line = lineStart(buffer, (low + high) >>> 1);
+                if (compareKey(buffer, line, key) < 0) {
+                    low = lineEnd(buffer, line) + 1;
+                } else {
+                    high = line;
+                }
+            }
+
+            for (int line = low; line < buffer.limit() && completions.size() < max; line = lineEnd(buffer, line) + 1) {
+                if (!startsWith(buffer, line, key)) {
+                    break;
+                }
+                int tab = line;
+                while (buffer.get(tab) != '\t') {
+                    tab++;
+                }
+                int end = lineEnd(buffer, line);
+                byte[] value = new byte[end - tab - 1];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = buffer.get(tab + 1 + i);
+                }
+                completions.add(new String(value, StandardCharsets.UTF_8));
+            }
+        } catch (NoSuchFileException e) {
+            // nothing recorded yet
+        } catch (IOException | RuntimeException e) {
+            // unreadable index: no completions
+        }
+        return completions;
+    }
+
+    private static String line(String key, String completion) {
+        return key.toLowerCase(Locale.ROOT) + "\t" + completion;
+    }
+
+    private static int lineStart(MappedByteBuffer buffer, int position) {
+        while (position > 0 && buffer.get(position - 1) != '\n') {
+            position--;
+        }
+        return position;
+    }
+
+    private static int lineEnd(MappedByteBuffer buffer, int position) {
+        while (position < buffer.limit() && buffer.get(position) != '\n') {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Compares the key of the line at the position with the prefix, byte by byte
+     * (the file is sorted in the same order, since keys are ASCII in practice).
+     */
+    private static int compareKey(MappedByteBuffer buffer, int line, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            int position = line + i;
+            byte b = position < buffer.limit() ? buffer.get(position) : (byte) '\n';
+            if (b == '\t' || b == '\n') {
+                return -1;
+            }
+            if (b != prefix[i]) {
+                return (b & 0xff) - (prefix[i] & 0xff);
+            }
+        }
+        return 0;
+    }
+
+    private static boolean startsWith(MappedByteBuffer buffer, int line, byte[] prefix) {
+        return compareKey(buffer, line, prefix) == 0;
+    }
+}
@@ -0,0 +1,130 @@
+package dev.mpm.search;
+
+import dev.mpm.api.MavenCentralClient.Artifact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Fuzzy matching of a typed query against artifact coordinates.
+ *
+ * The query matches when its characters appear in order in the artifactId or in
+ * "groupId:artifactId". Matches score higher when they are exact, prefixes, contiguous
+ * or start at word boundaries ('.', '-', '_', ':'), and artifactId matches beat groupId
+ * matches. Popularity (versionCount) is added as a small logarithmic tie-breaker.
+ */
+public final class FuzzyScorer {
+
+    /** Returned by {@link #score} when the query does not match. */
+    public static final double NO_MATCH = Double.NEGATIVE_INFINITY;
+
+    private static final double GROUP_MATCH_WEIGHT = 0.6;
+    private static final double POPULARITY_WEIGHT = 1.5;
+
+    private FuzzyScorer() {}
+
+    /**
+     * Scores an artifact against a query.
+     *
+     * @return the score (higher is better), or {@link #NO_MATCH}
+     */
+    public static double score(String query, Artifact artifact) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        double popularity = POPULARITY_WEIGHT * Math.log1p(Math.max(0, artifact.versionCount));
+        if (q.isEmpty()) {
+            return popularity;
+        }
+
+        String artifactId = artifact.artifactId.toLowerCase(Locale.ROOT);
+        String coordinates = artifact.groupId.toLowerCase(Locale.ROOT) + ":" + artifactId;
+
+        double best;
+        int colon = q.indexOf(':');
+        if (colon >= 0) {
+            // "group:artifact" style query: both halves have to match their own field
+            double group = match(q.substring(0, colon), artifact.groupId.toLowerCase(Locale.ROOT));
+            double art = match(q.substring(colon + 1), artifactId);
+            best = group == NO_MATCH || art == NO_MATCH ? NO_MATCH : group * GROUP_MATCH_WEIGHT + art;
+        } else {
+            double art = match(q, artifactId);
+            double full = match(q, coordinates);
+            best = Math.max(art, full == NO_MATCH ? NO_MATCH : full * GROUP_MATCH_WEIGHT);
+        }
+        return best == NO_MATCH ? NO_MATCH : best + popularity;
+    }
+
+    /**
+     * Returns the artifacts matching the query, best first.
+     */
+    public static List<Artifact> rank(String query, List<Artifact> artifacts, int limit) {
+        List<Artifact> matches = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        for (Artifact artifact : artifacts) {
+            double score = score(query, artifact);
+            if (score != NO_MATCH) {
+                // Insertion keeps the list sorted; candidate sets are a few hundred entries
+                int pos = 0;
+                while (pos < scores.size() && scores.get(pos) >= score) {
+                    pos++;
+                }
+                matches.add(pos, artifact);
+                scores.add(pos, score);
+            }
+        }
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Greedy subsequence match of the query in the text.
+     */
+    static double match(String query, String text) {
+        if (query.isEmpty()) {
+            return 0;
+        }
+        if (text.equals(query)) {
+            return 100;
+        }
+
+        double score = 0;
+        int substring = text.indexOf(query);
+        if (substring == 0) {
+            score += 40;
+        } else if (substring > 0) {
+            score += isBoundary(text, substring) ? 25 : 15;
+        }
+
+        int t = 0;
+        int previous = -2;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            while (t < text.length() && text.charAt(t) != c) {
+                t++;
+            }
+            if (t == text.length()) {
+                return NO_MATCH;
+            }
+
+            score += 1;
+            if (t == previous + 1) {
+                score += 2;
+            }
+            if (isBoundary(text, t)) {
+                score += 3;
+            }
+            previous = t;
+            t++;
+        }
+
+        // Prefer shorter texts: "guava" over "guava-testlib" for the query "guava"
+        return score - 0.1 * (text.length() - query.length());
+    }
+
+    private static boolean isBoundary(String text, int index) {
+        if (index == 0) {
+            return true;
+        }
+        char before = text.charAt(index - 1);
+        return before == '.' || before == '-' || before == '_' || before == ':';
+    }
+}
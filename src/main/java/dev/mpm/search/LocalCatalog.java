@@ -0,0 +1,119 @@
+package dev.mpm.search;
+
+import dev.mpm.api.MavenCentralClient.Artifact;
+import dev.mpm.trace.Trace;
+import dev.mpm.util.LocalRepository;
+import dev.mpm.util.Versions;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Answers search API questions from local data, for offline mode.
+ *
+ * Searches use the search cache (any age) and fall back to the artifacts in the class
+ * index of the local repository. Versions come from the local repository layout: only
+ * versions with a POM on disk are listed, which are exactly the ones Maven can use offline.
+ */
+public final class LocalCatalog {
+
+    private LocalCatalog() {}
+
+    /**
+     * Searches cached results, then the artifacts of the local repository.
+     *
+     * @return matching artifacts; versionCount is the number of local versions for
+     *         artifacts found in the local repository
+     */
+    public static List<Artifact> search(String query, int rows) {
+        try (Trace.Span span = Trace.span("local.search")) {
+            List<Artifact> cached = new SearchCache().getAnyAge(query, rows);
+            if (cached != null) {
+                span.set("source", "cache");
+                return cached;
+            }
+            span.set("source", "repository");
+            return searchRepository(query, rows);
+        }
+    }
+
+    /**
+     * Gets the newest version of an artifact present in the local repository.
+     *
+     * @return the artifact, or null if no version of it is on disk
+     */
+    public static Artifact find(String groupId, String artifactId) throws IOException {
+        List<String> versions = versions(groupId, artifactId);
+        return versions.isEmpty() ? null : new Artifact(groupId, artifactId, versions.get(0), versions.size());
+    }
+
+    /**
+     * Lists the versions of an artifact present in the local repository, newest first.
+     */
+    public static List<String> versions(String groupId, String artifactId) throws IOException {
+        Path directory = LocalRepository.root().resolve(groupId.replace('.', '/')).resolve(artifactId);
+        List<String> versions = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path entry : entries) {
+                String version = entry.getFileName().toString();
+                if (Files.exists(LocalRepository.pomPath(groupId, artifactId, version))) {
+                    versions.add(version);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return versions;
+        }
+        versions.sort(Versions.ORDER.reversed());
+        return versions;
+    }
+
+    /**
+     * Matches the query against the groupIds and artifactIds of the indexed JARs,
+     * exact artifactId matches first.
+     */
+    private static List<Artifact> searchRepository(String query, int rows) {
+        ClassIndex index = ClassIndex.load();
+        if (index.isEmpty()) {
+            try {
+                index.refresh();
+            } catch (IOException e) {
+                return new ArrayList<>();
+            }
+        }
+
+        String needle = query.trim().toLowerCase(Locale.ROOT);
+        Map<String, String[]> newest = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (ClassIndex.Jar jar : index.jars()) {
+            if (!jar.artifactId.toLowerCase(Locale.ROOT).contains(needle) &&
+                    !jar.groupId.toLowerCase(Locale.ROOT).contains(needle)) {
+                continue;
+            }
+            String key = jar.groupId + ":" + jar.artifactId;
+            String[] previous = newest.get(key);
+            if (previous == null || Versions.compare(jar.version, previous[2]) > 0) {
+                newest.put(key, new String[] {jar.groupId, jar.artifactId, jar.version});
+            }
+            counts.merge(key, 1, Integer::sum);
+        }
+
+        List<Artifact> artifacts = new ArrayList<>();
+        for (Map.Entry<String, String[]> entry : newest.entrySet()) {
+            String[] gav = entry.getValue();
+            artifacts.add(new Artifact(gav[0], gav[1], gav[2], counts.get(entry.getKey())));
+        }
+        artifacts.sort(Comparator.comparing((Artifact a) -> !a.artifactId.equalsIgnoreCase(needle))
+                .thenComparing(a -> -a.versionCount)
+                .thenComparing(a -> a.groupId + ":" + a.artifactId));
+        return artifacts.size() <= rows ? artifacts : new ArrayList<>(artifacts.subList(0, rows));
+    }
+}
@@ -0,0 +1,157 @@
+package dev.mpm.search;
+
+import dev.mpm.api.MavenCentralClient.Artifact;
+import dev.mpm.util.AtomicFiles;
+import dev.mpm.util.MpmHome;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * On-disk cache of search results, including each artifact's versionCount (the
+ * popularity signal), so repeated bare-name installs skip the search round trip.
+ *
+ * One file per query under ~/.mpm/cache/search, one "g TAB a TAB latestVersion TAB
+ * versionCount" line per artifact. Entries expire after mpm.search.cacheMinutes
+ * (default 60) so new releases are still picked up; 0 disables the cache. Offline,
+ * entries of any age are used.
+ */
+public final class SearchCache {
+
+    private static final long DEFAULT_TTL_MINUTES = 60;
+
+    private final long ttlMillis;
+
+    public SearchCache() {
+        long minutes = DEFAULT_TTL_MINUTES;
+        String override = System.getProperty("mpm.search.cacheMinutes");
+        if (override != null) {
+            try {
+                minutes = Long.parseLong(override.trim());
+            } catch (NumberFormatException ignored) {
+                // keep default
+            }
+        }
+        this.ttlMillis = minutes * 60_000;
+    }
+
+    /**
+     * Gets cached results for a query.
+     *
+     * @return the results, or null if missing, expired or unreadable
+     */
+    public List<Artifact> get(String query, int rows) {
+        if (ttlMillis <= 0) {
+            return null;
+        }
+        try {
+            Path file = file(query, rows);
+            if (!Files.exists(file) ||
+                    System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > ttlMillis) {
+                return null;
+            }
+            return read(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets cached results for a query however old they are, for use offline. If the query
+     * was cached with a different number of rows, the widest entry is used.
+     *
+     * @return at most rows results, or null if the query was never cached
+     */
+    public List<Artifact> getAnyAge(String query, int rows) {
+        Path file = file(query, rows);
+        if (!Files.exists(file)) {
+            String prefix = file.getFileName().toString();
+            prefix = prefix.substring(0, prefix.lastIndexOf('-') + 1);
+            file = null;
+            int widest = -1;
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(file(query, rows).getParent(), prefix + "*.tsv")) {
+                for (Path entry : entries) {
+                    String name = entry.getFileName().toString();
+                    try {
+                        int entryRows = Integer.parseInt(name.substring(prefix.length(), name.length() - 4));
+                        if (entryRows > widest) {
+                            widest = entryRows;
+                            file = entry;
+                        }
+                    } catch (NumberFormatException ignored) {
+                        // not one of ours
+                    }
+                }
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        if (file == null) {
+            return null;
+        }
+        try {
+            List<Artifact> artifacts = read(file);
+            return artifacts == null || artifacts.size() <= rows ? artifacts : artifacts.subList(0, rows);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a cache file; null if it is corrupt.
+     */
+    private static List<Artifact> read(Path file) throws IOException {
+        List<Artifact> artifacts = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            String[] parts = line.split("\t");
+            if (parts.length != 4) {
+                return null;
+            }
+            try {
+                artifacts.add(new Artifact(parts[0], parts[1], parts[2], Integer.parseInt(parts[3])));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return artifacts;
+    }
+
+    /**
+     * Stores results for a query. Failures are ignored; the cache is only an optimization.
+     */
+    public void put(String query, int rows, List<Artifact> artifacts) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        try {
+            // One file per query: concurrent writers store equivalent results, the last one wins
+            AtomicFiles.replace(file(query, rows), output -> {
+                BufferedWriter out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                for (Artifact artifact : artifacts) {
+                    out.write(artifact.groupId + "\t" + artifact.artifactId + "\t" +
+                            artifact.latestVersion + "\t" + artifact.versionCount);
+                    out.newLine();
+                }
+                out.flush();
+            });
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private static Path file(String query, int rows) {
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        // Readable name plus a hash, so "a:b" and "a_b" do not share a file
+        String name = normalized.replaceAll("[^a-z0-9._-]", "_") + "-" +
+                Integer.toHexString(normalized.hashCode()) + "-" + rows;
+        return MpmHome.root().resolve("cache").resolve("search").resolve(name + ".tsv");
+    }
+}
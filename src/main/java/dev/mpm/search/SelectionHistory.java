@@ -0,0 +1,117 @@
+package dev.mpm.search;
+
+import dev.mpm.util.AtomicFiles;
+import dev.mpm.util.MpmHome;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Remembers which coordinates the user installed for which query, so the same bare
+ * name resolves the same way next time.
+ *
+ * Stored in ~/.mpm/history.tsv as "query TAB groupId:artifactId TAB count" lines.
+ */
+public final class SelectionHistory {
+
+    private static final String FILE = "history.tsv";
+
+    /** Key "query\tgroupId:artifactId" -> number of times chosen. */
+    private final Map<String, Integer> choices = new HashMap<>();
+    /** Key "groupId:artifactId" -> number of times chosen for any query. */
+    private final Map<String, Integer> totals = new HashMap<>();
+    /** Generation of the file the maps were read from. */
+    private long generation;
+
+    private SelectionHistory() {}
+
+    /**
+     * Loads the history; a missing or unreadable file gives an empty history.
+     */
+    public static SelectionHistory load() {
+        SelectionHistory history = new SelectionHistory();
+        history.read(MpmHome.root().resolve(FILE));
+        return history;
+    }
+
+    /**
+     * Reads the file without locking; it is only ever replaced whole.
+     */
+    private void read(Path file) {
+        generation = AtomicFiles.generation(file);
+        try {
+            List<String> lines = Files.readAllLines(file);
+            for (String line : lines) {
+                String[] parts = line.split("\t");
+                if (parts.length == 3) {
+                    try {
+                        add(parts[0], parts[1], Integer.parseInt(parts[2]));
+                    } catch (NumberFormatException ignored) {
+                        // skip corrupt line
+                    }
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // first run
+        } catch (IOException e) {
+            // history is only a ranking hint
+        }
+    }
+
+    /**
+     * How often these coordinates were chosen for this query.
+     */
+    public synchronized int count(String query, String groupId, String artifactId) {
+        return choices.getOrDefault(normalize(query) + "\t" + groupId + ":" + artifactId, 0);
+    }
+
+    /**
+     * How often these coordinates were chosen for any query.
+     */
+    public synchronized int total(String groupId, String artifactId) {
+        return totals.getOrDefault(groupId + ":" + artifactId, 0);
+    }
+
+    /**
+     * Records a choice and writes the history back to disk.
+     * If another process wrote the history since it was loaded, its choices are merged in first.
+     */
+    public synchronized void record(String query, String groupId, String artifactId) throws IOException {
+        Path file = MpmHome.resolve(FILE);
+        generation = AtomicFiles.update(file, current -> {
+            if (current != generation) {
+                choices.clear();
+                totals.clear();
+                read(file);
+            }
+            add(query, groupId + ":" + artifactId, 1);
+
+            return output -> {
+                BufferedWriter out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                for (Map.Entry<String, Integer> entry : choices.entrySet()) {
+                    out.write(entry.getKey() + "\t" + entry.getValue());
+                    out.newLine();
+                }
+                out.flush();
+            };
+        });
+    }
+
+    private void add(String query, String coordinates, int count) {
+        choices.merge(normalize(query) + "\t" + coordinates, count, Integer::sum);
+        totals.merge(coordinates, count, Integer::sum);
+    }
+
+    private static String normalize(String query) {
+        return query.trim().toLowerCase(Locale.ROOT);
+    }
+}
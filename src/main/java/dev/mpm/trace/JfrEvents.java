@@ -0,0 +1,108 @@
+package dev.mpm.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.Map;
+
+/**
+ * Custom JDK Flight Recorder events. Only touched by {@link Trace} while a recording
+ * is running, so these classes are never loaded in a normal run.
+ */
+final class JfrEvents {
+
+    private JfrEvents() {}
+
+    @Name("dev.mpm.HttpCall")
+    @Label("HTTP Call")
+    @Category("mpm")
+    @Description("Request to search.maven.org or the Maven repository")
+    static class HttpCallEvent extends Event {
+        @Label("URL")
+        String url;
+
+        @Label("Status")
+        int status;
+
+        @Label("Response Size")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("dev.mpm.XmlParse")
+    @Label("XML Parse")
+    @Category("mpm")
+    @Description("Parsing or writing of a POM")
+    static class XmlParseEvent extends Event {
+        @Label("File")
+        String file;
+    }
+
+    @Name("dev.mpm.Subprocess")
+    @Label("Subprocess")
+    @Category("mpm")
+    @Description("External process run by mpm (Maven)")
+    static class SubprocessEvent extends Event {
+        @Label("Command")
+        String command;
+
+        @Label("Exit Code")
+        int exitCode;
+    }
+
+    static Object begin(Trace.Kind kind, String detail) {
+        Event event;
+        switch (kind) {
+            case HTTP:
+                HttpCallEvent http = new HttpCallEvent();
+                http.url = detail;
+                event = http;
+                break;
+            case XML:
+                XmlParseEvent xml = new XmlParseEvent();
+                xml.file = detail;
+                event = xml;
+                break;
+            case SUBPROCESS:
+                SubprocessEvent process = new SubprocessEvent();
+                process.command = detail;
+                event = process;
+                break;
+            default:
+                return null;
+        }
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void commit(Object object, Map<String, Object> attributes) {
+        Event event = (Event) object;
+        if (attributes != null) {
+            if (event instanceof HttpCallEvent) {
+                HttpCallEvent http = (HttpCallEvent) event;
+                http.status = intAttribute(attributes, "status");
+                http.bytes = longAttribute(attributes, "bytes");
+            } else if (event instanceof SubprocessEvent) {
+                ((SubprocessEvent) event).exitCode = intAttribute(attributes, "exitCode");
+            }
+        }
+        event.commit();
+    }
+
+    private static int intAttribute(Map<String, Object> attributes, String key) {
+        Object value = attributes.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static long longAttribute(Map<String, Object> attributes, String key) {
+        Object value = attributes.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+}
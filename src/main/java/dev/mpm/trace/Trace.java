@@ -0,0 +1,232 @@
+package dev.mpm.trace;
+
+import dev.mpm.util.Console;
+import dev.mpm.util.Json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Lightweight phase timing for mpm.
+ *
+ * Usage:
+ * <pre>
+ *   try (Trace.Span span = Trace.span("pom.load")) {
+ *       ...
+ *   }
+ * </pre>
+ *
+ * Spans nest per thread. They are collected only when --timings or --trace-out is given;
+ * HTTP, XML and subprocess spans are also emitted as JDK Flight Recorder events while a
+ * recording is running. Otherwise {@link #span} returns a shared no-op instance.
+ */
+public final class Trace {
+
+    /** Kind of work a span covers; decides which JFR event (if any) it produces. */
+    public enum Kind { PHASE, HTTP, XML, SUBPROCESS }
+
+    private static final long ORIGIN = System.nanoTime();
+    private static final Span NOOP = new Span(null, Kind.PHASE, null, null, null);
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final ConcurrentLinkedQueue<Span> FINISHED = new ConcurrentLinkedQueue<>();
+
+    private static boolean collecting;
+    private static boolean jfrAvailable = true;
+
+    private Trace() {}
+
+    /**
+     * Turns on span collection (for --timings / --trace-out).
+     */
+    public static void enable() {
+        collecting = true;
+    }
+
+    public static boolean isEnabled() {
+        return collecting;
+    }
+
+    /**
+     * Starts a phase span.
+     */
+    public static Span span(String name) {
+        return span(name, Kind.PHASE, null);
+    }
+
+    /**
+     * Starts a span of the given kind. The detail (URL, file, command line) is shown in
+     * traces and recorded in the JFR event.
+     */
+    public static Span span(String name, Kind kind, String detail) {
+        Object event = kind != Kind.PHASE && jfrRecording() ? JfrEvents.begin(kind, detail) : null;
+        if (!collecting && event == null) {
+            return NOOP;
+        }
+
+        Span parent = CURRENT.get();
+        Span span = new Span(name, kind, detail, parent, event);
+        if (collecting) {
+            CURRENT.set(span);
+        }
+        return span;
+    }
+
+    /**
+     * Prints the collected spans as a table, nested by parent and aggregated by name.
+     */
+    public static void printSummary() {
+        List<Span> spans = new ArrayList<>(FINISHED);
+        if (spans.isEmpty()) {
+            return;
+        }
+
+        // Aggregate by path so repeated calls (e.g. several HTTP requests) become one row
+        Map<String, long[]> rows = new LinkedHashMap<>();
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        spans.sort((a, b) -> Long.compare(a.start, b.start));
+        long wallStart = Long.MAX_VALUE;
+        long wallEnd = 0;
+        for (Span span : spans) {
+            String path = span.path();
+            long[] row = rows.computeIfAbsent(path, p -> new long[2]);
+            row[0]++;
+            row[1] += span.end - span.start;
+            depths.putIfAbsent(path, span.depth);
+            wallStart = Math.min(wallStart, span.start);
+            wallEnd = Math.max(wallEnd, span.end);
+        }
+        long wall = Math.max(1, wallEnd - wallStart);
+
+        Console.println();
+        Console.println(Console.bold(String.format("Timings (%.1f ms total):", wall / 1e6)));
+        Console.println(Console.dim(String.format("  %-40s %6s %11s %7s", "phase", "calls", "time", "share")));
+        for (Map.Entry<String, long[]> entry : rows.entrySet()) {
+            String path = entry.getKey();
+            String name = "  ".repeat(depths.get(path)) + path.substring(path.lastIndexOf('/') + 1);
+            long[] row = entry.getValue();
+            Console.println(String.format("  %-40s %6d %8.1f ms %6.1f%%",
+                    truncate(name, 40), row[0], row[1] / 1e6, 100.0 * row[1] / wall));
+        }
+    }
+
+    /**
+     * Writes the collected spans in Chrome trace-event format
+     * (load in chrome://tracing or https://ui.perfetto.dev).
+     */
+    public static void writeChromeTrace(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+            boolean first = true;
+            for (Span span : FINISHED) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                out.write("\n{\"name\":" + Json.quote(span.name) +
+                        ",\"cat\":" + Json.quote(span.kind.name().toLowerCase()) +
+                        ",\"ph\":\"X\",\"pid\":1,\"tid\":" + span.threadId +
+                        ",\"ts\":" + (span.start - ORIGIN) / 1000 +
+                        ",\"dur\":" + (span.end - span.start) / 1000 +
+                        ",\"args\":{");
+                boolean firstArg = true;
+                if (span.detail != null) {
+                    out.write("\"detail\":" + Json.quote(span.detail));
+                    firstArg = false;
+                }
+                if (span.attributes != null) {
+                    for (Map.Entry<String, Object> attr : span.attributes.entrySet()) {
+                        out.write((firstArg ? "" : ",") + Json.quote(attr.getKey()) + ":" + Json.value(attr.getValue()));
+                        firstArg = false;
+                    }
+                }
+                out.write("}}");
+            }
+            out.write("\n]}\n");
+        }
+    }
+
+    private static boolean jfrRecording() {
+        if (!jfrAvailable) {
+            return false;
+        }
+        try {
+            return jdk.jfr.FlightRecorder.isInitialized();
+        } catch (LinkageError e) {
+            // Runtime without the jdk.jfr module
+            jfrAvailable = false;
+            return false;
+        }
+    }
+
+    private static String truncate(String text, int max) {
+        return text.length() <= max ? text : text.substring(0, max - 1) + "~";
+    }
+
+    /**
+     * A timed region. Close it (try-with-resources) to record it.
+     */
+    public static final class Span implements AutoCloseable {
+        private final String name;
+        private final Kind kind;
+        private final String detail;
+        private final Span parent;
+        private final Object event;
+        private final int depth;
+        private final long threadId;
+        private final long start;
+        private Map<String, Object> attributes;
+        private long end;
+
+        private Span(String name, Kind kind, String detail, Span parent, Object event) {
+            this.name = name;
+            this.kind = kind;
+            this.detail = detail;
+            this.parent = parent;
+            this.event = event;
+            this.depth = parent != null ? parent.depth + 1 : 0;
+            this.threadId = Thread.currentThread().getId();
+            this.start = name != null ? System.nanoTime() : 0;
+        }
+
+        /**
+         * Attaches a value (status code, byte count, exit code...) to the span.
+         */
+        public Span set(String key, Object value) {
+            if (this != NOOP) {
+                if (attributes == null) {
+                    attributes = new LinkedHashMap<>();
+                }
+                attributes.put(key, value);
+            }
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (this == NOOP) {
+                return;
+            }
+            end = System.nanoTime();
+            if (event != null) {
+                JfrEvents.commit(event, attributes);
+            }
+            if (collecting) {
+                if (CURRENT.get() == this) {
+                    CURRENT.set(parent);
+                }
+                FINISHED.add(this);
+            }
+        }
+
+        private String path() {
+            return parent != null ? parent.path() + "/" + name : name;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package dev.mpm.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Single-writer, lock-free-reader file updates, safe across concurrent mpm processes.
+ *
+ * A file is always replaced whole: the new content goes to a temporary file in the same
+ * directory, is forced to disk and renamed over the target, so readers never lock and
+ * always see either the old or the new version. Writers serialize on an advisory
+ * {@link FileLock} on a lock file under ~/.mpm/locks (plus an in-process lock, since file
+ * locks are held per JVM). The lock file also holds the file's generation, the number of
+ * committed writes, so a writer can tell whether someone else wrote since it last read.
+ */
+public final class AtomicFiles {
+
+    /**
+     * Writes the full content of a file.
+     */
+    public interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Decides under the lock what to write.
+     */
+    public interface Transaction {
+        /**
+         * @param generation the file's current generation (0 if never written through this class)
+         * @return the new content, or null to leave the file unchanged
+         */
+        Writer run(long generation) throws IOException;
+    }
+
+    private static final ConcurrentHashMap<Path, ReentrantLock> PROCESS_LOCKS = new ConcurrentHashMap<>();
+    private static final AtomicLong TEMP_COUNTER = new AtomicLong();
+
+    private AtomicFiles() {}
+
+    /**
+     * Gets the generation of a file without locking.
+     */
+    public static long generation(Path target) {
+        try (FileChannel channel = FileChannel.open(lockFile(target), StandardOpenOption.READ)) {
+            return readGeneration(channel);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Replaces a file under its writer lock.
+     *
+     * @return the new generation
+     */
+    public static long write(Path target, Writer writer) throws IOException {
+        return update(target, generation -> writer);
+    }
+
+    /**
+     * Runs a read-modify-write under the file's writer lock. The transaction sees the
+     * current generation and may re-read the file before deciding what to write.
+     *
+     * @return the generation after the transaction
+     */
+    public static long update(Path target, Transaction transaction) throws IOException {
+        Path lockFile = MpmHome.resolve("locks/" + lockFile(target).getFileName());
+        ReentrantLock processLock = PROCESS_LOCKS.computeIfAbsent(lockFile, p -> new ReentrantLock());
+        processLock.lock();
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            long generation = readGeneration(channel);
+            Writer writer = transaction.run(generation);
+            if (writer == null) {
+                return generation;
+            }
+            replace(target, writer);
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, generation + 1);
+            channel.write(buffer, 0);
+            return generation + 1;
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces a file without taking the writer lock. For independent entries (one cache
+     * file per key) where concurrent writers produce equivalent content and the last one
+     * may win.
+     */
+    public static void replace(Path target, Writer writer) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = directory.resolve("." + target.getFileName() + "." + ProcessHandle.current().pid() + "-" +
+                TEMP_COUNTER.incrementAndGet() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+                writer.write(out);
+                out.flush();
+                channel.force(false);
+            }
+            copyPermissions(target, temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Keeps the permissions of the file being replaced (pom.xml may be group-writable, for example).
+     */
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        try {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (NoSuchFileException | UnsupportedOperationException e) {
+            // new file, or not a POSIX file system
+        }
+    }
+
+    private static long readGeneration(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+            // read the 8-byte counter
+        }
+        return buffer.hasRemaining() ? 0 : buffer.getLong(0);
+    }
+
+    /**
+     * Lock files live in ~/.mpm/locks rather than beside the target, so working trees stay clean.
+     */
+    private static Path lockFile(Path target) {
+        Path absolute = target.toAbsolutePath().normalize();
+        String name = absolute.getFileName().toString().replaceAll("[^A-Za-z0-9._-]", "_") + "-" +
+                Integer.toHexString(absolute.toString().hashCode()) + ".lock";
+        return MpmHome.root().resolve("locks").resolve(name);
+    }
+}
@@ -0,0 +1,67 @@
+package dev.mpm.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Download bandwidth measured on this machine, for time estimates.
+ *
+ * Kept in ~/.mpm/bandwidth as an exponentially weighted average of bytes per second, so a
+ * slow or fast transfer moves the estimate without replacing it. Only transfers big enough
+ * to be dominated by throughput rather than latency are recorded.
+ *
+ * The value is aggregate throughput: bytes over the wall-clock time the transfers took, so
+ * Maven's parallel downloads count together. A single-connection sample (the install
+ * planner's probe) is a lower bound of it, which makes the first estimate err long.
+ */
+public final class Bandwidth {
+
+    /** Smallest transfer worth recording; below this, round trips dominate. */
+    public static final long MIN_SAMPLE_BYTES = 256 * 1024;
+
+    private static final String FILE = "bandwidth";
+    private static final double WEIGHT = 0.3;
+
+    private Bandwidth() {}
+
+    /**
+     * Records a transfer. Failures are ignored; the value is only an estimate.
+     *
+     * @param bytes bytes transferred
+     * @param nanos wall-clock time the transfers took, overlapping ones counted once
+     */
+    public static void record(long bytes, long nanos) {
+        if (bytes < MIN_SAMPLE_BYTES || nanos <= 0) {
+            return;
+        }
+        double sample = bytes * 1e9 / nanos;
+        try {
+            Path file = MpmHome.resolve(FILE);
+            AtomicFiles.update(file, generation -> {
+                long previous = read(file);
+                long average = previous > 0 ? Math.round(previous * (1 - WEIGHT) + sample * WEIGHT) : Math.round(sample);
+                return out -> out.write((average + "\n").getBytes(StandardCharsets.UTF_8));
+            });
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * Gets the measured bandwidth in bytes per second, or -1 if nothing was recorded yet.
+     */
+    public static long bytesPerSecond() {
+        return read(MpmHome.root().resolve(FILE));
+    }
+
+    private static long read(Path file) {
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            // nothing recorded yet, or a broken file
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package dev.mpm.util;
+
+/**
+ * Token bucket that caps the number of bytes per second read by background work.
+ * A single limiter is shared by all threads of a task so the total stays bounded.
+ */
+public final class BandwidthLimiter {
+
+    private final long bytesPerSecond;
+    private long available;
+    private long lastRefill;
+
+    /**
+     * @param bytesPerSecond the maximum throughput, or 0 for unlimited
+     */
+    public BandwidthLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.available = bytesPerSecond;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Blocks until the given number of bytes may be consumed.
+     */
+    public void acquire(int bytes) throws InterruptedException {
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            available -= bytes;
+            waitNanos = available >= 0 ? 0 : (-available * 1_000_000_000L) / bytesPerSecond;
+        }
+
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long elapsed = Math.min(now - lastRefill, 1_000_000_000L);
+        lastRefill = now;
+        available = Math.min(bytesPerSecond, available + elapsed * bytesPerSecond / 1_000_000_000L);
+    }
+}
@@ -1,7 +1,17 @@
 package dev.mpm.util;
 
+import java.io.BufferedOutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Utility class for console output with ANSI colors.
+ *
+ * Output goes through a buffer that is flushed once per command ({@link #flush()}), and
+ * whenever a partial line is printed, since those are prompts and progress lines that must
+ * show up at once. In machine output mode ({@link MachineOutput}) messages go to stderr
+ * instead and errors are also emitted as records.
  */
 public final class Console {
 
@@ -16,6 +26,10 @@ public final class Console {
 
     private static boolean colorsEnabled = true;
 
+    /** Buffered sink over {@link #wrapped}; replaced when System.out is. */
+    private static PrintStream out;
+    private static PrintStream wrapped;
+
     static {
         // Disable colors on Windows CMD (no ANSI support by default)
         String term = System.getenv("TERM");
@@ -34,6 +48,12 @@ public final class Console {
 
     public static void error(String message) {
         println(RED + "x" + RESET + " " + message);
+        if (MachineOutput.isEnabled()) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("type", "error");
+            record.put("message", stripAnsi(message));
+            MachineOutput.emit(record);
+        }
     }
 
     public static void warn(String message) {
@@ -45,15 +65,41 @@ public final class Console {
     }
 
     public static void print(String message) {
-        System.out.print(colorsEnabled ? message : stripAnsi(message));
+        PrintStream sink = sink();
+        sink.print(colorsEnabled ? message : stripAnsi(message));
+        sink.flush();
     }
 
     public static void println(String message) {
-        System.out.println(colorsEnabled ? message : stripAnsi(message));
+        sink().println(colorsEnabled ? message : stripAnsi(message));
     }
 
     public static void println() {
-        System.out.println();
+        sink().println();
+    }
+
+    /**
+     * Writes out everything printed so far. Called after each command, and before anything
+     * that takes a while without printing: running Maven, network lookups, hashing the local
+     * repository, resolving a classpath or walking a workspace.
+     */
+    public static synchronized void flush() {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    private static synchronized PrintStream sink() {
+        if (MachineOutput.isEnabled()) {
+            flush();
+            return System.err;
+        }
+        if (wrapped != System.out) {
+            flush();
+            wrapped = System.out;
+            out = new PrintStream(new BufferedOutputStream(wrapped, 1 << 16), false);
+        }
+        return out;
     }
 
     public static String bold(String text) {
@@ -0,0 +1,121 @@
+package dev.mpm.util;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal JSON writing helpers (no external dependencies).
+ */
+public final class Json {
+
+    private Json() {}
+
+    /**
+     * Quotes and escapes a string as a JSON string literal. Null becomes null.
+     */
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+
+    /**
+     * Extracts a string field from a flat JSON object (regex based, no nesting).
+     *
+     * @return the unescaped value, or null if the field is absent
+     */
+    public static String stringField(String json, String field) {
+        Matcher matcher = Pattern.compile("\"" + Pattern.quote(field) + "\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"")
+                .matcher(json);
+        return matcher.find() ? unescape(matcher.group(1)) : null;
+    }
+
+    /**
+     * Formats a value as JSON: numbers and booleans as-is, collections as arrays, everything
+     * else as a string.
+     */
+    public static String value(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof Collection) {
+            StringBuilder sb = new StringBuilder("[");
+            for (Object element : (Collection<?>) value) {
+                if (sb.length() > 1) {
+                    sb.append(',');
+                }
+                sb.append(value(element));
+            }
+            return sb.append(']').toString();
+        }
+        return quote(value.toString());
+    }
+
+    /**
+     * Formats a flat record as a JSON object, in the map's order.
+     */
+    public static String object(Map<String, ?> record) {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, ?> entry : record.entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(quote(entry.getKey())).append(':').append(value(entry.getValue()));
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 >= value.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            switch (next) {
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (i + 4 < value.length()) {
+                        sb.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    }
+                    break;
+                default: sb.append(next);
+            }
+        }
+        return sb.toString();
+    }
+}
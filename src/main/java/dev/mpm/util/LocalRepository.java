@@ -0,0 +1,46 @@
+package dev.mpm.util;
+
+import java.nio.file.Path;
+
+/**
+ * Locates files in the local Maven repository (~/.m2/repository).
+ */
+public final class LocalRepository {
+
+    private LocalRepository() {}
+
+    /**
+     * Gets the root of the local repository.
+     * Can be overridden with the system property mpm.localRepository.
+     */
+    public static Path root() {
+        String override = System.getProperty("mpm.localRepository");
+        if (override != null && !override.isEmpty()) {
+            return Path.of(override);
+        }
+        return Path.of(System.getProperty("user.home"), ".m2", "repository");
+    }
+
+    /**
+     * Gets the repository-relative path of an artifact file, using '/' separators
+     * (e.g. "org/projectlombok/lombok/1.18.30/lombok-1.18.30.jar").
+     */
+    public static String relativePath(String groupId, String artifactId, String version, String extension) {
+        return groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/" +
+                artifactId + "-" + version + "." + extension;
+    }
+
+    /**
+     * Gets the local path of an artifact file.
+     */
+    public static Path artifactPath(String groupId, String artifactId, String version, String extension) {
+        return root().resolve(relativePath(groupId, artifactId, version, extension));
+    }
+
+    /**
+     * Gets the local path of an artifact's POM.
+     */
+    public static Path pomPath(String groupId, String artifactId, String version) {
+        return artifactPath(groupId, artifactId, version, "pom");
+    }
+}
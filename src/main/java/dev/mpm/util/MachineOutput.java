@@ -0,0 +1,117 @@
+package dev.mpm.util;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Machine-readable output, enabled with the global --json or --ndjson option.
+ *
+ * Commands emit records, each with a "type" field, as they produce them; they are
+ * written straight to a buffered stdout writer instead of being collected. The writer goes
+ * to the stdout file descriptor directly rather than through System.out, which swallows
+ * write errors: a closed pipe (e.g. piped into head) surfaces as an IOException when the
+ * buffer fills, and {@link #emit} returns false so the command can stop. With --ndjson
+ * every record is one line; with --json the records form one array, opened by the first
+ * record and closed by {@link #finish()}. Human messages from {@link Console} go to stderr
+ * meanwhile, so stdout carries nothing but records.
+ *
+ * Record types:
+ *   artifact    - search match: groupId, artifactId, latestVersion, versionCount
+ *   dependency  - declared dependency: groupId, artifactId, version, effectiveVersion, scope
+ *   result      - install/remove/sync outcome: op, artifact, groupId, artifactId, version, scope, status
+ *   plan        - install --plan estimate
+ *   conflict    - analyze: a version that lost nearest-wins, and who asked for it
+ *   duplicate   - analyze: classes shared by a set of JARs
+ *   unused      - analyze: a direct dependency the sources never mention
+ *   summary     - totals of a batch (apply, sync) or an analysis
+ *   error       - message of a failure
+ */
+public final class MachineOutput {
+
+    public enum Format { JSON, NDJSON }
+
+    /** Small enough that a closed pipe is noticed after a few records, not at the end. */
+    private static final int BUFFER_CHARS = 8192;
+
+    private static Format format;
+    private static BufferedWriter out;
+    private static int records;
+    private static boolean closed;
+
+    private MachineOutput() {}
+
+    public static synchronized void enable(Format selected) {
+        if (format == null) {
+            format = selected;
+            System.out.flush();
+            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out),
+                    StandardCharsets.UTF_8), BUFFER_CHARS);
+        }
+    }
+
+    public static synchronized boolean isEnabled() {
+        return format != null;
+    }
+
+    /**
+     * Writes a record. It reaches stdout when the buffer fills or at {@link #finish()}.
+     *
+     * @return false if stdout is closed, e.g. piped into head, so producing more is pointless
+     */
+    public static synchronized boolean emit(Map<String, ?> record) {
+        if (format == null || closed) {
+            return !closed;
+        }
+        try {
+            if (format == Format.JSON) {
+                out.write(records == 0 ? "[\n" : ",\n");
+                out.write(Json.object(record));
+            } else {
+                out.write(Json.object(record));
+                out.newLine();
+            }
+            records++;
+            return true;
+        } catch (IOException e) {
+            closed = true;
+            return false;
+        }
+    }
+
+    /**
+     * Writes out the records emitted so far, for commands that wait between records.
+     */
+    public static synchronized void flush() {
+        if (format != null && !closed) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                closed = true;
+            }
+        }
+    }
+
+    /**
+     * Closes the array in JSON mode and flushes. Called once, after the command.
+     */
+    public static synchronized void finish() {
+        if (format != null && !closed) {
+            try {
+                if (format == Format.JSON) {
+                    out.write(records == 0 ? "[]\n" : "\n]\n");
+                }
+                out.flush();
+            } catch (IOException e) {
+                // stdout closed, e.g. piped into head
+            }
+        }
+        format = null;
+        records = 0;
+        closed = false;
+    }
+}
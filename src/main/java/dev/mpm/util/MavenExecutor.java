@@ -1,15 +1,109 @@
 package dev.mpm.util;
 
+import dev.mpm.trace.Trace;
+
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Executes Maven commands as subprocess.
+ *
+ * Maven runs in batch mode with stdout and stderr read on separate threads. Transfer
+ * lines are parsed into {@link MavenProgress.Event}s, which drive a one-line progress
+ * display on the console. Only errors are echoed unless batch output (-B) was requested,
+ * in which case the full Maven log is streamed. A run that exceeds the timeout is killed
+ * together with its child processes.
+ *
+ * The Maven daemon (mvnd) is used when it is on the PATH; set mpm.mvn to force a
+ * specific executable.
  */
 public final class MavenExecutor {
 
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(15);
+    private static final Duration KILL_GRACE = Duration.ofSeconds(5);
+    /** Smaller downloads say more about latency than about bandwidth. */
+    private static final long TIMED_DOWNLOAD_BYTES = 64 * 1024;
+
+    private static String threads;
+    private static boolean offline;
+    private static boolean batchOutput;
+    private static Boolean snapshotUpdates;
+    private static Duration timeout = configuredTimeout();
+
     private MavenExecutor() {}
 
+    /**
+     * Outcome of a Maven run.
+     */
+    public static final class Result {
+        public final int exitCode;
+        public final boolean timedOut;
+        public final int downloads;
+        public final long downloadedBytes;
+        public final List<String> errors;
+
+        Result(int exitCode, boolean timedOut, int downloads, long downloadedBytes, List<String> errors) {
+            this.exitCode = exitCode;
+            this.timedOut = timedOut;
+            this.downloads = downloads;
+            this.downloadedBytes = downloadedBytes;
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        public boolean isSuccess() {
+            return exitCode == 0 && !timedOut;
+        }
+    }
+
+    /**
+     * Sets Maven's -T (threads) value, e.g. "4" or "1C"; null to leave it unset.
+     */
+    public static void setThreads(String value) {
+        threads = value;
+    }
+
+    /**
+     * Runs Maven offline (-o). Also implied when mpm itself is {@link Offline}.
+     */
+    public static void setOffline(boolean value) {
+        offline = value;
+    }
+
+    /**
+     * Sets whether Maven checks remote SNAPSHOT metadata: true forces it (-U), false
+     * suppresses it (-nsu), null leaves it to Maven's update policy.
+     */
+    public static void setSnapshotUpdates(Boolean value) {
+        snapshotUpdates = value;
+    }
+
+    /**
+     * Streams Maven's full batch log instead of the progress line (-B).
+     */
+    public static void setBatchOutput(boolean value) {
+        batchOutput = value;
+    }
+
+    /**
+     * Sets how long a Maven run may take before it is killed.
+     */
+    public static void setTimeout(Duration value) {
+        timeout = value;
+    }
+
     /**
      * Resolves dependencies by running 'mvn dependency:resolve'.
      * This downloads all JARs to the local .m2 repository.
@@ -18,7 +112,15 @@ public final class MavenExecutor {
      * @return true if successful, false otherwise
      */
     public static boolean resolveDependencies(File workingDir) {
-        return execute(workingDir, "dependency:resolve", "-q");
+        return run(workingDir, null, null, "dependency:resolve").isSuccess();
+    }
+
+    /**
+     * Resolves dependencies, copying Maven's output to the given stream instead of the console.
+     * Used when stdout carries machine-readable output.
+     */
+    public static boolean resolveDependencies(File workingDir, PrintStream output) {
+        return run(workingDir, output, null, "dependency:resolve").isSuccess();
     }
 
     /**
@@ -29,26 +131,119 @@ public final class MavenExecutor {
      * @return true if successful, false otherwise
      */
     public static boolean execute(File workingDir, String... goals) {
-        String mvnCommand = getMvnCommand();
-        String[] command = new String[goals.length + 1];
-        command[0] = mvnCommand;
-        System.arraycopy(goals, 0, command, 1, goals.length);
+        return run(workingDir, null, null, goals).isSuccess();
+    }
 
-        try {
+    /**
+     * Runs Maven and waits for it to finish or time out.
+     *
+     * @param workingDir the directory containing pom.xml
+     * @param output     where to echo Maven's output, or null for the console
+     * @param listener   receives download events as they are parsed, or null
+     * @param goals      the Maven goals and arguments
+     */
+    public static Result run(File workingDir, PrintStream output, Consumer<MavenProgress.Event> listener,
+                             String... goals) {
+        List<String> command = buildCommand(goals);
+
+        try (Trace.Span span = Trace.span("mvn", Trace.Kind.SUBPROCESS, String.join(" ", command))) {
             ProcessBuilder pb = new ProcessBuilder(command);
             pb.directory(workingDir);
-            pb.inheritIO();
+            pb.redirectInput(ProcessBuilder.Redirect.INHERIT);
 
+            OutputHandler handler = new OutputHandler(output, listener);
+            // Messages and records produced so far should not wait for Maven to finish
+            Console.flush();
+            MachineOutput.flush();
             Process process = pb.start();
-            int exitCode = process.waitFor();
-            return exitCode == 0;
+            Thread stdout = handler.pump(process.getInputStream(), "mpm-mvn-stdout");
+            Thread stderr = handler.pump(process.getErrorStream(), "mpm-mvn-stderr");
+
+            boolean timedOut = false;
+            int exitCode;
+            try {
+                if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    timedOut = true;
+                    killTree(process);
+                }
+                exitCode = process.waitFor();
+            } catch (InterruptedException e) {
+                killTree(process);
+                throw e;
+            }
+
+            stdout.join(KILL_GRACE.toMillis());
+            stderr.join(KILL_GRACE.toMillis());
+            handler.finish();
+
+            if (timedOut) {
+                report(output, "Maven did not finish within " + timeout.getSeconds() + "s and was stopped");
+            }
+
+            Result result = handler.result(exitCode, timedOut);
+            span.set("exitCode", exitCode).set("downloads", result.downloads).set("timedOut", timedOut);
+            return result;
         } catch (IOException e) {
-            Console.error("Failed to execute Maven: " + e.getMessage());
-            return false;
+            report(output, "Failed to execute Maven: " + e.getMessage());
+            return new Result(-1, false, 0, 0, List.of(e.getMessage()));
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            Console.error("Maven execution interrupted");
-            return false;
+            report(output, "Maven execution interrupted");
+            return new Result(-1, false, 0, 0, List.of("interrupted"));
+        }
+    }
+
+    /**
+     * Reports a failure on the console, or on the output stream when stdout is reserved.
+     */
+    private static void report(PrintStream output, String message) {
+        if (output == null) {
+            Console.error(message);
+        } else {
+            output.println("[ERROR] " + message);
+            output.flush();
+        }
+    }
+
+    private static List<String> buildCommand(String[] goals) {
+        List<String> command = new ArrayList<>();
+        command.add(getMvnCommand());
+        // Batch mode: no colors or interactive transfer bars, so the output can be parsed
+        command.add("-B");
+        if (threads != null) {
+            command.add("-T");
+            command.add(threads);
+        }
+        if (offline || Offline.isEnabled()) {
+            command.add("-o");
+        } else if (snapshotUpdates != null) {
+            command.add(snapshotUpdates ? "-U" : "-nsu");
+        }
+        Collections.addAll(command, goals);
+        return command;
+    }
+
+    /**
+     * Stops the process and everything it started (forked JVMs, mvnd clients).
+     */
+    private static void killTree(Process process) {
+        List<ProcessHandle> descendants = new ArrayList<>();
+        process.descendants().forEach(descendants::add);
+
+        process.destroy();
+        descendants.forEach(ProcessHandle::destroy);
+        try {
+            if (!process.waitFor(KILL_GRACE.toMillis(), TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        for (ProcessHandle handle : descendants) {
+            if (handle.isAlive()) {
+                handle.destroyForcibly();
+            }
         }
     }
 
@@ -71,10 +266,176 @@ public final class MavenExecutor {
     }
 
     /**
-     * Gets the correct Maven command for the current OS.
+     * Gets the Maven command: mpm.mvn if set, mvnd if it is on the PATH, otherwise mvn.
      */
     private static String getMvnCommand() {
+        String override = System.getProperty("mpm.mvn");
+        if (override != null && !override.isEmpty()) {
+            return override;
+        }
+
         boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
-        return isWindows ? "mvn.cmd" : "mvn";
+        String daemon = isWindows ? "mvnd.cmd" : "mvnd";
+        return onPath(daemon) ? daemon : isWindows ? "mvn.cmd" : "mvn";
+    }
+
+    private static boolean onPath(String executable) {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return false;
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            if (!dir.isEmpty() && Files.isExecutable(Path.of(dir, executable))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Duration configuredTimeout() {
+        String value = System.getProperty("mpm.maven.timeout");
+        if (value != null) {
+            try {
+                return Duration.ofSeconds(Long.parseLong(value.trim()));
+            } catch (NumberFormatException ignored) {
+                // keep default
+            }
+        }
+        return DEFAULT_TIMEOUT;
+    }
+
+    /**
+     * Collects output from both streams: echoes it, tracks downloads and keeps error lines.
+     */
+    private static final class OutputHandler {
+        private final PrintStream sink;
+        private final Consumer<MavenProgress.Event> listener;
+        private final boolean progressLine;
+        private final List<String> errors = new ArrayList<>();
+        private int downloads;
+        private long downloadedBytes;
+        /** Bytes of the downloads Maven reported a rate for, fed to {@link Bandwidth}. */
+        private long timedBytes;
+        /** When each of those was in flight, as {startNanos, endNanos}; they overlap when parallel. */
+        private final List<long[]> timedIntervals = new ArrayList<>();
+        private int progressWidth;
+
+        OutputHandler(PrintStream output, Consumer<MavenProgress.Event> listener) {
+            this.sink = output != null ? output : MachineOutput.isEnabled() ? System.err : System.out;
+            this.listener = listener;
+            this.progressLine = output == null && !batchOutput && System.console() != null;
+        }
+
+        Thread pump(InputStream stream, String name) {
+            Thread thread = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, Charset.defaultCharset()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        handle(line);
+                    }
+                } catch (IOException e) {
+                    // Stream closed when the process was killed
+                }
+            }, name);
+            thread.setDaemon(true);
+            thread.start();
+            return thread;
+        }
+
+        private synchronized void handle(String line) {
+            MavenProgress.Event event = MavenProgress.parse(line);
+            if (event != null) {
+                if (event.finished) {
+                    downloads++;
+                    downloadedBytes += Math.max(0, event.bytes);
+                    if (event.bytes >= TIMED_DOWNLOAD_BYTES && event.bytesPerSecond > 0) {
+                        // The line is printed when the transfer ends; its rate gives when it began
+                        long end = System.nanoTime();
+                        timedBytes += event.bytes;
+                        timedIntervals.add(new long[] {end - event.bytes * 1_000_000_000L / event.bytesPerSecond, end});
+                    }
+                }
+                if (listener != null) {
+                    listener.accept(event);
+                }
+            }
+
+            boolean error = line.startsWith("[ERROR]");
+            if (error) {
+                errors.add(line);
+            }
+
+            if (batchOutput || error) {
+                clearProgress();
+                sink.println(line);
+            } else if (event != null && progressLine) {
+                showProgress(event);
+            }
+        }
+
+        private void showProgress(MavenProgress.Event event) {
+            String text = "  " + downloads + " downloaded (" + MavenProgress.formatBytes(downloadedBytes) + ")  " +
+                    event.fileName();
+            if (text.length() > 78) {
+                text = text.substring(0, 78);
+            }
+            Console.print("\r" + Console.dim(pad(text, progressWidth)));
+            progressWidth = text.length();
+        }
+
+        private void clearProgress() {
+            if (progressWidth > 0) {
+                Console.print("\r" + pad("", progressWidth) + "\r");
+                progressWidth = 0;
+            }
+        }
+
+        synchronized void finish() {
+            clearProgress();
+            Bandwidth.record(timedBytes, wallNanos(timedIntervals));
+            if (progressLine && downloads > 0) {
+                Console.println(Console.dim("  Downloaded " + downloads + " file(s), " +
+                        MavenProgress.formatBytes(downloadedBytes)));
+            }
+            sink.flush();
+        }
+
+        synchronized Result result(int exitCode, boolean timedOut) {
+            return new Result(exitCode, timedOut, downloads, downloadedBytes, new ArrayList<>(errors));
+        }
+
+        /**
+         * Gets the wall-clock time covered by the intervals, so parallel downloads count once
+         * and the bandwidth recorded is the aggregate of all connections.
+         */
+        private static long wallNanos(List<long[]> intervals) {
+            List<long[]> sorted = new ArrayList<>(intervals);
+            sorted.sort((a, b) -> Long.compare(a[0], b[0]));
+            long total = 0;
+            long start = 0;
+            long end = 0;
+            boolean open = false;
+            for (long[] interval : sorted) {
+                if (open && interval[0] <= end) {
+                    end = Math.max(end, interval[1]);
+                    continue;
+                }
+                if (open) {
+                    total += end - start;
+                }
+                start = interval[0];
+                end = interval[1];
+                open = true;
+            }
+            return open ? total + end - start : 0;
+        }
+
+        private static String pad(String text, int width) {
+            StringBuilder sb = new StringBuilder(text);
+            while (sb.length() < width) {
+                sb.append(' ');
+            }
+            return sb.toString();
+        }
     }
 }
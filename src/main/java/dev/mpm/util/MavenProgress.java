@@ -0,0 +1,112 @@
+package dev.mpm.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses Maven's transfer log lines ("Downloading from central: ...",
+ * "Downloaded from central: ... (12 kB at 340 kB/s)") into structured events.
+ */
+public final class MavenProgress {
+
+    private static final Pattern TRANSFER = Pattern.compile(
+            "^(?:\\[INFO\\]\\s+)?(Downloading|Downloaded) from ([^:\\s]+): (\\S+)(?: \\(([\\d.,]+) (B|kB|KB|MB|GB)\\b" +
+            "(?: at ([\\d.,]+) (B|kB|KB|MB|GB)/s)?.*\\))?");
+
+    private MavenProgress() {}
+
+    /**
+     * A download started or finished.
+     */
+    public static final class Event {
+        public final boolean finished;
+        public final String repository;
+        public final String url;
+        /** Size of a finished download in bytes, or -1 when unknown. */
+        public final long bytes;
+        /** Transfer rate Maven reported for a finished download, or -1 when unknown. */
+        public final long bytesPerSecond;
+
+        public Event(boolean finished, String repository, String url, long bytes) {
+            this(finished, repository, url, bytes, -1);
+        }
+
+        public Event(boolean finished, String repository, String url, long bytes, long bytesPerSecond) {
+            this.finished = finished;
+            this.repository = repository;
+            this.url = url;
+            this.bytes = bytes;
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        /**
+         * Gets the file name part of the URL.
+         */
+        public String fileName() {
+            return url.substring(url.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public String toString() {
+            return (finished ? "downloaded " : "downloading ") + url + (bytes >= 0 ? " (" + bytes + " B)" : "");
+        }
+    }
+
+    /**
+     * Parses one line of Maven output.
+     *
+     * @return the event, or null if the line is not a transfer message
+     */
+    public static Event parse(String line) {
+        Matcher matcher = TRANSFER.matcher(line);
+        if (!matcher.find()) {
+            return null;
+        }
+
+        boolean finished = matcher.group(1).equals("Downloaded");
+        long bytes = finished ? amount(matcher.group(4), matcher.group(5)) : -1;
+        long bytesPerSecond = finished ? amount(matcher.group(6), matcher.group(7)) : -1;
+        return new Event(finished, matcher.group(2), matcher.group(3), bytes, bytesPerSecond);
+    }
+
+    /**
+     * Converts "12.5" "kB" to bytes; -1 when absent or unparsable.
+     */
+    private static long amount(String number, String unit) {
+        if (number == null) {
+            return -1;
+        }
+        try {
+            return Math.round(Double.parseDouble(number.replace(",", "")) * unit(unit));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Formats a byte count for display ("840 B", "12.5 kB", "3.1 MB").
+     */
+    public static String formatBytes(long bytes) {
+        if (bytes < 1000) {
+            return bytes + " B";
+        }
+        if (bytes < 1_000_000) {
+            return String.format("%.1f kB", bytes / 1e3);
+        }
+        return String.format("%.1f MB", bytes / 1e6);
+    }
+
+    private static long unit(String unit) {
+        switch (unit) {
+            case "kB":
+            case "KB":
+                return 1_000;
+            case "MB":
+                return 1_000_000;
+            case "GB":
+                return 1_000_000_000;
+            default:
+                return 1;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package dev.mpm.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Locates mpm's own per-user state directory (~/.mpm): history and caches.
+ */
+public final class MpmHome {
+
+    private MpmHome() {}
+
+    /**
+     * Gets the mpm home directory.
+     * Can be overridden with the system property mpm.home.
+     */
+    public static Path root() {
+        String override = System.getProperty("mpm.home");
+        if (override != null && !override.isEmpty()) {
+            return Path.of(override);
+        }
+        return Path.of(System.getProperty("user.home"), ".mpm");
+    }
+
+    /**
+     * Gets a path below the mpm home directory, creating its parent directories.
+     */
+    public static Path resolve(String relativePath) throws IOException {
+        Path path = root().resolve(relativePath);
+        Files.createDirectories(path.getParent());
+        return path;
+    }
+}
@@ -0,0 +1,130 @@
+package dev.mpm.util;
+
+import java.io.IOException;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Strict offline mode: no network call is attempted, lookups are answered from local
+ * caches and the local repository, and Maven runs with -o.
+ *
+ * Enabled with -o/--offline, or detected on first use when the host has no network: on
+ * Linux, no default route in /proc/net/route or /proc/net/ipv6_route; elsewhere, no
+ * non-loopback interface that is up. Either check takes about a millisecond, unlike
+ * waiting out the HTTP connect timeout. -Dmpm.offline.detect=false turns detection off.
+ */
+public final class Offline {
+
+    private static final String IPV4_DEFAULT = "00000000";
+    private static final String IPV6_DEFAULT = "00000000000000000000000000000000 00";
+
+    private static volatile String reason;
+    private static volatile boolean detected;
+
+    private Offline() {}
+
+    /**
+     * Switches to offline mode for the rest of the process.
+     *
+     * @param why shown in error messages, e.g. "--offline"
+     */
+    public static synchronized void enable(String why) {
+        if (reason == null) {
+            reason = why;
+        }
+    }
+
+    /**
+     * Checks whether mpm is offline, detecting a missing network on the first call.
+     */
+    public static boolean isEnabled() {
+        if (!detected) {
+            detect();
+        }
+        return reason != null;
+    }
+
+    /**
+     * Gets why mpm is offline, or null when it is online.
+     */
+    public static String reason() {
+        return isEnabled() ? reason : null;
+    }
+
+    /**
+     * Creates the error for a request that only the network could answer.
+     *
+     * @param what the request, e.g. "download of g/a/v/a-v.pom"
+     */
+    public static IOException unavailable(String what) {
+        return new IOException(what + " needs the network, but mpm is offline (" + reason() + ")");
+    }
+
+    private static synchronized void detect() {
+        if (detected) {
+            return;
+        }
+        detected = true;
+        if (reason != null || "false".equals(System.getProperty("mpm.offline.detect"))) {
+            return;
+        }
+        try {
+            if (!hasDefaultRoute()) {
+                enable("no network route");
+            }
+        } catch (NoSuchFileException e) {
+            if (!hasNetworkInterface()) {
+                enable("no network interface is up");
+            }
+        } catch (IOException e) {
+            // Cannot tell: assume online and let requests fail normally
+        }
+    }
+
+    /**
+     * Reads the kernel routing tables (Linux only).
+     *
+     * @throws NoSuchFileException when /proc/net/route does not exist
+     */
+    private static boolean hasDefaultRoute() throws IOException {
+        List<String> ipv4 = Files.readAllLines(Path.of("/proc/net/route"));
+        for (int i = 1; i < ipv4.size(); i++) {
+            String[] fields = ipv4.get(i).trim().split("\\s+");
+            if (fields.length > 1 && fields[1].equals(IPV4_DEFAULT)) {
+                return true;
+            }
+        }
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/net/ipv6_route"))) {
+                // Skip the loopback interface's catch-all entries
+                if (line.startsWith(IPV6_DEFAULT) && !line.trim().endsWith(" lo")) {
+                    return true;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // IPv6 disabled
+        }
+        return false;
+    }
+
+    private static boolean hasNetworkInterface() {
+        try {
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            while (interfaces != null && interfaces.hasMoreElements()) {
+                NetworkInterface networkInterface = interfaces.nextElement();
+                if (networkInterface.isUp() && !networkInterface.isLoopback() &&
+                        networkInterface.getInetAddresses().hasMoreElements()) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (SocketException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package dev.mpm.util;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Character-at-a-time keyboard input from the controlling terminal.
+ *
+ * Puts the tty into non-canonical, no-echo mode with stty and reads key presses from
+ * /dev/tty. Only available on Unix-like systems with a terminal; callers fall back to
+ * line input when {@link #open()} returns null.
+ */
+public final class Terminal implements AutoCloseable {
+
+    /** Special keys returned by {@link #readKey()}; printable characters are returned as-is. */
+    public static final int KEY_UP = -2;
+    public static final int KEY_DOWN = -3;
+    public static final int KEY_ENTER = -4;
+    public static final int KEY_BACKSPACE = -5;
+    public static final int KEY_ESCAPE = -6;
+    public static final int KEY_EOF = -1;
+
+    /** How long to wait for the rest of an escape sequence before treating ESC as a key. */
+    private static final long ESCAPE_WAIT_MILLIS = 30;
+
+    private final InputStream in;
+    private final String savedState;
+    private final Thread restoreHook;
+    private boolean closed;
+
+    private Terminal(InputStream in, String savedState) {
+        this.in = in;
+        this.savedState = savedState;
+        // Restore the tty even if the JVM is stopped with Ctrl+C
+        this.restoreHook = new Thread(this::restore, "mpm-terminal-restore");
+        Runtime.getRuntime().addShutdownHook(restoreHook);
+    }
+
+    /**
+     * Switches the terminal to raw key input.
+     *
+     * @return the terminal, or null if raw input is not available
+     */
+    public static Terminal open() {
+        if (System.console() == null || System.getProperty("os.name").toLowerCase().contains("win")) {
+            return null;
+        }
+        try {
+            String state = stty("-g").trim();
+            if (state.isEmpty()) {
+                return null;
+            }
+            // Open the tty before going raw, so a failure cannot leave the terminal raw
+            FileInputStream tty = new FileInputStream("/dev/tty");
+            try {
+                stty("-icanon -echo min 1 time 0");
+            } catch (IOException | InterruptedException e) {
+                tty.close();
+                throw e;
+            }
+            return new Terminal(tty, state);
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Blocks until a key is pressed.
+     *
+     * @return a printable character, one of the KEY_ constants, or 0 for keys mpm ignores
+     */
+    public int readKey() throws IOException {
+        int c = in.read();
+        switch (c) {
+            case -1:
+                return KEY_EOF;
+            case '\r':
+            case '\n':
+                return KEY_ENTER;
+            case 127:
+            case 8:
+                return KEY_BACKSPACE;
+            case 16: // Ctrl+P
+                return KEY_UP;
+            case 14: // Ctrl+N
+                return KEY_DOWN;
+            case 3:  // Ctrl+C (if the tty does not turn it into SIGINT)
+            case 4:  // Ctrl+D
+                return KEY_EOF;
+            case 27:
+                return readEscape();
+            default:
+                return c >= 32 && c < 127 ? c : 0;
+        }
+    }
+
+    private int readEscape() throws IOException {
+        if (!waitForInput()) {
+            return KEY_ESCAPE;
+        }
+        int next = in.read();
+        if (next != '[' && next != 'O') {
+            return 0;
+        }
+        int code = in.read();
+        switch (code) {
+            case 'A':
+                return KEY_UP;
+            case 'B':
+                return KEY_DOWN;
+            default:
+                // Swallow the rest of longer sequences (e.g. "ESC [ 3 ~")
+                while (code >= '0' && code <= '9' || code == ';') {
+                    code = in.read();
+                }
+                return 0;
+        }
+    }
+
+    private boolean waitForInput() throws IOException {
+        long deadline = System.nanoTime() + ESCAPE_WAIT_MILLIS * 1_000_000;
+        while (in.available() == 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Restores the terminal settings saved by {@link #open()} and closes /dev/tty.
+     */
+    @Override
+    public void close() {
+        restore();
+        try {
+            Runtime.getRuntime().removeShutdownHook(restoreHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down; the hook restores the tty
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            // Only a descriptor is left to release
+        }
+    }
+
+    private synchronized void restore() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            stty(savedState);
+        } catch (IOException e) {
+            // Nothing left to do; the user can run 'stty sane'
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String stty(String arguments) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("sh", "-c", "stty " + arguments + " < /dev/tty")
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        if (process.waitFor() != 0) {
+            throw new IOException("stty failed: " + output.trim());
+        }
+        return output;
+    }
+}
@@ -0,0 +1,120 @@
+package dev.mpm.util;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Orders version strings the way people read them: numeric parts numerically
+ * (2.17 after 2.9), and pre-release qualifiers (alpha, beta, rc, milestone, SNAPSHOT)
+ * before the release they lead up to.
+ */
+public final class Versions {
+
+    /** Oldest first. */
+    public static final Comparator<String> ORDER = Versions::compare;
+
+    private Versions() {}
+
+    public static int compare(String a, String b) {
+        String[] left = tokens(a);
+        String[] right = tokens(b);
+        int length = Math.max(left.length, right.length);
+
+        for (int i = 0; i < length; i++) {
+            String l = i < left.length ? left[i] : null;
+            String r = i < right.length ? right[i] : null;
+            int result = compareToken(l, r);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Checks whether a version is a pre-release or snapshot.
+     */
+    public static boolean isPreRelease(String version) {
+        for (String token : tokens(version)) {
+            if (!isNumber(token) && qualifierRank(token) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int compareToken(String l, String r) {
+        if (l == null) {
+            // "1.0" vs "1.0-rc1": the release is newer; "1.0" vs "1.0.1": the longer is newer
+            return r == null ? 0 : isNumber(r) ? -1 : -qualifierRank(r);
+        }
+        if (r == null) {
+            return isNumber(l) ? 1 : qualifierRank(l);
+        }
+
+        boolean lNumber = isNumber(l);
+        boolean rNumber = isNumber(r);
+        if (lNumber && rNumber) {
+            return compareNumbers(l, r);
+        }
+        if (lNumber != rNumber) {
+            // Numbers sort after qualifiers: 1.0.1 > 1.0-beta
+            return lNumber ? 1 : -1;
+        }
+        int rank = Integer.compare(qualifierRank(l), qualifierRank(r));
+        return rank != 0 ? rank : l.compareTo(r);
+    }
+
+    /**
+     * Rank of a qualifier relative to a plain release: negative for pre-releases,
+     * positive for post-release markers (sp, or platform tags like jre).
+     */
+    private static int qualifierRank(String qualifier) {
+        if (qualifier.startsWith("alpha") || qualifier.equals("a")) {
+            return -5;
+        }
+        if (qualifier.startsWith("beta") || qualifier.equals("b")) {
+            return -4;
+        }
+        if (qualifier.startsWith("milestone") || qualifier.equals("m")) {
+            return -3;
+        }
+        if (qualifier.startsWith("rc") || qualifier.startsWith("cr") || qualifier.startsWith("preview")) {
+            return -2;
+        }
+        if (qualifier.equals("snapshot")) {
+            return -1;
+        }
+        if (qualifier.equals("ga") || qualifier.equals("final") || qualifier.equals("release")) {
+            return 0;
+        }
+        return 1;
+    }
+
+    private static int compareNumbers(String l, String r) {
+        String a = l.replaceFirst("^0+(?=\\d)", "");
+        String b = r.replaceFirst("^0+(?=\\d)", "");
+        return a.length() != b.length() ? Integer.compare(a.length(), b.length()) : a.compareTo(b);
+    }
+
+    /**
+     * Splits on '.', '-' and '_' and on digit/letter transitions ("rc1" -> "rc", "1").
+     */
+    private static String[] tokens(String version) {
+        String normalized = version.toLowerCase(Locale.ROOT)
+                .replaceAll("(?<=\\d)(?=[a-z])|(?<=[a-z])(?=\\d)", ".");
+        return normalized.split("[.\\-_]+");
+    }
+
+    private static boolean isNumber(String token) {
+        if (token.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
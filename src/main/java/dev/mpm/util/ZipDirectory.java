@@ -0,0 +1,113 @@
+package dev.mpm.util;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Lists the entry names of a ZIP/JAR file by reading only its central directory.
+ *
+ * The tail of the file is memory-mapped to find the end-of-central-directory record,
+ * then the central directory itself is mapped and walked. No local headers are read and
+ * nothing is inflated, so listing a large JAR touches a few kilobytes.
+ */
+public final class ZipDirectory {
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    private ZipDirectory() {}
+
+    /**
+     * Calls the consumer with the name of every entry in the archive.
+     */
+    public static void list(Path file, Consumer<String> names) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < EOCD_SIZE) {
+                throw new IOException("Not a ZIP file: " + file);
+            }
+
+            // The EOCD record is followed by a comment of up to 64 KB
+            long tailStart = Math.max(0, size - EOCD_SIZE - MAX_COMMENT);
+            MappedByteBuffer tail = channel.map(FileChannel.MapMode.READ_ONLY, tailStart, size - tailStart);
+            tail.order(ByteOrder.LITTLE_ENDIAN);
+
+            int eocd = -1;
+            for (int i = tail.limit() - EOCD_SIZE; i >= 0; i--) {
+                if (tail.getInt(i) == EOCD_SIGNATURE) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd < 0) {
+                throw new IOException("No central directory in " + file);
+            }
+
+            long entries = tail.getShort(eocd + 10) & 0xFFFF;
+            long directorySize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+            long directoryOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+
+            // ZIP64: the real values live in a separate record found through the locator
+            if (directoryOffset == 0xFFFFFFFFL || entries == 0xFFFF) {
+                int locator = eocd - 20;
+                if (locator >= 0 && tail.getInt(locator) == ZIP64_LOCATOR_SIGNATURE) {
+                    long zip64Offset = tail.getLong(locator + 8);
+                    if (zip64Offset < 0 || zip64Offset > size - 56) {
+                        throw new IOException("Corrupt ZIP64 record in " + file);
+                    }
+                    MappedByteBuffer zip64 = channel.map(FileChannel.MapMode.READ_ONLY, zip64Offset, 56);
+                    zip64.order(ByteOrder.LITTLE_ENDIAN);
+                    if (zip64.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+                        throw new IOException("Corrupt ZIP64 record in " + file);
+                    }
+                    entries = zip64.getLong(32);
+                    directorySize = zip64.getLong(40);
+                    directoryOffset = zip64.getLong(48);
+                }
+            }
+
+            if (directoryOffset < 0 || directorySize < 0 || directorySize > Integer.MAX_VALUE ||
+                    directoryOffset + directorySize > size) {
+                throw new IOException("Corrupt central directory in " + file);
+            }
+
+            MappedByteBuffer directory = channel.map(FileChannel.MapMode.READ_ONLY, directoryOffset, directorySize);
+            directory.order(ByteOrder.LITTLE_ENDIAN);
+
+            byte[] name = new byte[256];
+            int pos = 0;
+            for (long i = 0; i < entries && pos + 46 <= directorySize; i++) {
+                if (directory.getInt(pos) != CENTRAL_HEADER_SIGNATURE) {
+                    throw new IOException("Corrupt central directory entry in " + file);
+                }
+                int nameLength = directory.getShort(pos + 28) & 0xFFFF;
+                int extraLength = directory.getShort(pos + 30) & 0xFFFF;
+                int commentLength = directory.getShort(pos + 32) & 0xFFFF;
+                // A damaged entry must not send the reads past the directory
+                if (pos + 46 + nameLength > directorySize) {
+                    throw new IOException("Corrupt central directory entry in " + file);
+                }
+
+                if (nameLength > name.length) {
+                    name = new byte[nameLength];
+                }
+                for (int j = 0; j < nameLength; j++) {
+                    name[j] = directory.get(pos + 46 + j);
+                }
+                names.accept(new String(name, 0, nameLength, StandardCharsets.UTF_8));
+
+                pos += 46 + nameLength + extraLength + commentLength;
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package dev.mpm.verify;
+
+import dev.mpm.trace.Trace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Checks files in the local repository against their .sha256/.sha1 sidecars.
+ *
+ * Files are hashed on a fixed pool of workers. The walk hands files over through a
+ * semaphore sized to twice the pool, so at most that many files are queued or in flight:
+ * the disks stay busy without the walk racing ahead and without more concurrent reads
+ * than the pool size. Large files are hashed through memory-mapped windows of the
+ * file, small ones (most POMs) with a single read into a per-thread buffer, which is
+ * cheaper than setting up a mapping.
+ */
+public final class ChecksumVerifier {
+
+    private static final long MAP_THRESHOLD = 256 * 1024;
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+
+    /**
+     * Outcome of checking one file.
+     */
+    public enum Status { OK, MISMATCH, UNREADABLE }
+
+    /**
+     * A file whose contents do not match its sidecar, or that could not be read.
+     */
+    public static final class Failure {
+        public final Path file;
+        public final Status status;
+        public final String algorithm;
+        public final String expected;
+        public final String actual;
+
+        Failure(Path file, Status status, String algorithm, String expected, String actual) {
+            this.file = file;
+            this.status = status;
+            this.algorithm = algorithm;
+            this.expected = expected;
+            this.actual = actual;
+        }
+    }
+
+    private static final ThreadLocal<ByteBuffer> SMALL_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate((int) MAP_THRESHOLD));
+
+    private final int threads;
+    private final ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger verified = new AtomicInteger();
+    private final AtomicInteger unchecked = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * @param threads number of files hashed concurrently
+     */
+    public ChecksumVerifier(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Verifies every artifact file under the given directories.
+     */
+    public void verify(List<Path> directories) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mpm-verify");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore slots = new Semaphore(threads * 2);
+
+        try (Trace.Span span = Trace.span("verify")) {
+            for (Path directory : directories) {
+                if (!Files.isDirectory(directory)) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.walk(directory)) {
+                    for (Path file : (Iterable<Path>) files.filter(ChecksumVerifier::isArtifactFile)::iterator) {
+                        slots.acquire();
+                        executor.execute(() -> {
+                            try {
+                                check(file);
+                            } finally {
+                                slots.release();
+                            }
+                        });
+                    }
+                }
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+            span.set("files", verified.get()).set("bytes", bytes.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks one file against its strongest sidecar; files without a sidecar are only counted.
+     */
+    public void check(Path file) {
+        String algorithm = "SHA-256";
+        Path sidecar = file.resolveSibling(file.getFileName() + ".sha256");
+        if (!Files.exists(sidecar)) {
+            algorithm = "SHA-1";
+            sidecar = file.resolveSibling(file.getFileName() + ".sha1");
+        }
+        if (!Files.exists(sidecar)) {
+            unchecked.incrementAndGet();
+            return;
+        }
+
+        String expected = null;
+        try {
+            expected = readSidecar(sidecar);
+            String actual = hash(file, algorithm);
+            verified.incrementAndGet();
+            if (!actual.equalsIgnoreCase(expected)) {
+                failures.add(new Failure(file, Status.MISMATCH, algorithm, expected, actual));
+            }
+        } catch (IOException e) {
+            failures.add(new Failure(file, Status.UNREADABLE, algorithm, expected, e.getMessage()));
+        }
+    }
+
+    public int verifiedCount() {
+        return verified.get();
+    }
+
+    /**
+     * Gets the number of artifact files that have no checksum sidecar.
+     */
+    public int uncheckedCount() {
+        return unchecked.get();
+    }
+
+    public long bytesHashed() {
+        return bytes.get();
+    }
+
+    public List<Failure> failures() {
+        return new ArrayList<>(failures);
+    }
+
+    /**
+     * Hashes a file and returns the lowercase hex digest.
+     */
+    String hash(Path file, String algorithm) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(algorithm + " not available", e);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= MAP_THRESHOLD) {
+                ByteBuffer buffer = SMALL_BUFFER.get();
+                buffer.clear();
+                while (buffer.position() < size && channel.read(buffer) >= 0) {
+                    // read until the whole file is in the buffer
+                }
+                buffer.flip();
+                digest.update(buffer);
+            } else {
+                for (long position = 0; position < size; position += MAP_WINDOW) {
+                    MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                            Math.min(MAP_WINDOW, size - position));
+                    digest.update(window);
+                }
+            }
+            bytes.addAndGet(size);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Reads a sidecar, which sometimes contains "<hash>  <filename>".
+     */
+    private static String readSidecar(Path sidecar) throws IOException {
+        String content = new String(Files.readAllBytes(sidecar), StandardCharsets.US_ASCII).trim();
+        int space = content.indexOf(' ');
+        return space > 0 ? content.substring(0, space) : content;
+    }
+
+    /**
+     * Artifact files only: not the sidecars themselves, Maven's bookkeeping files or partial downloads.
+     */
+    private static boolean isArtifactFile(Path file) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".sha1") || name.endsWith(".sha256") || name.endsWith(".sha512") ||
+                name.endsWith(".md5") || name.endsWith(".asc") || name.endsWith(".lastUpdated") ||
+                name.endsWith(".part") || name.startsWith("_") || name.startsWith("maven-metadata") ||
+                name.equals("resolver-status.properties")) {
+            return false;
+        }
+        return Files.isRegularFile(file);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
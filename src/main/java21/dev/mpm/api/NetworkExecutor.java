@@ -0,0 +1,34 @@
+package dev.mpm.api;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors for blocking network fan-out (parallel lookups and downloads).
+ *
+ * This is the Java 21 version, packaged under META-INF/versions/21: every task runs on
+ * its own virtual thread, so blocking HTTP calls park instead of holding a platform
+ * thread. Callers that must cap concurrency towards a server do so themselves
+ * (RateLimiter for the search API, a semaphore for downloads), not through the pool size.
+ */
+public final class NetworkExecutor {
+
+    private NetworkExecutor() {}
+
+    /**
+     * Checks whether tasks run on virtual threads.
+     */
+    public static boolean usesVirtualThreads() {
+        return true;
+    }
+
+    /**
+     * Creates an executor for blocking network calls. Shut it down when done.
+     *
+     * @param name            thread name prefix
+     * @param platformThreads pool size on Java 11-20; ignored here
+     */
+    public static ExecutorService create(String name, int platformThreads) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+    }
+}